@@ -56,6 +56,9 @@ fi
 echo "📝 Creating Kafka topics..."
 docker exec tech-test-kafka kafka-topics --bootstrap-server localhost:9092 --create --if-not-exists --topic tech-test-topic --partitions 3 --replication-factor 1
 docker exec tech-test-kafka kafka-topics --bootstrap-server localhost:9092 --create --if-not-exists --topic transactions --partitions 3 --replication-factor 1
+for retry_topic in transactions.retry.5s transactions.retry.1m transactions.retry.10m transactions.dlq; do
+    docker exec tech-test-kafka kafka-topics --bootstrap-server localhost:9092 --create --if-not-exists --topic $retry_topic --partitions 3 --replication-factor 1
+done
 
 echo "📋 Created topics:"
 docker exec tech-test-kafka kafka-topics --bootstrap-server localhost:9092 --list
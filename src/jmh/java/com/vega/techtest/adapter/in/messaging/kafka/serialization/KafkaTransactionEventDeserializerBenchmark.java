@@ -0,0 +1,86 @@
+package com.vega.techtest.adapter.in.messaging.kafka.serialization;
+
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.adapter.in.messaging.kafka.mapper.KafkaEventMapper;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link KafkaTransactionEventDeserializer} with the {@link JsonDeserializer} and
+ * {@link KafkaEventMapper} pipeline it replaces, from message bytes to {@link CreateTransactionCommand}.
+ * Run with the gc profiler (configured in build.gradle) to see allocation per operation alongside
+ * throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KafkaTransactionEventDeserializerBenchmark {
+
+    private static final String TOPIC = "transactions";
+
+    @Param({"1", "8", "50"})
+    private int itemCount;
+
+    private final KafkaTransactionEventDeserializer typedDeserializer = new KafkaTransactionEventDeserializer();
+    private final KafkaEventMapper mapper = new KafkaEventMapper();
+    private JsonDeserializer<KafkaTransactionEvent> jsonDeserializer;
+    private byte[] message;
+
+    @Setup
+    public void setUp() {
+        jsonDeserializer = new JsonDeserializer<>(KafkaTransactionEvent.class);
+        jsonDeserializer.addTrustedPackages("com.vega.techtest.*");
+        jsonDeserializer.setUseTypeHeaders(false);
+
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < itemCount; i++) {
+            if (i > 0) {
+                items.append(',');
+            }
+            items.append("""
+                    {"productName": "Product %d", "productCode": "CODE-%d", "unitPrice": %d.%02d, \
+                    "quantity": %d, "category": "Grocery"}""".formatted(i, i, 1 + i % 7, (i * 37) % 100, 1 + i % 3));
+        }
+        message = """
+                {
+                  "eventId": "0b7e7c1e-6a3c-4f7e-9d2b-3f1f9a0c2d4e",
+                  "eventType": "TRANSACTION_CREATED",
+                  "eventTimestamp": "2025-06-27T12:00:00.000Z",
+                  "source": "till-system",
+                  "version": "1.0",
+                  "data": {
+                    "transactionId": "TXN-5f0c2a8e-1d3b-4c6a-8e7f-9a0b1c2d3e4f",
+                    "customerId": "CUST-12345",
+                    "storeId": "STORE-001",
+                    "tillId": "TILL-1",
+                    "paymentMethod": "card",
+                    "totalAmount": 25.50,
+                    "currency": "GBP",
+                    "timestamp": "2025-06-27T12:00:00.000Z",
+                    "items": [%s]
+                  }
+                }
+                """.formatted(items).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CreateTransactionCommand typedStreaming() {
+        return mapper.toCommand(typedDeserializer.deserialize(TOPIC, message));
+    }
+
+    @Benchmark
+    public CreateTransactionCommand jsonDeserializerAndMapper() {
+        return mapper.toCommand(jsonDeserializer.deserialize(TOPIC, message));
+    }
+}
@@ -0,0 +1,120 @@
+package com.vega.techtest.domain.transaction.validator;
+
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.model.TransactionItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link TransactionValidator#validateTransactionCommand} with the stream-based
+ * implementation it replaced. Run with the gc profiler (configured in build.gradle) to see
+ * allocation per operation alongside throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionValidatorBenchmark {
+
+    @Param({"1", "8", "50"})
+    private int itemCount;
+
+    private final TransactionValidator validator = new TransactionValidator();
+    private CreateTransactionCommand command;
+
+    @Setup
+    public void setUp() {
+        List<TransactionItem> items = new ArrayList<>(itemCount);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            BigDecimal unitPrice = BigDecimal.valueOf(100 + i * 37L, 2);
+            int quantity = 1 + i % 3;
+            items.add(new TransactionItem("Product " + i, "CODE-" + i, unitPrice, quantity, "Grocery"));
+            total = total.add(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+        }
+        command = new CreateTransactionCommand(
+                "TXN-" + UUID.randomUUID(),
+                "CUST-001",
+                "STORE-001",
+                "TILL-001",
+                "card",
+                total,
+                "GBP",
+                Instant.now(),
+                items
+        );
+    }
+
+    @Benchmark
+    public CreateTransactionCommand singlePass() {
+        validator.validateTransactionCommand(command);
+        return command;
+    }
+
+    @Benchmark
+    public CreateTransactionCommand streamBaseline() {
+        StreamBaseline.validate(command);
+        return command;
+    }
+
+    /**
+     * The previous implementation: trims each field, parses the UUID, walks the items once to
+     * validate them and again with a stream to sum them in BigDecimal.
+     */
+    static final class StreamBaseline {
+
+        static void validate(CreateTransactionCommand command) {
+            if (command.transactionId() != null && !command.transactionId().trim().isEmpty()) {
+                String trimmedId = command.transactionId().trim();
+                if (!trimmedId.startsWith("TXN-")) {
+                    throw new IllegalArgumentException("Transaction ID must start with 'TXN-'");
+                }
+                UUID.fromString(trimmedId.substring(4));
+            }
+            if (command.storeId() == null || command.storeId().trim().isEmpty()) {
+                throw new IllegalArgumentException("Store ID is required");
+            }
+            if (command.tillId() == null || command.tillId().trim().isEmpty()) {
+                throw new IllegalArgumentException("Till ID is required");
+            }
+            if (command.paymentMethod() == null || command.paymentMethod().trim().isEmpty()) {
+                throw new IllegalArgumentException("Payment method is required");
+            }
+            if (command.totalAmount() == null || command.totalAmount().compareTo(new BigDecimal("0.01")) < 0) {
+                throw new IllegalArgumentException("Total amount must be greater than zero");
+            }
+
+            for (int i = 0; i < command.items().size(); i++) {
+                var item = command.items().get(i);
+                if (item == null || item.unitPrice() == null || item.quantity() == null) {
+                    throw new IllegalArgumentException("Item at index " + i + " is incomplete");
+                }
+                if (item.unitPrice().compareTo(BigDecimal.ZERO) < 0 || item.quantity() <= 0) {
+                    throw new IllegalArgumentException("Item at index " + i + " is invalid");
+                }
+            }
+
+            BigDecimal calculatedTotal = command.items().stream()
+                    .map(item -> item.unitPrice().multiply(BigDecimal.valueOf(item.quantity())))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            if (calculatedTotal.compareTo(command.totalAmount()) != 0) {
+                throw new IllegalStateException("Receipt total mismatch");
+            }
+        }
+
+        private StreamBaseline() {
+        }
+    }
+}
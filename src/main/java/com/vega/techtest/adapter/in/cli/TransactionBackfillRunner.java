@@ -0,0 +1,97 @@
+package com.vega.techtest.adapter.in.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vega.techtest.adapter.in.rest.mapper.TransactionRequestMapper;
+import com.vega.techtest.adapter.in.rest.ndjson.TransactionNdjsonReader;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.service.TransactionBackfillService;
+import com.vega.techtest.domain.transaction.service.TransactionBackfillService.BackfillResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backfills historical transactions from an NDJSON file at startup, in the same record format as
+ * {@code POST /api/transactions/bulk}:
+ * <pre>
+ * java -jar app.jar --spring.main.web-application-type=none --transaction.backfill.file=/data/2024-q1.ndjson
+ * </pre>
+ * The file is streamed and loaded in chunks of {@code transaction.backfill.chunk-size} with COPY.
+ * Each chunk commits on its own and already-loaded rows are skipped, so a failed run can simply be
+ * repeated. Unless {@code transaction.backfill.exit-when-done=false}, the application exits once the
+ * file has been loaded.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transaction.backfill.file")
+public class TransactionBackfillRunner implements ApplicationRunner {
+
+    private final TransactionBackfillService backfillService;
+    private final TransactionRequestMapper transactionRequestMapper;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext applicationContext;
+
+    @Value("${transaction.backfill.file}")
+    private Path file;
+
+    @Value("${transaction.backfill.chunk-size:10000}")
+    private int chunkSize;
+
+    @Value("${transaction.backfill.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        log.info("Starting transaction backfill from {} in chunks of {}", file, chunkSize);
+        long started = System.nanoTime();
+
+        BackfillResult total = BackfillResult.EMPTY;
+        int unreadable = 0;
+        List<CreateTransactionCommand> chunk = new ArrayList<>(chunkSize);
+
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file));
+             TransactionNdjsonReader reader = new TransactionNdjsonReader(objectMapper, input)) {
+            TransactionNdjsonReader.Record record;
+            while ((record = reader.next()) != null) {
+                if (!record.isValid()) {
+                    log.warn("Skipping unreadable backfill record {}: {}", record.index(), record.error());
+                    unreadable++;
+                    continue;
+                }
+                chunk.add(transactionRequestMapper.toCommand(record.request()));
+                if (chunk.size() >= chunkSize) {
+                    total = total.plus(backfillService.backfill(chunk));
+                    chunk.clear();
+                    log.info("Backfill progress: {} records read, {} transactions loaded",
+                            reader.nextIndex(), total.loaded());
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            total = total.plus(backfillService.backfill(chunk));
+        }
+
+        log.info("Transaction backfill from {} finished in {} s - Loaded: {} ({} items), Duplicates: {}, "
+                        + "Rejected: {}, Unreadable: {}",
+                file, (System.nanoTime() - started) / 1_000_000_000, total.loaded(), total.items(),
+                total.duplicates(), total.rejected(), unreadable);
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+}
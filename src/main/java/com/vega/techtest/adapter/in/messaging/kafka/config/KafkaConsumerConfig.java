@@ -1,26 +1,55 @@
 package com.vega.techtest.adapter.in.messaging.kafka.config;
 
+import com.vega.techtest.adapter.in.messaging.kafka.consumer.TransactionKafkaConsumer;
 import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.adapter.in.messaging.kafka.serialization.KafkaTransactionEventDeserializer;
+import com.vega.techtest.adapter.in.messaging.kafka.service.RetryTopicPublisher;
+import com.vega.techtest.adapter.in.messaging.kafka.service.RetryTopicPublisher.RetryTier;
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.config.MethodKafkaListenerEndpoint;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.util.ReflectionUtils;
 
+import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Kafka consumer configuration for transaction events.
  * Configures manual acknowledgment mode for fine-grained control.
+ * With {@code kafka.consumer.batch.enabled=true} events are consumed through the batch container
+ * factory, one poll of up to {@code kafka.consumer.max-poll-records} events at a time.
+ * With {@code kafka.consumer.typed-deserializer=true} message values are parsed by
+ * {@link KafkaTransactionEventDeserializer} instead of the generic {@link JsonDeserializer}.
+ * Each container runs {@code kafka.consumer.concurrency} consumers; with
+ * {@code kafka.consumer.parallel.enabled=true} record mode acknowledges asynchronously from the
+ * per-till lanes of {@code KeyedEventDispatcher}.
+ * With {@code kafka.retry.enabled=true} a listener container is registered for every retry topic of
+ * {@link RetryTopicPublisher}, so that waiting for one tier's delay never holds up another tier.
  */
 @Configuration
-public class KafkaConsumerConfig {
+@RequiredArgsConstructor
+public class KafkaConsumerConfig implements KafkaListenerConfigurer {
+
+    private final RetryTopicPublisher retryTopicPublisher;
+    // Looked up when the listeners are registered; the consumer's own listeners need this configuration first
+    private final ObjectProvider<TransactionKafkaConsumer> transactionKafkaConsumer;
 
     @Value("${kafka.bootstrap-servers}")
     private String bootstrapServers;
@@ -31,6 +60,18 @@ public class KafkaConsumerConfig {
     @Value("${kafka.consumer.auto-offset-reset}")
     private String autoOffsetReset;
 
+    @Value("${kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${kafka.consumer.typed-deserializer:false}")
+    private boolean typedDeserializer;
+
+    @Value("${kafka.consumer.concurrency:1}")
+    private int concurrency;
+
+    @Value("${kafka.consumer.parallel.enabled:false}")
+    private boolean parallel;
+
     @Bean
     public ConsumerFactory<String, KafkaTransactionEvent> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -38,31 +79,100 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false); // Manual acknowledgment
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
 
-        // Configure JsonDeserializer
-        JsonDeserializer<KafkaTransactionEvent> jsonDeserializer = new JsonDeserializer<>(KafkaTransactionEvent.class);
-        jsonDeserializer.addTrustedPackages("com.vega.techtest.*");
-        jsonDeserializer.setRemoveTypeHeaders(false);
-        jsonDeserializer.setUseTypeMapperForKey(false);
+        Deserializer<KafkaTransactionEvent> valueDeserializer;
+        if (typedDeserializer) {
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, KafkaTransactionEventDeserializer.class);
+            valueDeserializer = new KafkaTransactionEventDeserializer();
+        } else {
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+            valueDeserializer = jsonDeserializer();
+        }
 
         return new DefaultKafkaConsumerFactory<>(
                 props,
                 new StringDeserializer(),
-                jsonDeserializer
+                valueDeserializer
         );
     }
 
+    /**
+     * The generic deserializer, which binds the event data to a Map for {@code KafkaEventMapper}.
+     */
+    static JsonDeserializer<KafkaTransactionEvent> jsonDeserializer() {
+        JsonDeserializer<KafkaTransactionEvent> jsonDeserializer = new JsonDeserializer<>(KafkaTransactionEvent.class);
+        jsonDeserializer.addTrustedPackages("com.vega.techtest.*");
+        jsonDeserializer.setRemoveTypeHeaders(false);
+        jsonDeserializer.setUseTypeMapperForKey(false);
+        return jsonDeserializer;
+    }
+
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, KafkaTransactionEvent> kafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, KafkaTransactionEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
 
         // Enable manual acknowledgment
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
 
+        // Lanes acknowledge out of order; commits wait for gaps to fill and the consumer pauses meanwhile
+        factory.getContainerProperties().setAsyncAcks(parallel);
+
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaTransactionEvent> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaTransactionEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(true);
+
+        // One acknowledgment commits the offsets of the whole poll
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaTransactionEvent> retryKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaTransactionEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+
+        // Records that are not due yet are nacked, which needs synchronous manual acks
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
         return factory;
     }
+
+    @Override
+    public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+        if (!retryTopicPublisher.isEnabled()) {
+            return;
+        }
+
+        DefaultMessageHandlerMethodFactory handlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        handlerMethodFactory.afterPropertiesSet();
+        Method consumeRetry = ReflectionUtils.findMethod(TransactionKafkaConsumer.class, "consumeRetry",
+                ConsumerRecord.class, Acknowledgment.class);
+
+        TransactionKafkaConsumer consumer = transactionKafkaConsumer.getObject();
+        for (RetryTier tier : retryTopicPublisher.tiers()) {
+            MethodKafkaListenerEndpoint<String, KafkaTransactionEvent> endpoint = new MethodKafkaListenerEndpoint<>();
+            endpoint.setId(tier.topic());
+            endpoint.setGroupId(groupId);
+            endpoint.setTopics(tier.topic());
+            endpoint.setBean(consumer);
+            endpoint.setMethod(consumeRetry);
+            endpoint.setMessageHandlerMethodFactory(handlerMethodFactory);
+            registrar.registerEndpoint(endpoint, retryKafkaListenerContainerFactory());
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.vega.techtest.adapter.in.messaging.kafka.config;
 
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,8 +29,41 @@ public class KafkaProducerConfig {
     @Value("${kafka.producer.enable-idempotence}")
     private Boolean enableIdempotence;
 
+    @Value("${kafka.producer.dlq.linger-ms:50}")
+    private Integer dlqLingerMs;
+
+    @Value("${kafka.producer.dlq.batch-size:262144}")
+    private Integer dlqBatchSize;
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerProps());
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+
+    /**
+     * Producer for DLQ records. Nothing waits for them, so they are allowed to linger and go out in
+     * larger batches during bursts of rejected events.
+     */
+    @Bean
+    public ProducerFactory<String, KafkaTransactionEvent> deadLetterProducerFactory() {
+        Map<String, Object> props = producerProps();
+        props.put(ProducerConfig.LINGER_MS_CONFIG, dlqLingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, dlqBatchSize);
+
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, KafkaTransactionEvent> deadLetterKafkaTemplate() {
+        return new KafkaTemplate<>(deadLetterProducerFactory());
+    }
+
+    private Map<String, Object> producerProps() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
@@ -37,12 +71,6 @@ public class KafkaProducerConfig {
         props.put(ProducerConfig.ACKS_CONFIG, acks);
         props.put(ProducerConfig.RETRIES_CONFIG, retries);
         props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
-
-        return new DefaultKafkaProducerFactory<>(props);
-    }
-
-    @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        return props;
     }
 }
@@ -0,0 +1,143 @@
+package com.vega.techtest.adapter.in.messaging.kafka.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pauses Kafka consumption while the database is saturated, enabled with
+ * {@code kafka.consumer.backpressure.enabled}.
+ * <p>
+ * Every {@code check-interval-ms} the number of threads waiting for a Hikari connection and the
+ * average duration of {@code TransactionService} writes since the previous check are compared with
+ * the pause thresholds. Once either is exceeded every listener container is paused: the consumers
+ * keep polling, so the group does not rebalance, but no new records are handed to the listeners.
+ * Consumption resumes once both signals are back under the lower resume thresholds.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaBackpressureController {
+
+    static final String PENDING_CONNECTIONS_METRIC = "hikaricp.connections.pending";
+    static final String WRITE_DURATION_METRIC = "transaction_write_duration";
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kafka.consumer.backpressure.enabled:false}")
+    private boolean enabled;
+
+    @Value("${kafka.consumer.backpressure.check-interval-ms:1000}")
+    private long checkIntervalMs;
+
+    @Value("${kafka.consumer.backpressure.pause-pending-connections:5}")
+    private double pausePendingConnections;
+
+    @Value("${kafka.consumer.backpressure.pause-write-latency-ms:1000}")
+    private double pauseWriteLatencyMs;
+
+    @Value("${kafka.consumer.backpressure.resume-pending-connections:0}")
+    private double resumePendingConnections;
+
+    @Value("${kafka.consumer.backpressure.resume-write-latency-ms:250}")
+    private double resumeWriteLatencyMs;
+
+    private ScheduledExecutorService scheduler;
+    private Counter pauseCounter;
+    private volatile boolean paused;
+    private long lastWriteCount;
+    private double lastWriteTotalMs;
+
+    @PostConstruct
+    void start() {
+        Gauge.builder("kafka_consumer_backpressure_paused", this, controller -> controller.paused ? 1 : 0)
+                .description("1 while Kafka consumption is paused because the database is saturated")
+                .register(meterRegistry);
+        pauseCounter = Counter.builder("kafka_consumer_backpressure_pauses_total")
+                .description("Times Kafka consumption was paused because the database was saturated")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                runnable -> new Thread(runnable, "kafka-backpressure-controller"));
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Kafka backpressure enabled: pause at {} pending connections or {} ms writes",
+                pausePendingConnections, pauseWriteLatencyMs);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    void check() {
+        try {
+            double pendingConnections = pendingConnections();
+            double writeLatencyMs = recentWriteLatencyMs();
+
+            if (!paused && (pendingConnections >= pausePendingConnections || writeLatencyMs >= pauseWriteLatencyMs)) {
+                log.warn("Database saturated ({} pending connections, {} ms average write) - Pausing Kafka consumption",
+                        pendingConnections, Math.round(writeLatencyMs));
+                listenerRegistry.getListenerContainers().forEach(MessageListenerContainer::pause);
+                paused = true;
+                pauseCounter.increment();
+            } else if (paused && pendingConnections <= resumePendingConnections
+                    && writeLatencyMs <= resumeWriteLatencyMs) {
+                log.info("Database recovered ({} pending connections, {} ms average write) - Resuming Kafka consumption",
+                        pendingConnections, Math.round(writeLatencyMs));
+                listenerRegistry.getListenerContainers().forEach(MessageListenerContainer::resume);
+                paused = false;
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next check tries again
+            log.warn("Kafka backpressure check failed", e);
+        }
+    }
+
+    private double pendingConnections() {
+        return meterRegistry.find(PENDING_CONNECTIONS_METRIC).gauges().stream()
+                .mapToDouble(Gauge::value)
+                .sum();
+    }
+
+    /**
+     * Average write duration since the previous check; 0 when nothing was written in between.
+     */
+    private double recentWriteLatencyMs() {
+        Timer timer = meterRegistry.find(WRITE_DURATION_METRIC).timer();
+        if (timer == null) {
+            return 0;
+        }
+
+        long count = timer.count();
+        double totalMs = timer.totalTime(TimeUnit.MILLISECONDS);
+        long writes = count - lastWriteCount;
+        double writeMs = totalMs - lastWriteTotalMs;
+        lastWriteCount = count;
+        lastWriteTotalMs = totalMs;
+        return writes > 0 ? writeMs / writes : 0;
+    }
+}
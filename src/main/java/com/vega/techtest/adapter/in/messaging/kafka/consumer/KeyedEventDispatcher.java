@@ -0,0 +1,87 @@
+package com.vega.techtest.adapter.in.messaging.kafka.consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans Kafka events out to a fixed set of single-threaded lanes, enabled with
+ * {@code kafka.consumer.parallel.enabled=true}. Tasks with the same key always run on the same lane,
+ * in the order they were dispatched, so events of one till stay in order while different tills are
+ * processed in parallel, beyond the number of partitions a consumer owns.
+ * <p>
+ * When disabled, tasks run on the calling consumer thread.
+ */
+@Component
+@Slf4j
+public class KeyedEventDispatcher {
+
+    @Value("${kafka.consumer.parallel.enabled:false}")
+    private boolean enabled;
+
+    @Value("${kafka.consumer.parallel.lanes:16}")
+    private int laneCount;
+
+    private ExecutorService[] lanes;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "kafka-event-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, name));
+        }
+        log.info("Parallel Kafka event processing started with {} lanes", laneCount);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (lanes == null) {
+            return;
+        }
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                // Unacknowledged events are redelivered and deduplicated by the idempotency ledger
+                lane.shutdownNow();
+            }
+        }
+    }
+
+    public boolean isParallel() {
+        return enabled;
+    }
+
+    /**
+     * Runs the task on the lane for the key, or on the calling thread when parallel processing is
+     * disabled. A null key is allowed and always maps to the same lane.
+     */
+    public void dispatch(String key, Runnable task) {
+        if (!enabled) {
+            task.run();
+            return;
+        }
+        lanes[laneFor(key)].execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Unhandled error in Kafka event lane for key {}", key, e);
+            }
+        });
+    }
+
+    int laneFor(String key) {
+        return key == null ? 0 : Math.floorMod(key.hashCode(), laneCount);
+    }
+}
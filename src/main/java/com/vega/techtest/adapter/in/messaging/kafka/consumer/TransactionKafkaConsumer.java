@@ -2,18 +2,29 @@ package com.vega.techtest.adapter.in.messaging.kafka.consumer;
 
 import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
 import com.vega.techtest.adapter.in.messaging.kafka.exception.DuplicateEventException;
+import com.vega.techtest.adapter.in.messaging.kafka.exception.EventProcessingException;
 import com.vega.techtest.adapter.in.messaging.kafka.service.DeadLetterQueuePublisher;
 import com.vega.techtest.adapter.in.messaging.kafka.service.KafkaMessageProcessor;
+import com.vega.techtest.adapter.in.messaging.kafka.service.KafkaMessageProcessor.EventOutcome;
+import com.vega.techtest.adapter.in.messaging.kafka.service.RetryTopicPublisher;
+import com.vega.techtest.adapter.in.messaging.kafka.service.RetryTopicPublisher.RetryState;
 import com.vega.techtest.application.transaction.command.TransactionResult;
 import com.vega.techtest.domain.transaction.exception.ReceiptTotalMismatchException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 @Component
 @Slf4j
 @RequiredArgsConstructor
@@ -21,11 +32,29 @@ public class TransactionKafkaConsumer {
 
     private final KafkaMessageProcessor messageProcessor;
     private final DeadLetterQueuePublisher deadLetterQueuePublisher;
+    private final KeyedEventDispatcher dispatcher;
+    private final RetryTopicPublisher retryTopicPublisher;
+
+    @Value("${kafka.consumer.parallel.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${kafka.consumer.parallel.initial-backoff-ms:500}")
+    private long initialBackoffMs;
 
+    @Value("${kafka.consumer.parallel.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    /**
+     * Record mode listener. With {@code kafka.consumer.parallel.enabled} the event is handed to the
+     * {@link KeyedEventDispatcher} lane of its till and acknowledged from there; the container commits
+     * offsets only once every earlier record of the partition has been acknowledged, and pauses the
+     * consumer until the previous poll has been fully processed.
+     */
     @KafkaListener(
             topics = "${kafka.topic.transactions}",
             groupId = "${kafka.consumer.group-id}",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{!${kafka.consumer.batch.enabled:false}}"
     )
     public void consume(
             KafkaTransactionEvent event,
@@ -37,6 +66,42 @@ public class TransactionKafkaConsumer {
         log.info("Received Kafka message - Topic: {}, Partition: {}, Offset: {}, EventID: {}",
                 topic, partition, offset, event.eventId());
 
+        if (dispatcher.isParallel()) {
+            dispatcher.dispatch(tillKey(event), () -> handleInLane(event, acknowledgment, topic, partition, offset));
+        } else {
+            handle(event, acknowledgment, topic, partition, offset, 1);
+        }
+    }
+
+    /**
+     * Retry topic listener, registered once per tier by {@code KafkaConsumerConfig} so that every tier
+     * has its own consumer. A record that is not due yet is nacked for the remaining delay, which
+     * pauses this tier's consumer and redelivers the record afterwards; the records behind it were
+     * published later with the same delay, so they are not due either.
+     */
+    public void consumeRetry(ConsumerRecord<String, KafkaTransactionEvent> record, Acknowledgment acknowledgment) {
+        RetryState state = RetryState.of(record);
+        long remainingMs = state.dueAt() - System.currentTimeMillis();
+        if (remainingMs > 0) {
+            acknowledgment.nack(Duration.ofMillis(remainingMs));
+            return;
+        }
+
+        KafkaTransactionEvent event = record.value();
+        if (event == null) {
+            log.warn("Skipping empty Kafka message - Topic: {}, Partition: {}, Offset: {}",
+                    record.topic(), record.partition(), record.offset());
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        log.info("Retrying event: {} from topic: {} - Attempt {}", event.eventId(), record.topic(), state.attempts() + 1);
+        handle(event, acknowledgment, state.originalTopic(), state.originalPartition(), state.originalOffset(),
+                state.attempts() + 1);
+    }
+
+    private void handle(KafkaTransactionEvent event, Acknowledgment acknowledgment,
+                        String topic, int partition, long offset, int attempt) {
         try {
             TransactionResult result = messageProcessor.process(event);
 
@@ -82,8 +147,138 @@ public class TransactionKafkaConsumer {
             }
 
         } catch (Exception e) {
-            log.error("Processing error for event: {} - Message will be retried", event.eventId(), e);
-            throw e;
+            if (!retryTopicPublisher.isEnabled()) {
+                log.error("Processing error for event: {} - Message will be retried", event.eventId(), e);
+                throw e;
+            }
+
+            log.error("Processing error for event: {} - Sent to retry topic", event.eventId(), e);
+            retryTopicPublisher.publishForRetry(event, e, attempt, topic, partition, offset);
+
+            if (acknowledgment != null) {
+                acknowledgment.acknowledge();
+            }
+        }
+    }
+
+    /**
+     * Lane threads cannot hand a failure back to the container for redelivery, so retriable failures
+     * are retried here with exponential backoff, which also holds back later events of the same till.
+     * After {@code kafka.consumer.parallel.max-attempts} the event goes to the DLQ and is acknowledged.
+     * With retry topics enabled the event is forwarded to the first retry topic instead and only a
+     * failure to send it is retried here.
+     */
+    private void handleInLane(KafkaTransactionEvent event, Acknowledgment acknowledgment,
+                              String topic, int partition, long offset) {
+        long backoffMs = initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                handle(event, acknowledgment, topic, partition, offset, 1);
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Giving up on event: {} after {} attempts - Sent to DLQ", event.eventId(), attempt);
+                    deadLetterQueuePublisher.publishToDeadLetterQueue(event, e, topic, partition, offset);
+                    acknowledgment.acknowledge();
+                    return;
+                }
+                log.warn("Attempt {} for event: {} failed, retrying in {} ms", attempt, event.eventId(), backoffMs);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    // Shutting down; the unacknowledged event is redelivered after restart
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    /**
+     * Events of the same till share a lane; falls back to the event ID when the till is unknown.
+     */
+    static String tillKey(KafkaTransactionEvent event) {
+        Object storeId;
+        Object tillId;
+        if (event.isTyped()) {
+            storeId = event.command().storeId();
+            tillId = event.command().tillId();
+        } else if (event.data() != null) {
+            Map<String, Object> data = event.data();
+            storeId = data.get("storeId");
+            tillId = data.get("tillId");
+        } else {
+            return event.eventId();
+        }
+        if (storeId == null && tillId == null) {
+            return event.eventId();
+        }
+        return storeId + "/" + tillId;
+    }
+
+    /**
+     * Batch mode listener, started instead of {@link #consume} when {@code kafka.consumer.batch.enabled}
+     * is set. Every event of the poll is processed together and a single acknowledgment commits the
+     * whole poll once rejected events have been sent to the DLQ. Retriable failures propagate without
+     * acknowledging so that the poll is redelivered, or with retry topics enabled every event of the
+     * poll is sent to the first retry topic.
+     */
+    @KafkaListener(
+            topics = "${kafka.topic.transactions}",
+            groupId = "${kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${kafka.consumer.batch.enabled:false}"
+    )
+    public void consumeBatch(
+            List<ConsumerRecord<String, KafkaTransactionEvent>> records,
+            Acknowledgment acknowledgment
+    ) {
+        log.info("Received batch of {} Kafka messages", records.size());
+
+        List<ConsumerRecord<String, KafkaTransactionEvent>> eventRecords = new ArrayList<>(records.size());
+        List<KafkaTransactionEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, KafkaTransactionEvent> record : records) {
+            if (record.value() == null) {
+                log.warn("Skipping empty Kafka message - Topic: {}, Partition: {}, Offset: {}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            eventRecords.add(record);
+            events.add(record.value());
         }
+
+        if (!events.isEmpty()) {
+            List<EventOutcome> outcomes;
+            try {
+                outcomes = messageProcessor.processBatch(events);
+            } catch (EventProcessingException e) {
+                if (!retryTopicPublisher.isEnabled()) {
+                    throw e;
+                }
+                log.error("Processing error for batch of {} events - Sent to retry topic", events.size(), e);
+                for (ConsumerRecord<String, KafkaTransactionEvent> record : eventRecords) {
+                    retryTopicPublisher.publishForRetry(record.value(), e, 1,
+                            record.topic(), record.partition(), record.offset());
+                }
+                outcomes = List.of();
+            }
+            for (int i = 0; i < outcomes.size(); i++) {
+                EventOutcome outcome = outcomes.get(i);
+                if (outcome.status() == EventOutcome.Status.REJECTED) {
+                    ConsumerRecord<String, KafkaTransactionEvent> record = eventRecords.get(i);
+                    log.error("Rejected event: {} - Sent to DLQ. Reason: {}",
+                            outcome.event().eventId(), outcome.error().getMessage());
+                    deadLetterQueuePublisher.publishToDeadLetterQueue(outcome.event(), outcome.error(),
+                            record.topic(), record.partition(), record.offset());
+                }
+            }
+        }
+
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+        }
+
+        log.info("Successfully processed and acknowledged batch of {} Kafka messages", records.size());
     }
 }
@@ -1,13 +1,19 @@
 package com.vega.techtest.adapter.in.messaging.kafka.dto;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
 
 import java.util.Map;
 
 /**
  * Kafka transaction event message format.
  * The data field is a generic Map to allow candidates to parse it themselves.
+ * <p>
+ * Events read by {@code KafkaTransactionEventDeserializer} carry the data already parsed into
+ * {@link #command()} and leave {@link #data()} null; {@link #payload()} keeps the original message
+ * bytes so that the full envelope can still be rebuilt for the DLQ.
  */
 public record KafkaTransactionEvent(
         @JsonProperty("eventId") String eventId,
@@ -15,9 +21,27 @@ public record KafkaTransactionEvent(
         @JsonProperty("eventTimestamp") String eventTimestamp,
         @JsonProperty("source") String source,
         @JsonProperty("version") String version,
-        @JsonProperty("data") Map<String, Object> data
+        @JsonProperty("data") Map<String, Object> data,
+        @JsonIgnore CreateTransactionCommand command,
+        @JsonIgnore byte[] payload
 ) {
     @JsonCreator
-    public KafkaTransactionEvent {
+    public KafkaTransactionEvent(
+            @JsonProperty("eventId") String eventId,
+            @JsonProperty("eventType") String eventType,
+            @JsonProperty("eventTimestamp") String eventTimestamp,
+            @JsonProperty("source") String source,
+            @JsonProperty("version") String version,
+            @JsonProperty("data") Map<String, Object> data
+    ) {
+        this(eventId, eventType, eventTimestamp, source, version, data, null, null);
+    }
+
+    /**
+     * True if the data has been parsed into {@link #command()} rather than {@link #data()}.
+     */
+    @JsonIgnore
+    public boolean isTyped() {
+        return command != null;
     }
 }
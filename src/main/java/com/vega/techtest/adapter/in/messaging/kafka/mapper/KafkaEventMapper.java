@@ -22,8 +22,13 @@ public class KafkaEventMapper {
 
     /**
      * Maps KafkaTransactionEvent to CreateTransactionCommand.
+     * Events from KafkaTransactionEventDeserializer already carry the command.
      */
     public CreateTransactionCommand toCommand(KafkaTransactionEvent event) {
+        if (event.isTyped()) {
+            return event.command();
+        }
+
         Map<String, Object> data = event.data();
 
         return new CreateTransactionCommand(
@@ -1,16 +1,38 @@
 package com.vega.techtest.adapter.in.messaging.kafka.repository;
 
 import com.vega.techtest.adapter.in.messaging.kafka.entity.ProcessedKafkaEventEntity;
+import com.vega.techtest.adapter.in.messaging.kafka.entity.ProcessedKafkaEventEntity.EventStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
-public interface ProcessedKafkaEventRepository extends JpaRepository<ProcessedKafkaEventEntity, String> {
+public interface ProcessedKafkaEventRepository extends JpaRepository<ProcessedKafkaEventEntity, String>,
+        ProcessedKafkaEventRepositoryCustom {
 
     Optional<ProcessedKafkaEventEntity> findByEventId(String eventId);
 
-    void deleteByCreatedAtBefore(Instant cutoffDate);
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProcessedKafkaEventEntity e WHERE e.createdAt < :cutoffDate")
+    int deleteByCreatedAtBefore(@Param("cutoffDate") Instant cutoffDate);
+
+    @Modifying
+    @Query("UPDATE ProcessedKafkaEventEntity e SET e.status = :status, e.processedAt = :processedAt "
+            + "WHERE e.eventId IN :eventIds")
+    int updateStatusProcessed(@Param("eventIds") Collection<String> eventIds,
+                              @Param("status") EventStatus status,
+                              @Param("processedAt") Instant processedAt);
+
+    @Modifying
+    @Query("DELETE FROM ProcessedKafkaEventEntity e WHERE e.eventId IN :eventIds AND e.status = :status")
+    int deleteByEventIdInAndStatus(@Param("eventIds") Collection<String> eventIds,
+                                   @Param("status") EventStatus status);
 }
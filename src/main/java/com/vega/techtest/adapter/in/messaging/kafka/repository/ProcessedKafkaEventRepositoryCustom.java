@@ -0,0 +1,68 @@
+package com.vega.techtest.adapter.in.messaging.kafka.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ProcessedKafkaEventRepositoryCustom {
+
+    /**
+     * True if processed_kafka_events is a partitioned table, which the Postgres changelog makes it.
+     */
+    boolean isPartitioned();
+
+    /**
+     * Takes a transaction-scoped lock on each event ID, so that claims of the same event made on
+     * different days, which the per-day primary key cannot tell apart, run one after the other.
+     * Postgres only; must be called inside a transaction, before the claim.
+     */
+    void lockEventIds(Collection<String> eventIds);
+
+    /**
+     * Inserts a PROCESSING row for the event unless one already exists. Postgres only.
+     *
+     * @return true if the row was inserted, false if the event was already known
+     */
+    boolean insertIfAbsent(String eventId, String eventType, Instant createdAt);
+
+    /**
+     * Inserts PROCESSING rows for all given events in one statement, skipping events that already
+     * exist. Postgres only.
+     *
+     * @param eventTypes Event type by event ID
+     * @return The IDs of the events that were inserted
+     */
+    Set<String> insertAllIfAbsent(Map<String, String> eventTypes, Instant createdAt);
+
+    /**
+     * Marks the given events as FAILED with their own error message in one JDBC batch.
+     *
+     * @param errorMessages Error message by event ID
+     * @return The number of events updated
+     */
+    int updateStatusFailed(Map<String, String> errorMessages, Instant failedAt);
+
+    /**
+     * Creates the daily partitions from {@code from} to {@code to} inclusive that do not exist yet.
+     * Postgres only.
+     *
+     * @return The number of days that now have a partition
+     */
+    int createDailyPartitions(LocalDate from, LocalDate to);
+
+    /**
+     * Lists the days that have their own partition, oldest first. Postgres only.
+     */
+    List<LocalDate> findDailyPartitions();
+
+    /**
+     * Detaches and drops the daily partitions of days before {@code cutoffDay}. Postgres only, and must
+     * not be called inside a transaction, since the partitions are detached concurrently.
+     *
+     * @return The number of partitions dropped
+     */
+    int dropDailyPartitionsBefore(LocalDate cutoffDay);
+}
@@ -0,0 +1,212 @@
+package com.vega.techtest.adapter.in.messaging.kafka.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Native claims for the Kafka idempotency ledger. An event that is already known becomes an update
+ * count of zero or a missing RETURNING row instead of a constraint violation, so claiming costs one
+ * statement per event, or one per poll in batch mode, with no lookup first. Failures carry their
+ * own message each and are written as one JDBC batch.
+ * <p>
+ * On Postgres the table is range-partitioned by {@code created_date}, so the primary key only
+ * rejects a duplicate claimed on the same day. Claims therefore also check the other days with
+ * {@code NOT EXISTS}, after taking an advisory lock on the event ID: a concurrent claim of the same
+ * event on the other side of midnight UTC waits for the first to commit and then sees its row.
+ * <p>
+ * There is no default partition, so a day must be partitioned before its first claim. Expired days
+ * are detached with {@code DETACH PARTITION CONCURRENTLY}, which waits for in-flight claims instead of
+ * locking the parent against new ones, and only then dropped.
+ */
+@RequiredArgsConstructor
+@Slf4j
+class ProcessedKafkaEventRepositoryCustomImpl implements ProcessedKafkaEventRepositoryCustom {
+
+    private static final String INSERT_EVENT = """
+            INSERT INTO processed_kafka_events (event_id, event_type, status, created_at, created_date)
+            SELECT ?, ?, 'PROCESSING', ?, ?
+            WHERE NOT EXISTS (SELECT 1 FROM processed_kafka_events WHERE event_id = ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String INSERT_EVENTS = """
+            INSERT INTO processed_kafka_events (event_id, event_type, status, created_at, created_date)
+            SELECT e.event_id, e.event_type, 'PROCESSING', ?, ?
+            FROM unnest(?::varchar[], ?::varchar[]) AS e(event_id, event_type)
+            WHERE NOT EXISTS (SELECT 1 FROM processed_kafka_events p WHERE p.event_id = e.event_id)
+            ON CONFLICT DO NOTHING
+            RETURNING event_id
+            """;
+
+    private static final String MARK_FAILED = """
+            UPDATE processed_kafka_events
+            SET status = 'FAILED', failed_at = ?, error_message = ?
+            WHERE event_id = ?
+            """;
+
+    private static final String PARTITION_PREFIX = "processed_kafka_events_p";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String FIND_PARTITIONS = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class parent ON parent.oid = i.inhparent
+            WHERE parent.relname = 'processed_kafka_events'
+            """;
+
+    private static final String FIND_DETACH_PENDING = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class parent ON parent.oid = i.inhparent
+            WHERE parent.relname = 'processed_kafka_events' AND i.inhdetachpending
+            """;
+
+    private static final String IS_PARTITIONED = """
+            SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('processed_kafka_events'))
+            """;
+
+    private static final int EVENT_LOCK_CLASS = "processed_kafka_events".hashCode();
+
+    // Locked in a fixed order so that two overlapping batches cannot deadlock
+    private static final String LOCK_EVENT_IDS = """
+            SELECT pg_advisory_xact_lock(?, k.key)
+            FROM (SELECT DISTINCT hashtext(e.event_id) AS key FROM unnest(?::varchar[]) AS e(event_id) ORDER BY 1) k
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean isPartitioned() {
+        Boolean postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        return Boolean.TRUE.equals(postgres)
+                && Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED, Boolean.class));
+    }
+
+    @Override
+    public void lockEventIds(Collection<String> eventIds) {
+        jdbcTemplate.query(LOCK_EVENT_IDS, rs -> {
+        }, EVENT_LOCK_CLASS, eventIds.toArray(new String[0]));
+    }
+
+    @Override
+    public boolean insertIfAbsent(String eventId, String eventType, Instant createdAt) {
+        return jdbcTemplate.update(INSERT_EVENT, eventId, eventType, toOffsetDateTime(createdAt),
+                toLocalDate(createdAt), eventId) > 0;
+    }
+
+    @Override
+    public Set<String> insertAllIfAbsent(Map<String, String> eventTypes, Instant createdAt) {
+        String[] eventIds = new String[eventTypes.size()];
+        String[] types = new String[eventTypes.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : eventTypes.entrySet()) {
+            eventIds[i] = entry.getKey();
+            types[i] = entry.getValue();
+            i++;
+        }
+
+        List<String> inserted = jdbcTemplate.queryForList(INSERT_EVENTS, String.class,
+                toOffsetDateTime(createdAt), toLocalDate(createdAt), eventIds, types);
+        return new HashSet<>(inserted);
+    }
+
+    @Override
+    public int updateStatusFailed(Map<String, String> errorMessages, Instant failedAt) {
+        OffsetDateTime failed = toOffsetDateTime(failedAt);
+        List<Map.Entry<String, String>> entries = List.copyOf(errorMessages.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(MARK_FAILED, entries, entries.size(), (ps, entry) -> {
+            ps.setObject(1, failed);
+            ps.setString(2, entry.getValue());
+            ps.setString(3, entry.getKey());
+        });
+
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                updated += Math.max(count, 0);
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public int createDailyPartitions(LocalDate from, LocalDate to) {
+        int created = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            String partition = PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition
+                        + " PARTITION OF processed_kafka_events FOR VALUES FROM ('" + day + "') TO ('"
+                        + day.plusDays(1) + "')");
+                created++;
+            } catch (DataAccessException e) {
+                // Claims for this day fail until the next run creates it; later days are still partitioned
+                log.warn("Could not create partition {}: {}", partition, e.getMessage());
+            }
+        }
+        return created;
+    }
+
+    @Override
+    public List<LocalDate> findDailyPartitions() {
+        List<LocalDate> days = new ArrayList<>();
+        for (String partition : jdbcTemplate.queryForList(FIND_PARTITIONS, String.class)) {
+            if (!partition.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+            try {
+                days.add(LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX));
+            } catch (DateTimeParseException e) {
+                log.debug("Ignoring partition {} without a date suffix", partition);
+            }
+        }
+        days.sort(null);
+        return days;
+    }
+
+    @Override
+    public int dropDailyPartitionsBefore(LocalDate cutoffDay) {
+        // A concurrent detach that was interrupted can only be completed with FINALIZE
+        Set<String> detachPending = new HashSet<>(jdbcTemplate.queryForList(FIND_DETACH_PENDING, String.class));
+
+        int dropped = 0;
+        for (LocalDate day : findDailyPartitions()) {
+            if (day.isBefore(cutoffDay)) {
+                String partition = PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+                jdbcTemplate.execute("ALTER TABLE processed_kafka_events DETACH PARTITION " + partition
+                        + (detachPending.contains(partition) ? " FINALIZE" : " CONCURRENTLY"));
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private static LocalDate toLocalDate(Instant instant) {
+        return LocalDate.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,216 @@
+package com.vega.techtest.adapter.in.messaging.kafka.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.model.TransactionItem;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads transaction events straight from the message bytes into a typed {@link CreateTransactionCommand}
+ * with a streaming parser, instead of binding {@code data} to a {@code Map} and converting it again in
+ * {@code KafkaEventMapper}. Amounts are read from the JSON number text as {@link BigDecimal}, so they
+ * are never rounded through a double.
+ * <p>
+ * Conversions follow {@code KafkaEventMapper}: numbers given as strings are accepted, and values that
+ * cannot be converted become null for the validator to report. The original bytes are kept on the
+ * event for the DLQ.
+ */
+@Slf4j
+public class KafkaTransactionEventDeserializer implements Deserializer<KafkaTransactionEvent> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Override
+    public KafkaTransactionEvent deserialize(String topic, byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        try (JsonParser parser = JSON_FACTORY.createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new SerializationException("Transaction event on topic " + topic + " is not a JSON object");
+            }
+
+            String eventId = null;
+            String eventType = null;
+            String eventTimestamp = null;
+            String source = null;
+            String version = null;
+            CreateTransactionCommand command = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "eventId" -> eventId = readString(parser);
+                    case "eventType" -> eventType = readString(parser);
+                    case "eventTimestamp" -> eventTimestamp = readString(parser);
+                    case "source" -> source = readString(parser);
+                    case "version" -> version = readString(parser);
+                    case "data" -> command = readData(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            return new KafkaTransactionEvent(eventId, eventType, eventTimestamp, source, version, null, command, bytes);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to deserialize transaction event on topic " + topic, e);
+        }
+    }
+
+    /**
+     * Returns null for a missing, non-object or empty data field, which the validator rejects.
+     */
+    private static CreateTransactionCommand readData(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        String transactionId = null;
+        String customerId = null;
+        String storeId = null;
+        String tillId = null;
+        String paymentMethod = null;
+        BigDecimal totalAmount = null;
+        String currency = null;
+        Instant timestamp = null;
+        List<TransactionItem> items = new ArrayList<>();
+        boolean empty = true;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            empty = false;
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "transactionId" -> transactionId = readString(parser);
+                case "customerId" -> customerId = readString(parser);
+                case "storeId" -> storeId = readString(parser);
+                case "tillId" -> tillId = readString(parser);
+                case "paymentMethod" -> paymentMethod = readString(parser);
+                case "totalAmount" -> totalAmount = readDecimal(parser, field);
+                case "currency" -> currency = readString(parser);
+                case "timestamp" -> timestamp = readInstant(parser, field);
+                case "items" -> items = readItems(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (empty) {
+            return null;
+        }
+        return new CreateTransactionCommand(transactionId, customerId, storeId, tillId, paymentMethod,
+                totalAmount, currency, timestamp, items);
+    }
+
+    private static List<TransactionItem> readItems(JsonParser parser) throws IOException {
+        List<TransactionItem> items = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            if (parser.currentToken() != JsonToken.VALUE_NULL) {
+                log.warn("Items field is not a list: {}", parser.currentToken());
+            }
+            parser.skipChildren();
+            return items;
+        }
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                log.warn("Skipping transaction item that is not an object: {}", parser.currentToken());
+                parser.skipChildren();
+                continue;
+            }
+            items.add(readItem(parser));
+        }
+        return items;
+    }
+
+    private static TransactionItem readItem(JsonParser parser) throws IOException {
+        String productName = null;
+        String productCode = null;
+        BigDecimal unitPrice = null;
+        Integer quantity = null;
+        String category = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "productName" -> productName = readString(parser);
+                case "productCode" -> productCode = readString(parser);
+                case "unitPrice" -> unitPrice = readDecimal(parser, field);
+                case "quantity" -> quantity = readInteger(parser, field);
+                case "category" -> category = readString(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new TransactionItem(productName, productCode, unitPrice, quantity, category);
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    private static BigDecimal readDecimal(JsonParser parser, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDecimalValue();
+        }
+        String text = readString(parser);
+        if (text == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            log.warn("Failed to convert '{}' to BigDecimal for key '{}'", text, field);
+            return null;
+        }
+    }
+
+    private static Integer readInteger(JsonParser parser, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getNumberValue().intValue();
+        }
+        String text = readString(parser);
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            log.warn("Failed to convert '{}' to Integer for key '{}'", text, field);
+            return null;
+        }
+    }
+
+    private static Instant readInstant(JsonParser parser, String field) throws IOException {
+        String text = readString(parser);
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(text);
+        } catch (DateTimeParseException e) {
+            log.warn("Failed to parse timestamp '{}' for key '{}'", text, field);
+            return null;
+        }
+    }
+}
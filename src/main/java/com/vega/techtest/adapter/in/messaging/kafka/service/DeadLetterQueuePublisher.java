@@ -1,6 +1,12 @@
 package com.vega.techtest.adapter.in.messaging.kafka.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,18 +16,98 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Publishes failed events to the DLQ.
+ * <p>
+ * With {@code kafka.dlq.async=true} failures are put in a bounded buffer and published by a
+ * background thread in batches of up to {@code kafka.dlq.batch-size}, so that a burst of rejected
+ * events does not slow down the consumer thread. When the buffer is full the calling thread publishes
+ * the event itself, which slows the consumer down instead of dropping the event. Sends are never
+ * awaited in either mode; DLQ records lingering in the buffer or the producer are lost if the process
+ * dies, as they were before. Records are sent as Spring messages so that the template's header
+ * mapper writes the failure headers, with their types in {@code spring_json_header_types}.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DeadLetterQueuePublisher {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private static final long IDLE_WAIT_MS = 200;
+
+    private final KafkaTemplate<String, KafkaTransactionEvent> deadLetterKafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
     @Value("${kafka.topic.dlq}")
     private String dlqTopic;
 
+    @Value("${kafka.dlq.async:false}")
+    private boolean async;
+
+    @Value("${kafka.dlq.buffer-capacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${kafka.dlq.batch-size:500}")
+    private int batchSize;
+
+    private BlockingQueue<DeadLetter> buffer;
+    private ExecutorService publisher;
+    private Counter overflowCounter;
+    private Counter failureCounter;
+    private volatile boolean running;
+
+    private record DeadLetter(KafkaTransactionEvent event, Exception exception, String originalTopic,
+                              int partition, long offset, long failedAt) {
+    }
+
+    @PostConstruct
+    void start() {
+        overflowCounter = Counter.builder("kafka_dlq_buffer_overflow_total")
+                .description("DLQ records published on the consumer thread because the buffer was full")
+                .register(meterRegistry);
+        failureCounter = Counter.builder("kafka_dlq_send_failures_total")
+                .description("DLQ records that could not be sent")
+                .register(meterRegistry);
+
+        if (!async) {
+            return;
+        }
+
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        Gauge.builder("kafka_dlq_buffer_size", buffer, BlockingQueue::size)
+                .description("DLQ records waiting to be published")
+                .register(meterRegistry);
+
+        running = true;
+        publisher = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "kafka-dlq-publisher"));
+        publisher.submit(this::runPublisher);
+        log.info("Asynchronous DLQ publishing started with buffer capacity {}", bufferCapacity);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (publisher == null) {
+            return;
+        }
+        running = false;
+        publisher.shutdown();
+        if (!publisher.awaitTermination(10, TimeUnit.SECONDS)) {
+            publisher.shutdownNow();
+            log.error("Stopped DLQ publisher with {} records still buffered", buffer.size());
+        }
+        deadLetterKafkaTemplate.flush();
+    }
+
     /**
      * Publishes a failed event to the DLQ with enriched metadata.
      *
@@ -38,28 +124,85 @@ public class DeadLetterQueuePublisher {
             int partition,
             long offset
     ) {
+        DeadLetter deadLetter = new DeadLetter(event, exception, originalTopic, partition, offset,
+                System.currentTimeMillis());
+        if (!async) {
+            send(deadLetter);
+            return;
+        }
+
+        if (!buffer.offer(deadLetter)) {
+            overflowCounter.increment();
+            log.warn("DLQ buffer full with {} records - Publishing event {} on the calling thread",
+                    bufferCapacity, event.eventId());
+            send(deadLetter);
+        }
+    }
+
+    private void runPublisher() {
+        List<DeadLetter> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                DeadLetter first = buffer.poll(IDLE_WAIT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                batch.forEach(this::send);
+                log.debug("Published {} records to DLQ", batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void send(DeadLetter deadLetter) {
+        KafkaTransactionEvent event = deadLetter.event();
+        Exception exception = deadLetter.exception();
         try {
             Message<KafkaTransactionEvent> message = MessageBuilder
-                    .withPayload(event)
+                    .withPayload(withData(objectMapper, event))
                     .setHeader(KafkaHeaders.TOPIC, dlqTopic)
                     .setHeader(KafkaHeaders.KEY, event.eventId())
-                    .setHeader("dlq-original-topic", originalTopic)
-                    .setHeader("dlq-partition", partition)
-                    .setHeader("dlq-offset", offset)
+                    .setHeader("dlq-original-topic", deadLetter.originalTopic())
+                    .setHeader("dlq-partition", deadLetter.partition())
+                    .setHeader("dlq-offset", deadLetter.offset())
                     .setHeader("dlq-exception-type", exception.getClass().getName())
                     .setHeader("dlq-exception-message", exception.getMessage())
-                    .setHeader("dlq-timestamp", Instant.now().toString())
+                    .setHeader("dlq-timestamp", Instant.ofEpochMilli(deadLetter.failedAt()).toString())
                     .build();
 
-            kafkaTemplate.send(message);
+            deadLetterKafkaTemplate.send(message).whenComplete((result, sendFailure) -> {
+                if (sendFailure != null) {
+                    failureCounter.increment();
+                    log.error("Failed to send event {} to DLQ. Original exception: {}",
+                            event.eventId(), exception.getMessage(), sendFailure);
+                }
+            });
 
             log.warn("Event {} sent to DLQ. Original topic: {}, Partition: {}, Offset: {}, Exception: {}",
-                    event.eventId(), originalTopic, partition, offset, exception.getClass().getSimpleName());
+                    event.eventId(), deadLetter.originalTopic(), deadLetter.partition(), deadLetter.offset(),
+                    exception.getClass().getSimpleName());
 
         } catch (Exception e) {
+            failureCounter.increment();
             log.error("Failed to send event {} to DLQ - acknowledging original message to prevent infinite loop. " +
                             "Original exception: {}, DLQ write exception: {}",
                     event.eventId(), exception.getMessage(), e.getMessage(), e);
         }
     }
+
+    /**
+     * Events read by the typed deserializer have no data map; the original message is parsed again
+     * so that the DLQ receives the same envelope as the source topic.
+     */
+    static KafkaTransactionEvent withData(ObjectMapper objectMapper, KafkaTransactionEvent event) throws IOException {
+        if (event.data() != null || event.payload() == null) {
+            return event;
+        }
+        return objectMapper.readValue(event.payload(), KafkaTransactionEvent.class);
+    }
 }
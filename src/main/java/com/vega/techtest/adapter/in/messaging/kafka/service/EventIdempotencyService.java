@@ -1,20 +1,40 @@
 package com.vega.techtest.adapter.in.messaging.kafka.service;
 
 import com.vega.techtest.adapter.in.messaging.kafka.entity.ProcessedKafkaEventEntity;
+import com.vega.techtest.adapter.in.messaging.kafka.entity.ProcessedKafkaEventEntity.EventStatus;
 import com.vega.techtest.adapter.in.messaging.kafka.repository.ProcessedKafkaEventRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service responsible for ensuring event processing idempotency.
  * Uses database-level locking to prevent duplicate processing across multiple instances.
+ * <p>
+ * With {@code transaction.persistence.upsert-enabled} an event is claimed with a single
+ * {@code INSERT ... ON CONFLICT DO NOTHING} (one per poll in batch mode) instead of a lookup
+ * followed by an insert. Status changes are always written as bulk updates without reading the
+ * rows first.
+ * <p>
+ * On Postgres the changelog partitions the table by day. That is detected at startup: claims then
+ * lock the event ID first, since the primary key only covers one day, and old events are removed by
+ * dropping whole partitions instead of deleting rows.
  */
 @Service
 @RequiredArgsConstructor
@@ -23,6 +43,25 @@ public class EventIdempotencyService {
 
     private final ProcessedKafkaEventRepository repository;
 
+    @Value("${transaction.persistence.upsert-enabled:false}")
+    private boolean upsertEnabled;
+
+    private boolean partitioned;
+
+    @PostConstruct
+    void detectPartitioning() {
+        partitioned = repository.isPartitioned();
+        log.info("processed_kafka_events is {}partitioned by day", partitioned ? "" : "not ");
+    }
+
+    /**
+     * True if processed_kafka_events is partitioned by day, in which case days must be partitioned
+     * with {@link #ensurePartitions} before their first claim.
+     */
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
     /**
      * Attempts to acquire a processing lock for the given event.
      * Uses a new transaction to ensure the lock is committed immediately.
@@ -33,6 +72,44 @@ public class EventIdempotencyService {
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public boolean tryAcquireProcessingLock(String eventId, String eventType) {
+        return acquire(eventId, eventType);
+    }
+
+    /**
+     * Claims the event inside the caller's transaction, so that the claim commits or rolls back
+     * together with the caller's writes and no PROCESSING row outlives a failed attempt. A concurrent
+     * claim of the same event waits for the caller's transaction to finish.
+     *
+     * @return true if the event was claimed, false if it already exists (duplicate)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean claim(String eventId, String eventType) {
+        return acquire(eventId, eventType);
+    }
+
+    /**
+     * Batch variant of {@link #claim}, with the same semantics as {@link #tryAcquireProcessingLocks}
+     * except that the claims join the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Set<String> claimAll(Map<String, String> eventTypes) {
+        return acquireAll(eventTypes);
+    }
+
+    private boolean acquire(String eventId, String eventType) {
+        if (partitioned) {
+            repository.lockEventIds(List.of(eventId));
+        }
+        if (upsertEnabled) {
+            boolean acquired = repository.insertIfAbsent(eventId, eventType, Instant.now());
+            if (acquired) {
+                log.debug("Processing lock acquired for event: {}", eventId);
+            } else {
+                log.info("Event {} already exists", eventId);
+            }
+            return acquired;
+        }
+
         try {
             // Check if event already exists
             Optional<ProcessedKafkaEventEntity> existing = repository.findByEventId(eventId);
@@ -45,7 +122,7 @@ public class EventIdempotencyService {
             ProcessedKafkaEventEntity entity = new ProcessedKafkaEventEntity();
             entity.setEventId(eventId);
             entity.setEventType(eventType);
-            entity.setStatus(ProcessedKafkaEventEntity.EventStatus.PROCESSING);
+            entity.setStatus(EventStatus.PROCESSING);
             entity.setCreatedAt(Instant.now());
 
             repository.save(entity);
@@ -59,6 +136,49 @@ public class EventIdempotencyService {
         }
     }
 
+    /**
+     * Batch variant of {@link #tryAcquireProcessingLock}. With upserts enabled all events are claimed
+     * by one statement and events claimed concurrently by another instance are simply not returned.
+     * Otherwise the events are looked up with one query and inserted in one transaction, which throws
+     * {@link DataIntegrityViolationException} and claims nothing if another instance inserts one of
+     * them in the meantime.
+     *
+     * @param eventTypes Event type by event ID for every event to claim
+     * @return The IDs of the events whose lock was acquired
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Set<String> tryAcquireProcessingLocks(Map<String, String> eventTypes) {
+        return acquireAll(eventTypes);
+    }
+
+    private Set<String> acquireAll(Map<String, String> eventTypes) {
+        if (partitioned) {
+            repository.lockEventIds(eventTypes.keySet());
+        }
+        if (upsertEnabled) {
+            Set<String> acquired = repository.insertAllIfAbsent(eventTypes, Instant.now());
+            log.debug("Processing locks acquired for {} of {} events", acquired.size(), eventTypes.size());
+            return acquired;
+        }
+
+        Set<String> acquired = new HashSet<>(eventTypes.keySet());
+        repository.findAllById(eventTypes.keySet()).forEach(existing -> {
+            log.info("Event {} already exists with status: {}", existing.getEventId(), existing.getStatus());
+            acquired.remove(existing.getEventId());
+        });
+
+        Instant now = Instant.now();
+        List<ProcessedKafkaEventEntity> entities = new ArrayList<>(acquired.size());
+        for (String eventId : acquired) {
+            entities.add(new ProcessedKafkaEventEntity(eventId, eventTypes.get(eventId),
+                    EventStatus.PROCESSING, now, null, null, null));
+        }
+
+        repository.saveAllAndFlush(entities);
+        log.debug("Processing locks acquired for {} of {} events", acquired.size(), eventTypes.size());
+        return acquired;
+    }
+
     /**
      * Marks an event as successfully completed.
      *
@@ -66,12 +186,7 @@ public class EventIdempotencyService {
      */
     @Transactional
     public void markAsCompleted(String eventId) {
-        Optional<ProcessedKafkaEventEntity> entityOpt = repository.findByEventId(eventId);
-        if (entityOpt.isPresent()) {
-            ProcessedKafkaEventEntity entity = entityOpt.get();
-            entity.setStatus(ProcessedKafkaEventEntity.EventStatus.COMPLETED);
-            entity.setProcessedAt(Instant.now());
-            repository.save(entity);
+        if (repository.updateStatusProcessed(List.of(eventId), EventStatus.COMPLETED, Instant.now()) > 0) {
             log.debug("Event {} marked as COMPLETED", eventId);
         } else {
             log.warn("Attempted to mark non-existent event {} as completed", eventId);
@@ -86,28 +201,92 @@ public class EventIdempotencyService {
      */
     @Transactional
     public void markAsFailed(String eventId, String errorMessage) {
-        Optional<ProcessedKafkaEventEntity> entityOpt = repository.findByEventId(eventId);
-        if (entityOpt.isPresent()) {
-            ProcessedKafkaEventEntity entity = entityOpt.get();
-            entity.setStatus(ProcessedKafkaEventEntity.EventStatus.FAILED);
-            entity.setFailedAt(Instant.now());
-            entity.setErrorMessage(errorMessage);
-            repository.save(entity);
+        if (repository.updateStatusFailed(Map.of(eventId, errorMessage), Instant.now()) > 0) {
             log.debug("Event {} marked as FAILED: {}", eventId, errorMessage);
         } else {
             log.warn("Attempted to mark non-existent event {} as failed", eventId);
         }
     }
 
+    /**
+     * Marks the given events as completed with one update.
+     *
+     * @param eventIds The event identifiers to mark as completed
+     */
+    @Transactional
+    public void markAllAsCompleted(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        int updated = repository.updateStatusProcessed(eventIds, EventStatus.COMPLETED, Instant.now());
+        log.debug("{} events marked as COMPLETED", updated);
+    }
+
+    /**
+     * Marks the given events as failed with one batched update.
+     *
+     * @param errorMessages Error message by event identifier
+     */
+    @Transactional
+    public void markAllAsFailed(Map<String, String> errorMessages) {
+        if (errorMessages.isEmpty()) {
+            return;
+        }
+        int updated = repository.updateStatusFailed(errorMessages, Instant.now());
+        log.debug("{} events marked as FAILED", updated);
+    }
+
+    /**
+     * Removes the processing locks of events that will be redelivered, so that the retry is not
+     * mistaken for a duplicate. Only events still in PROCESSING are released.
+     *
+     * @param eventIds The event identifiers to release
+     */
+    @Transactional
+    public void releaseProcessingLocks(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        int released = repository.deleteByEventIdInAndStatus(eventIds, EventStatus.PROCESSING);
+        log.debug("Released processing locks of {} events", released);
+    }
+
     /**
      * Deletes events older than the specified cutoff date.
      * Used for cleanup to prevent unbounded table growth.
+     * <p>
+     * When partitioned, the partitions of days before the cutoff day are dropped, so events are
+     * kept up to a day longer than the cutoff. Rows are only deleted from an unpartitioned table,
+     * which keeps its created_at index. Runs outside any transaction, since the partitions
+     * are detached concurrently.
      *
      * @param cutoffDate The date before which events should be deleted
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deleteOldEvents(Instant cutoffDate) {
-        repository.deleteByCreatedAtBefore(cutoffDate);
-        log.info("Deleted processed events older than {}", cutoffDate);
+        if (partitioned) {
+            LocalDate cutoffDay = LocalDate.ofInstant(cutoffDate, ZoneOffset.UTC);
+            int dropped = repository.dropDailyPartitionsBefore(cutoffDay);
+            log.info("Dropped {} processed event partitions before {}", dropped, cutoffDay);
+            return;
+        }
+
+        int deleted = repository.deleteByCreatedAtBefore(cutoffDate);
+        log.info("Deleted {} processed events older than {}", deleted, cutoffDate);
+    }
+
+    /**
+     * Creates the daily partitions for the given days ahead of time; there is no default partition,
+     * so a claim for a day without one fails. Does nothing unless partitioned.
+     *
+     * @param from First day to partition (UTC)
+     * @param to   Last day to partition (UTC), inclusive
+     */
+    public void ensurePartitions(LocalDate from, LocalDate to) {
+        if (!partitioned) {
+            return;
+        }
+        int created = repository.createDailyPartitions(from, to);
+        log.debug("Ensured {} processed event partitions from {} to {}", created, from, to);
     }
 }
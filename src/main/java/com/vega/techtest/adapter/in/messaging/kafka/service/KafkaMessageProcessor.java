@@ -6,13 +6,41 @@ import com.vega.techtest.adapter.in.messaging.kafka.exception.EventProcessingExc
 import com.vega.techtest.adapter.in.messaging.kafka.mapper.KafkaEventMapper;
 import com.vega.techtest.adapter.in.messaging.kafka.validator.KafkaEventValidator;
 import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
 import com.vega.techtest.application.transaction.command.TransactionResult;
 import com.vega.techtest.domain.transaction.exception.ReceiptTotalMismatchException;
 import com.vega.techtest.domain.transaction.service.TransactionService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Claims, validates and persists Kafka transaction events.
+ * <p>
+ * By default the claim, the transaction rows and the final status are separate commits. With
+ * {@code kafka.idempotency.atomic-commit=true} they are written in one database transaction instead:
+ * a failure rolls back the claim together with everything else, so a crash can no longer leave a
+ * PROCESSING row that makes the redelivered event look like a duplicate. Validation failures still
+ * commit their FAILED row. Atomic mode requires {@code transaction.persistence.upsert-enabled}, under
+ * which a duplicate or conflicting receipt is skipped rather than raising a constraint violation that
+ * would abort the shared transaction; startup fails if it is not set.
+ * <p>
+ * Events this instance recently completed or rejected are skipped as duplicates by
+ * {@link ProcessedEventCache} before they are claimed.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -22,9 +50,60 @@ public class KafkaMessageProcessor {
     private final KafkaEventMapper mapper;
     private final TransactionService transactionService;
     private final EventIdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final ProcessedEventCache processedEventCache;
+
+    @Value("${kafka.idempotency.atomic-commit:false}")
+    private boolean atomicCommit;
+
+    @Value("${transaction.persistence.upsert-enabled:false}")
+    private boolean upsertEnabled;
+
+    @PostConstruct
+    void checkAtomicCommit() {
+        if (atomicCommit && !upsertEnabled) {
+            throw new IllegalStateException("kafka.idempotency.atomic-commit requires "
+                    + "transaction.persistence.upsert-enabled: without it a duplicate receipt aborts the shared transaction");
+        }
+    }
+
+    /**
+     * What happened to one event of a batch. Rejected events carry the non-retriable error that
+     * should go to the DLQ with them.
+     */
+    public record EventOutcome(KafkaTransactionEvent event, Status status, TransactionResult transaction,
+                               RuntimeException error) {
+
+        public enum Status {
+            PROCESSED,
+            DUPLICATE,
+            REJECTED
+        }
+
+        static EventOutcome processed(KafkaTransactionEvent event, TransactionResult transaction) {
+            return new EventOutcome(event, Status.PROCESSED, transaction, null);
+        }
+
+        static EventOutcome duplicate(KafkaTransactionEvent event) {
+            return new EventOutcome(event, Status.DUPLICATE, null, null);
+        }
+
+        static EventOutcome rejected(KafkaTransactionEvent event, RuntimeException error) {
+            return new EventOutcome(event, Status.REJECTED, null, error);
+        }
+    }
 
     public TransactionResult process(KafkaTransactionEvent event) {
         String eventId = event.eventId();
+        if (processedEventCache.isProcessed(eventId)) {
+            log.warn("Duplicate event detected and skipped: {}", eventId);
+            throw new DuplicateEventException(eventId);
+        }
+
+        if (atomicCommit) {
+            return processAtomically(event);
+        }
+
         String eventType = event.eventType();
 
         // Check for duplicate event (idempotency)
@@ -45,6 +124,7 @@ public class KafkaMessageProcessor {
 
             // Mark as completed on success
             idempotencyService.markAsCompleted(eventId);
+            processedEventCache.record(eventId);
 
             log.info("Successfully processed event: {} -> transaction: {}", eventId, result.transactionId());
 
@@ -53,12 +133,14 @@ public class KafkaMessageProcessor {
         } catch (IllegalArgumentException e) {
             // Mark as failed for validation errors (non-retriable)
             idempotencyService.markAsFailed(eventId, "Validation error: " + e.getMessage());
+            processedEventCache.record(eventId);
             log.error("Validation failed for event: {}", eventId, e);
             throw e;
 
         } catch (IllegalStateException e) {
             // Mark as failed for invalid state errors (non-retriable)
             idempotencyService.markAsFailed(eventId, "Invalid state: " + e.getMessage());
+            processedEventCache.record(eventId);
             log.error("Invalid state for event: {}", eventId, e);
             throw e;
 
@@ -67,14 +149,250 @@ public class KafkaMessageProcessor {
             idempotencyService.markAsFailed(eventId,
                 String.format("Receipt total mismatch: calculated=%s, provided=%s",
                     e.getCalculatedTotal(), e.getProvidedTotal()));
+            processedEventCache.record(eventId);
             log.error("Receipt total mismatch for event: {}", eventId, e);
             throw e;
 
         } catch (Exception e) {
-            // Mark as failed for processing errors (retriable - will be retried by Kafka)
-            idempotencyService.markAsFailed(eventId, "Processing error: " + e.getMessage());
+            // Retriable: release the claim so that the redelivered event is not taken for a duplicate
+            idempotencyService.releaseProcessingLocks(List.of(eventId));
             log.error("Failed to process event: {}", eventId, e);
             throw new EventProcessingException(eventId, "Failed to process event", e);
         }
     }
+
+    private TransactionResult processAtomically(KafkaTransactionEvent event) {
+        String eventId = event.eventId();
+
+        EventOutcome outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> {
+                if (!idempotencyService.claim(eventId, event.eventType())) {
+                    return EventOutcome.duplicate(event);
+                }
+
+                log.info("Processing Kafka event: {}", eventId);
+                try {
+                    validator.validate(event);
+                    TransactionResult result = transactionService.processTransaction(mapper.toCommand(event));
+                    idempotencyService.markAsCompleted(eventId);
+                    return EventOutcome.processed(event, result);
+                } catch (IllegalArgumentException | IllegalStateException | ReceiptTotalMismatchException e) {
+                    // Non-retriable: commit the FAILED row, nothing else has been written
+                    idempotencyService.markAsFailed(eventId, failureMessage(e));
+                    return EventOutcome.rejected(event, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Rolled back including the claim, so the redelivered event is processed again
+            log.error("Failed to process event: {}", eventId, e);
+            throw new EventProcessingException(eventId, "Failed to process event", e);
+        }
+
+        if (outcome.status() != EventOutcome.Status.DUPLICATE) {
+            processedEventCache.record(eventId);
+        }
+
+        switch (outcome.status()) {
+            case DUPLICATE -> {
+                log.warn("Duplicate event detected and skipped: {}", eventId);
+                throw new DuplicateEventException(eventId);
+            }
+            case REJECTED -> {
+                log.error("Event {} rejected: {}", eventId, outcome.error().getMessage());
+                throw outcome.error();
+            }
+            default -> {
+                log.info("Successfully processed event: {} -> transaction: {}",
+                        eventId, outcome.transaction().transactionId());
+                return outcome.transaction();
+            }
+        }
+    }
+
+    /**
+     * Processes the events of one poll together: one query and one insert to claim them, one
+     * {@link TransactionService#processTransactionBatch} call to persist them and one update per
+     * final status. Returns one outcome per event in the order given.
+     * <p>
+     * Validation failures and rejected transactions are returned as {@code REJECTED} outcomes. If the
+     * transactions cannot be written at all, the claims are released and an
+     * {@link EventProcessingException} is thrown so that the whole batch is redelivered. In atomic
+     * commit mode the whole poll is one database transaction, and such a failure rolls it back instead.
+     */
+    public List<EventOutcome> processBatch(List<KafkaTransactionEvent> events) {
+        if (!atomicCommit) {
+            return recordFinished(processBatch(events, this::claim));
+        }
+
+        try {
+            return recordFinished(transactionTemplate.execute(
+                    status -> processBatch(events, idempotencyService::claimAll)));
+        } catch (EventProcessingException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Failed to commit batch of {} events - Batch will be retried", events.size(), e);
+            throw new EventProcessingException(firstEventId(events), "Failed to process event batch", e);
+        }
+    }
+
+    private List<EventOutcome> processBatch(List<KafkaTransactionEvent> events,
+                                            Function<Map<String, String>, Set<String>> claimer) {
+        EventOutcome[] outcomes = new EventOutcome[events.size()];
+
+        Map<String, String> eventTypes = new LinkedHashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            KafkaTransactionEvent event = events.get(i);
+            if (event == null || isBlank(event.eventId()) || isBlank(event.eventType())) {
+                // Cannot be claimed; the validator reports what is missing
+                outcomes[i] = reject(event);
+            } else if (processedEventCache.isProcessed(event.eventId())) {
+                log.warn("Duplicate event detected and skipped: {}", event.eventId());
+                outcomes[i] = EventOutcome.duplicate(event);
+            } else if (eventTypes.putIfAbsent(event.eventId(), event.eventType()) != null) {
+                log.warn("Duplicate event detected in batch and skipped: {}", event.eventId());
+                outcomes[i] = EventOutcome.duplicate(event);
+            }
+        }
+
+        Set<String> claimed = eventTypes.isEmpty() ? Set.of() : claimer.apply(eventTypes);
+        Set<String> pending = new HashSet<>(claimed);
+        Map<String, String> failures = new LinkedHashMap<>();
+        List<CreateTransactionCommand> commands = new ArrayList<>(claimed.size());
+        List<Integer> commandIndexes = new ArrayList<>(claimed.size());
+
+        for (int i = 0; i < events.size(); i++) {
+            KafkaTransactionEvent event = events.get(i);
+            if (outcomes[i] != null) {
+                continue;
+            }
+            if (!pending.remove(event.eventId())) {
+                log.warn("Duplicate event detected and skipped: {}", event.eventId());
+                outcomes[i] = EventOutcome.duplicate(event);
+                continue;
+            }
+            try {
+                validator.validate(event);
+                commands.add(mapper.toCommand(event));
+                commandIndexes.add(i);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                log.error("Validation failed for event: {}", event.eventId(), e);
+                failures.put(event.eventId(), "Validation error: " + e.getMessage());
+                outcomes[i] = EventOutcome.rejected(event, e);
+            }
+        }
+
+        List<String> completed = new ArrayList<>(commands.size());
+        if (!commands.isEmpty()) {
+            List<TransactionBatchItemResult> results;
+            try {
+                results = transactionService.processTransactionBatch(commands);
+            } catch (Exception e) {
+                if (!atomicCommit) {
+                    idempotencyService.releaseProcessingLocks(claimed);
+                }
+                log.error("Failed to process batch of {} events - Batch will be retried", events.size(), e);
+                throw new EventProcessingException(events.get(commandIndexes.get(0)).eventId(),
+                        "Failed to process event batch", e);
+            }
+
+            for (TransactionBatchItemResult result : results) {
+                int index = commandIndexes.get(result.index());
+                KafkaTransactionEvent event = events.get(index);
+                if (result.status() == TransactionBatchItemResult.Status.FAILED) {
+                    log.error("Transaction rejected for event: {} - {}", event.eventId(), result.error());
+                    failures.put(event.eventId(), "Validation error: " + result.error());
+                    outcomes[index] = EventOutcome.rejected(event, new IllegalArgumentException(result.error()));
+                } else {
+                    completed.add(event.eventId());
+                    outcomes[index] = EventOutcome.processed(event, result.transaction());
+                }
+            }
+        }
+
+        idempotencyService.markAllAsFailed(failures);
+        idempotencyService.markAllAsCompleted(completed);
+
+        List<EventOutcome> batchOutcomes = Arrays.asList(outcomes);
+        log.info("Processed batch of {} events - Completed: {}, Rejected: {}, Duplicates: {}",
+                events.size(), completed.size(),
+                count(batchOutcomes, EventOutcome.Status.REJECTED),
+                count(batchOutcomes, EventOutcome.Status.DUPLICATE));
+
+        return batchOutcomes;
+    }
+
+    /**
+     * Records the events whose final status was committed. Events rejected before they could be
+     * claimed have no row and are not recorded.
+     */
+    private List<EventOutcome> recordFinished(List<EventOutcome> outcomes) {
+        for (EventOutcome outcome : outcomes) {
+            KafkaTransactionEvent event = outcome.event();
+            if (outcome.status() != EventOutcome.Status.DUPLICATE && event != null
+                    && !isBlank(event.eventId()) && !isBlank(event.eventType())) {
+                processedEventCache.record(event.eventId());
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Claims the events in one go, falling back to one claim per event when another instance has
+     * inserted one of them concurrently.
+     */
+    private Set<String> claim(Map<String, String> eventTypes) {
+        try {
+            return idempotencyService.tryAcquireProcessingLocks(eventTypes);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Duplicate event detected (race condition) while claiming {} events, claiming one by one",
+                    eventTypes.size());
+            Set<String> claimed = new HashSet<>();
+            eventTypes.forEach((eventId, eventType) -> {
+                if (idempotencyService.tryAcquireProcessingLock(eventId, eventType)) {
+                    claimed.add(eventId);
+                }
+            });
+            return claimed;
+        }
+    }
+
+    private EventOutcome reject(KafkaTransactionEvent event) {
+        IllegalArgumentException error;
+        try {
+            validator.validate(event);
+            error = new IllegalArgumentException("Event ID and type are required");
+        } catch (IllegalArgumentException e) {
+            error = e;
+        }
+        log.error("Validation failed for event without a usable ID or type: {}", error.getMessage());
+        return EventOutcome.rejected(event, error);
+    }
+
+    private static String failureMessage(RuntimeException e) {
+        if (e instanceof ReceiptTotalMismatchException mismatch) {
+            return String.format("Receipt total mismatch: calculated=%s, provided=%s",
+                    mismatch.getCalculatedTotal(), mismatch.getProvidedTotal());
+        }
+        if (e instanceof IllegalStateException) {
+            return "Invalid state: " + e.getMessage();
+        }
+        return "Validation error: " + e.getMessage();
+    }
+
+    private static String firstEventId(List<KafkaTransactionEvent> events) {
+        return events.stream()
+                .filter(event -> event != null && !isBlank(event.eventId()))
+                .map(KafkaTransactionEvent::eventId)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static long count(List<EventOutcome> outcomes, EventOutcome.Status status) {
+        return outcomes.stream().filter(outcome -> outcome.status() == status).count();
+    }
 }
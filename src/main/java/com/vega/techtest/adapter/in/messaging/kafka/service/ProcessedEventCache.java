@@ -0,0 +1,82 @@
+package com.vega.techtest.adapter.in.messaging.kafka.service;
+
+import com.vega.techtest.shared.cache.ExpiringLruCache;
+import com.vega.techtest.shared.cache.RotatingBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Remembers the IDs of events this instance recently finished, so that redeliveries are skipped
+ * without claiming them in processed_kafka_events again.
+ * <p>
+ * Only events whose final status has been committed are recorded. The LRU is the answer: an ID in it
+ * is certainly a duplicate. A Bloom filter over the same window sits in front of it so that new
+ * events, the common case, are turned away without taking the LRU lock. A Bloom positive alone is
+ * never trusted, since a false positive would drop an event. The cache is local to this instance;
+ * processed_kafka_events remains the guarantee.
+ */
+@Component
+public class ProcessedEventCache {
+
+    private final boolean enabled;
+    private final ExpiringLruCache<String, Boolean> recent;
+    private final RotatingBloomFilter seenIds;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public ProcessedEventCache(
+            MeterRegistry meterRegistry,
+            @Value("${kafka.idempotency.cache.enabled:true}") boolean enabled,
+            @Value("${kafka.idempotency.cache.max-entries:100000}") int maxEntries,
+            @Value("${kafka.idempotency.cache.window:PT10M}") Duration window,
+            @Value("${kafka.idempotency.cache.bloom.expected-insertions:1000000}") int expectedInsertions,
+            @Value("${kafka.idempotency.cache.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.enabled = enabled;
+        this.recent = new ExpiringLruCache<>(maxEntries, window);
+        this.seenIds = new RotatingBloomFilter(expectedInsertions, falsePositiveRate, window);
+        this.hitCounter = Counter.builder("kafka_event_cache_requests_total")
+                .tag("result", "hit")
+                .description("Kafka event duplicate checks answered from the in-memory cache")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("kafka_event_cache_requests_total")
+                .tag("result", "miss")
+                .description("Kafka event duplicate checks answered from the in-memory cache")
+                .register(meterRegistry);
+        Gauge.builder("kafka_event_cache_size", recent, ExpiringLruCache::size)
+                .description("Recently processed Kafka event IDs held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * True if this instance recently finished processing the event; false means the database has
+     * to decide.
+     */
+    public boolean isProcessed(String eventId) {
+        if (!enabled || eventId == null) {
+            return false;
+        }
+        if (seenIds.mightContain(eventId) && recent.get(eventId) != null) {
+            hitCounter.increment();
+            return true;
+        }
+        missCounter.increment();
+        return false;
+    }
+
+    /**
+     * Records an event whose COMPLETED or FAILED status has been committed. Events that will be
+     * retried must not be recorded.
+     */
+    public void record(String eventId) {
+        if (!enabled || eventId == null) {
+            return;
+        }
+        recent.put(eventId, Boolean.TRUE);
+        seenIds.put(eventId);
+    }
+}
@@ -0,0 +1,81 @@
+package com.vega.techtest.adapter.in.messaging.kafka.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps processed_kafka_events bounded, enabled with {@code kafka.idempotency.retention.enabled}.
+ * <p>
+ * At startup and every {@code check-interval-ms} the daily partitions for today and the next
+ * {@code partitions-ahead} days are created, and events older than {@code days} are removed.
+ * The partitions are created whenever the table is partitioned, even with retention disabled,
+ * since claims for a day without a partition fail.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessedKafkaEventRetentionJob {
+
+    private final EventIdempotencyService idempotencyService;
+
+    @Value("${kafka.idempotency.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${kafka.idempotency.retention.days:7}")
+    private int retentionDays;
+
+    @Value("${kafka.idempotency.retention.check-interval-ms:3600000}")
+    private long checkIntervalMs;
+
+    @Value("${kafka.idempotency.retention.partitions-ahead:7}")
+    private int partitionsAhead;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        if (!enabled && !idempotencyService.isPartitioned()) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                runnable -> new Thread(runnable, "processed-kafka-event-retention"));
+        scheduler.scheduleWithFixedDelay(this::run, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+        if (enabled) {
+            log.info("Processed Kafka event retention enabled: keeping {} days", retentionDays);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void run() {
+        try {
+            Instant now = Instant.now();
+            LocalDate today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+            idempotencyService.ensurePartitions(today, today.plusDays(partitionsAhead));
+            if (enabled) {
+                idempotencyService.deleteOldEvents(now.minus(Duration.ofDays(retentionDays)));
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next run tries again
+            log.warn("Processed Kafka event retention failed", e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.vega.techtest.adapter.in.messaging.kafka.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.adapter.in.messaging.kafka.exception.EventProcessingException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes events that failed with a retriable error through delayed retry topics, so that the
+ * source partition moves on instead of redelivering the same record until it succeeds.
+ * <p>
+ * Every delay in {@code kafka.retry.delays} is a tier with its own topic, named
+ * {@code <transactions topic>.retry.<delay>}. An event that fails on the last tier goes to the DLQ.
+ * The attempt count, the time the event is due and the position of the original record travel as
+ * headers, so the DLQ still points at the record that was first consumed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RetryTopicPublisher {
+
+    static final String ATTEMPTS_HEADER = "retry-attempts";
+    static final String DUE_AT_HEADER = "retry-due-at";
+    static final String ORIGINAL_TOPIC_HEADER = "retry-original-topic";
+    static final String ORIGINAL_PARTITION_HEADER = "retry-original-partition";
+    static final String ORIGINAL_OFFSET_HEADER = "retry-original-offset";
+    static final String EXCEPTION_TYPE_HEADER = "retry-exception-type";
+    static final String EXCEPTION_MESSAGE_HEADER = "retry-exception-message";
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final DeadLetterQueuePublisher deadLetterQueuePublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${kafka.retry.enabled:false}")
+    private boolean enabled;
+
+    @Value("${kafka.topic.transactions}")
+    private String transactionsTopic;
+
+    @Value("${kafka.retry.delays:5s,1m,10m}")
+    private String[] delays;
+
+    private List<RetryTier> tiers = List.of();
+
+    /**
+     * A retry topic and the delay before events published to it are consumed again.
+     */
+    public record RetryTier(String topic, Duration delay) {
+    }
+
+    /**
+     * Retry position of a record read from a retry topic. Records without retry headers are treated
+     * as the first retry of themselves.
+     */
+    public record RetryState(int attempts, long dueAt, String originalTopic, int originalPartition,
+                             long originalOffset) {
+
+        public static RetryState of(ConsumerRecord<?, ?> record) {
+            Headers headers = record.headers();
+            return new RetryState(
+                    (int) longHeader(headers, ATTEMPTS_HEADER, 1),
+                    longHeader(headers, DUE_AT_HEADER, 0),
+                    header(headers, ORIGINAL_TOPIC_HEADER, record.topic()),
+                    (int) longHeader(headers, ORIGINAL_PARTITION_HEADER, record.partition()),
+                    longHeader(headers, ORIGINAL_OFFSET_HEADER, record.offset())
+            );
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        List<RetryTier> parsed = new ArrayList<>(delays.length);
+        for (String delay : delays) {
+            String value = delay.trim();
+            parsed.add(new RetryTier(transactionsTopic + ".retry." + value, DurationStyle.detectAndParse(value)));
+        }
+        tiers = List.copyOf(parsed);
+        if (enabled) {
+            log.info("Retry topics enabled: {}", tiers.stream().map(RetryTier::topic).toList());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<RetryTier> tiers() {
+        return tiers;
+    }
+
+    /**
+     * Publishes a failed event to the retry tier that follows its last attempt, or to the DLQ once
+     * every tier has been tried. The send is awaited, so that the caller acknowledges the failed record
+     * only after the retry record is stored; if the send fails the exception propagates and the failed
+     * record is redelivered in place.
+     *
+     * @param event             The event that failed
+     * @param exception         The exception that caused the failure
+     * @param attempts          The number of attempts made so far, including the one that just failed
+     * @param originalTopic     The topic from which the event was first consumed
+     * @param originalPartition The partition from which the event was first consumed
+     * @param originalOffset    The offset of the original message
+     */
+    public void publishForRetry(
+            KafkaTransactionEvent event,
+            Exception exception,
+            int attempts,
+            String originalTopic,
+            int originalPartition,
+            long originalOffset
+    ) {
+        if (attempts > tiers.size()) {
+            log.error("Event {} failed after {} attempts - Sending to DLQ", event.eventId(), attempts);
+            deadLetterQueuePublisher.publishToDeadLetterQueue(
+                    event, exception, originalTopic, originalPartition, originalOffset);
+            return;
+        }
+
+        RetryTier tier = tiers.get(attempts - 1);
+        Instant dueAt = Instant.now().plus(tier.delay());
+        try {
+            ProducerRecord<String, Object> record = new ProducerRecord<>(
+                    tier.topic(), event.eventId(), DeadLetterQueuePublisher.withData(objectMapper, event));
+            Headers headers = record.headers();
+            headers.add(ATTEMPTS_HEADER, bytes(attempts));
+            headers.add(DUE_AT_HEADER, bytes(dueAt.toEpochMilli()));
+            headers.add(ORIGINAL_TOPIC_HEADER, bytes(originalTopic));
+            headers.add(ORIGINAL_PARTITION_HEADER, bytes(originalPartition));
+            headers.add(ORIGINAL_OFFSET_HEADER, bytes(originalOffset));
+            headers.add(EXCEPTION_TYPE_HEADER, bytes(exception.getClass().getName()));
+            headers.add(EXCEPTION_MESSAGE_HEADER, bytes(exception.getMessage()));
+
+            kafkaTemplate.send(record).get();
+
+            log.warn("Event {} sent to retry topic {} after attempt {}, due at {}. Exception: {}",
+                    event.eventId(), tier.topic(), attempts, dueAt, exception.getClass().getSimpleName());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventProcessingException(event.eventId(), "Interrupted while sending to retry topic", e);
+        } catch (Exception e) {
+            throw new EventProcessingException(event.eventId(), "Failed to send event to retry topic " + tier.topic(), e);
+        }
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String header(Headers headers, String key, String defaultValue) {
+        Header header = headers.lastHeader(key);
+        return header == null ? defaultValue : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private static long longHeader(Headers headers, String key, long defaultValue) {
+        Header header = headers.lastHeader(key);
+        return header == null ? defaultValue : Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+    }
+}
@@ -1,6 +1,7 @@
 package com.vega.techtest.adapter.in.messaging.kafka.validator;
 
 import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -32,6 +33,12 @@ public class KafkaEventValidator {
             throw new IllegalArgumentException("Event type is required");
         }
 
+        if (event.isTyped()) {
+            validateCommand(event.command());
+            log.debug("Event validation passed for eventId: {}", event.eventId());
+            return;
+        }
+
         if (event.data() == null || event.data().isEmpty()) {
             throw new IllegalArgumentException("Event data cannot be null or empty");
         }
@@ -48,6 +55,26 @@ public class KafkaEventValidator {
         log.debug("Event validation passed for eventId: {}", event.eventId());
     }
 
+    /**
+     * Same checks as for the data map, on data that has already been parsed into a command.
+     */
+    private void validateCommand(CreateTransactionCommand command) {
+        validateRequiredValue(command.storeId(), "storeId");
+        validateRequiredValue(command.tillId(), "tillId");
+        validateRequiredValue(command.paymentMethod(), "paymentMethod");
+        validateRequiredValue(command.totalAmount(), "totalAmount");
+        validateRequiredValue(command.timestamp(), "timestamp");
+    }
+
+    private void validateRequiredValue(Object value, String fieldName) {
+        if (value == null) {
+            throw new IllegalArgumentException("Required field '" + fieldName + "' is missing in event data");
+        }
+        if (value instanceof String && ((String) value).isBlank()) {
+            throw new IllegalArgumentException("Required field '" + fieldName + "' cannot be blank");
+        }
+    }
+
     private void validateRequiredField(Map<String, Object> data, String fieldName) {
         if (!data.containsKey(fieldName) || data.get(fieldName) == null) {
             throw new IllegalArgumentException("Required field '" + fieldName + "' is missing in event data");
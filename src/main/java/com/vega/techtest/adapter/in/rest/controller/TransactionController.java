@@ -1,23 +1,44 @@
 package com.vega.techtest.adapter.in.rest.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vega.techtest.shared.aspect.Timed;
+import com.vega.techtest.adapter.in.rest.dto.TransactionBatchItemResponse;
 import com.vega.techtest.adapter.in.rest.dto.TransactionItemRequest;
 import com.vega.techtest.adapter.in.rest.dto.TransactionRequest;
 import com.vega.techtest.adapter.in.rest.dto.TransactionResponse;
 import com.vega.techtest.adapter.in.rest.mapper.TransactionRequestMapper;
+import com.vega.techtest.adapter.in.rest.ndjson.TransactionNdjsonReader;
+import com.vega.techtest.domain.transaction.service.AsyncTransactionIngestService;
+import com.vega.techtest.domain.transaction.service.TransactionExportService;
 import com.vega.techtest.domain.transaction.service.TransactionService;
 import com.vega.techtest.domain.transaction.service.TransactionMetricsService;
 import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
+import com.vega.techtest.application.transaction.command.TransactionCursor;
+import com.vega.techtest.application.transaction.command.TransactionPage;
 import com.vega.techtest.application.transaction.command.TransactionResult;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.math.BigDecimal;
@@ -30,8 +51,14 @@ public class TransactionController {
     private static final Logger logger = LoggerFactory.getLogger(TransactionController.class);
 
     private final TransactionService transactionService;
+    private final TransactionExportService exportService;
     private final TransactionMetricsService metricsService;
     private final TransactionRequestMapper transactionRequestMapper;
+    private final ObjectProvider<AsyncTransactionIngestService> asyncIngestService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${transaction.bulk.batch-size:500}")
+    private int bulkBatchSize;
 
     @Timed("transaction_submission_duration")
     @PostMapping("/submit")
@@ -39,6 +66,12 @@ public class TransactionController {
         logger.info("Received transaction submission from till: {}", request.tillId());
 
         CreateTransactionCommand command = transactionRequestMapper.toCommand(request);
+
+        AsyncTransactionIngestService asyncIngest = asyncIngestService.getIfAvailable();
+        if (asyncIngest != null) {
+            return acceptTransaction(asyncIngest, request, command);
+        }
+
         TransactionResult result = transactionService.processTransaction(command);
 
         TransactionResponse response = transactionRequestMapper.toResponse(result);
@@ -54,6 +87,180 @@ public class TransactionController {
         ));
     }
 
+    private ResponseEntity<Map<String, Object>> acceptTransaction(AsyncTransactionIngestService asyncIngest,
+                                                                  TransactionRequest request,
+                                                                  CreateTransactionCommand command) {
+        CreateTransactionCommand accepted = asyncIngest.accept(command);
+        metricsService.recordTransactionAccepted(request, accepted.transactionId());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "status", "accepted",
+                "message", "Transaction accepted for processing",
+                "transactionId", accepted.transactionId(),
+                "timestamp", request.timestamp()
+        ));
+    }
+
+    @Timed("transaction_batch_submission_duration")
+    @PostMapping("/submit-batch")
+    public ResponseEntity<Map<String, Object>> submitTransactionBatch(@RequestBody List<TransactionRequest> requests) {
+        logger.info("Received batch submission of {} transactions", requests.size());
+
+        List<CreateTransactionCommand> commands = transactionRequestMapper.toCommands(requests);
+        List<TransactionBatchItemResult> results = transactionService.processTransactionBatch(commands);
+
+        List<TransactionBatchItemResponse> items = new ArrayList<>(results.size());
+        int succeeded = 0;
+        int duplicates = 0;
+        int failed = 0;
+        for (TransactionBatchItemResult result : results) {
+            switch (result.status()) {
+                case SUCCESS -> {
+                    succeeded++;
+                    TransactionResponse response = transactionRequestMapper.toResponse(result.transaction());
+                    metricsService.recordTransactionSubmission(requests.get(result.index()), response);
+                }
+                case DUPLICATE -> duplicates++;
+                case FAILED -> failed++;
+            }
+            items.add(transactionRequestMapper.toBatchItemResponse(result));
+        }
+
+        logger.info("Processed batch of {} transactions - Succeeded: {}, Duplicates: {}, Failed: {}",
+                results.size(), succeeded, duplicates, failed);
+
+        return ResponseEntity.ok(Map.of(
+                "status", failed == 0 ? "success" : "partial",
+                "message", "Transaction batch processed",
+                "total", results.size(),
+                "succeeded", succeeded,
+                "duplicates", duplicates,
+                "failed", failed,
+                "results", items
+        ));
+    }
+
+    /**
+     * Streams an NDJSON upload of any size, such as a till's end-of-day journal. Records are parsed
+     * one at a time and persisted in batches of {@code transaction.bulk.batch-size}; one result line
+     * is written per record as soon as its batch is done, followed by a summary line. Records that
+     * cannot be read are reported straight away, so result lines are ordered by batch rather than
+     * by index.
+     */
+    @Timed("transaction_bulk_submission_duration")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void submitTransactionBulk(HttpServletRequest httpRequest, HttpServletResponse httpResponse)
+            throws IOException {
+        logger.info("Received bulk NDJSON submission");
+
+        httpResponse.setStatus(HttpServletResponse.SC_OK);
+        httpResponse.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = httpResponse.getOutputStream();
+
+        BulkCounts counts = new BulkCounts();
+        List<TransactionRequest> requests = new ArrayList<>(bulkBatchSize);
+        List<Integer> indexes = new ArrayList<>(bulkBatchSize);
+        String abortReason = null;
+
+        try (TransactionNdjsonReader reader = new TransactionNdjsonReader(objectMapper, httpRequest.getInputStream())) {
+            try {
+                TransactionNdjsonReader.Record record;
+                while (abortReason == null && (record = reader.next()) != null) {
+                    if (!record.isValid()) {
+                        writeBulkResult(out, counts, new TransactionBatchItemResponse(
+                                record.index(), TransactionBatchItemResult.Status.FAILED.name(), null, record.error()));
+                        continue;
+                    }
+                    requests.add(record.request());
+                    indexes.add(record.index());
+                    if (requests.size() >= bulkBatchSize) {
+                        abortReason = processBulkBatch(out, counts, requests, indexes);
+                    }
+                }
+            } catch (JsonParseException e) {
+                abortReason = "Malformed JSON at record " + reader.nextIndex() + ": " + e.getOriginalMessage();
+                logger.warn("Stopped reading bulk submission: {}", abortReason);
+            }
+            // Records read before malformed JSON are still persisted
+            if (!requests.isEmpty()) {
+                String batchFailure = processBulkBatch(out, counts, requests, indexes);
+                abortReason = abortReason != null ? abortReason : batchFailure;
+            }
+        }
+
+        logger.info("Processed bulk submission of {} transactions - Succeeded: {}, Duplicates: {}, Failed: {}",
+                counts.total(), counts.succeeded, counts.duplicates, counts.failed);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("status", abortReason != null ? "aborted" : counts.failed == 0 ? "success" : "partial");
+        summary.put("message", abortReason != null ? abortReason : "Transaction bulk submission processed");
+        summary.put("total", counts.total());
+        summary.put("succeeded", counts.succeeded);
+        summary.put("duplicates", counts.duplicates);
+        summary.put("failed", counts.failed);
+        writeLine(out, summary);
+        out.flush();
+    }
+
+    /**
+     * Persists one batch and writes its result lines. Returns a reason to stop reading if the batch
+     * could not be processed at all, in which case its records are reported as failed.
+     */
+    private String processBulkBatch(OutputStream out, BulkCounts counts,
+                                    List<TransactionRequest> requests, List<Integer> indexes) throws IOException {
+        try {
+            List<TransactionBatchItemResult> results =
+                    transactionService.processTransactionBatch(transactionRequestMapper.toCommands(requests));
+            for (TransactionBatchItemResult result : results) {
+                if (result.status() == TransactionBatchItemResult.Status.SUCCESS) {
+                    metricsService.recordTransactionSubmission(requests.get(result.index()),
+                            transactionRequestMapper.toResponse(result.transaction()));
+                }
+                writeBulkResult(out, counts,
+                        transactionRequestMapper.toBatchItemResponse(result.withIndex(indexes.get(result.index()))));
+            }
+            return null;
+        } catch (RuntimeException e) {
+            // Includes capacity rejections: the response is already streaming, so they must still
+            // end in a summary line rather than a truncated body
+            logger.error("Failed to process bulk batch of {} transactions", requests.size(), e);
+            for (Integer index : indexes) {
+                writeBulkResult(out, counts, new TransactionBatchItemResponse(
+                        index, TransactionBatchItemResult.Status.FAILED.name(), null, "Not processed: " + e.getMessage()));
+            }
+            return e.getMessage();
+        } finally {
+            requests.clear();
+            indexes.clear();
+            out.flush();
+        }
+    }
+
+    private void writeBulkResult(OutputStream out, BulkCounts counts, TransactionBatchItemResponse result)
+            throws IOException {
+        switch (TransactionBatchItemResult.Status.valueOf(result.status())) {
+            case SUCCESS -> counts.succeeded++;
+            case DUPLICATE -> counts.duplicates++;
+            case FAILED -> counts.failed++;
+        }
+        writeLine(out, result);
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
+    private static final class BulkCounts {
+        private int succeeded;
+        private int duplicates;
+        private int failed;
+
+        private int total() {
+            return succeeded + duplicates + failed;
+        }
+    }
+
     @Timed("transaction_retrieval_duration")
     @GetMapping("/{transactionId}")
     public ResponseEntity<TransactionResponse> getTransaction(@PathVariable String transactionId) {
@@ -64,66 +271,113 @@ public class TransactionController {
         return ResponseEntity.ok(transaction);
     }
 
+    /**
+     * Listing endpoints return one page of up to {@code limit} transactions, newest first. When more
+     * follow, {@code nextCursor} is set and is passed back as {@code cursor} for the next page.
+     */
     @Timed("transaction_retrieval_duration")
     @GetMapping("/store/{storeId}")
-    public ResponseEntity<Map<String, Object>> getTransactionsByStore(@PathVariable String storeId) {
-        List<TransactionResult> results = transactionService.getTransactionsByStore(storeId);
-        List<TransactionResponse> transactions = transactionRequestMapper.toResponseList(results);
-        metricsService.recordTransactionRetrieval();
+    public ResponseEntity<Map<String, Object>> getTransactionsByStore(
+            @PathVariable String storeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        TransactionPage page = transactionService.getTransactionsByStore(storeId, decodeCursor(cursor), limit);
 
-        return ResponseEntity.ok(Map.of(
-                "storeId", storeId,
-                "count", transactions.size(),
-                "transactions", transactions
-        ));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("storeId", storeId);
+        return pageResponse(body, page);
     }
 
     @Timed("transaction_retrieval_duration")
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<Map<String, Object>> getTransactionsByCustomer(@PathVariable String customerId) {
-        List<TransactionResult> results = transactionService.getTransactionsByCustomer(customerId);
-        List<TransactionResponse> transactions = transactionRequestMapper.toResponseList(results);
-        metricsService.recordTransactionRetrieval();
+    public ResponseEntity<Map<String, Object>> getTransactionsByCustomer(
+            @PathVariable String customerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        TransactionPage page = transactionService.getTransactionsByCustomer(customerId, decodeCursor(cursor), limit);
 
-        return ResponseEntity.ok(Map.of(
-                "customerId", customerId,
-                "count", transactions.size(),
-                "transactions", transactions
-        ));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("customerId", customerId);
+        return pageResponse(body, page);
     }
 
     @Timed("transaction_retrieval_duration")
     @GetMapping("/till/{tillId}")
-    public ResponseEntity<Map<String, Object>> getTransactionsByTill(@PathVariable String tillId) {
-        List<TransactionResult> results = transactionService.getTransactionsByTill(tillId);
-        List<TransactionResponse> transactions = transactionRequestMapper.toResponseList(results);
-        metricsService.recordTransactionRetrieval();
+    public ResponseEntity<Map<String, Object>> getTransactionsByTill(
+            @PathVariable String tillId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        TransactionPage page = transactionService.getTransactionsByTill(tillId, decodeCursor(cursor), limit);
 
-        return ResponseEntity.ok(Map.of(
-                "tillId", tillId,
-                "count", transactions.size(),
-                "transactions", transactions
-        ));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("tillId", tillId);
+        return pageResponse(body, page);
     }
 
     @Timed("transaction_retrieval_duration")
     @GetMapping("/date-range")
     public ResponseEntity<Map<String, Object>> getTransactionsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime endDate) {
-        List<TransactionResult> results = transactionService.getTransactionsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        TransactionPage page = transactionService.getTransactionsByDateRange(
                 startDate == null ? null : startDate.toInstant(),
-                endDate == null ? null : endDate.toInstant()
+                endDate == null ? null : endDate.toInstant(),
+                decodeCursor(cursor),
+                limit
         );
-        List<TransactionResponse> transactions = transactionRequestMapper.toResponseList(results);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("startDate", startDate);
+        body.put("endDate", endDate);
+        return pageResponse(body, page);
+    }
+
+    /**
+     * Streams every transaction in the date range, optionally for one store, as a JSON array, oldest
+     * first. Transactions are written one at a time as they are read, so the response can be of any
+     * size.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(required = false) String storeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime endDate) {
+        Instant start = startDate.toInstant();
+        Instant end = endDate.toInstant();
+        logger.info("Exporting transactions for store: {} from {} to {}", storeId, start, end);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                exportService.export(storeId, start, end, result -> {
+                    try {
+                        generator.writeObject(transactionRequestMapper.toResponse(result));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
         metricsService.recordTransactionRetrieval();
 
-        return ResponseEntity.ok(Map.of(
-                "startDate", startDate,
-                "endDate", endDate,
-                "count", transactions.size(),
-                "transactions", transactions
-        ));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static TransactionCursor decodeCursor(String cursor) {
+        return cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+    }
+
+    private ResponseEntity<Map<String, Object>> pageResponse(Map<String, Object> body, TransactionPage page) {
+        List<TransactionResponse> transactions = transactionRequestMapper.toResponseList(page.transactions());
+        metricsService.recordTransactionRetrieval();
+
+        body.put("count", transactions.size());
+        body.put("transactions", transactions);
+        body.put("nextCursor", page.nextCursor() == null ? null : page.nextCursor().encode());
+        return ResponseEntity.ok(body);
     }
 
     // This endpoint should not go to production
@@ -175,8 +429,15 @@ public class TransactionController {
 
     @Timed("transaction_retrieval_duration")
     @GetMapping("/stats/{storeId}")
-    public ResponseEntity<Map<String, Object>> getTransactionStats(@PathVariable String storeId) {
-        Map<String, Object> statistics = transactionService.getTransactionsForStatistics(storeId);
+    public ResponseEntity<Map<String, Object>> getTransactionStats(
+            @PathVariable String storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime endDate,
+            @RequestParam(defaultValue = "false") boolean byPaymentMethod) {
+        Map<String, Object> statistics = transactionService.getTransactionsForStatistics(storeId,
+                startDate == null ? null : startDate.toInstant(),
+                endDate == null ? null : endDate.toInstant(),
+                byPaymentMethod);
         metricsService.recordTransactionRetrieval();
         return ResponseEntity.ok(statistics);
     }
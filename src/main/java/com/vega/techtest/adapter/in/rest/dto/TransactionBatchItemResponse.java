@@ -0,0 +1,15 @@
+package com.vega.techtest.adapter.in.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record TransactionBatchItemResponse(
+        @JsonProperty("index") int index,
+        @JsonProperty("status") String status,
+        @JsonProperty("transactionId") String transactionId,
+        @JsonProperty("error") String error
+) {
+    @JsonCreator
+    public TransactionBatchItemResponse {
+    }
+}
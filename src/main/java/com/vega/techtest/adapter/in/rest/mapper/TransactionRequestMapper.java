@@ -1,10 +1,12 @@
 package com.vega.techtest.adapter.in.rest.mapper;
 
+import com.vega.techtest.adapter.in.rest.dto.TransactionBatchItemResponse;
 import com.vega.techtest.adapter.in.rest.dto.TransactionItemRequest;
 import com.vega.techtest.adapter.in.rest.dto.TransactionItemResponse;
 import com.vega.techtest.adapter.in.rest.dto.TransactionRequest;
 import com.vega.techtest.adapter.in.rest.dto.TransactionResponse;
 import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
 import com.vega.techtest.domain.transaction.model.TransactionItem;
 import com.vega.techtest.application.transaction.command.TransactionItemResult;
 import com.vega.techtest.application.transaction.command.TransactionResult;
@@ -23,6 +25,8 @@ public interface TransactionRequestMapper {
     @Mapping(target = "timestamp", source = "timestamp", qualifiedByName = "toInstantUtc")
     CreateTransactionCommand toCommand(TransactionRequest request);
 
+    List<CreateTransactionCommand> toCommands(List<TransactionRequest> requests);
+
     TransactionItem toCommandItem(TransactionItemRequest item);
 
     List<TransactionItem> toCommandItems(List<TransactionItemRequest> items);
@@ -37,6 +41,9 @@ public interface TransactionRequestMapper {
 
     List<TransactionItemResponse> toItemResponseList(List<TransactionItemResult> items);
 
+    @Mapping(target = "transactionId", source = "transaction.transactionId")
+    TransactionBatchItemResponse toBatchItemResponse(TransactionBatchItemResult result);
+
     @Named("toInstantUtc")
     default Instant toInstantUtc(ZonedDateTime timestamp) {
         if (timestamp == null) {
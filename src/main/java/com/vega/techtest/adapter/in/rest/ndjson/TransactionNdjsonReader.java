@@ -0,0 +1,75 @@
+package com.vega.techtest.adapter.in.rest.ndjson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vega.techtest.adapter.in.rest.dto.TransactionRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads newline-delimited {@link TransactionRequest} records from a stream one at a time, so only
+ * the current record is ever held in memory regardless of the size of the upload.
+ * <p>
+ * Each record is read as a tree and then bound, which keeps the parser positioned on the next
+ * record when a record has the wrong shape: binding errors are reported against that record and
+ * reading continues. Malformed JSON cannot be resynchronised and ends the stream with a
+ * {@link com.fasterxml.jackson.core.JsonParseException}.
+ */
+public class TransactionNdjsonReader implements Closeable {
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private int nextIndex;
+
+    public record Record(int index, TransactionRequest request, String error) {
+
+        public boolean isValid() {
+            return error == null;
+        }
+    }
+
+    public TransactionNdjsonReader(ObjectMapper objectMapper, InputStream input) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(input);
+    }
+
+    /**
+     * Returns the next record, or null at the end of the stream.
+     */
+    public Record next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return new Record(nextIndex++, null, "Each line must be a JSON object");
+        }
+
+        JsonNode node = objectMapper.readTree(parser);
+        int index = nextIndex++;
+        try {
+            return new Record(index, objectMapper.treeToValue(node, TransactionRequest.class), null);
+        } catch (JsonProcessingException e) {
+            return new Record(index, null, "Invalid transaction: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Index of the record the next call to {@link #next()} would return, which after a
+     * {@link com.fasterxml.jackson.core.JsonParseException} is the record that could not be parsed.
+     */
+    public int nextIndex() {
+        return nextIndex;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,46 @@
+package com.vega.techtest.adapter.out.persistence.copy;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * Writes rows in the CSV dialect of {@code COPY ... WITH (FORMAT csv)}. Every non-null value is
+ * quoted, so an empty string stays distinct from NULL, which is written as an unquoted empty field.
+ */
+final class CopyCsvWriter {
+
+    private final Writer out;
+    private boolean startOfRow = true;
+
+    CopyCsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    CopyCsvWriter value(Object value) throws IOException {
+        if (!startOfRow) {
+            out.write(',');
+        }
+        startOfRow = false;
+        if (value == null) {
+            return this;
+        }
+
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        out.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+        return this;
+    }
+
+    void endRow() throws IOException {
+        out.write('\n');
+        startOfRow = true;
+    }
+}
@@ -0,0 +1,192 @@
+package com.vega.techtest.adapter.out.persistence.copy;
+
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.model.TransactionItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Loads transactions with Postgres {@code COPY} for historical backfills.
+ * <p>
+ * Each chunk is copied into temporary staging tables and moved into {@code transactions} and
+ * {@code transaction_items} with a single statement. The statement keeps the first row per
+ * (store, till, timestamp) and per transaction ID within the chunk, skips rows that already exist
+ * with {@code ON CONFLICT DO NOTHING}, and joins items to the ids returned by the parent insert,
+ * so parent ids are resolved in bulk rather than one round-trip per receipt. Ids come from the
+ * column defaults, which draw on the same pooled sequences Hibernate uses.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionCopyLoader {
+
+    private static final String CREATE_STAGING_TABLES = """
+            CREATE TEMPORARY TABLE transaction_backfill_staging (
+                line_no               integer,
+                transaction_id        varchar(50),
+                customer_id           varchar(50),
+                store_id              varchar(50),
+                till_id               varchar(50),
+                payment_method        varchar(20),
+                total_amount          numeric(10,2),
+                currency              varchar(3),
+                transaction_timestamp timestamp with time zone
+            ) ON COMMIT DROP;
+            CREATE TEMPORARY TABLE transaction_item_backfill_staging (
+                line_no      integer,
+                item_no      integer,
+                product_name varchar(255),
+                product_code varchar(50),
+                unit_price   numeric(10,2),
+                quantity     integer,
+                category     varchar(100)
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_TRANSACTIONS =
+            "COPY transaction_backfill_staging FROM STDIN WITH (FORMAT csv)";
+
+    private static final String COPY_ITEMS =
+            "COPY transaction_item_backfill_staging FROM STDIN WITH (FORMAT csv)";
+
+    private static final String MERGE_STAGING = """
+            WITH chosen AS (
+                SELECT DISTINCT ON (transaction_id) *
+                FROM (SELECT DISTINCT ON (store_id, till_id, transaction_timestamp) *
+                      FROM transaction_backfill_staging
+                      ORDER BY store_id, till_id, transaction_timestamp, line_no) first_per_key
+                ORDER BY transaction_id, line_no
+            ),
+            inserted AS (
+                INSERT INTO transactions (transaction_id, customer_id, store_id, till_id, payment_method,
+                                          total_amount, currency, transaction_timestamp, created_at, status)
+                SELECT transaction_id, customer_id, store_id, till_id, payment_method,
+                       total_amount, currency, transaction_timestamp, now(), 'COMPLETED'
+                FROM chosen
+                ORDER BY line_no
+                ON CONFLICT DO NOTHING
+                RETURNING id, transaction_id
+            ),
+            inserted_items AS (
+                INSERT INTO transaction_items (transaction_id, product_name, product_code, unit_price,
+                                               quantity, total_price, category)
+                SELECT inserted.id, item.product_name, item.product_code, item.unit_price,
+                       item.quantity, item.unit_price * item.quantity, item.category
+                FROM inserted
+                JOIN chosen ON chosen.transaction_id = inserted.transaction_id
+                JOIN transaction_item_backfill_staging item ON item.line_no = chosen.line_no
+                ORDER BY item.line_no, item.item_no
+                RETURNING 1
+            )
+            SELECT (SELECT count(*) FROM inserted), (SELECT count(*) FROM inserted_items)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record LoadResult(int transactionsInserted, int itemsInserted, int duplicatesSkipped) {
+    }
+
+    /**
+     * Loads one chunk in a single database transaction. Commands must already be validated and
+     * carry their final transaction ID.
+     */
+    @Transactional
+    public LoadResult load(List<CreateTransactionCommand> commands) {
+        if (commands.isEmpty()) {
+            return new LoadResult(0, 0, 0);
+        }
+        return jdbcTemplate.execute((ConnectionCallback<LoadResult>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_TABLES);
+            }
+            copyTransactions(connection, commands);
+            copyItems(connection, commands);
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(MERGE_STAGING)) {
+                rs.next();
+                int transactionsInserted = rs.getInt(1);
+                int itemsInserted = rs.getInt(2);
+                log.debug("Copied {} transactions, inserted {} with {} items",
+                        commands.size(), transactionsInserted, itemsInserted);
+                return new LoadResult(transactionsInserted, itemsInserted, commands.size() - transactionsInserted);
+            }
+        });
+    }
+
+    private void copyTransactions(Connection connection, List<CreateTransactionCommand> commands) throws SQLException {
+        try (Writer writer = copyWriter(connection, COPY_TRANSACTIONS)) {
+            CopyCsvWriter csv = new CopyCsvWriter(writer);
+            for (int line = 0; line < commands.size(); line++) {
+                CreateTransactionCommand command = commands.get(line);
+                csv.value(line)
+                        .value(command.transactionId())
+                        .value(command.customerId())
+                        .value(command.storeId())
+                        .value(command.tillId())
+                        .value(command.paymentMethod())
+                        .value(command.totalAmount())
+                        .value(command.currency())
+                        .value(command.timestamp())
+                        .endRow();
+            }
+        } catch (IOException e) {
+            throw copyFailed(e);
+        }
+    }
+
+    private void copyItems(Connection connection, List<CreateTransactionCommand> commands) throws SQLException {
+        try (Writer writer = copyWriter(connection, COPY_ITEMS)) {
+            CopyCsvWriter csv = new CopyCsvWriter(writer);
+            for (int line = 0; line < commands.size(); line++) {
+                List<TransactionItem> items = commands.get(line).items();
+                if (items == null) {
+                    continue;
+                }
+                for (int itemNo = 0; itemNo < items.size(); itemNo++) {
+                    TransactionItem item = items.get(itemNo);
+                    csv.value(line)
+                            .value(itemNo)
+                            .value(item.productName())
+                            .value(item.productCode())
+                            .value(item.unitPrice())
+                            .value(item.quantity())
+                            .value(item.category())
+                            .endRow();
+                }
+            }
+        } catch (IOException e) {
+            throw copyFailed(e);
+        }
+    }
+
+    private static Writer copyWriter(Connection connection, String copySql) throws SQLException {
+        PGCopyOutputStream copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), copySql);
+        return new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8));
+    }
+
+    private static SQLException copyFailed(IOException e) {
+        // PGCopyOutputStream reports server-side COPY errors as IOExceptions wrapping the SQLException
+        if (e.getCause() instanceof SQLException sqlException) {
+            return sqlException;
+        }
+        return new SQLException("COPY into backfill staging table failed", e);
+    }
+}
@@ -0,0 +1,188 @@
+package com.vega.techtest.adapter.out.persistence.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * One store's transactions on one UTC day for one payment method and currency.
+ */
+@Entity
+@Table(name = "store_daily_stats")
+@IdClass(StoreDailyStatsEntity.Key.class)
+public class StoreDailyStatsEntity {
+
+    @Id
+    @Column(name = "store_id", nullable = false, length = 50)
+    private String storeId;
+
+    @Id
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Id
+    @Column(name = "payment_method", nullable = false, length = 20)
+    private String paymentMethod;
+
+    @Id
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "min_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal minAmount;
+
+    @Column(name = "max_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal maxAmount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public StoreDailyStatsEntity() {}
+
+    public StoreDailyStatsEntity(String storeId, LocalDate businessDate, String paymentMethod, String currency,
+                                 long transactionCount, BigDecimal totalAmount, BigDecimal minAmount,
+                                 BigDecimal maxAmount, Instant updatedAt) {
+        this.storeId = storeId;
+        this.businessDate = businessDate;
+        this.paymentMethod = paymentMethod;
+        this.currency = currency;
+        this.transactionCount = transactionCount;
+        this.totalAmount = totalAmount;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(String storeId) {
+        this.storeId = storeId;
+    }
+
+    public LocalDate getBusinessDate() {
+        return businessDate;
+    }
+
+    public void setBusinessDate(LocalDate businessDate) {
+        this.businessDate = businessDate;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public static class Key implements Serializable {
+        private String storeId;
+        private LocalDate businessDate;
+        private String paymentMethod;
+        private String currency;
+
+        public Key() {}
+
+        public Key(String storeId, LocalDate businessDate, String paymentMethod, String currency) {
+            this.storeId = storeId;
+            this.businessDate = businessDate;
+            this.paymentMethod = paymentMethod;
+            this.currency = currency;
+        }
+
+        public String getStoreId() {
+            return storeId;
+        }
+
+        public LocalDate getBusinessDate() {
+            return businessDate;
+        }
+
+        public String getPaymentMethod() {
+            return paymentMethod;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(storeId, key.storeId)
+                    && Objects.equals(businessDate, key.businessDate)
+                    && Objects.equals(paymentMethod, key.paymentMethod)
+                    && Objects.equals(currency, key.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(storeId, businessDate, paymentMethod, currency);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.vega.techtest.adapter.out.persistence.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -11,7 +12,8 @@ import java.util.List;
 public class TransactionEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "transaction_id", nullable = false, unique = true)
@@ -44,7 +46,10 @@ public class TransactionEntity {
     @Column(name = "status", nullable = false)
     private String status = "COMPLETED";
 
+    // Reading the items of one listed transaction loads those of up to 1000 others in the
+    // persistence context with a single IN query, so a page costs two statements instead of N + 1
     @OneToMany(mappedBy = "transaction", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 1000)
     private List<TransactionItemEntity> items;
 
     public TransactionEntity() {
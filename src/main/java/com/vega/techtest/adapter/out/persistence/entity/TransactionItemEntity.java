@@ -8,7 +8,8 @@ import java.math.BigDecimal;
 public class TransactionItemEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_items_seq")
+    @SequenceGenerator(name = "transaction_items_seq", sequenceName = "transaction_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
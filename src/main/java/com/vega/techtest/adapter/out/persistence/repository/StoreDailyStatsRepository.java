@@ -0,0 +1,29 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import com.vega.techtest.adapter.out.persistence.entity.StoreDailyStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StoreDailyStatsRepository
+        extends JpaRepository<StoreDailyStatsEntity, StoreDailyStatsEntity.Key>, StoreDailyStatsRepositoryCustom {
+
+    // A store's statistics over all of its days, one row per day rather than one per transaction,
+    // and one result per currency as amounts in different currencies are never added together
+
+    @Query("SELECT new com.vega.techtest.adapter.out.persistence.repository.TransactionTotals("
+            + "SUM(s.transactionCount), SUM(s.totalAmount), s.currency) "
+            + "FROM StoreDailyStatsEntity s WHERE s.storeId = :storeId "
+            + "GROUP BY s.currency ORDER BY s.currency")
+    List<TransactionTotals> sumByStoreIdGroupByCurrency(@Param("storeId") String storeId);
+
+    @Query("SELECT new com.vega.techtest.adapter.out.persistence.repository.TransactionTotals("
+            + "s.paymentMethod, SUM(s.transactionCount), SUM(s.totalAmount), s.currency) "
+            + "FROM StoreDailyStatsEntity s WHERE s.storeId = :storeId "
+            + "GROUP BY s.paymentMethod, s.currency ORDER BY s.paymentMethod, s.currency")
+    List<TransactionTotals> sumByStoreIdGroupByPaymentMethodAndCurrency(@Param("storeId") String storeId);
+}
@@ -0,0 +1,24 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface StoreDailyStatsRepositoryCustom {
+
+    /**
+     * Adds newly inserted transactions to their days' rows, creating rows as needed. Must be called
+     * in the transaction that inserted them, so that the rollup commits or rolls back with the rows.
+     * Postgres only.
+     */
+    void add(List<TransactionEntity> transactions);
+
+    /**
+     * Replaces every row of the UTC day with totals recomputed from {@code transactions}. Inserts into
+     * that day wait until the rebuild commits. Postgres only.
+     *
+     * @return the number of rows written for the day
+     */
+    int rebuildDay(LocalDate day);
+}
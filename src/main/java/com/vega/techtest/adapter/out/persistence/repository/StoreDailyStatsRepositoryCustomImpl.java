@@ -0,0 +1,141 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Native maintenance of store_daily_stats.
+ * <p>
+ * Inserts add to a day's rows with {@code ON CONFLICT DO UPDATE}. Rows are updated in key order,
+ * so two writers touching the same rows queue instead of deadlocking. A rebuild deletes and
+ * recomputes a whole day, which would lose the additions of writers whose transaction rows it did
+ * not see. Each day therefore has an advisory lock: writers hold it shared while they add, a
+ * rebuild holds it exclusively, and both keep it until commit.
+ */
+@RequiredArgsConstructor
+class StoreDailyStatsRepositoryCustomImpl implements StoreDailyStatsRepositoryCustom {
+
+    private static final int DAY_LOCK_CLASS = "store_daily_stats".hashCode();
+
+    private static final String LOCK_DAY_SHARED = "SELECT pg_advisory_xact_lock_shared(?, ?)";
+
+    private static final String LOCK_DAY = "SELECT pg_advisory_xact_lock(?, ?)";
+
+    private static final String ADD_TOTALS = """
+            INSERT INTO store_daily_stats (store_id, business_date, payment_method, currency, transaction_count,
+                                           total_amount, min_amount, max_amount, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (store_id, business_date, payment_method, currency) DO UPDATE
+            SET transaction_count = store_daily_stats.transaction_count + EXCLUDED.transaction_count,
+                total_amount = store_daily_stats.total_amount + EXCLUDED.total_amount,
+                min_amount = LEAST(store_daily_stats.min_amount, EXCLUDED.min_amount),
+                max_amount = GREATEST(store_daily_stats.max_amount, EXCLUDED.max_amount),
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String DELETE_DAY = "DELETE FROM store_daily_stats WHERE business_date = ?";
+
+    private static final String REBUILD_DAY = """
+            INSERT INTO store_daily_stats (store_id, business_date, payment_method, currency, transaction_count,
+                                           total_amount, min_amount, max_amount, updated_at)
+            SELECT store_id, ?, payment_method, currency, count(*),
+                   sum(total_amount), min(total_amount), max(total_amount), now()
+            FROM transactions
+            WHERE transaction_timestamp >= ? AND transaction_timestamp < ?
+            GROUP BY store_id, payment_method, currency
+            """;
+
+    private static final Comparator<DayKey> KEY_ORDER = Comparator.comparing(DayKey::storeId)
+            .thenComparing(DayKey::day)
+            .thenComparing(DayKey::paymentMethod)
+            .thenComparing(DayKey::currency);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private record DayKey(String storeId, LocalDate day, String paymentMethod, String currency) {
+    }
+
+    private static final class DayTotals {
+        private long count;
+        private BigDecimal total = BigDecimal.ZERO;
+        private BigDecimal min;
+        private BigDecimal max;
+
+        private void add(BigDecimal amount) {
+            count++;
+            total = total.add(amount);
+            min = min == null ? amount : min.min(amount);
+            max = max == null ? amount : max.max(amount);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void add(List<TransactionEntity> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        Map<DayKey, DayTotals> totals = new TreeMap<>(KEY_ORDER);
+        Set<LocalDate> days = new TreeSet<>();
+        for (TransactionEntity transaction : transactions) {
+            LocalDate day = LocalDate.ofInstant(transaction.getTransactionTimestamp(), ZoneOffset.UTC);
+            days.add(day);
+            totals.computeIfAbsent(new DayKey(transaction.getStoreId(), day, transaction.getPaymentMethod(),
+                            transaction.getCurrency()), key -> new DayTotals())
+                    .add(transaction.getTotalAmount());
+        }
+
+        for (LocalDate day : days) {
+            lockDay(LOCK_DAY_SHARED, day);
+        }
+
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<Map.Entry<DayKey, DayTotals>> rows = new ArrayList<>(totals.entrySet());
+        jdbcTemplate.batchUpdate(ADD_TOTALS, rows, rows.size(), (ps, row) -> {
+            DayKey key = row.getKey();
+            DayTotals dayTotals = row.getValue();
+            ps.setString(1, key.storeId());
+            ps.setObject(2, key.day());
+            ps.setString(3, key.paymentMethod());
+            ps.setString(4, key.currency());
+            ps.setLong(5, dayTotals.count);
+            ps.setBigDecimal(6, dayTotals.total);
+            ps.setBigDecimal(7, dayTotals.min);
+            ps.setBigDecimal(8, dayTotals.max);
+            ps.setObject(9, now);
+        });
+    }
+
+    @Override
+    @Transactional
+    public int rebuildDay(LocalDate day) {
+        lockDay(LOCK_DAY, day);
+        jdbcTemplate.update(DELETE_DAY, day);
+        return jdbcTemplate.update(REBUILD_DAY, day, startOf(day), startOf(day.plusDays(1)));
+    }
+
+    private void lockDay(String lockSql, LocalDate day) {
+        jdbcTemplate.query(lockSql, (RowCallbackHandler) rs -> {
+        }, DAY_LOCK_CLASS, Math.toIntExact(day.toEpochDay()));
+    }
+
+    private static OffsetDateTime startOf(LocalDate day) {
+        return day.atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+}
@@ -1,30 +1,124 @@
 package com.vega.techtest.adapter.out.persistence.repository;
 
 import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<TransactionEntity, Long> {
+public interface TransactionRepository extends JpaRepository<TransactionEntity, Long>, TransactionRepositoryCustom {
+
+    /**
+     * Rows the JDBC driver fetches per round trip while an export stream is read.
+     */
+    String EXPORT_FETCH_SIZE = "500";
 
     Optional<TransactionEntity> findByTransactionId(String transactionId);
 
-    List<TransactionEntity> findByStoreIdOrderByTransactionTimestampDesc(String storeId);
+    @Query("SELECT t FROM TransactionEntity t WHERE t.transactionTimestamp BETWEEN :startDate AND :endDate ORDER BY t.transactionTimestamp DESC")
+    List<TransactionEntity> findTransactionsByDateRange(@Param("startDate") Instant startDate,
+                                                        @Param("endDate") Instant endDate);
 
-    List<TransactionEntity> findByCustomerIdOrderByTransactionTimestampDesc(String customerId);
+    // Keyset pages in (transaction_timestamp, id) descending order: the first page, then the page
+    // after a cursor. Pass PageRequest.of(0, size); the offset is always 0, so no rows are skipped.
 
-    List<TransactionEntity> findByTillIdOrderByTransactionTimestampDesc(String tillId);
+    List<TransactionEntity> findByStoreIdOrderByTransactionTimestampDescIdDesc(String storeId, Pageable page);
 
-    @Query("SELECT t FROM TransactionEntity t WHERE t.transactionTimestamp BETWEEN :startDate AND :endDate ORDER BY t.transactionTimestamp DESC")
-    List<TransactionEntity> findTransactionsByDateRange(@Param("startDate") Instant startDate,
+    @Query("SELECT t FROM TransactionEntity t WHERE t.storeId = :storeId "
+            + "AND (t.transactionTimestamp, t.id) < (:timestamp, :id) "
+            + "ORDER BY t.transactionTimestamp DESC, t.id DESC")
+    List<TransactionEntity> findPageByStoreIdAfter(@Param("storeId") String storeId,
+                                                   @Param("timestamp") Instant timestamp,
+                                                   @Param("id") long id,
+                                                   Pageable page);
+
+    List<TransactionEntity> findByTillIdOrderByTransactionTimestampDescIdDesc(String tillId, Pageable page);
+
+    @Query("SELECT t FROM TransactionEntity t WHERE t.tillId = :tillId "
+            + "AND (t.transactionTimestamp, t.id) < (:timestamp, :id) "
+            + "ORDER BY t.transactionTimestamp DESC, t.id DESC")
+    List<TransactionEntity> findPageByTillIdAfter(@Param("tillId") String tillId,
+                                                  @Param("timestamp") Instant timestamp,
+                                                  @Param("id") long id,
+                                                  Pageable page);
+
+    List<TransactionEntity> findByCustomerIdOrderByTransactionTimestampDescIdDesc(String customerId, Pageable page);
+
+    @Query("SELECT t FROM TransactionEntity t WHERE t.customerId = :customerId "
+            + "AND (t.transactionTimestamp, t.id) < (:timestamp, :id) "
+            + "ORDER BY t.transactionTimestamp DESC, t.id DESC")
+    List<TransactionEntity> findPageByCustomerIdAfter(@Param("customerId") String customerId,
+                                                      @Param("timestamp") Instant timestamp,
+                                                      @Param("id") long id,
+                                                      Pageable page);
+
+    @Query("SELECT t FROM TransactionEntity t WHERE t.transactionTimestamp BETWEEN :startDate AND :endDate "
+            + "ORDER BY t.transactionTimestamp DESC, t.id DESC")
+    List<TransactionEntity> findPageByDateRange(@Param("startDate") Instant startDate,
+                                                @Param("endDate") Instant endDate,
+                                                Pageable page);
+
+    @Query("SELECT t FROM TransactionEntity t WHERE t.transactionTimestamp BETWEEN :startDate AND :endDate "
+            + "AND (t.transactionTimestamp, t.id) < (:timestamp, :id) "
+            + "ORDER BY t.transactionTimestamp DESC, t.id DESC")
+    List<TransactionEntity> findPageByDateRangeAfter(@Param("startDate") Instant startDate,
+                                                     @Param("endDate") Instant endDate,
+                                                     @Param("timestamp") Instant timestamp,
+                                                     @Param("id") long id,
+                                                     Pageable page);
+
+    // Export streams, oldest first. They must be consumed inside a transaction: Postgres only honours
+    // the fetch size with auto-commit off, and otherwise buffers the whole result set.
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM TransactionEntity t WHERE t.transactionTimestamp BETWEEN :startDate AND :endDate "
+            + "ORDER BY t.transactionTimestamp, t.id")
+    Stream<TransactionEntity> streamByDateRange(@Param("startDate") Instant startDate,
+                                                @Param("endDate") Instant endDate);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM TransactionEntity t WHERE t.storeId = :storeId "
+            + "AND t.transactionTimestamp BETWEEN :startDate AND :endDate "
+            + "ORDER BY t.transactionTimestamp, t.id")
+    Stream<TransactionEntity> streamByStoreIdAndDateRange(@Param("storeId") String storeId,
+                                                          @Param("startDate") Instant startDate,
+                                                          @Param("endDate") Instant endDate);
+
+    // Store statistics, aggregated in the database so that no transaction rows are loaded.
+    // Amounts are only summed within a currency, so each query returns one row per currency.
+
+    @Query("SELECT new com.vega.techtest.adapter.out.persistence.repository.TransactionTotals("
+            + "COUNT(t), SUM(t.totalAmount), t.currency) FROM TransactionEntity t "
+            + "WHERE t.storeId = :storeId AND t.transactionTimestamp BETWEEN :startDate AND :endDate "
+            + "GROUP BY t.currency ORDER BY t.currency")
+    List<TransactionTotals> sumByStoreIdGroupByCurrency(@Param("storeId") String storeId,
+                                                        @Param("startDate") Instant startDate,
                                                         @Param("endDate") Instant endDate);
 
+    @Query("SELECT new com.vega.techtest.adapter.out.persistence.repository.TransactionTotals("
+            + "t.paymentMethod, COUNT(t), SUM(t.totalAmount), t.currency) FROM TransactionEntity t "
+            + "WHERE t.storeId = :storeId AND t.transactionTimestamp BETWEEN :startDate AND :endDate "
+            + "GROUP BY t.paymentMethod, t.currency ORDER BY t.paymentMethod, t.currency")
+    List<TransactionTotals> sumByStoreIdGroupByPaymentMethodAndCurrency(@Param("storeId") String storeId,
+                                                                        @Param("startDate") Instant startDate,
+                                                                        @Param("endDate") Instant endDate);
+
     @Query("SELECT t.storeId, SUM(t.totalAmount) FROM TransactionEntity t GROUP BY t.storeId")
     List<Object[]> getTotalSalesByStore();
 
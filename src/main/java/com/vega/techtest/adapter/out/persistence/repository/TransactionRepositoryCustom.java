@@ -0,0 +1,34 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.domain.transaction.model.TransactionKey;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface TransactionRepositoryCustom {
+
+    /**
+     * Inserts the transaction and its items in one database transaction unless a row with the same
+     * (store_id, till_id, transaction_timestamp) or the same transaction_id already exists. Postgres only.
+     *
+     * @return the generated id, or null if the key was already taken
+     */
+    Long insertIfAbsent(TransactionEntity transaction);
+
+    /**
+     * Inserts the transactions and their items with one statement each, skipping those whose
+     * (store_id, till_id, transaction_timestamp) or transaction_id already exists. Transaction IDs
+     * must be distinct within the list. Postgres only.
+     *
+     * @return generated ids by transaction ID, for the transactions that were inserted
+     */
+    Map<String, Long> insertAllIfAbsent(List<TransactionEntity> transactions);
+
+    /**
+     * Finds the transactions stored under any of the given (store_id, till_id, transaction_timestamp)
+     * keys with one row-value IN, so that each key is a lookup on the unique index.
+     */
+    List<TransactionEntity> findAllByKeys(Collection<TransactionKey> keys);
+}
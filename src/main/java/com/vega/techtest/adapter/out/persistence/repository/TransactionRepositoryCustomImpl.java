@@ -0,0 +1,183 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.entity.TransactionItemEntity;
+import com.vega.techtest.domain.transaction.model.TransactionKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Native insert-or-skip for transactions. A duplicate key becomes an empty RETURNING instead of a
+ * constraint violation, so there is no exception, rollback or retry transaction on till
+ * resubmissions, and a caller's surrounding transaction stays usable. The conflict target is left
+ * open so that a taken transaction_id is skipped the same way. Ids come from the column defaults,
+ * which draw on the same sequences Hibernate uses.
+ * <p>
+ * Lookups by business key go through the entity manager, so that the rows come back as managed
+ * entities whose items can still be loaded.
+ */
+@RequiredArgsConstructor
+class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+
+    private static final String INSERT_TRANSACTION = """
+            INSERT INTO transactions (transaction_id, customer_id, store_id, till_id, payment_method,
+                                      total_amount, currency, transaction_timestamp, created_at, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            RETURNING id
+            """;
+
+    private static final String INSERT_TRANSACTIONS = """
+            INSERT INTO transactions (transaction_id, customer_id, store_id, till_id, payment_method,
+                                      total_amount, currency, transaction_timestamp, created_at, status)
+            SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[],
+                                 ?::numeric[], ?::varchar[], ?::timestamptz[], ?::timestamptz[], ?::varchar[])
+            ON CONFLICT DO NOTHING
+            RETURNING id, transaction_id
+            """;
+
+    private static final String INSERT_ITEM = """
+            INSERT INTO transaction_items (transaction_id, product_name, product_code, unit_price,
+                                           quantity, total_price, category)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String FIND_BY_KEYS =
+            "SELECT * FROM transactions WHERE (store_id, till_id, transaction_timestamp) IN (";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public Long insertIfAbsent(TransactionEntity transaction) {
+        List<Long> ids = jdbcTemplate.query(INSERT_TRANSACTION,
+                (rs, rowNum) -> rs.getLong(1),
+                transaction.getTransactionId(),
+                transaction.getCustomerId(),
+                transaction.getStoreId(),
+                transaction.getTillId(),
+                transaction.getPaymentMethod(),
+                transaction.getTotalAmount(),
+                transaction.getCurrency(),
+                toOffsetDateTime(transaction.getTransactionTimestamp()),
+                toOffsetDateTime(transaction.getCreatedAt()),
+                transaction.getStatus());
+
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        Long id = ids.get(0);
+        List<TransactionItemEntity> items = transaction.getItems();
+        if (items != null && !items.isEmpty()) {
+            insertItems(items.stream().map(item -> Map.entry(id, item)).toList());
+        }
+        return id;
+    }
+
+    @Override
+    @Transactional
+    public Map<String, Long> insertAllIfAbsent(List<TransactionEntity> transactions) {
+        int size = transactions.size();
+        String[] transactionIds = new String[size];
+        String[] customerIds = new String[size];
+        String[] storeIds = new String[size];
+        String[] tillIds = new String[size];
+        String[] paymentMethods = new String[size];
+        String[] totalAmounts = new String[size];
+        String[] currencies = new String[size];
+        String[] timestamps = new String[size];
+        String[] createdAts = new String[size];
+        String[] statuses = new String[size];
+        for (int i = 0; i < size; i++) {
+            TransactionEntity transaction = transactions.get(i);
+            transactionIds[i] = transaction.getTransactionId();
+            customerIds[i] = transaction.getCustomerId();
+            storeIds[i] = transaction.getStoreId();
+            tillIds[i] = transaction.getTillId();
+            paymentMethods[i] = transaction.getPaymentMethod();
+            totalAmounts[i] = transaction.getTotalAmount() == null ? null : transaction.getTotalAmount().toPlainString();
+            currencies[i] = transaction.getCurrency();
+            timestamps[i] = toText(transaction.getTransactionTimestamp());
+            createdAts[i] = toText(transaction.getCreatedAt());
+            statuses[i] = transaction.getStatus();
+        }
+
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(INSERT_TRANSACTIONS,
+                rs -> {
+                    ids.put(rs.getString(2), rs.getLong(1));
+                },
+                transactionIds, customerIds, storeIds, tillIds, paymentMethods, totalAmounts, currencies,
+                timestamps, createdAts, statuses);
+
+        List<Map.Entry<Long, TransactionItemEntity>> items = new ArrayList<>();
+        for (TransactionEntity transaction : transactions) {
+            Long id = ids.get(transaction.getTransactionId());
+            if (id != null && transaction.getItems() != null) {
+                transaction.getItems().forEach(item -> items.add(Map.entry(id, item)));
+            }
+        }
+        if (!items.isEmpty()) {
+            insertItems(items);
+        }
+        return ids;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<TransactionEntity> findAllByKeys(Collection<TransactionKey> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+
+        StringBuilder sql = new StringBuilder(FIND_BY_KEYS);
+        for (int i = 0; i < keys.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        sql.append(')');
+
+        Query query = entityManager.createNativeQuery(sql.toString(), TransactionEntity.class);
+        int position = 1;
+        for (TransactionKey key : keys) {
+            query.setParameter(position++, key.storeId());
+            query.setParameter(position++, key.tillId());
+            query.setParameter(position++, key.timestamp());
+        }
+        return query.getResultList();
+    }
+
+    private void insertItems(List<Map.Entry<Long, TransactionItemEntity>> items) {
+        jdbcTemplate.batchUpdate(INSERT_ITEM, items, items.size(), (ps, entry) -> {
+            TransactionItemEntity item = entry.getValue();
+            ps.setLong(1, entry.getKey());
+            ps.setString(2, item.getProductName());
+            ps.setString(3, item.getProductCode());
+            ps.setBigDecimal(4, item.getUnitPrice());
+            ps.setInt(5, item.getQuantity());
+            ps.setBigDecimal(6, item.getTotalPrice());
+            ps.setString(7, item.getCategory());
+        });
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private static String toText(Instant instant) {
+        return instant == null ? null : instant.toString();
+    }
+}
@@ -0,0 +1,16 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Count and sum of a store's transactions in one currency, computed by the database.
+ * {@code paymentMethod} is null for the store-wide totals; {@code totalAmount} is null when every
+ * counted transaction had no amount.
+ */
+public record TransactionTotals(String paymentMethod, long transactionCount, BigDecimal totalAmount,
+                                String currency) {
+
+    public TransactionTotals(long transactionCount, BigDecimal totalAmount, String currency) {
+        this(null, transactionCount, totalAmount, currency);
+    }
+}
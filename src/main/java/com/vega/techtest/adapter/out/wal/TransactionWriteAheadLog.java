@@ -0,0 +1,344 @@
+package com.vega.techtest.adapter.out.wal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only NDJSON log of transaction commands accepted by the asynchronous ingest mode.
+ * <p>
+ * Appends are made durable with a group fsync: callers that arrive while another caller is
+ * forcing the file are covered by that force instead of issuing their own. The single reader
+ * consumes entries from the last checkpoint, so anything not yet persisted to the database is
+ * replayed after a restart. Once the reader has caught up and the file has grown past
+ * {@code compactThresholdBytes}, the log is truncated back to zero.
+ * <p>
+ * Locking uses {@link ReentrantLock} rather than {@code synchronized} so that a virtual thread
+ * blocked on fsync does not pin its carrier thread.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "transaction.ingest.mode", havingValue = "async")
+public class TransactionWriteAheadLog implements Closeable {
+
+    static final String LOG_FILE = "transactions.wal";
+    static final String CHECKPOINT_FILE = "transactions.checkpoint";
+    static final String REJECTED_FILE = "transactions.rejected";
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final Path directory;
+    private final long compactThresholdBytes;
+    private final FileChannel channel;
+
+    // Lock order is syncLock then appendLock
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+
+    private long writePosition;
+    private volatile long syncedPosition;
+    private volatile long checkpoint;
+
+    public record Batch(List<CreateTransactionCommand> commands, long endPosition) {
+    }
+
+    public TransactionWriteAheadLog(
+            @Value("${transaction.ingest.wal.directory:./data/ingest-wal}") Path directory,
+            @Value("${transaction.ingest.wal.compact-threshold-bytes:67108864}") long compactThresholdBytes) {
+        this.directory = directory;
+        this.compactThresholdBytes = compactThresholdBytes;
+        try {
+            Files.createDirectories(directory);
+            this.channel = FileChannel.open(directory.resolve(LOG_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            long size = channel.size();
+            long validEnd = findEndOfLastCompleteLine(size);
+            if (validEnd < size) {
+                log.warn("Discarding {} bytes of incomplete write-ahead log entry at offset {}",
+                        size - validEnd, validEnd);
+                channel.truncate(validEnd);
+                channel.force(true);
+            }
+            this.writePosition = validEnd;
+            this.syncedPosition = validEnd;
+
+            long storedCheckpoint = readCheckpoint();
+            if (storedCheckpoint > validEnd) {
+                // Only happens when we crashed between truncating the log and resetting the checkpoint
+                log.warn("Write-ahead log checkpoint {} is beyond end of log {}, resetting to 0",
+                        storedCheckpoint, validEnd);
+                storedCheckpoint = 0;
+            }
+            this.checkpoint = storedCheckpoint;
+
+            log.info("Opened transaction write-ahead log in {} - {} bytes pending replay",
+                    directory, validEnd - storedCheckpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open transaction write-ahead log in " + directory, e);
+        }
+    }
+
+    /**
+     * Appends a command and returns once it has been forced to disk.
+     */
+    public void append(CreateTransactionCommand command) {
+        try {
+            byte[] line = toLine(objectMapper.writeValueAsBytes(command));
+
+            long end;
+            appendLock.lock();
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    writePosition += channel.write(buffer, writePosition);
+                }
+                end = writePosition;
+            } finally {
+                appendLock.unlock();
+            }
+            sync(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to transaction write-ahead log", e);
+        }
+    }
+
+    private void sync(long position) throws IOException {
+        if (syncedPosition >= position) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            // Another caller's force may already have covered our write while we waited for the lock
+            if (syncedPosition >= position) {
+                return;
+            }
+            long target;
+            appendLock.lock();
+            try {
+                target = writePosition;
+            } finally {
+                appendLock.unlock();
+            }
+            channel.force(false);
+            syncedPosition = target;
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until there are durable entries past the checkpoint or the timeout elapses.
+     */
+    public boolean awaitEntries(long timeoutMillis) throws InterruptedException {
+        syncLock.lock();
+        try {
+            if (syncedPosition <= checkpoint) {
+                synced.await(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            return syncedPosition > checkpoint;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Reads up to {@code maxEntries} durable commands starting at the checkpoint. Lines that cannot
+     * be parsed are moved to the rejected file and skipped. Must only be called by a single reader.
+     */
+    public Batch read(int maxEntries) {
+        long start = checkpoint;
+        long limit = syncedPosition;
+        List<CreateTransactionCommand> commands = new ArrayList<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        long cursor = start;
+        long endPosition = start;
+        try {
+            while (cursor < limit && commands.size() < maxEntries) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), limit - cursor));
+                int bytesRead = channel.read(buffer, cursor);
+                if (bytesRead <= 0) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining() && commands.size() < maxEntries) {
+                    byte b = buffer.get();
+                    cursor++;
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    CreateTransactionCommand command = parse(line.toByteArray(), endPosition);
+                    if (command != null) {
+                        commands.add(command);
+                    }
+                    line.reset();
+                    endPosition = cursor;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read transaction write-ahead log", e);
+        }
+        return new Batch(commands, endPosition);
+    }
+
+    private CreateTransactionCommand parse(byte[] line, long offset) {
+        try {
+            return objectMapper.readValue(line, CreateTransactionCommand.class);
+        } catch (IOException e) {
+            String raw = new String(line, StandardCharsets.UTF_8);
+            log.error("Skipping unreadable write-ahead log entry at offset {}: {}", offset, e.getMessage());
+            ObjectNode record = objectMapper.createObjectNode();
+            record.put("rejectedAt", Instant.now().toString());
+            record.put("reason", "Unreadable write-ahead log entry: " + e.getMessage());
+            record.put("raw", raw);
+            writeRejected(record);
+            return null;
+        }
+    }
+
+    /**
+     * Records a command that can never be persisted so that it can be inspected and replayed by hand.
+     */
+    public void reject(CreateTransactionCommand command, String reason) {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("rejectedAt", Instant.now().toString());
+        record.put("reason", reason);
+        record.set("command", objectMapper.valueToTree(command));
+        writeRejected(record);
+    }
+
+    private void writeRejected(ObjectNode record) {
+        try {
+            Files.write(directory.resolve(REJECTED_FILE), toLine(objectMapper.writeValueAsBytes(record)),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write rejected transaction", e);
+        }
+    }
+
+    /**
+     * Marks everything before {@code position} as persisted and compacts the log once it is drained.
+     */
+    public void checkpoint(long position) {
+        if (position == checkpoint) {
+            return;
+        }
+        try {
+            writeCheckpoint(position);
+            checkpoint = position;
+            if (position >= compactThresholdBytes) {
+                compactIfDrained();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to checkpoint transaction write-ahead log", e);
+        }
+    }
+
+    private void compactIfDrained() throws IOException {
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            if (writePosition != checkpoint) {
+                return;
+            }
+            channel.truncate(0);
+            channel.force(true);
+            writePosition = 0;
+            syncedPosition = 0;
+            writeCheckpoint(0);
+            checkpoint = 0;
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+        log.info("Compacted transaction write-ahead log");
+    }
+
+    public long backlogBytes() {
+        return syncedPosition - checkpoint;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long findEndOfLastCompleteLine(long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long end = size;
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear();
+            buffer.limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                channel.read(buffer, start + buffer.position());
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(file).trim());
+    }
+
+    private void writeCheckpoint(long position) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temp, Long.toString(position), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] toLine(byte[] json) {
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        return line;
+    }
+}
@@ -24,6 +24,11 @@ public record CreateTransactionCommand(
         }
     }
 
+    public CreateTransactionCommand copyWithTransactionId(String transactionId) {
+        return new CreateTransactionCommand(
+                transactionId, customerId, storeId, tillId, paymentMethod, totalAmount, currency, timestamp, items);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,30 @@
+package com.vega.techtest.application.transaction.command;
+
+public record TransactionBatchItemResult(
+    int index,
+    Status status,
+    TransactionResult transaction,
+    String error
+) {
+    public enum Status {
+        SUCCESS,
+        DUPLICATE,
+        FAILED
+    }
+
+    public static TransactionBatchItemResult success(int index, TransactionResult transaction) {
+        return new TransactionBatchItemResult(index, Status.SUCCESS, transaction, null);
+    }
+
+    public static TransactionBatchItemResult duplicate(int index, TransactionResult transaction) {
+        return new TransactionBatchItemResult(index, Status.DUPLICATE, transaction, null);
+    }
+
+    public static TransactionBatchItemResult failed(int index, String error) {
+        return new TransactionBatchItemResult(index, Status.FAILED, null, error);
+    }
+
+    public TransactionBatchItemResult withIndex(int newIndex) {
+        return new TransactionBatchItemResult(newIndex, status, transaction, error);
+    }
+}
@@ -0,0 +1,12 @@
+package com.vega.techtest.application.transaction.command;
+
+import java.util.List;
+
+/**
+ * One page of a transaction listing. {@code nextCursor} is null on the last page.
+ */
+public record TransactionPage(
+    List<TransactionResult> transactions,
+    TransactionCursor nextCursor
+) {
+}
@@ -0,0 +1,78 @@
+package com.vega.techtest.domain.transaction.model;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * An amount held as a whole number of minor units (pence for GBP) plus its currency.
+ * <p>
+ * Receipt arithmetic is done on the long so that adding up items does not allocate a BigDecimal per
+ * step. Amounts only become BigDecimal again at the JSON and JPA boundaries, via {@link #toBigDecimal()}.
+ * All arithmetic is exact: overflow and amounts finer than a minor unit throw {@link ArithmeticException}
+ * rather than rounding silently.
+ */
+public record Money(long minorUnits, String currency) implements Comparable<Money> {
+
+    public static final int MINOR_UNIT_SCALE = 2;
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    public static Money of(BigDecimal amount, String currency) {
+        return new Money(minorUnitsOf(amount), currency);
+    }
+
+    public static Money ofMinorUnits(long minorUnits, String currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money zero(String currency) {
+        return new Money(0, currency);
+    }
+
+    /**
+     * Converts an amount to minor units. Amounts already at scale 2 take the compact-value fast path
+     * in {@link BigDecimal#longValueExact()} without allocating a BigInteger.
+     *
+     * @throws ArithmeticException if the amount has non-zero digits beyond the minor unit or does not fit in a long
+     */
+    public static long minorUnitsOf(BigDecimal amount) {
+        return amount.movePointRight(MINOR_UNIT_SCALE).longValueExact();
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, MINOR_UNIT_SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException(
+                    "Cannot combine amounts in " + currency + " and " + other.currency);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+}
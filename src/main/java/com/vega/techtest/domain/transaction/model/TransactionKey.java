@@ -0,0 +1,18 @@
+package com.vega.techtest.domain.transaction.model;
+
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+
+import java.time.Instant;
+
+/**
+ * Business key of a transaction, backed by the (store_id, till_id, transaction_timestamp) unique constraint.
+ */
+public record TransactionKey(
+    String storeId,
+    String tillId,
+    Instant timestamp
+) {
+    public static TransactionKey of(CreateTransactionCommand command) {
+        return new TransactionKey(command.storeId(), command.tillId(), command.timestamp());
+    }
+}
@@ -0,0 +1,174 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.adapter.out.wal.TransactionWriteAheadLog;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
+import com.vega.techtest.domain.transaction.exception.TransactionProcessingException;
+import com.vega.techtest.domain.transaction.validator.TransactionValidator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accept-then-persist ingest, enabled with {@code transaction.ingest.mode=async}.
+ * <p>
+ * Submissions are validated, given their transaction ID and appended to the local write-ahead
+ * log before the caller is answered. A single background writer drains the log in batches through
+ * {@link TransactionService#processTransactionBatch}, so many tills share one database commit.
+ * Entries are only checkpointed after their batch has been written, and replays are idempotent
+ * because the transaction ID and the (store, till, timestamp) key are fixed at accept time.
+ */
+@RequiredArgsConstructor
+@Service
+@ConditionalOnProperty(name = "transaction.ingest.mode", havingValue = "async")
+public class AsyncTransactionIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncTransactionIngestService.class);
+
+    private final TransactionWriteAheadLog writeAheadLog;
+    private final TransactionValidator validator;
+    private final TransactionService transactionService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transaction.ingest.batch-size:100}")
+    private int batchSize;
+
+    @Value("${transaction.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${transaction.ingest.idle-wait-ms:200}")
+    private long idleWaitMs;
+
+    @Value("${transaction.ingest.retry.initial-backoff-ms:500}")
+    private long initialBackoffMs;
+
+    @Value("${transaction.ingest.retry.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    private ExecutorService writer;
+    private Counter rejectedCounter;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        // processTransactionBatch rejects larger batches, and the writer would retry the first one forever
+        if (batchSize < 1 || batchSize > maxBatchSize) {
+            throw new IllegalStateException("transaction.ingest.batch-size must be between 1 and "
+                    + "transaction.batch.max-size (" + maxBatchSize + "), was " + batchSize);
+        }
+
+        Gauge.builder("transaction_ingest_backlog_bytes", writeAheadLog, TransactionWriteAheadLog::backlogBytes)
+                .description("Bytes of accepted transactions not yet written to the database")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("transaction_ingest_rejected_total")
+                .description("Accepted transactions that could not be persisted and were moved to the rejected file")
+                .register(meterRegistry);
+
+        running = true;
+        writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "transaction-ingest-writer"));
+        writer.submit(this::runWriter);
+        logger.info("Asynchronous transaction ingest started with batch size {}", batchSize);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.shutdown();
+        if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Anything not checkpointed is replayed from the log on the next start
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Validates the command and durably queues it. Returns the command with its final transaction ID.
+     */
+    public CreateTransactionCommand accept(CreateTransactionCommand command) {
+        validator.validateTransactionCommand(command);
+
+        CreateTransactionCommand accepted = withTransactionId(command);
+        try {
+            writeAheadLog.append(accepted);
+        } catch (UncheckedIOException e) {
+            throw new TransactionProcessingException("Failed to accept transaction", e);
+        }
+
+        logger.info("Accepted transaction {} from store: {}, till: {}",
+                accepted.transactionId(), accepted.storeId(), accepted.tillId());
+        return accepted;
+    }
+
+    private void runWriter() {
+        long backoffMs = initialBackoffMs;
+        while (running) {
+            try {
+                if (drainBatch() == 0) {
+                    writeAheadLog.awaitEntries(idleWaitMs);
+                }
+                backoffMs = initialBackoffMs;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Failed to persist accepted transactions, retrying in {} ms", backoffMs, e);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    /**
+     * Writes the next batch from the log and checkpoints past it. Items the batch reports as
+     * failed can never succeed on retry, so they are moved to the rejected file; any exception
+     * leaves the checkpoint where it was so that the whole batch is retried.
+     *
+     * @return the number of commands read from the log
+     */
+    int drainBatch() {
+        TransactionWriteAheadLog.Batch batch = writeAheadLog.read(batchSize);
+        List<CreateTransactionCommand> commands = batch.commands();
+
+        if (!commands.isEmpty()) {
+            List<TransactionBatchItemResult> results = transactionService.processTransactionBatch(commands);
+            for (TransactionBatchItemResult result : results) {
+                if (result.status() == TransactionBatchItemResult.Status.FAILED) {
+                    CreateTransactionCommand command = commands.get(result.index());
+                    logger.error("Rejected accepted transaction {}: {}", command.transactionId(), result.error());
+                    writeAheadLog.reject(command, result.error());
+                    rejectedCounter.increment();
+                }
+            }
+        }
+
+        writeAheadLog.checkpoint(batch.endPosition());
+        return commands.size();
+    }
+
+    private static CreateTransactionCommand withTransactionId(CreateTransactionCommand command) {
+        if (command.transactionId() != null && !command.transactionId().trim().isEmpty()) {
+            return command;
+        }
+        // Derived rather than random: a till retry of an accepted receipt must carry the same ID, or
+        // the duplicate check would report it as a conflicting transaction
+        return command.copyWithTransactionId(TransactionService.deriveTransactionId(command));
+    }
+}
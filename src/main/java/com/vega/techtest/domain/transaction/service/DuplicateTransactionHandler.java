@@ -11,7 +11,6 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -30,7 +29,13 @@ public class DuplicateTransactionHandler {
     private final TransactionRepository transactionRepository;
     private final TransactionEntityMapper mapper;
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    /**
+     * Looks up the stored row for a rejected insert. A caller that is already in a transaction, such as a
+     * Kafka atomic commit, has it read on its own connection rather than holding a second one from the pool.
+     * A conflicting receipt is reported with an IllegalStateException that leaves that transaction
+     * committable, so that the caller can still record the failure in it.
+     */
+    @Transactional(readOnly = true, noRollbackFor = IllegalStateException.class)
     public TransactionResult findExistingTransaction(CreateTransactionCommand command) {
         TransactionEntity existingTransaction = transactionRepository
                 .findByStoreIdAndTillIdAndTransactionTimestamp(
@@ -38,7 +43,14 @@ public class DuplicateTransactionHandler {
                         command.tillId(),
                         command.timestamp()
                 );
+        return resolveExisting(command, existingTransaction);
+    }
 
+    /**
+     * Same as {@link #findExistingTransaction} for a row the caller has already looked up in its own
+     * transaction, so that resolving a rejected insert does not need a second connection.
+     */
+    public TransactionResult resolveExisting(CreateTransactionCommand command, TransactionEntity existingTransaction) {
         // If null, the constraint violation was on transaction_id, not (store, till, timestamp)
         if (existingTransaction == null) {
             String message = String.format(
@@ -56,6 +68,31 @@ public class DuplicateTransactionHandler {
             throw new IllegalStateException(message);
         }
 
+        return resolveDuplicate(command, existingTransaction);
+    }
+
+    /**
+     * Read-before-insert check for keys the duplicate cache has probably seen. Returns the stored
+     * transaction, or null if the key is not in the database (a Bloom filter false positive).
+     * Joins the caller's transaction if there is one and reports a conflict without marking it
+     * rollback-only, like {@link #findExistingTransaction}.
+     */
+    @Transactional(readOnly = true, noRollbackFor = IllegalStateException.class)
+    public TransactionResult findIfExists(CreateTransactionCommand command) {
+        TransactionEntity existingTransaction = transactionRepository
+                .findByStoreIdAndTillIdAndTransactionTimestamp(
+                        command.storeId(),
+                        command.tillId(),
+                        command.timestamp()
+                );
+        return existingTransaction == null ? null : resolveDuplicate(command, existingTransaction);
+    }
+
+    /**
+     * Returns the stored transaction for a resubmitted command, or throws if the payloads differ.
+     * Must be called inside a transaction so that the existing items can be loaded.
+     */
+    public TransactionResult resolveDuplicate(CreateTransactionCommand command, TransactionEntity existingTransaction) {
         List<String> differences = findDifferences(command, existingTransaction);
         if (!differences.isEmpty()) {
             String message = String.format(
@@ -0,0 +1,136 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionResult;
+import com.vega.techtest.domain.transaction.model.TransactionItem;
+import com.vega.techtest.domain.transaction.model.TransactionKey;
+import com.vega.techtest.shared.cache.ExpiringLruCache;
+import com.vega.techtest.shared.cache.RotatingBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Remembers recently persisted transactions by their (store, till, timestamp) key so that till
+ * retries can be answered without a failed insert and a second database transaction.
+ * <p>
+ * The LRU holds the command and its result for exact resubmissions. The Bloom filter covers a
+ * longer window than the LRU can hold: a positive means the key was probably seen, so the caller
+ * reads the row before inserting instead of relying on the unique constraint to fail. The cache is
+ * local to this instance; the unique constraint remains the guarantee.
+ */
+@Component
+public class RecentTransactionCache {
+
+    private final boolean enabled;
+    private final ExpiringLruCache<TransactionKey, RecentTransaction> recent;
+    private final RotatingBloomFilter seenKeys;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    private record RecentTransaction(CreateTransactionCommand command, TransactionResult result) {
+    }
+
+    public RecentTransactionCache(
+            MeterRegistry meterRegistry,
+            @Value("${transaction.duplicate-cache.enabled:true}") boolean enabled,
+            @Value("${transaction.duplicate-cache.max-entries:100000}") int maxEntries,
+            @Value("${transaction.duplicate-cache.window:PT10M}") Duration window,
+            @Value("${transaction.duplicate-cache.bloom.expected-insertions:1000000}") int expectedInsertions,
+            @Value("${transaction.duplicate-cache.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.enabled = enabled;
+        this.recent = new ExpiringLruCache<>(maxEntries, window);
+        this.seenKeys = new RotatingBloomFilter(expectedInsertions, falsePositiveRate, window);
+        this.hitCounter = Counter.builder("transaction_duplicate_cache_requests_total")
+                .tag("result", "hit")
+                .description("Duplicate pre-check lookups answered from the in-memory cache")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("transaction_duplicate_cache_requests_total")
+                .tag("result", "miss")
+                .description("Duplicate pre-check lookups answered from the in-memory cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the stored result when the same transaction was recently persisted with identical
+     * content, otherwise null. A resubmission with different content is never answered here.
+     */
+    public TransactionResult findRecent(CreateTransactionCommand command) {
+        if (!enabled) {
+            return null;
+        }
+        RecentTransaction cached = recent.get(TransactionKey.of(command));
+        if (cached != null && sameContent(command, cached)) {
+            hitCounter.increment();
+            return cached.result();
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * True if the key was probably persisted within the last window; false means it certainly was not
+     * persisted through this instance in that time.
+     */
+    public boolean mightContain(CreateTransactionCommand command) {
+        return enabled && seenKeys.mightContain(bloomKey(TransactionKey.of(command)));
+    }
+
+    public void record(CreateTransactionCommand command, TransactionResult result) {
+        if (!enabled) {
+            return;
+        }
+        TransactionKey key = TransactionKey.of(command);
+        recent.put(key, new RecentTransaction(command, result));
+        seenKeys.put(bloomKey(key));
+    }
+
+    private static String bloomKey(TransactionKey key) {
+        return key.storeId() + '\u0000' + key.tillId() + '\u0000' + key.timestamp();
+    }
+
+    private static boolean sameContent(CreateTransactionCommand command, RecentTransaction cached) {
+        CreateTransactionCommand original = cached.command();
+
+        if (command.transactionId() != null && !command.transactionId().isBlank()
+                && !command.transactionId().equals(cached.result().transactionId())) {
+            return false;
+        }
+        return Objects.equals(command.customerId(), original.customerId())
+                && Objects.equals(command.paymentMethod(), original.paymentMethod())
+                && Objects.equals(command.currency(), original.currency())
+                && sameAmount(command.totalAmount(), original.totalAmount())
+                && sameItems(command.items(), original.items());
+    }
+
+    private static boolean sameItems(List<TransactionItem> sent, List<TransactionItem> original) {
+        List<TransactionItem> sentItems = sent == null ? Collections.emptyList() : sent;
+        List<TransactionItem> originalItems = original == null ? Collections.emptyList() : original;
+        if (sentItems.size() != originalItems.size()) {
+            return false;
+        }
+        for (int i = 0; i < sentItems.size(); i++) {
+            TransactionItem a = sentItems.get(i);
+            TransactionItem b = originalItems.get(i);
+            if (!Objects.equals(a.productName(), b.productName())
+                    || !Objects.equals(a.productCode(), b.productCode())
+                    || !sameAmount(a.unitPrice(), b.unitPrice())
+                    || !Objects.equals(a.quantity(), b.quantity())
+                    || !Objects.equals(a.category(), b.category())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+}
@@ -0,0 +1,72 @@
+package com.vega.techtest.domain.transaction.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds recent days of store_daily_stats from transactions, enabled with
+ * {@code transaction.stats.reconciliation.enabled}.
+ * <p>
+ * At startup and every {@code check-interval-ms} today and the previous {@code days - 1} UTC days
+ * are recomputed, which repairs any drift, such as rows written while the rollup was disabled.
+ * Older days can be rebuilt with {@link StoreDailyStatsService#rebuild(LocalDate, LocalDate)}.
+ */
+@Component
+@RequiredArgsConstructor
+public class StoreDailyStatsReconciliationJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoreDailyStatsReconciliationJob.class);
+
+    private final StoreDailyStatsService dailyStats;
+
+    @Value("${transaction.stats.reconciliation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transaction.stats.reconciliation.days:2}")
+    private int days;
+
+    @Value("${transaction.stats.reconciliation.check-interval-ms:3600000}")
+    private long checkIntervalMs;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        if (!enabled || !dailyStats.isEnabled()) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                runnable -> new Thread(runnable, "store-daily-stats-reconciliation"));
+        scheduler.scheduleWithFixedDelay(this::run, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Store daily stats reconciliation enabled: rebuilding the last {} days", days);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void run() {
+        try {
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            dailyStats.rebuild(today.minusDays(days - 1L), today);
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next run tries again
+            logger.warn("Store daily stats reconciliation failed", e);
+        }
+    }
+}
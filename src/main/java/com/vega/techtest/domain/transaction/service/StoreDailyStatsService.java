@@ -0,0 +1,90 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.repository.StoreDailyStatsRepository;
+import com.vega.techtest.adapter.out.persistence.repository.TransactionTotals;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Per-store daily totals in store_daily_stats, enabled with {@code transaction.stats.rollup.enabled}.
+ * <p>
+ * Every insert path adds its new rows in the database transaction that inserts them, so the rollup
+ * is never ahead of or behind committed transactions. Days can be rebuilt from transactions, which
+ * the reconciliation job does for recent days and backfills do for the days they load. While
+ * enabled, store statistics without a date window are read from here in O(days).
+ */
+@RequiredArgsConstructor
+@Service
+public class StoreDailyStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoreDailyStatsService.class);
+
+    private final StoreDailyStatsRepository repository;
+
+    @Value("${transaction.stats.rollup.enabled:false}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds transactions that the current database transaction has just inserted.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<TransactionEntity> inserted) {
+        if (!enabled || inserted.isEmpty()) {
+            return;
+        }
+        repository.add(inserted);
+    }
+
+    /**
+     * The store's totals, one per currency.
+     */
+    public List<TransactionTotals> getTotals(String storeId) {
+        return repository.sumByStoreIdGroupByCurrency(storeId);
+    }
+
+    /**
+     * The store's totals, one per payment method and currency.
+     */
+    public List<TransactionTotals> getTotalsByPaymentMethod(String storeId) {
+        return repository.sumByStoreIdGroupByPaymentMethodAndCurrency(storeId);
+    }
+
+    /**
+     * Rebuilds each UTC day from {@code from} to {@code to} inclusive.
+     */
+    public void rebuild(LocalDate from, LocalDate to) {
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            rebuildDay(day);
+        }
+    }
+
+    /**
+     * Rebuilds the given UTC days, in date order.
+     */
+    public void rebuild(Collection<LocalDate> days) {
+        new TreeSet<>(days).forEach(this::rebuildDay);
+    }
+
+    private void rebuildDay(LocalDate day) {
+        if (!enabled) {
+            return;
+        }
+        int rows = repository.rebuildDay(day);
+        logger.debug("Rebuilt store daily stats for {} - {} rows", day, rows);
+    }
+}
@@ -0,0 +1,83 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.adapter.out.persistence.copy.TransactionCopyLoader;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.exception.ReceiptTotalMismatchException;
+import com.vega.techtest.domain.transaction.validator.TransactionValidator;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads historical transactions in bulk through {@link TransactionCopyLoader} instead of one
+ * {@link TransactionService#processTransaction} call per receipt. Commands get the same validation
+ * and transaction ID assignment as live submissions; duplicates of rows already in the database
+ * are skipped, so a backfill can be re-run after a failure. COPY bypasses the per-row rollup
+ * update, so the days a chunk touches are rebuilt in store_daily_stats before the chunk commits.
+ */
+@RequiredArgsConstructor
+@Service
+public class TransactionBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionBackfillService.class);
+
+    private final TransactionValidator validator;
+    private final TransactionCopyLoader copyLoader;
+    private final StoreDailyStatsService dailyStats;
+
+    public record BackfillResult(int loaded, int items, int duplicates, int rejected) {
+
+        public static final BackfillResult EMPTY = new BackfillResult(0, 0, 0, 0);
+
+        public BackfillResult plus(BackfillResult other) {
+            return new BackfillResult(loaded + other.loaded, items + other.items,
+                    duplicates + other.duplicates, rejected + other.rejected);
+        }
+    }
+
+    /**
+     * Validates and loads one chunk in a single database transaction. Invalid commands are logged
+     * and counted as rejected rather than failing the chunk.
+     */
+    @Transactional
+    public BackfillResult backfill(List<CreateTransactionCommand> commands) {
+        List<CreateTransactionCommand> valid = new ArrayList<>(commands.size());
+        Set<LocalDate> days = new HashSet<>();
+        int rejected = 0;
+        for (CreateTransactionCommand command : commands) {
+            try {
+                validator.validateTransactionCommand(command);
+            } catch (ReceiptTotalMismatchException | IllegalArgumentException e) {
+                logger.warn("Skipping backfill transaction {} from store: {}, till: {} - {}",
+                        command.transactionId(), command.storeId(), command.tillId(), e.getMessage());
+                rejected++;
+                continue;
+            }
+            valid.add(withTransactionId(command));
+            days.add(LocalDate.ofInstant(command.timestamp(), ZoneOffset.UTC));
+        }
+
+        TransactionCopyLoader.LoadResult result = copyLoader.load(valid);
+        if (result.transactionsInserted() > 0) {
+            dailyStats.rebuild(days);
+        }
+        return new BackfillResult(result.transactionsInserted(), result.itemsInserted(),
+                result.duplicatesSkipped(), rejected);
+    }
+
+    private static CreateTransactionCommand withTransactionId(CreateTransactionCommand command) {
+        if (command.transactionId() != null && !command.transactionId().trim().isEmpty()) {
+            return command;
+        }
+        return command.copyWithTransactionId(TransactionService.deriveTransactionId(command));
+    }
+}
@@ -0,0 +1,167 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.repository.TransactionRepository;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
+import com.vega.techtest.domain.transaction.model.TransactionKey;
+import com.vega.techtest.mapper.TransactionEntityMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persists a chunk of already validated transactions in a single database transaction.
+ * Known duplicates are resolved with one lookup query for the whole chunk, and new
+ * transactions are written with a single saveAll/flush and added to store_daily_stats in the same
+ * transaction. With {@code transaction.persistence.upsert-enabled} they are written with one native
+ * insert-or-skip instead, so that a receipt another writer stored after the lookup is resolved as a
+ * duplicate rather than aborting the transaction, which may be the caller's.
+ */
+@RequiredArgsConstructor
+@Service
+public class TransactionBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionBatchWriter.class);
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionEntityMapper mapper;
+    private final DuplicateTransactionHandler duplicateTransactionHandler;
+    private final StoreDailyStatsService dailyStats;
+
+    @Value("${transaction.persistence.upsert-enabled:false}")
+    private boolean upsertEnabled;
+
+    /**
+     * Writes the chunk and returns one result per command, in the same order.
+     * Result indexes are positions within the chunk.
+     * Without upsert, a DataIntegrityViolationException means a concurrent writer won a race; the
+     * whole chunk is rolled back.
+     */
+    @Transactional
+    public List<TransactionBatchItemResult> writeChunk(List<CreateTransactionCommand> commands) {
+        Map<TransactionKey, TransactionEntity> existing = findExisting(commands);
+
+        TransactionBatchItemResult[] results = new TransactionBatchItemResult[commands.size()];
+        Map<TransactionKey, TransactionEntity> pending = new HashMap<>();
+        List<TransactionEntity> toSave = new ArrayList<>();
+        List<Integer> savedPositions = new ArrayList<>();
+        List<Integer> repeatedPositions = new ArrayList<>();
+
+        for (int i = 0; i < commands.size(); i++) {
+            CreateTransactionCommand command = commands.get(i);
+            TransactionKey key = TransactionKey.of(command);
+
+            TransactionEntity existingTransaction = existing.get(key);
+            if (existingTransaction != null) {
+                results[i] = resolveDuplicate(i, command, existingTransaction);
+            } else if (pending.containsKey(key)) {
+                repeatedPositions.add(i);
+            } else {
+                TransactionEntity transaction = TransactionService.buildEntity(command, mapper);
+                pending.put(key, transaction);
+                toSave.add(transaction);
+                savedPositions.add(i);
+            }
+        }
+
+        if (upsertEnabled && !toSave.isEmpty()) {
+            insertIfAbsent(commands, toSave, savedPositions, pending, results);
+        } else if (!toSave.isEmpty()) {
+            List<TransactionEntity> saved = transactionRepository.saveAllAndFlush(toSave);
+            dailyStats.record(saved);
+            for (int i = 0; i < saved.size(); i++) {
+                int position = savedPositions.get(i);
+                results[position] = TransactionBatchItemResult.success(position, mapper.toResult(saved.get(i)));
+            }
+        }
+
+        // The same receipt sent twice in one batch resolves against the copy saved above
+        for (int position : repeatedPositions) {
+            CreateTransactionCommand command = commands.get(position);
+            results[position] = resolveDuplicate(position, command, pending.get(TransactionKey.of(command)));
+        }
+
+        logger.info("Wrote batch chunk - Saved: {}, Duplicates or conflicts: {}",
+                toSave.size(), commands.size() - toSave.size());
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Inserts the new transactions, skipping any whose key or transaction ID was taken since the
+     * lookup. Those are resolved against the stored row, read in this transaction, and the row
+     * replaces the pending copy so that repeats within the chunk resolve against it too.
+     */
+    private void insertIfAbsent(List<CreateTransactionCommand> commands, List<TransactionEntity> toSave,
+                                List<Integer> savedPositions, Map<TransactionKey, TransactionEntity> pending,
+                                TransactionBatchItemResult[] results) {
+        // A transaction ID repeated under another key is left out and reported as a conflict below
+        Set<String> transactionIds = new HashSet<>();
+        List<TransactionEntity> toInsert = new ArrayList<>(toSave.size());
+        for (TransactionEntity transaction : toSave) {
+            if (transactionIds.add(transaction.getTransactionId())) {
+                toInsert.add(transaction);
+            }
+        }
+        Map<String, Long> ids = new HashMap<>(transactionRepository.insertAllIfAbsent(toInsert));
+
+        List<TransactionEntity> inserted = new ArrayList<>(ids.size());
+        for (int i = 0; i < toSave.size(); i++) {
+            TransactionEntity transaction = toSave.get(i);
+            int position = savedPositions.get(i);
+            CreateTransactionCommand command = commands.get(position);
+
+            Long id = ids.remove(transaction.getTransactionId());
+            if (id != null) {
+                transaction.setId(id);
+                inserted.add(transaction);
+                results[position] = TransactionBatchItemResult.success(position, mapper.toResult(transaction));
+            } else {
+                TransactionEntity existingTransaction = transactionRepository.findByStoreIdAndTillIdAndTransactionTimestamp(
+                        command.storeId(), command.tillId(), command.timestamp());
+                pending.put(TransactionKey.of(command), existingTransaction);
+                results[position] = resolveDuplicate(position, command, existingTransaction);
+            }
+        }
+        dailyStats.record(inserted);
+    }
+
+    private Map<TransactionKey, TransactionEntity> findExisting(List<CreateTransactionCommand> commands) {
+        Set<TransactionKey> keys = new HashSet<>();
+        for (CreateTransactionCommand command : commands) {
+            keys.add(TransactionKey.of(command));
+        }
+
+        Map<TransactionKey, TransactionEntity> existing = new HashMap<>();
+        for (TransactionEntity transaction : transactionRepository.findAllByKeys(keys)) {
+            existing.put(new TransactionKey(
+                    transaction.getStoreId(),
+                    transaction.getTillId(),
+                    transaction.getTransactionTimestamp()
+            ), transaction);
+        }
+        return existing;
+    }
+
+    private TransactionBatchItemResult resolveDuplicate(int position, CreateTransactionCommand command,
+                                                        TransactionEntity existingTransaction) {
+        try {
+            return TransactionBatchItemResult.duplicate(position,
+                    duplicateTransactionHandler.resolveExisting(command, existingTransaction));
+        } catch (IllegalStateException e) {
+            return TransactionBatchItemResult.failed(position, e.getMessage());
+        }
+    }
+}
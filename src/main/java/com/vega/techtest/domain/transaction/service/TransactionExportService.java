@@ -0,0 +1,75 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.repository.TransactionRepository;
+import com.vega.techtest.application.transaction.command.TransactionResult;
+import com.vega.techtest.mapper.TransactionEntityMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Streams transactions of any volume, such as a quarter of a store for finance, without holding
+ * them in memory. Rows are read through a database cursor in chunks of
+ * {@code transaction.export.chunk-size}. Each chunk is mapped and handed to the caller one
+ * transaction at a time, then detached, so the heap holds at most one chunk of entities.
+ */
+@RequiredArgsConstructor
+@Service
+public class TransactionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionExportService.class);
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionEntityMapper mapper;
+    private final EntityManager entityManager;
+
+    @Value("${transaction.export.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Passes every transaction between {@code startDate} and {@code endDate} inclusive, oldest
+     * first, to {@code sink}.
+     *
+     * @param storeId Store to export, or null for all stores
+     * @return The number of transactions exported
+     */
+    @Transactional(readOnly = true)
+    public long export(String storeId, Instant startDate, Instant endDate, Consumer<TransactionResult> sink) {
+        long exported = 0;
+        try (Stream<TransactionEntity> transactions = storeId == null
+                ? transactionRepository.streamByDateRange(startDate, endDate)
+                : transactionRepository.streamByStoreIdAndDateRange(storeId, startDate, endDate)) {
+            Iterator<TransactionEntity> iterator = transactions.iterator();
+            List<TransactionEntity> chunk = new ArrayList<>(chunkSize);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() >= chunkSize || !iterator.hasNext()) {
+                    // The whole chunk is in the persistence context before any items are read,
+                    // so their collections can be initialised together
+                    for (TransactionEntity transaction : chunk) {
+                        sink.accept(mapper.toResult(transaction));
+                    }
+                    exported += chunk.size();
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+
+        logger.info("Exported {} transactions for store: {} from {} to {}",
+                exported, storeId == null ? "all" : storeId, startDate, endDate);
+        return exported;
+    }
+}
@@ -9,6 +9,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+
 @Service
 public class TransactionMetricsService {
 
@@ -43,15 +45,30 @@ public class TransactionMetricsService {
     }
 
     public void recordTransactionSubmission(TransactionRequest request, TransactionResponse response) {
+        recordSubmission(request, response.transactionId(), response.totalAmount(),
+                response.items() == null ? null : response.items().size());
+    }
+
+    /**
+     * Records a submission that was accepted for asynchronous processing, using the request values
+     * because no persisted response exists yet.
+     */
+    public void recordTransactionAccepted(TransactionRequest request, String transactionId) {
+        recordSubmission(request, transactionId, request.totalAmount(),
+                request.items() == null ? null : request.items().size());
+    }
+
+    private void recordSubmission(TransactionRequest request, String transactionId,
+                                  BigDecimal totalAmount, Integer itemCount) {
         try {
             transactionSubmissionCounter.increment();
 
-            if (response.totalAmount() != null) {
-                transactionAmountSummary.record(response.totalAmount().doubleValue());
+            if (totalAmount != null) {
+                transactionAmountSummary.record(totalAmount.doubleValue());
             }
 
-            if (response.items() != null) {
-                transactionItemCountSummary.record(response.items().size());
+            if (itemCount != null) {
+                transactionItemCountSummary.record(itemCount);
             }
 
             if (request.storeId() != null) {
@@ -78,7 +95,7 @@ public class TransactionMetricsService {
                         .increment();
             }
 
-            logger.debug("Recorded metrics for transaction: {}", response.transactionId());
+            logger.debug("Recorded metrics for transaction: {}", transactionId);
         } catch (Exception e) {
             logger.warn("Failed to record transaction submission metrics: {}", e.getMessage());
         }
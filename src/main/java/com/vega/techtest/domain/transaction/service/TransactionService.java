@@ -5,18 +5,32 @@ import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
 import com.vega.techtest.adapter.out.persistence.entity.TransactionItemEntity;
 import com.vega.techtest.mapper.TransactionEntityMapper;
 import com.vega.techtest.adapter.out.persistence.repository.TransactionRepository;
+import com.vega.techtest.adapter.out.persistence.repository.TransactionTotals;
 import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
+import com.vega.techtest.application.transaction.command.TransactionCursor;
+import com.vega.techtest.application.transaction.command.TransactionPage;
 import com.vega.techtest.application.transaction.command.TransactionResult;
+import com.vega.techtest.domain.transaction.model.Money;
 import com.vega.techtest.domain.transaction.validator.TransactionValidator;
+import com.vega.techtest.shared.aspect.ConcurrencyLimited;
+import com.vega.techtest.shared.aspect.Timed;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -26,24 +40,67 @@ import static com.vega.techtest.shared.util.Calculator.calculateAverageAmount;
 
 @RequiredArgsConstructor
 @Service
+@ConcurrencyLimited
 public class TransactionService {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
 
+    // Bounds used when the statistics window is left open
+    private static final Instant STATISTICS_FROM = Instant.EPOCH;
+    private static final Instant STATISTICS_TO = Instant.parse("9999-12-31T23:59:59Z");
+
     private final TransactionRepository transactionRepository;
     private final TransactionValidator validator;
     private final TransactionEntityMapper mapper;
     private final DuplicateTransactionHandler duplicateTransactionHandler;
+    private final TransactionBatchWriter batchWriter;
+    private final RecentTransactionCache recentTransactionCache;
+    private final StoreDailyStatsService dailyStats;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transaction.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${transaction.batch.chunk-size:100}")
+    private int batchChunkSize;
+
+    @Value("${transaction.persistence.upsert-enabled:false}")
+    private boolean upsertEnabled;
+
+    @Value("${transaction.query.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${transaction.query.max-page-size:1000}")
+    private int maxPageSize;
 
+    @Timed("transaction_write_duration")
     public TransactionResult processTransaction(CreateTransactionCommand command) {
         try {
             logger.info("Processing transaction from store: {}, till: {}, at: {}",
                 command.storeId(), command.tillId(), command.timestamp());
             validator.validateTransactionCommand(command);
 
-            return createTransaction(command);
+            TransactionResult known = findKnownDuplicate(command);
+            if (known != null) {
+                return known;
+            }
+
+            // One database transaction for the row and its store_daily_stats update. A conflicting
+            // duplicate is only thrown once the template has returned, since inside it the exception
+            // would mark a surrounding transaction, such as a Kafka atomic commit, rollback-only
+            InsertOutcome outcome = transactionTemplate.execute(status -> upsertEnabled
+                    ? insertIfAbsent(command)
+                    : new InsertOutcome(createTransaction(command), null));
+            if (outcome.conflict() != null) {
+                throw outcome.conflict();
+            }
+            TransactionResult result = outcome.transaction();
+            recordWhenCommitted(command, result);
+            return result;
         } catch (DataIntegrityViolationException e) {
-           return duplicateTransactionHandler.findExistingTransaction(command);
+            TransactionResult existing = duplicateTransactionHandler.findExistingTransaction(command);
+            recordWhenCommitted(command, existing);
+            return existing;
         } catch(ReceiptTotalMismatchException | IllegalStateException | IllegalArgumentException e ){
             throw e;
         } catch (Exception e) {
@@ -51,11 +108,177 @@ public class TransactionService {
         }
     }
 
-    @Transactional
-    protected TransactionResult createTransaction(CreateTransactionCommand command) {
+    /**
+     * Answers till retries before attempting the insert: an exact recent resubmission comes straight
+     * from the cache, and a key the Bloom filter has probably seen is read first so that a duplicate
+     * does not cost a failed insert and rollback. Returns null when the insert should go ahead.
+     */
+    private TransactionResult findKnownDuplicate(CreateTransactionCommand command) {
+        TransactionResult recent = recentTransactionCache.findRecent(command);
+        if (recent != null) {
+            logger.warn("Duplicate transaction detected in cache - Timestamp: {}, StoreId: {}, TillId: {}. " +
+                            "Returning existing transaction: {}",
+                    command.timestamp(), command.storeId(), command.tillId(), recent.transactionId());
+            return recent;
+        }
+
+        if (recentTransactionCache.mightContain(command)) {
+            TransactionResult existing = duplicateTransactionHandler.findIfExists(command);
+            if (existing != null) {
+                recordWhenCommitted(command, existing);
+                return existing;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the result to the duplicate cache once it is durable. Inside a surrounding transaction, such
+     * as a Kafka atomic commit, the row can still be rolled back, and a cached entry would then answer
+     * the redelivered event without the row ever being stored; so it is only recorded after that commit.
+     */
+    private void recordWhenCommitted(CreateTransactionCommand command, TransactionResult result) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recentTransactionCache.record(command, result);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentTransactionCache.record(command, result);
+            }
+        });
+    }
+
+    /**
+     * Validates and persists a batch of transactions, writing valid ones in chunks of
+     * {@code transaction.batch.chunk-size} with one database transaction per chunk.
+     * Returns one result per command in submission order; validation errors and conflicting
+     * duplicates are reported per item instead of failing the whole batch.
+     */
+    @Timed("transaction_write_duration")
+    public List<TransactionBatchItemResult> processTransactionBatch(List<CreateTransactionCommand> commands) {
+        if (commands == null || commands.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one transaction");
+        }
+        if (commands.size() > maxBatchSize) {
+            throw new IllegalArgumentException(
+                    "Batch contains " + commands.size() + " transactions, maximum is " + maxBatchSize);
+        }
+
+        try {
+            logger.info("Processing batch of {} transactions", commands.size());
+
+            TransactionBatchItemResult[] results = new TransactionBatchItemResult[commands.size()];
+            List<CreateTransactionCommand> chunk = new ArrayList<>(batchChunkSize);
+            List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+
+            for (int i = 0; i < commands.size(); i++) {
+                CreateTransactionCommand command = commands.get(i);
+                try {
+                    if (command == null) {
+                        throw new IllegalArgumentException("Transaction cannot be null");
+                    }
+                    validator.validateTransactionCommand(command);
+                } catch (ReceiptTotalMismatchException | IllegalArgumentException e) {
+                    results[i] = TransactionBatchItemResult.failed(i, e.getMessage());
+                    continue;
+                }
+
+                chunk.add(command);
+                chunkIndexes.add(i);
+                if (chunk.size() >= batchChunkSize) {
+                    writeChunk(chunk, chunkIndexes, results);
+                    chunk.clear();
+                    chunkIndexes.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, chunkIndexes, results);
+            }
+
+            return Arrays.asList(results);
+        } catch (Exception e) {
+            throw new TransactionProcessingException("Failed to process transaction batch", e);
+        }
+    }
+
+    private void writeChunk(List<CreateTransactionCommand> chunk, List<Integer> chunkIndexes,
+                            TransactionBatchItemResult[] results) {
+        List<TransactionBatchItemResult> chunkResults;
+        try {
+            chunkResults = batchWriter.writeChunk(chunk);
+        } catch (DataIntegrityViolationException e) {
+            // Another writer inserted one of these receipts after our lookup; settle each one individually
+            logger.warn("Constraint violation while writing batch chunk of {} transactions, retrying one by one",
+                    chunk.size());
+            chunkResults = new ArrayList<>(chunk.size());
+            for (CreateTransactionCommand command : chunk) {
+                chunkResults.add(writeSingle(command));
+            }
+        }
+
+        for (int i = 0; i < chunkResults.size(); i++) {
+            int index = chunkIndexes.get(i);
+            results[index] = chunkResults.get(i).withIndex(index);
+        }
+    }
+
+    private TransactionBatchItemResult writeSingle(CreateTransactionCommand command) {
+        try {
+            return batchWriter.writeChunk(List.of(command)).get(0);
+        } catch (DataIntegrityViolationException e) {
+            try {
+                return TransactionBatchItemResult.duplicate(0, duplicateTransactionHandler.findExistingTransaction(command));
+            } catch (IllegalStateException conflict) {
+                return TransactionBatchItemResult.failed(0, conflict.getMessage());
+            }
+        }
+    }
+
+    private TransactionResult createTransaction(CreateTransactionCommand command) {
+        TransactionEntity transaction = buildEntity(command, mapper);
+
+        TransactionEntity savedTransaction = transactionRepository.save(transaction);
+        dailyStats.record(List.of(savedTransaction));
+        logger.info("Successfully saved transaction: {}", transaction.getTransactionId());
+
+        return mapper.toResult(savedTransaction);
+    }
+
+    /**
+     * Single-statement insert-or-skip on (store, till, timestamp) or transaction ID. A duplicate shows up as no
+     * generated id rather than a constraint violation, and only then is the existing row fetched,
+     * on the same connection.
+     */
+    private InsertOutcome insertIfAbsent(CreateTransactionCommand command) {
+        TransactionEntity transaction = buildEntity(command, mapper);
+
+        Long id = transactionRepository.insertIfAbsent(transaction);
+        if (id == null) {
+            TransactionEntity existing = transactionRepository.findByStoreIdAndTillIdAndTransactionTimestamp(
+                    command.storeId(), command.tillId(), command.timestamp());
+            try {
+                return new InsertOutcome(duplicateTransactionHandler.resolveExisting(command, existing), null);
+            } catch (IllegalStateException conflict) {
+                return new InsertOutcome(null, conflict);
+            }
+        }
+        transaction.setId(id);
+        dailyStats.record(List.of(transaction));
+        logger.info("Successfully saved transaction: {}", transaction.getTransactionId());
+
+        return new InsertOutcome(mapper.toResult(transaction), null);
+    }
+
+    /**
+     * The entity, with its items, that every write path stores for a command. A command sent
+     * without a transaction ID is given the one derived from its key.
+     */
+    static TransactionEntity buildEntity(CreateTransactionCommand command, TransactionEntityMapper mapper) {
         String transactionId = command.transactionId();
         if (transactionId == null || transactionId.trim().isEmpty()) {
-            transactionId = generateTransactionId();
+            transactionId = deriveTransactionId(command);
         }
         TransactionEntity transaction = mapper.toEntityFromCommand(command);
         transaction.setTransactionId(transactionId);
@@ -65,11 +288,7 @@ public class TransactionService {
             items.forEach(item -> item.setTransaction(transaction));
             transaction.setItems(items);
         }
-
-        TransactionEntity savedTransaction = transactionRepository.save(transaction);
-        logger.info("Successfully saved transaction: {}", transactionId);
-
-        return mapper.toResult(savedTransaction);
+        return transaction;
     }
 
     public TransactionResult getTransactionById(String transactionId) {
@@ -82,91 +301,217 @@ public class TransactionService {
         }
     }
 
-    public List<TransactionResult> getTransactionsByStore(String storeId) {
+    /**
+     * Returns the store's transactions newest first, one page at a time. Pages are read by keyset
+     * on (transaction timestamp, id), so every page costs the same however deep it is.
+     *
+     * @param after Cursor returned with the previous page, or null for the first page
+     * @param limit Page size, or null for {@code transaction.query.default-page-size}; capped at
+     *              {@code transaction.query.max-page-size}
+     */
+    public TransactionPage getTransactionsByStore(String storeId, TransactionCursor after, Integer limit) {
+        int pageSize = pageSize(limit);
         try {
-            return loadTransactionsByStore(storeId);
+            PageRequest page = PageRequest.of(0, pageSize + 1);
+            return toPage(after == null
+                    ? transactionRepository.findByStoreIdOrderByTransactionTimestampDescIdDesc(storeId, page)
+                    : transactionRepository.findPageByStoreIdAfter(storeId, after.timestamp(), after.id(), page),
+                    pageSize);
         } catch (Exception e) {
             throw new TransactionRetrievalException("Failed to retrieve transactions", e);
         }
     }
 
-    public List<TransactionResult> getTransactionsByCustomer(String customerId) {
+    /**
+     * Customer variant of {@link #getTransactionsByStore}.
+     */
+    public TransactionPage getTransactionsByCustomer(String customerId, TransactionCursor after, Integer limit) {
+        int pageSize = pageSize(limit);
         try {
-            return mapper.toResultList(
-                    transactionRepository.findByCustomerIdOrderByTransactionTimestampDesc(customerId)
-            );
+            PageRequest page = PageRequest.of(0, pageSize + 1);
+            return toPage(after == null
+                    ? transactionRepository.findByCustomerIdOrderByTransactionTimestampDescIdDesc(customerId, page)
+                    : transactionRepository.findPageByCustomerIdAfter(customerId, after.timestamp(), after.id(), page),
+                    pageSize);
         } catch (Exception e) {
             throw new TransactionRetrievalException("Failed to retrieve transactions", e);
         }
     }
 
-    public List<TransactionResult> getTransactionsByTill(String tillId) {
+    /**
+     * Till variant of {@link #getTransactionsByStore}.
+     */
+    public TransactionPage getTransactionsByTill(String tillId, TransactionCursor after, Integer limit) {
+        int pageSize = pageSize(limit);
         try {
-            return mapper.toResultList(
-                    transactionRepository.findByTillIdOrderByTransactionTimestampDesc(tillId)
-            );
+            PageRequest page = PageRequest.of(0, pageSize + 1);
+            return toPage(after == null
+                    ? transactionRepository.findByTillIdOrderByTransactionTimestampDescIdDesc(tillId, page)
+                    : transactionRepository.findPageByTillIdAfter(tillId, after.timestamp(), after.id(), page),
+                    pageSize);
         } catch (Exception e) {
             throw new TransactionRetrievalException("Failed to retrieve transactions", e);
         }
     }
 
-    public List<TransactionResult> getTransactionsByDateRange(Instant startDate, Instant endDate) {
+    /**
+     * Date range variant of {@link #getTransactionsByStore}; both bounds are inclusive.
+     */
+    public TransactionPage getTransactionsByDateRange(Instant startDate, Instant endDate,
+                                                      TransactionCursor after, Integer limit) {
+        int pageSize = pageSize(limit);
         try {
-            return mapper.toResultList(
-                    transactionRepository.findTransactionsByDateRange(startDate, endDate)
-            );
+            PageRequest page = PageRequest.of(0, pageSize + 1);
+            return toPage(after == null
+                    ? transactionRepository.findPageByDateRange(startDate, endDate, page)
+                    : transactionRepository.findPageByDateRangeAfter(startDate, endDate,
+                            after.timestamp(), after.id(), page),
+                    pageSize);
         } catch (Exception e) {
             throw new TransactionRetrievalException("Failed to retrieve transactions", e);
         }
     }
 
-    public Map<String, Object> getTransactionsForStatistics(String storeId) {
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    /**
+     * Each page is read with one extra row, which only tells whether another page follows.
+     */
+    private TransactionPage toPage(List<TransactionEntity> entities, int pageSize) {
+        if (entities.size() <= pageSize) {
+            return new TransactionPage(mapper.toResultList(entities), null);
+        }
+        List<TransactionEntity> pageEntities = entities.subList(0, pageSize);
+        TransactionEntity last = pageEntities.get(pageSize - 1);
+        return new TransactionPage(mapper.toResultList(pageEntities),
+                new TransactionCursor(last.getTransactionTimestamp(), last.getId()));
+    }
+
+    /**
+     * Count, total and average of a store's transactions, optionally within a date window and broken
+     * down by payment method. The count and sum are computed by the database, per currency, from
+     * store_daily_stats when the rollup is enabled and no window is given; only the average is worked
+     * out here, so that it rounds exactly as before.
+     */
+    public Map<String, Object> getTransactionsForStatistics(String storeId, Instant startDate, Instant endDate,
+                                                            boolean byPaymentMethod) {
+        Instant from = Objects.requireNonNullElse(startDate, STATISTICS_FROM);
+        Instant to = Objects.requireNonNullElse(endDate, STATISTICS_TO);
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
         try {
             logger.info("Calculating transaction statistics for store: {}", storeId);
 
-            List<TransactionResult> transactions = loadTransactionsByStore(storeId);
+            // The rollup only holds whole days, so a window is always answered from transactions
+            boolean fromRollup = startDate == null && endDate == null && dailyStats.isEnabled();
+            List<TransactionTotals> totals = fromRollup
+                    ? dailyStats.getTotals(storeId)
+                    : transactionRepository.sumByStoreIdGroupByCurrency(storeId, from, to);
+
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("storeId", storeId);
+            if (startDate != null) {
+                statistics.put("startDate", startDate);
+            }
+            if (endDate != null) {
+                statistics.put("endDate", endDate);
+            }
 
-            if (transactions.isEmpty()) {
+            if (totals.isEmpty()) {
                 logger.warn("No transactions found for store: {}", storeId);
-                return Map.of(
-                        "storeId", storeId,
-                        "message", "No transactions found for this store",
-                        "totalTransactions", 0,
-                        "totalAmount", 0.0,
-                        "averageAmount", 0.0
-                );
+                statistics.put("message", "No transactions found for this store");
+                statistics.put("totalTransactions", 0);
+                statistics.put("totalAmount", 0.0);
+                statistics.put("averageAmount", 0.0);
+                return statistics;
             }
 
-            int totalTransactions = transactions.size();
-            BigDecimal totalAmount = transactions.stream()
-                    .map(TransactionResult::totalAmount)
-                    .filter(Objects::nonNull)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            int totalTransactions = putTotals(statistics, totals);
+            statistics.put("calculationNote", "Average calculated as total amount divided by transaction count");
 
-            BigDecimal averageAmount = calculateAverageAmount(totalAmount, totalTransactions);
+            if (byPaymentMethod) {
+                Map<String, List<TransactionTotals>> byMethod = new LinkedHashMap<>();
+                List<TransactionTotals> methodTotals = fromRollup
+                        ? dailyStats.getTotalsByPaymentMethod(storeId)
+                        : transactionRepository.sumByStoreIdGroupByPaymentMethodAndCurrency(storeId, from, to);
+                for (TransactionTotals currencyTotals : methodTotals) {
+                    byMethod.computeIfAbsent(currencyTotals.paymentMethod(), method -> new ArrayList<>())
+                            .add(currencyTotals);
+                }
+                Map<String, Object> paymentMethods = new LinkedHashMap<>();
+                byMethod.forEach((method, currencyTotals) -> {
+                    Map<String, Object> methodStatistics = new LinkedHashMap<>();
+                    putTotals(methodStatistics, currencyTotals);
+                    paymentMethods.put(method, methodStatistics);
+                });
+                statistics.put("paymentMethods", paymentMethods);
+            }
 
             logger.info("Store {} statistics - Total transactions: {}, Total amount: {}, Average amount: {}",
-                    storeId, totalTransactions, totalAmount, averageAmount);
-
-            return Map.of(
-                    "storeId", storeId,
-                    "totalTransactions", totalTransactions,
-                    "totalAmount", totalAmount.doubleValue(),
-                    "averageAmount", averageAmount.doubleValue(),
-                    "calculationNote", "Average calculated as total amount divided by transaction count"
-            );
+                    storeId, totalTransactions, statistics.get("totalAmount"), statistics.get("averageAmount"));
+
+            return statistics;
         } catch (Exception e) {
             throw new StatisticsCalculationException("Failed to calculate transaction statistics", e);
         }
     }
 
-    private List<TransactionResult> loadTransactionsByStore(String storeId) {
-        return mapper.toResultList(
-                transactionRepository.findByStoreIdOrderByTransactionTimestampDesc(storeId)
-        );
+    /**
+     * Puts the totals of one currency at the top level. Amounts in different currencies cannot be
+     * added together, so several currencies are reported under {@code currencies} instead, with only
+     * the transaction count summed across them.
+     */
+    private static int putTotals(Map<String, Object> statistics, List<TransactionTotals> byCurrency) {
+        if (byCurrency.size() == 1) {
+            return putTotals(statistics, byCurrency.get(0));
+        }
+        int transactionCount = 0;
+        Map<String, Object> currencies = new LinkedHashMap<>();
+        for (TransactionTotals totals : byCurrency) {
+            Map<String, Object> currencyStatistics = new LinkedHashMap<>();
+            transactionCount += putTotals(currencyStatistics, totals);
+            currencies.put(totals.currency(), currencyStatistics);
+        }
+        statistics.put("totalTransactions", transactionCount);
+        statistics.put("currencies", currencies);
+        return transactionCount;
+    }
+
+    private static int putTotals(Map<String, Object> statistics, TransactionTotals totals) {
+        int transactionCount = Math.toIntExact(totals.transactionCount());
+        // total_amount is decimal(10,2), so the sum is a whole number of minor units
+        Money totalAmount = Money.ofMinorUnits(
+                totals.totalAmount() == null ? 0 : Money.minorUnitsOf(totals.totalAmount()), totals.currency());
+        Money averageAmount = calculateAverageAmount(totalAmount, transactionCount);
+
+        statistics.put("totalTransactions", transactionCount);
+        statistics.put("totalAmount", totalAmount.toBigDecimal().doubleValue());
+        statistics.put("averageAmount", averageAmount.toBigDecimal().doubleValue());
+        statistics.put("currency", totals.currency());
+        return transactionCount;
+    }
+
+    /**
+     * Transaction ID derived from the (store, till, timestamp) key, so that every resubmission of a
+     * receipt sent without an ID is given the same one.
+     */
+    static String deriveTransactionId(CreateTransactionCommand command) {
+        String key = command.storeId() + '|' + command.tillId() + '|' + command.timestamp();
+        return "TXN-" + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString().toUpperCase();
     }
 
-    private String generateTransactionId() {
-        return "TXN-" + UUID.randomUUID().toString().toUpperCase();
+    /**
+     * The stored or existing transaction, or the conflict to throw once the template has returned.
+     */
+    private record InsertOutcome(TransactionResult transaction, IllegalStateException conflict) {
     }
 }
@@ -2,37 +2,90 @@ package com.vega.techtest.domain.transaction.validator;
 
 import com.vega.techtest.adapter.in.rest.dto.TransactionRequest;
 import com.vega.techtest.domain.transaction.exception.ReceiptTotalMismatchException;
+import com.vega.techtest.domain.transaction.model.Money;
 import com.vega.techtest.domain.transaction.model.PaymentMethod;
+import com.vega.techtest.domain.transaction.model.TransactionItem;
 import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Service
 public class TransactionValidator {
     private static final Logger logger = LoggerFactory.getLogger(TransactionValidator.class);
 
+    private static final BigDecimal MINIMUM_TOTAL = new BigDecimal("0.01");
+    private static final String TRANSACTION_ID_PREFIX = "TXN-";
+    private static final int UUID_LENGTH = 36;
+    private static final int UUID_FIELDS = 5;
+
+    /**
+     * Validates a command in a single pass over its items. The receipt total is summed as a long in
+     * minor units (see {@link Money}); prices with sub-minor-unit precision, or totals too large for a
+     * long, fall back to exact BigDecimal arithmetic so the outcome never differs from summing the
+     * BigDecimals.
+     */
     public void validateTransactionCommand(CreateTransactionCommand command) {
         validateCommandRequiredFields(command);
-        validateCommandItems(command);
 
-        if (command.items() != null && !command.items().isEmpty()) {
-            BigDecimal calculatedTotal = command.items().stream()
-                    .map(item -> item.unitPrice().multiply(BigDecimal.valueOf(item.quantity())))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<TransactionItem> items = command.items();
+        if (items == null || items.isEmpty()) {
+            return;
+        }
 
-            if (calculatedTotal.compareTo(command.totalAmount()) != 0) {
-                logger.error("Calculated total ({}) doesn't match provided total ({})",
-                        calculatedTotal, command.totalAmount());
-                throw new ReceiptTotalMismatchException(
-                        "Receipt total mismatch: calculated total does not match provided total",
-                        calculatedTotal,
-                        command.totalAmount()
-                );
+        boolean exact = true;
+        long calculatedMinorUnits = 0;
+        for (int i = 0, size = items.size(); i < size; i++) {
+            TransactionItem item = items.get(i);
+            validateCommandItem(item, i);
+
+            if (exact) {
+                try {
+                    calculatedMinorUnits = Math.addExact(calculatedMinorUnits,
+                            Math.multiplyExact(Money.minorUnitsOf(item.unitPrice()), item.quantity().longValue()));
+                } catch (ArithmeticException e) {
+                    exact = false;
+                }
             }
         }
+
+        if (!exact) {
+            validateCommandTotalExactly(command);
+            return;
+        }
+        Money calculatedTotal = Money.ofMinorUnits(calculatedMinorUnits, command.currency());
+        long providedMinorUnits;
+        try {
+            providedMinorUnits = Money.minorUnitsOf(command.totalAmount());
+        } catch (ArithmeticException e) {
+            // Finer than a minor unit, so it cannot equal a sum of whole minor units
+            throw totalMismatch(calculatedTotal.toBigDecimal(), command.totalAmount());
+        }
+        if (calculatedTotal.minorUnits() != providedMinorUnits) {
+            throw totalMismatch(calculatedTotal.toBigDecimal(), command.totalAmount());
+        }
+    }
+
+    private void validateCommandTotalExactly(CreateTransactionCommand command) {
+        BigDecimal calculatedTotal = BigDecimal.ZERO;
+        for (TransactionItem item : command.items()) {
+            calculatedTotal = calculatedTotal.add(item.unitPrice().multiply(BigDecimal.valueOf(item.quantity())));
+        }
+        if (calculatedTotal.compareTo(command.totalAmount()) != 0) {
+            throw totalMismatch(calculatedTotal, command.totalAmount());
+        }
+    }
+
+    private ReceiptTotalMismatchException totalMismatch(BigDecimal calculatedTotal, BigDecimal providedTotal) {
+        logger.error("Calculated total ({}) doesn't match provided total ({})", calculatedTotal, providedTotal);
+        return new ReceiptTotalMismatchException(
+                "Receipt total mismatch: calculated total does not match provided total",
+                calculatedTotal,
+                providedTotal
+        );
     }
 
     public void validateTransactionRequest(TransactionRequest request) {
@@ -70,7 +123,7 @@ public class TransactionValidator {
         if (request.totalAmount() == null) {
             throw new IllegalArgumentException("Total amount is required");
         }
-        if (request.totalAmount().compareTo(new BigDecimal("0.01")) < 0) {
+        if (request.totalAmount().compareTo(MINIMUM_TOTAL) < 0) {
             throw new IllegalArgumentException("Total amount must be greater than zero");
         }
         if (request.timestamp() == null) {
@@ -109,23 +162,24 @@ public class TransactionValidator {
     }
 
     private void validateCommandRequiredFields(CreateTransactionCommand command) {
-        if (command.transactionId() != null && !command.transactionId().trim().isEmpty()) {
-            validateTransactionIdFormat(command.transactionId());
+        String transactionId = command.transactionId();
+        if (transactionId != null && !isBlank(transactionId)) {
+            validateTransactionIdFormat(transactionId);
         }
-        if (command.storeId() == null || command.storeId().trim().isEmpty()) {
+        if (command.storeId() == null || isBlank(command.storeId())) {
             throw new IllegalArgumentException("Store ID is required");
         }
-        if (command.tillId() == null || command.tillId().trim().isEmpty()) {
+        if (command.tillId() == null || isBlank(command.tillId())) {
             throw new IllegalArgumentException("Till ID is required");
         }
-        if (command.paymentMethod() == null || command.paymentMethod().trim().isEmpty()) {
+        if (command.paymentMethod() == null || isBlank(command.paymentMethod())) {
             throw new IllegalArgumentException("Payment method is required");
         }
         PaymentMethod.fromString(command.paymentMethod());
         if (command.totalAmount() == null) {
             throw new IllegalArgumentException("Total amount is required");
         }
-        if (command.totalAmount().compareTo(new BigDecimal("0.01")) < 0) {
+        if (command.totalAmount().compareTo(MINIMUM_TOTAL) < 0) {
             throw new IllegalArgumentException("Total amount must be greater than zero");
         }
         if (command.timestamp() == null) {
@@ -133,49 +187,75 @@ public class TransactionValidator {
         }
     }
 
+    /**
+     * Requires TXN- followed by a UUID, ignoring surrounding whitespace. Accepts exactly what
+     * UUID.fromString accepts, including its non-canonical forms such as "1-2-3-4-5": at most 36
+     * characters in five dash-separated hex fields, each parsed in place instead of on a substring.
+     */
     private void validateTransactionIdFormat(String transactionId) {
-        String trimmedId = transactionId.trim();
+        int start = 0;
+        int end = transactionId.length();
+        while (start < end && transactionId.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && transactionId.charAt(end - 1) <= ' ') {
+            end--;
+        }
 
-        if (!trimmedId.startsWith("TXN-")) {
+        if (!transactionId.startsWith(TRANSACTION_ID_PREFIX, start)) {
             throw new IllegalArgumentException("Transaction ID must start with 'TXN-'");
         }
 
-        String suffix = trimmedId.substring(4);
-        try {
-            java.util.UUID.fromString(suffix);
-        } catch (IllegalArgumentException e) {
+        int fieldStart = start + TRANSACTION_ID_PREFIX.length();
+        if (end - fieldStart > UUID_LENGTH) {
             throw new IllegalArgumentException("Transaction ID must have a valid UUID after 'TXN-' prefix");
         }
+        for (int field = 0; field < UUID_FIELDS; field++) {
+            int dash = transactionId.indexOf('-', fieldStart);
+            boolean lastField = field == UUID_FIELDS - 1;
+            if (lastField ? dash >= 0 && dash < end : dash < 0 || dash >= end) {
+                throw new IllegalArgumentException("Transaction ID must have a valid UUID after 'TXN-' prefix");
+            }
+            int fieldEnd = lastField ? end : dash;
+            try {
+                Long.parseLong(transactionId, fieldStart, fieldEnd, 16);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Transaction ID must have a valid UUID after 'TXN-' prefix");
+            }
+            fieldStart = fieldEnd + 1;
+        }
     }
 
-    private void validateCommandItems(CreateTransactionCommand command) {
-        if (command.items() == null || command.items().isEmpty()) {
-            return;
+    private void validateCommandItem(TransactionItem item, int index) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item at index " + index + " cannot be null");
         }
 
-        for (int i = 0; i < command.items().size(); i++) {
-            var item = command.items().get(i);
-
-            if (item == null) {
-                throw new IllegalArgumentException("Item at index " + i + " cannot be null");
-            }
+        if (item.unitPrice() == null) {
+            throw new IllegalArgumentException("Item at index " + index + ": Unit price is required");
+        }
 
-            if (item.unitPrice() == null) {
-                throw new IllegalArgumentException("Item at index " + i + ": Unit price is required");
-            }
+        if (item.unitPrice().signum() < 0) {
+            throw new IllegalArgumentException("Item at index " + index + ": Unit price cannot be negative");
+        }
 
-            if (item.unitPrice().compareTo(BigDecimal.ZERO) < 0) {
-                throw new IllegalArgumentException("Item at index " + i + ": Unit price cannot be negative");
-            }
+        if (item.quantity() == null) {
+            throw new IllegalArgumentException("Item at index " + index + ": Quantity is required");
+        }
 
-            if (item.quantity() == null) {
-                throw new IllegalArgumentException("Item at index " + i + ": Quantity is required");
-            }
+        if (item.quantity() <= 0) {
+            throw new IllegalArgumentException("Item at index " + index + ": Quantity must be greater than zero");
+        }
+    }
 
-            if (item.quantity() <= 0) {
-                throw new IllegalArgumentException("Item at index " + i + ": Quantity must be greater than zero");
+    // Same definition of blank as trim().isEmpty(), without allocating the trimmed copy
+    private static boolean isBlank(String value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
             }
         }
+        return true;
     }
 
 }
@@ -0,0 +1,69 @@
+package com.vega.techtest.shared.aspect;
+
+import com.vega.techtest.domain.transaction.exception.CapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulkhead in front of {@link ConcurrencyLimited} beans. With virtual threads there is no request
+ * thread pool to bound concurrency, so thousands of requests would otherwise queue inside Hikari and
+ * fail with connection timeouts. Callers wait here for a permit instead, and are turned away with
+ * {@link CapacityExceededException} once {@code acquire-timeout-ms} has passed.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "transaction.concurrency.max-database-calls")
+public class ConcurrencyLimitAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitAspect.class);
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final Counter rejectedCounter;
+
+    public ConcurrencyLimitAspect(
+            MeterRegistry meterRegistry,
+            @Value("${transaction.concurrency.max-database-calls}") int maxDatabaseCalls,
+            @Value("${transaction.concurrency.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        this.permits = new Semaphore(maxDatabaseCalls, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+
+        Gauge.builder("transaction_concurrency_available_permits", permits, Semaphore::availablePermits)
+                .description("Database call permits not currently in use")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("transaction_concurrency_rejected_total")
+                .description("Calls rejected because no database call permit became available in time")
+                .register(meterRegistry);
+
+        logger.info("Limiting concurrent database calls to {} (acquire timeout {} ms)",
+                maxDatabaseCalls, acquireTimeoutMs);
+    }
+
+    @Around("@within(com.vega.techtest.shared.aspect.ConcurrencyLimited) && execution(public * *(..))")
+    public Object limitConcurrency(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+            rejectedCounter.increment();
+            logger.warn("No database call permit available within {} ms for {}",
+                    acquireTimeoutMs, joinPoint.getSignature().toShortString());
+            throw new CapacityExceededException("Service is at capacity, please retry");
+        }
+
+        try {
+            return joinPoint.proceed();
+        } finally {
+            permits.release();
+        }
+    }
+}
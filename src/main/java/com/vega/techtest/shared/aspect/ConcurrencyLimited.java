@@ -0,0 +1,15 @@
+package com.vega.techtest.shared.aspect;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a bean whose public methods hold a database connection for their duration, so that
+ * {@link ConcurrencyLimitAspect} can cap how many callers run them at once.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimited {
+}
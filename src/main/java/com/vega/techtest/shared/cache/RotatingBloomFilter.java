@@ -0,0 +1,119 @@
+package com.vega.techtest.shared.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Time-windowed Bloom filter over string keys. Two generations are kept and the older one is
+ * dropped every {@code window}, so a key is remembered for at least one window and at most two.
+ * Lookups may return false positives at roughly the configured rate but never false negatives
+ * within the first window. Lock-free; safe for concurrent use.
+ */
+public class RotatingBloomFilter {
+
+    private final int numBits;
+    private final int numHashes;
+    private final Duration window;
+    private final Clock clock;
+    private final AtomicReference<Generations> generations;
+
+    private record Generations(AtomicLongArray current, AtomicLongArray previous, Instant rotateAt) {
+    }
+
+    public RotatingBloomFilter(int expectedInsertionsPerWindow, double falsePositiveRate, Duration window) {
+        this(expectedInsertionsPerWindow, falsePositiveRate, window, Clock.systemUTC());
+    }
+
+    public RotatingBloomFilter(int expectedInsertionsPerWindow, double falsePositiveRate, Duration window, Clock clock) {
+        if (expectedInsertionsPerWindow <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        // Standard sizing: m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long bits = (long) Math.ceil(-expectedInsertionsPerWindow * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.min(Math.max(bits, Long.SIZE), Integer.MAX_VALUE - Long.SIZE);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertionsPerWindow * Math.log(2)));
+        this.window = window;
+        this.clock = clock;
+        this.generations = new AtomicReference<>(
+                new Generations(newBits(), newBits(), clock.instant().plus(window)));
+    }
+
+    public void put(String key) {
+        AtomicLongArray bits = rotateIfDue().current();
+        long hash1 = hash(key, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(key, 0xC2B2AE3D27D4EB4FL);
+        for (int i = 0; i < numHashes; i++) {
+            int index = index(hash1, hash2, i);
+            long mask = 1L << index;
+            int word = index >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String key) {
+        Generations snapshot = rotateIfDue();
+        long hash1 = hash(key, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(key, 0xC2B2AE3D27D4EB4FL);
+        return contains(snapshot.current(), hash1, hash2) || contains(snapshot.previous(), hash1, hash2);
+    }
+
+    private boolean contains(AtomicLongArray bits, long hash1, long hash2) {
+        for (int i = 0; i < numHashes; i++) {
+            int index = index(hash1, hash2, i);
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Generations rotateIfDue() {
+        while (true) {
+            Generations snapshot = generations.get();
+            Instant now = clock.instant();
+            if (now.isBefore(snapshot.rotateAt())) {
+                return snapshot;
+            }
+            // After a long idle period both generations are stale, so start from empty
+            boolean skippedWindow = !now.isBefore(snapshot.rotateAt().plus(window));
+            Generations rotated = new Generations(
+                    newBits(),
+                    skippedWindow ? newBits() : snapshot.current(),
+                    now.plus(window));
+            if (generations.compareAndSet(snapshot, rotated)) {
+                return rotated;
+            }
+        }
+    }
+
+    private int index(long hash1, long hash2, int i) {
+        return (int) Long.remainderUnsigned(hash1 + i * hash2, numBits);
+    }
+
+    private AtomicLongArray newBits() {
+        return new AtomicLongArray((numBits + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    private static long hash(String key, long seed) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        // splitmix64 finaliser to spread the FNV state across all bits
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -1,5 +1,7 @@
 package com.vega.techtest.shared.util;
 
+import com.vega.techtest.domain.transaction.model.Money;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
@@ -10,6 +12,7 @@ import static java.math.BigDecimal.valueOf;
 public class Calculator {
     private static final int INTERNAL_CALC_SCALE = 6;
     private static final int FINAL_DISPLAY_SCALE = 2;
+    private static final long INTERMEDIATE_MINOR_UNIT_FACTOR = 10_000L; // INTERNAL_CALC_SCALE - FINAL_DISPLAY_SCALE digits
 
     public static BigDecimal calculateAverageAmount(BigDecimal totalAmount, int count) {
         if (count <= 0) {
@@ -24,4 +27,37 @@ public class Calculator {
 
         return intermediateResult.setScale(FINAL_DISPLAY_SCALE, RoundingMode.HALF_EVEN);
     }
+
+    /**
+     * Minor-unit version of {@link #calculateAverageAmount(BigDecimal, int)}. It rounds through the
+     * same intermediate scale, so both overloads return the same amount, but only falls back to
+     * BigDecimal if the intermediate value would overflow a long.
+     */
+    public static Money calculateAverageAmount(Money totalAmount, int count) {
+        if (count <= 0) {
+            return Money.zero(totalAmount.currency());
+        }
+        long scaledTotal;
+        try {
+            scaledTotal = Math.multiplyExact(totalAmount.minorUnits(), INTERMEDIATE_MINOR_UNIT_FACTOR);
+        } catch (ArithmeticException e) {
+            return Money.of(calculateAverageAmount(totalAmount.toBigDecimal(), count), totalAmount.currency());
+        }
+        long intermediateResult = divideHalfEven(scaledTotal, count);
+        return Money.ofMinorUnits(divideHalfEven(intermediateResult, INTERMEDIATE_MINOR_UNIT_FACTOR), totalAmount.currency());
+    }
+
+    static long divideHalfEven(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        long twiceRemainder = Math.abs(remainder) * 2;
+        long absDivisor = Math.abs(divisor);
+        if (twiceRemainder > absDivisor || (twiceRemainder == absDivisor && (quotient & 1) != 0)) {
+            return (dividend < 0) == (divisor < 0) ? quotient + 1 : quotient - 1;
+        }
+        return quotient;
+    }
 }
@@ -0,0 +1,114 @@
+package com.vega.techtest.adapter.in.messaging.kafka.consumer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaBackpressureControllerTest {
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicInteger pendingConnections = new AtomicInteger();
+
+    private KafkaBackpressureController controller;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(listenerRegistry.getListenerContainers()).thenReturn(List.of(container));
+        Gauge.builder(KafkaBackpressureController.PENDING_CONNECTIONS_METRIC, pendingConnections, AtomicInteger::get)
+                .tag("pool", "HikariPool-1")
+                .register(meterRegistry);
+
+        controller = new KafkaBackpressureController(listenerRegistry, meterRegistry);
+        ReflectionTestUtils.setField(controller, "pausePendingConnections", 5.0);
+        ReflectionTestUtils.setField(controller, "pauseWriteLatencyMs", 1000.0);
+        ReflectionTestUtils.setField(controller, "resumePendingConnections", 0.0);
+        ReflectionTestUtils.setField(controller, "resumeWriteLatencyMs", 250.0);
+        controller.start();
+    }
+
+    @Test
+    @DisplayName("Should keep consuming while the pool and writes are healthy")
+    void check_healthy() {
+        pendingConnections.set(2);
+        recordWrites(10, Duration.ofMillis(50));
+
+        controller.check();
+
+        assertThat(controller.isPaused()).isFalse();
+        verify(container, never()).pause();
+    }
+
+    @Test
+    @DisplayName("Should pause when threads queue for connections and resume once the pool drains")
+    void check_pausesOnPendingConnections() {
+        pendingConnections.set(8);
+        controller.check();
+
+        assertThat(controller.isPaused()).isTrue();
+        verify(container).pause();
+        assertThat(meterRegistry.get("kafka_consumer_backpressure_paused").gauge().value()).isEqualTo(1);
+
+        // Still above the resume threshold
+        pendingConnections.set(1);
+        controller.check();
+        verify(container, never()).resume();
+
+        pendingConnections.set(0);
+        controller.check();
+        assertThat(controller.isPaused()).isFalse();
+        verify(container).resume();
+        assertThat(meterRegistry.get("kafka_consumer_backpressure_pauses_total").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should pause on slow writes measured since the previous check only")
+    void check_pausesOnRecentWriteLatency() {
+        recordWrites(100, Duration.ofMillis(20));
+        controller.check();
+        assertThat(controller.isPaused()).isFalse();
+
+        recordWrites(5, Duration.ofMillis(1500));
+        controller.check();
+        assertThat(controller.isPaused()).isTrue();
+
+        // No writes while paused does not hold consumption back
+        controller.check();
+        assertThat(controller.isPaused()).isFalse();
+        verify(container, times(1)).pause();
+        verify(container, times(1)).resume();
+    }
+
+    private void recordWrites(int count, Duration duration) {
+        Timer timer = meterRegistry.timer(KafkaBackpressureController.WRITE_DURATION_METRIC);
+        for (int i = 0; i < count; i++) {
+            timer.record(duration);
+        }
+    }
+}
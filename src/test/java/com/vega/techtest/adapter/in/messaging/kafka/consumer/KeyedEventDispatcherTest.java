@@ -0,0 +1,100 @@
+package com.vega.techtest.adapter.in.messaging.kafka.consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyedEventDispatcherTest {
+
+    private final KeyedEventDispatcher dispatcher = new KeyedEventDispatcher();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    @Test
+    @DisplayName("Should run tasks on the calling thread when parallel processing is disabled")
+    void dispatch_runsInlineWhenDisabled() {
+        dispatcher.start();
+        List<String> threads = new ArrayList<>();
+
+        dispatcher.dispatch("STORE-1/TILL-1", () -> threads.add(Thread.currentThread().getName()));
+
+        assertThat(dispatcher.isParallel()).isFalse();
+        assertThat(threads).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    @DisplayName("Should keep the dispatch order of tasks with the same key")
+    void dispatch_keepsOrderPerKey() throws InterruptedException {
+        enable(4);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; i++) {
+            int sequence = i;
+            dispatcher.dispatch("STORE-1/TILL-1", () -> {
+                order.add(sequence);
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).isSorted().hasSize(100);
+    }
+
+    @Test
+    @DisplayName("Should process different keys in parallel")
+    void dispatch_runsDifferentKeysConcurrently() throws InterruptedException {
+        enable(4);
+        String first = "STORE-1/TILL-1";
+        String second = keyOnAnotherLane(first);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        dispatcher.dispatch(first, () -> {
+            firstStarted.countDown();
+            awaitQuietly(release);
+        });
+        assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        dispatcher.dispatch(second, secondDone::countDown);
+
+        // The second till is not held up by the first one's long-running event
+        assertThat(secondDone.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+    }
+
+    private void enable(int lanes) {
+        ReflectionTestUtils.setField(dispatcher, "enabled", true);
+        ReflectionTestUtils.setField(dispatcher, "laneCount", lanes);
+        dispatcher.start();
+    }
+
+    private String keyOnAnotherLane(String key) {
+        for (int i = 2; ; i++) {
+            String candidate = "STORE-1/TILL-" + i;
+            if (dispatcher.laneFor(candidate) != dispatcher.laneFor(key)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
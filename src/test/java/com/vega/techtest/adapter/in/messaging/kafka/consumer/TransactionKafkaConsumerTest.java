@@ -0,0 +1,235 @@
+package com.vega.techtest.adapter.in.messaging.kafka.consumer;
+
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.adapter.in.messaging.kafka.exception.EventProcessingException;
+import com.vega.techtest.adapter.in.messaging.kafka.service.DeadLetterQueuePublisher;
+import com.vega.techtest.adapter.in.messaging.kafka.service.KafkaMessageProcessor;
+import com.vega.techtest.adapter.in.messaging.kafka.service.RetryTopicPublisher;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionResult;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionKafkaConsumerTest {
+
+    @Mock
+    private KafkaMessageProcessor messageProcessor;
+
+    @Mock
+    private DeadLetterQueuePublisher deadLetterQueuePublisher;
+
+    @Mock
+    private KeyedEventDispatcher dispatcher;
+
+    @Mock
+    private RetryTopicPublisher retryTopicPublisher;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @Mock
+    private TransactionResult transactionResult;
+
+    private TransactionKafkaConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new TransactionKafkaConsumer(messageProcessor, deadLetterQueuePublisher, dispatcher,
+                retryTopicPublisher);
+        ReflectionTestUtils.setField(consumer, "maxAttempts", 3);
+        ReflectionTestUtils.setField(consumer, "initialBackoffMs", 1L);
+        ReflectionTestUtils.setField(consumer, "maxBackoffMs", 2L);
+    }
+
+    @Nested
+    @DisplayName("parallel lanes")
+    class ParallelTests {
+
+        @BeforeEach
+        void runLanesInline() {
+            when(dispatcher.isParallel()).thenReturn(true);
+            lenient().doAnswer(invocation -> {
+                invocation.<Runnable>getArgument(1).run();
+                return null;
+            }).when(dispatcher).dispatch(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should dispatch the event on its till's lane and acknowledge from there")
+        void consume_dispatchesByTill() {
+            KafkaTransactionEvent event = createEvent("evt-1");
+            when(messageProcessor.process(event)).thenReturn(transactionResult);
+
+            consumer.consume(event, acknowledgment, "transactions", 0, 42L);
+
+            verify(dispatcher).dispatch(eq("STORE-001/TILL-1"), any());
+            verify(messageProcessor).process(event);
+            verify(acknowledgment).acknowledge();
+        }
+
+        @Test
+        @DisplayName("Should retry a failing event in its lane and send it to the DLQ after the last attempt")
+        void consume_retriesThenDeadLetters() {
+            KafkaTransactionEvent event = createEvent("evt-1");
+            EventProcessingException failure = new EventProcessingException("evt-1", "Failed to process event");
+            when(messageProcessor.process(event)).thenThrow(failure);
+
+            consumer.consume(event, acknowledgment, "transactions", 0, 42L);
+
+            verify(messageProcessor, times(3)).process(event);
+            verify(deadLetterQueuePublisher).publishToDeadLetterQueue(event, failure, "transactions", 0, 42L);
+            verify(acknowledgment).acknowledge();
+        }
+
+        @Test
+        @DisplayName("Should stop retrying once an attempt succeeds")
+        void consume_succeedsOnRetry() {
+            KafkaTransactionEvent event = createEvent("evt-1");
+            when(messageProcessor.process(event))
+                    .thenThrow(new EventProcessingException("evt-1", "Failed to process event"))
+                    .thenReturn(transactionResult);
+
+            consumer.consume(event, acknowledgment, "transactions", 0, 42L);
+
+            verify(messageProcessor, times(2)).process(event);
+            verify(deadLetterQueuePublisher, never()).publishToDeadLetterQueue(any(), any(), any(), eq(0), eq(42L));
+            verify(acknowledgment).acknowledge();
+        }
+    }
+
+    @Nested
+    @DisplayName("retry topics")
+    class RetryTopicTests {
+
+        @BeforeEach
+        void enableRetryTopics() {
+            lenient().when(retryTopicPublisher.isEnabled()).thenReturn(true);
+        }
+
+        @Test
+        @DisplayName("Should forward a retriable failure to the retry topics and move on")
+        void consume_forwardsToRetryTopic() {
+            KafkaTransactionEvent event = createEvent("evt-1");
+            EventProcessingException failure = new EventProcessingException("evt-1", "Failed to process event");
+            when(messageProcessor.process(event)).thenThrow(failure);
+
+            consumer.consume(event, acknowledgment, "transactions", 0, 42L);
+
+            verify(retryTopicPublisher).publishForRetry(event, failure, 1, "transactions", 0, 42L);
+            verify(acknowledgment).acknowledge();
+        }
+
+        @Test
+        @DisplayName("Should nack a retry record for the rest of its delay")
+        void consumeRetry_waitsUntilDue() {
+            ConsumerRecord<String, KafkaTransactionEvent> record = retryRecord(
+                    createEvent("evt-1"), 1, System.currentTimeMillis() + 60_000);
+
+            consumer.consumeRetry(record, acknowledgment);
+
+            ArgumentCaptor<Duration> sleep = ArgumentCaptor.forClass(Duration.class);
+            verify(acknowledgment).nack(sleep.capture());
+            assertThat(sleep.getValue()).isPositive().isLessThanOrEqualTo(Duration.ofMinutes(1));
+            verify(messageProcessor, never()).process(any());
+            verify(acknowledgment, never()).acknowledge();
+        }
+
+        @Test
+        @DisplayName("Should process a due retry record and forward a further failure with the original position")
+        void consumeRetry_processesWhenDue() {
+            KafkaTransactionEvent event = createEvent("evt-1");
+            EventProcessingException failure = new EventProcessingException("evt-1", "Failed to process event");
+            when(messageProcessor.process(event)).thenThrow(failure);
+
+            consumer.consumeRetry(retryRecord(event, 2, System.currentTimeMillis() - 1), acknowledgment);
+
+            verify(retryTopicPublisher).publishForRetry(event, failure, 3, "transactions", 0, 42L);
+            verify(acknowledgment).acknowledge();
+        }
+
+        @Test
+        @DisplayName("Should acknowledge a due retry record once it succeeds")
+        void consumeRetry_succeeds() {
+            KafkaTransactionEvent event = createEvent("evt-1");
+            when(messageProcessor.process(event)).thenReturn(transactionResult);
+
+            consumer.consumeRetry(retryRecord(event, 1, 0), acknowledgment);
+
+            verify(acknowledgment).acknowledge();
+            verify(retryTopicPublisher, never()).publishForRetry(any(), any(), anyInt(), any(), anyInt(), anyLong());
+        }
+
+        private ConsumerRecord<String, KafkaTransactionEvent> retryRecord(KafkaTransactionEvent event, int attempts,
+                                                                        long dueAt) {
+            ConsumerRecord<String, KafkaTransactionEvent> record =
+                    new ConsumerRecord<>("transactions.retry.1m", 3, 7L, event.eventId(), event);
+            record.headers()
+                    .add("retry-attempts", String.valueOf(attempts).getBytes(StandardCharsets.UTF_8))
+                    .add("retry-due-at", String.valueOf(dueAt).getBytes(StandardCharsets.UTF_8))
+                    .add("retry-original-topic", "transactions".getBytes(StandardCharsets.UTF_8))
+                    .add("retry-original-partition", "0".getBytes(StandardCharsets.UTF_8))
+                    .add("retry-original-offset", "42".getBytes(StandardCharsets.UTF_8));
+            return record;
+        }
+    }
+
+    @Test
+    @DisplayName("Should rethrow retriable failures to the container when not running in lanes")
+    void consume_rethrowsWhenInline() {
+        KafkaTransactionEvent event = createEvent("evt-1");
+        when(messageProcessor.process(event)).thenThrow(new EventProcessingException("evt-1", "Failed"));
+
+        assertThatThrownBy(() -> consumer.consume(event, acknowledgment, "transactions", 0, 42L))
+                .isInstanceOf(EventProcessingException.class);
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Should key lanes by store and till for both map and typed events")
+    void tillKey() {
+        KafkaTransactionEvent typed = new KafkaTransactionEvent("evt-2", "TRANSACTION_CREATED", null, null, null,
+                null, new CreateTransactionCommand(null, null, "STORE-002", "TILL-9", "card",
+                BigDecimal.ONE, "GBP", Instant.parse("2024-01-01T10:00:00Z"), List.of()), null);
+
+        assertThat(TransactionKafkaConsumer.tillKey(createEvent("evt-1"))).isEqualTo("STORE-001/TILL-1");
+        assertThat(TransactionKafkaConsumer.tillKey(typed)).isEqualTo("STORE-002/TILL-9");
+        assertThat(TransactionKafkaConsumer.tillKey(new KafkaTransactionEvent("evt-3", "TRANSACTION_CREATED",
+                null, null, null, Map.of("paymentMethod", "card")))).isEqualTo("evt-3");
+    }
+
+    private static KafkaTransactionEvent createEvent(String eventId) {
+        return new KafkaTransactionEvent(eventId, "TRANSACTION_CREATED", "2024-01-01T10:00:00Z",
+                "till-system", "1.0", Map.of("storeId", "STORE-001", "tillId", "TILL-1"));
+    }
+}
@@ -0,0 +1,176 @@
+package com.vega.techtest.adapter.in.messaging.kafka.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the native ON CONFLICT event claims and the daily partition maintenance against a real
+ * Postgres with the Liquibase schema.
+ * Skipped when Docker is not available.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ProcessedKafkaEventClaimPostgresTest {
+
+    private static final Instant CREATED_AT = Instant.parse("2024-03-01T10:00:00Z");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private ProcessedKafkaEventRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void createPartitions() {
+        // There is no default partition, so the days the tests claim on must exist
+        LocalDate day = LocalDate.ofInstant(CREATED_AT, ZoneOffset.UTC);
+        repository.createDailyPartitions(day, day.plusDays(2));
+    }
+
+    @Test
+    @DisplayName("Should detect that the changelog partitioned the table")
+    void isPartitioned_detectsPartitionedTable() {
+        assertThat(repository.isPartitioned()).isTrue();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Should make a claim on the next day wait for a concurrent claim of the same event")
+    void lockEventIds_serializesClaimsAcrossDays() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch firstClaimed = new CountDownLatch(1);
+        CountDownLatch commitFirst = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+                repository.lockEventIds(List.of("evt-1"));
+                boolean claimed = repository.insertIfAbsent("evt-1", "TRANSACTION_CREATED", CREATED_AT);
+                firstClaimed.countDown();
+                await(commitFirst);
+                return claimed;
+            }));
+            assertThat(firstClaimed.await(10, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+                repository.lockEventIds(List.of("evt-1"));
+                return repository.insertIfAbsent("evt-1", "TRANSACTION_CREATED", CREATED_AT.plusSeconds(86_400));
+            }));
+            Thread.sleep(500);
+            assertThat(second).isNotDone();
+
+            commitFirst.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(second.get(10, TimeUnit.SECONDS)).isFalse();
+        } finally {
+            commitFirst.countDown();
+            jdbcTemplate.update("DELETE FROM processed_kafka_events");
+        }
+    }
+
+    @Test
+    @DisplayName("Should claim a new event once and report the second claim as a duplicate")
+    void insertIfAbsent_claimsOnce() {
+        assertThat(repository.insertIfAbsent("evt-1", "TRANSACTION_CREATED", CREATED_AT)).isTrue();
+        assertThat(repository.insertIfAbsent("evt-1", "TRANSACTION_CREATED", CREATED_AT)).isFalse();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM processed_kafka_events WHERE event_id = 'evt-1'", String.class))
+                .isEqualTo("PROCESSING");
+    }
+
+    @Test
+    @DisplayName("Should claim a whole batch in one statement and skip events that are already known")
+    void insertAllIfAbsent_skipsKnownEvents() {
+        repository.insertIfAbsent("evt-2", "TRANSACTION_CREATED", CREATED_AT);
+        Map<String, String> eventTypes = new LinkedHashMap<>();
+        eventTypes.put("evt-1", "TRANSACTION_CREATED");
+        eventTypes.put("evt-2", "TRANSACTION_CREATED");
+        eventTypes.put("evt-3", "TRANSACTION_CREATED");
+
+        assertThat(repository.insertAllIfAbsent(eventTypes, CREATED_AT)).containsExactlyInAnyOrder("evt-1", "evt-3");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM processed_kafka_events", Integer.class))
+                .isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should report an event claimed on an earlier day as a duplicate")
+    void insertIfAbsent_detectsDuplicatesAcrossPartitions() {
+        assertThat(repository.insertIfAbsent("evt-1", "TRANSACTION_CREATED", CREATED_AT)).isTrue();
+        assertThat(repository.insertIfAbsent("evt-1", "TRANSACTION_CREATED", CREATED_AT.plusSeconds(86_400)))
+                .isFalse();
+        assertThat(repository.insertAllIfAbsent(Map.of("evt-1", "TRANSACTION_CREATED"),
+                CREATED_AT.plusSeconds(86_400))).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Should detach and drop the partitions of expired days and keep the newer ones")
+    void dropDailyPartitionsBefore_dropsExpiredDays() {
+        LocalDate day = LocalDate.ofInstant(CREATED_AT, ZoneOffset.UTC);
+        try {
+            repository.insertIfAbsent("evt-1", "TRANSACTION_CREATED", CREATED_AT);
+            repository.insertIfAbsent("evt-2", "TRANSACTION_CREATED", CREATED_AT.plusSeconds(2 * 86_400));
+
+            // Outside a transaction, since the partitions are detached concurrently
+            assertThat(repository.dropDailyPartitionsBefore(day.plusDays(2))).isEqualTo(2);
+
+            assertThat(repository.findDailyPartitions()).contains(day.plusDays(2)).doesNotContain(day, day.plusDays(1));
+            assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('processed_kafka_events_p20240301')",
+                    String.class)).isNull();
+            assertThat(jdbcTemplate.queryForList("SELECT event_id FROM processed_kafka_events", String.class))
+                    .containsExactly("evt-2");
+        } finally {
+            jdbcTemplate.update("DELETE FROM processed_kafka_events");
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.vega.techtest.adapter.in.messaging.kafka.repository;
+
+import com.vega.techtest.adapter.in.messaging.kafka.entity.ProcessedKafkaEventEntity;
+import com.vega.techtest.adapter.in.messaging.kafka.entity.ProcessedKafkaEventEntity.EventStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ProcessedKafkaEventRepositoryTest {
+
+    private static final Instant CREATED_AT = Instant.parse("2024-03-01T10:00:00Z");
+
+    @Autowired
+    private ProcessedKafkaEventRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        repository.saveAllAndFlush(List.of(
+                createEvent("evt-1", EventStatus.PROCESSING),
+                createEvent("evt-2", EventStatus.PROCESSING),
+                createEvent("evt-3", EventStatus.COMPLETED)));
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should mark all given events as completed with one update")
+    void updateStatusProcessed_updatesAllGivenEvents() {
+        Instant processedAt = CREATED_AT.plusSeconds(1);
+
+        int updated = repository.updateStatusProcessed(List.of("evt-1", "evt-2", "evt-4"),
+                EventStatus.COMPLETED, processedAt);
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(repository.findById("evt-2")).get()
+                .satisfies(event -> {
+                    assertThat(event.getStatus()).isEqualTo(EventStatus.COMPLETED);
+                    assertThat(event.getProcessedAt()).isEqualTo(processedAt);
+                });
+    }
+
+    @Test
+    @DisplayName("Should mark events as failed with their own error message")
+    void updateStatusFailed_storesEachErrorMessage() {
+        int updated = repository.updateStatusFailed(Map.of(
+                "evt-1", "Validation error: Event type is required",
+                "evt-2", "Validation error: Receipt total mismatch"), CREATED_AT.plusSeconds(1));
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(repository.findAllById(List.of("evt-1", "evt-2")))
+                .extracting(ProcessedKafkaEventEntity::getEventId, ProcessedKafkaEventEntity::getStatus,
+                        ProcessedKafkaEventEntity::getErrorMessage)
+                .containsExactlyInAnyOrder(
+                        tuple("evt-1", EventStatus.FAILED,
+                                "Validation error: Event type is required"),
+                        tuple("evt-2", EventStatus.FAILED,
+                                "Validation error: Receipt total mismatch"));
+    }
+
+    @Test
+    @DisplayName("Should only release events that are still being processed")
+    void deleteByEventIdInAndStatus_keepsFinishedEvents() {
+        int released = repository.deleteByEventIdInAndStatus(List.of("evt-1", "evt-3"), EventStatus.PROCESSING);
+
+        assertThat(released).isEqualTo(1);
+        assertThat(repository.findAll()).extracting(ProcessedKafkaEventEntity::getEventId)
+                .containsExactlyInAnyOrder("evt-2", "evt-3");
+    }
+
+    @Test
+    @DisplayName("Should delete events created before the cutoff with one statement")
+    void deleteByCreatedAtBefore_deletesOldEvents() {
+        repository.saveAndFlush(new ProcessedKafkaEventEntity("evt-4", "TRANSACTION_CREATED",
+                EventStatus.COMPLETED, CREATED_AT.plusSeconds(3600), null, null, null));
+        entityManager.clear();
+
+        int deleted = repository.deleteByCreatedAtBefore(CREATED_AT.plusSeconds(60));
+
+        assertThat(deleted).isEqualTo(3);
+        assertThat(repository.findAll()).extracting(ProcessedKafkaEventEntity::getEventId)
+                .containsExactly("evt-4");
+    }
+
+    private static ProcessedKafkaEventEntity createEvent(String eventId, EventStatus status) {
+        return new ProcessedKafkaEventEntity(eventId, "TRANSACTION_CREATED", status, CREATED_AT, null, null, null);
+    }
+}
@@ -0,0 +1,129 @@
+package com.vega.techtest.adapter.in.messaging.kafka.serialization;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.model.TransactionItem;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KafkaTransactionEventDeserializerTest {
+
+    private static final String MESSAGE = """
+            {
+              "eventId": "evt-1",
+              "eventType": "TRANSACTION_CREATED",
+              "eventTimestamp": "2025-06-27T12:00:00.000Z",
+              "source": "till-system",
+              "version": "1.0",
+              "trace": {"spanId": "abc", "tags": [1, 2]},
+              "data": {
+                "transactionId": "TXN-12345678",
+                "customerId": "CUST-12345",
+                "storeId": "STORE-001",
+                "tillId": "TILL-1",
+                "paymentMethod": "card",
+                "totalAmount": 12345678901234.57,
+                "currency": "GBP",
+                "timestamp": "2025-06-27T12:00:00.000Z",
+                "loyalty": {"points": 10},
+                "items": [
+                  {"productName": "Milk", "productCode": "MILK001", "unitPrice": 2.50, "quantity": 2, "category": "Dairy"},
+                  {"productName": "Bread", "productCode": "BREAD001", "unitPrice": "1.20", "quantity": "1"}
+                ]
+              }
+            }
+            """;
+
+    private final KafkaTransactionEventDeserializer deserializer = new KafkaTransactionEventDeserializer();
+
+    @Test
+    @DisplayName("Should read the envelope and data straight into a typed command")
+    void deserialize_readsTypedCommand() {
+        KafkaTransactionEvent event = deserialize(MESSAGE);
+
+        assertThat(event.eventId()).isEqualTo("evt-1");
+        assertThat(event.eventType()).isEqualTo("TRANSACTION_CREATED");
+        assertThat(event.source()).isEqualTo("till-system");
+        assertThat(event.data()).isNull();
+        assertThat(event.isTyped()).isTrue();
+
+        CreateTransactionCommand command = event.command();
+        assertThat(command.transactionId()).isEqualTo("TXN-12345678");
+        assertThat(command.storeId()).isEqualTo("STORE-001");
+        assertThat(command.tillId()).isEqualTo("TILL-1");
+        assertThat(command.currency()).isEqualTo("GBP");
+        assertThat(command.timestamp()).isEqualTo(Instant.parse("2025-06-27T12:00:00Z"));
+        assertThat(command.items()).containsExactly(
+                new TransactionItem("Milk", "MILK001", new BigDecimal("2.50"), 2, "Dairy"),
+                new TransactionItem("Bread", "BREAD001", new BigDecimal("1.20"), 1, null));
+    }
+
+    @Test
+    @DisplayName("Should read amounts exactly from the JSON number text")
+    void deserialize_readsAmountsWithoutDoubleRounding() {
+        KafkaTransactionEvent event = deserialize(MESSAGE);
+
+        // 12345678901234.57 is not representable as a double
+        assertThat(event.command().totalAmount()).hasToString("12345678901234.57");
+    }
+
+    @Test
+    @DisplayName("Should leave unconvertible values null for the validator")
+    void deserialize_leavesInvalidValuesNull() {
+        KafkaTransactionEvent event = deserialize("""
+                {"eventId": "evt-1", "eventType": "TRANSACTION_CREATED",
+                 "data": {"storeId": "STORE-001", "totalAmount": "abc", "timestamp": "yesterday", "items": "none"}}
+                """);
+
+        assertThat(event.command().totalAmount()).isNull();
+        assertThat(event.command().timestamp()).isNull();
+        assertThat(event.command().items()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should leave the command null when the data is missing or empty")
+    void deserialize_withoutData() {
+        assertThat(deserialize("{\"eventId\": \"evt-1\"}").command()).isNull();
+        assertThat(deserialize("{\"eventId\": \"evt-1\", \"data\": {}}").command()).isNull();
+        assertThat(deserialize("{\"eventId\": \"evt-1\", \"data\": null}").command()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should keep the original bytes so the envelope can be rebuilt for the DLQ")
+    void deserialize_keepsPayload() throws Exception {
+        // Configured like the Spring Boot ObjectMapper the DLQ publisher uses
+        ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        KafkaTransactionEvent event = deserialize(MESSAGE);
+
+        KafkaTransactionEvent envelope = objectMapper.readValue(event.payload(), KafkaTransactionEvent.class);
+
+        assertThat(envelope.eventId()).isEqualTo("evt-1");
+        assertThat(envelope.data()).containsEntry("storeId", "STORE-001");
+        assertThat(objectMapper.writeValueAsString(envelope))
+                .doesNotContain("\"command\"")
+                .doesNotContain("\"payload\"")
+                .doesNotContain("\"typed\"");
+    }
+
+    @Test
+    @DisplayName("Should return null for a null value and reject messages that are not JSON objects")
+    void deserialize_invalidMessages() {
+        assertThat(deserializer.deserialize("transactions", null)).isNull();
+        assertThatThrownBy(() -> deserialize("[1, 2]")).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> deserialize("{\"eventId\": ")).isInstanceOf(SerializationException.class);
+    }
+
+    private KafkaTransactionEvent deserialize(String json) {
+        return deserializer.deserialize("transactions", json.getBytes(StandardCharsets.UTF_8));
+    }
+}
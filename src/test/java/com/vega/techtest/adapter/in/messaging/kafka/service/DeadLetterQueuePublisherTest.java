@@ -0,0 +1,146 @@
+package com.vega.techtest.adapter.in.messaging.kafka.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.converter.MessagingMessageConverter;
+import org.springframework.messaging.Message;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterQueuePublisherTest {
+
+    @Mock
+    private KafkaTemplate<String, KafkaTransactionEvent> kafkaTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<String> sendingThreads = new CopyOnWriteArrayList<>();
+
+    private DeadLetterQueuePublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        publisher = new DeadLetterQueuePublisher(kafkaTemplate, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(publisher, "dlqTopic", "transactions.dlq");
+        ReflectionTestUtils.setField(publisher, "bufferCapacity", 1);
+        ReflectionTestUtils.setField(publisher, "batchSize", 10);
+        lenient().when(kafkaTemplate.send(any(Message.class))).thenAnswer(invocation -> {
+            sendingThreads.add(Thread.currentThread().getName());
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        publisher.stop();
+    }
+
+    @Test
+    @DisplayName("Should send the event with its failure details on the calling thread when not async")
+    @SuppressWarnings("unchecked")
+    void publish_sendsSynchronously() {
+        publisher.start();
+
+        publisher.publishToDeadLetterQueue(createEvent("evt-1"), new IllegalArgumentException("Store ID is required"),
+                "transactions", 2, 42L);
+
+        ArgumentCaptor<Message<KafkaTransactionEvent>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(kafkaTemplate).send(sent.capture());
+        // Converted the way KafkaTemplate converts a message before handing it to the producer
+        ProducerRecord<?, ?> record = new MessagingMessageConverter().fromMessage(sent.getValue(), null);
+        assertThat(record.topic()).isEqualTo("transactions.dlq");
+        assertThat(record.key()).isEqualTo("evt-1");
+        assertThat(header(record, "dlq-original-topic")).isEqualTo("transactions");
+        assertThat(header(record, "dlq-partition")).isEqualTo("2");
+        assertThat(header(record, "dlq-offset")).isEqualTo("42");
+        assertThat(header(record, "dlq-exception-type")).isEqualTo(IllegalArgumentException.class.getName());
+        assertThat(header(record, "dlq-exception-message")).isEqualTo("Store ID is required");
+        assertThat(header(record, "dlq-timestamp")).isNotBlank();
+        assertThat(header(record, "spring_json_header_types"))
+                .contains("\"dlq-partition\":\"java.lang.Integer\"")
+                .contains("\"dlq-offset\":\"java.lang.Long\"");
+        assertThat(sendingThreads).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    @DisplayName("Should hand the event to the background publisher when async")
+    @SuppressWarnings("unchecked")
+    void publish_sendsFromBackgroundThread() {
+        ReflectionTestUtils.setField(publisher, "async", true);
+        publisher.start();
+
+        publisher.publishToDeadLetterQueue(createEvent("evt-1"), new IllegalArgumentException("Invalid"),
+                "transactions", 0, 1L);
+
+        verify(kafkaTemplate, timeout(5000)).send(any(Message.class));
+        assertThat(sendingThreads).containsExactly("kafka-dlq-publisher");
+        assertThat(meterRegistry.get("kafka_dlq_buffer_overflow_total").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should publish on the calling thread and count the overflow when the buffer is full")
+    @SuppressWarnings("unchecked")
+    void publish_fallsBackWhenBufferFull() throws InterruptedException {
+        CountDownLatch publisherBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        lenient().when(kafkaTemplate.send(any(Message.class))).thenAnswer(invocation -> {
+            sendingThreads.add(Thread.currentThread().getName());
+            if (Thread.currentThread().getName().equals("kafka-dlq-publisher")) {
+                publisherBusy.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+        ReflectionTestUtils.setField(publisher, "async", true);
+        publisher.start();
+
+        publisher.publishToDeadLetterQueue(createEvent("evt-1"), new IllegalArgumentException("Invalid"),
+                "transactions", 0, 1L);
+        assertThat(publisherBusy.await(5, TimeUnit.SECONDS)).isTrue();
+        publisher.publishToDeadLetterQueue(createEvent("evt-2"), new IllegalArgumentException("Invalid"),
+                "transactions", 0, 2L);
+        publisher.publishToDeadLetterQueue(createEvent("evt-3"), new IllegalArgumentException("Invalid"),
+                "transactions", 0, 3L);
+
+        assertThat(meterRegistry.get("kafka_dlq_buffer_overflow_total").counter().count()).isEqualTo(1);
+        assertThat(sendingThreads).contains(Thread.currentThread().getName());
+
+        release.countDown();
+        verify(kafkaTemplate, timeout(5000).times(3)).send(any(Message.class));
+    }
+
+    private static String header(ProducerRecord<?, ?> record, String key) {
+        return new String(record.headers().lastHeader(key).value(), StandardCharsets.UTF_8);
+    }
+
+    private static KafkaTransactionEvent createEvent(String eventId) {
+        return new KafkaTransactionEvent(eventId, "TRANSACTION_CREATED", "2024-01-01T10:00:00Z",
+                "till-system", "1.0", Map.of("storeId", "STORE-001"));
+    }
+}
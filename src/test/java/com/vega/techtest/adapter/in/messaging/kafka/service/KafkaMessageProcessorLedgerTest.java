@@ -0,0 +1,100 @@
+package com.vega.techtest.adapter.in.messaging.kafka.service;
+
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.adapter.in.messaging.kafka.entity.ProcessedKafkaEventEntity;
+import com.vega.techtest.adapter.in.messaging.kafka.entity.ProcessedKafkaEventEntity.EventStatus;
+import com.vega.techtest.adapter.in.messaging.kafka.exception.EventProcessingException;
+import com.vega.techtest.adapter.in.messaging.kafka.mapper.KafkaEventMapper;
+import com.vega.techtest.adapter.in.messaging.kafka.repository.ProcessedKafkaEventRepository;
+import com.vega.techtest.adapter.in.messaging.kafka.validator.KafkaEventValidator;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionResult;
+import com.vega.techtest.domain.transaction.exception.TransactionProcessingException;
+import com.vega.techtest.domain.transaction.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the separate-commit path against the processed_kafka_events ledger, with every ledger call
+ * committing on its own as in production, so that a redelivery sees what the failed attempt left.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(EventIdempotencyService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class KafkaMessageProcessorLedgerTest {
+
+    @Autowired
+    private ProcessedKafkaEventRepository repository;
+
+    @Autowired
+    private EventIdempotencyService idempotencyService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final KafkaEventMapper mapper = mock(KafkaEventMapper.class);
+
+    private final TransactionService transactionService = mock(TransactionService.class);
+
+    private KafkaMessageProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new KafkaMessageProcessor(mock(KafkaEventValidator.class), mapper, transactionService,
+                idempotencyService, new TransactionTemplate(transactionManager),
+                new ProcessedEventCache(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(10), 1_000, 0.01));
+        when(mapper.toCommand(any())).thenReturn(new CreateTransactionCommand("TXN-evt-1", "CUST-001", "STORE-001",
+                "TILL-1", "card", new BigDecimal("10.00"), "GBP", Instant.parse("2024-01-01T10:00:00Z"), List.of()));
+    }
+
+    @AfterEach
+    void clearLedger() {
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should process a redelivered event again after a retriable failure")
+    void process_reclaimsEventAfterRetriableFailure() {
+        KafkaTransactionEvent event = new KafkaTransactionEvent("evt-1", "TRANSACTION_CREATED",
+                "2024-01-01T10:00:00Z", "till-system", "1.0", Map.of("storeId", "STORE-001"));
+        when(transactionService.processTransaction(any()))
+                .thenThrow(new TransactionProcessingException("Failed to process transaction"))
+                .thenReturn(new TransactionResult("TXN-evt-1", "CUST-001", "STORE-001", "TILL-1", "card",
+                        new BigDecimal("10.00"), "GBP", Instant.parse("2024-01-01T10:00:00Z"), Instant.now(),
+                        "COMPLETED", List.of()));
+
+        assertThatThrownBy(() -> processor.process(event)).isInstanceOf(EventProcessingException.class);
+        assertThat(repository.findByEventId("evt-1")).isEmpty();
+
+        TransactionResult result = processor.process(event);
+
+        assertThat(result.transactionId()).isEqualTo("TXN-evt-1");
+        assertThat(repository.findByEventId("evt-1")).get()
+                .extracting(ProcessedKafkaEventEntity::getStatus)
+                .isEqualTo(EventStatus.COMPLETED);
+    }
+}
@@ -0,0 +1,365 @@
+package com.vega.techtest.adapter.in.messaging.kafka.service;
+
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.adapter.in.messaging.kafka.exception.DuplicateEventException;
+import com.vega.techtest.adapter.in.messaging.kafka.exception.EventProcessingException;
+import com.vega.techtest.adapter.in.messaging.kafka.mapper.KafkaEventMapper;
+import com.vega.techtest.adapter.in.messaging.kafka.service.KafkaMessageProcessor.EventOutcome;
+import com.vega.techtest.adapter.in.messaging.kafka.validator.KafkaEventValidator;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
+import com.vega.techtest.application.transaction.command.TransactionResult;
+import com.vega.techtest.domain.transaction.exception.ReceiptTotalMismatchException;
+import com.vega.techtest.domain.transaction.exception.TransactionProcessingException;
+import com.vega.techtest.domain.transaction.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaMessageProcessorTest {
+
+    @Mock
+    private KafkaEventValidator validator;
+
+    @Mock
+    private KafkaEventMapper mapper;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private EventIdempotencyService idempotencyService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private KafkaMessageProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new KafkaMessageProcessor(validator, mapper, transactionService, idempotencyService,
+                new TransactionTemplate(transactionManager),
+                new ProcessedEventCache(meterRegistry, true, 100, Duration.ofMinutes(10), 1_000, 0.01));
+        lenient().when(mapper.toCommand(any())).thenAnswer(invocation -> createCommand(
+                invocation.<KafkaTransactionEvent>getArgument(0).eventId()));
+    }
+
+    @Nested
+    @DisplayName("processBatch")
+    class ProcessBatchTests {
+
+        @Test
+        @DisplayName("Should persist all claimed events with one batch call and mark them completed together")
+        @SuppressWarnings("unchecked")
+        void processBatch_persistsClaimedEventsTogether() {
+            List<KafkaTransactionEvent> events = List.of(createEvent("evt-1"), createEvent("evt-2"));
+            when(idempotencyService.tryAcquireProcessingLocks(anyMap())).thenReturn(Set.of("evt-1", "evt-2"));
+            when(transactionService.processTransactionBatch(anyList())).thenAnswer(invocation -> succeedAll(
+                    invocation.getArgument(0)));
+
+            List<EventOutcome> outcomes = processor.processBatch(events);
+
+            assertThat(outcomes).extracting(EventOutcome::status)
+                    .containsExactly(EventOutcome.Status.PROCESSED, EventOutcome.Status.PROCESSED);
+            assertThat(outcomes.get(1).transaction().transactionId()).isEqualTo("TXN-evt-2");
+            ArgumentCaptor<List<String>> completed = ArgumentCaptor.forClass(List.class);
+            verify(idempotencyService).markAllAsCompleted(completed.capture());
+            assertThat(completed.getValue()).containsExactly("evt-1", "evt-2");
+            verify(idempotencyService).markAllAsFailed(Map.of());
+        }
+
+        @Test
+        @DisplayName("Should skip events that are already claimed or repeated within the batch")
+        @SuppressWarnings("unchecked")
+        void processBatch_skipsDuplicates() {
+            List<KafkaTransactionEvent> events = List.of(
+                    createEvent("evt-1"), createEvent("evt-2"), createEvent("evt-1"));
+            when(idempotencyService.tryAcquireProcessingLocks(anyMap())).thenReturn(Set.of("evt-1"));
+            when(transactionService.processTransactionBatch(anyList())).thenAnswer(invocation -> succeedAll(
+                    invocation.getArgument(0)));
+
+            List<EventOutcome> outcomes = processor.processBatch(events);
+
+            assertThat(outcomes).extracting(EventOutcome::status).containsExactly(
+                    EventOutcome.Status.PROCESSED, EventOutcome.Status.DUPLICATE, EventOutcome.Status.DUPLICATE);
+            ArgumentCaptor<Map<String, String>> claimed = ArgumentCaptor.forClass(Map.class);
+            verify(idempotencyService).tryAcquireProcessingLocks(claimed.capture());
+            assertThat(claimed.getValue()).containsOnlyKeys("evt-1", "evt-2");
+        }
+
+        @Test
+        @DisplayName("Should reject invalid events and transactions without failing the batch")
+        @SuppressWarnings("unchecked")
+        void processBatch_rejectsInvalidEvents() {
+            KafkaTransactionEvent invalid = createEvent("evt-1");
+            KafkaTransactionEvent mismatched = createEvent("evt-2");
+            KafkaTransactionEvent valid = createEvent("evt-3");
+            when(idempotencyService.tryAcquireProcessingLocks(anyMap()))
+                    .thenReturn(Set.of("evt-1", "evt-2", "evt-3"));
+            lenient().doThrow(new IllegalArgumentException("Required field 'storeId' is missing in event data"))
+                    .when(validator).validate(invalid);
+            when(transactionService.processTransactionBatch(anyList())).thenReturn(List.of(
+                    TransactionBatchItemResult.failed(0, "Receipt total mismatch"),
+                    TransactionBatchItemResult.success(1, createResult("evt-3"))));
+
+            List<EventOutcome> outcomes = processor.processBatch(List.of(invalid, mismatched, valid));
+
+            assertThat(outcomes).extracting(EventOutcome::status).containsExactly(
+                    EventOutcome.Status.REJECTED, EventOutcome.Status.REJECTED, EventOutcome.Status.PROCESSED);
+            assertThat(outcomes.get(1).error()).hasMessage("Receipt total mismatch");
+            ArgumentCaptor<Map<String, String>> failed = ArgumentCaptor.forClass(Map.class);
+            verify(idempotencyService).markAllAsFailed(failed.capture());
+            assertThat(failed.getValue()).containsOnlyKeys("evt-1", "evt-2");
+            verify(idempotencyService).markAllAsCompleted(List.of("evt-3"));
+        }
+
+        @Test
+        @DisplayName("Should reject events without an ID without claiming them")
+        void processBatch_rejectsEventsWithoutId() {
+            KafkaTransactionEvent withoutId = createEvent(null);
+            lenient().doThrow(new IllegalArgumentException("Event ID is required")).when(validator).validate(withoutId);
+
+            List<EventOutcome> outcomes = processor.processBatch(List.of(withoutId));
+
+            assertThat(outcomes.get(0).status()).isEqualTo(EventOutcome.Status.REJECTED);
+            assertThat(outcomes.get(0).error()).hasMessage("Event ID is required");
+            verify(idempotencyService, never()).tryAcquireProcessingLocks(anyMap());
+            verify(transactionService, never()).processTransactionBatch(anyList());
+        }
+
+        @Test
+        @DisplayName("Should release the claims and fail the batch when the transactions cannot be written")
+        void processBatch_releasesClaimsOnProcessingFailure() {
+            when(idempotencyService.tryAcquireProcessingLocks(anyMap())).thenReturn(Set.of("evt-1"));
+            when(transactionService.processTransactionBatch(anyList()))
+                    .thenThrow(new TransactionProcessingException("Failed to process transaction batch"));
+
+            assertThatThrownBy(() -> processor.processBatch(List.of(createEvent("evt-1"))))
+                    .isInstanceOf(EventProcessingException.class);
+
+            verify(idempotencyService).releaseProcessingLocks(Set.of("evt-1"));
+            verify(idempotencyService, never()).markAllAsCompleted(anyList());
+        }
+
+        @Test
+        @DisplayName("Should claim events one by one when another consumer claimed one concurrently")
+        void processBatch_fallsBackToSingleClaims() {
+            when(idempotencyService.tryAcquireProcessingLocks(anyMap()))
+                    .thenThrow(new DataIntegrityViolationException("duplicate key"));
+            when(idempotencyService.tryAcquireProcessingLock("evt-1", "TRANSACTION_CREATED")).thenReturn(false);
+            when(idempotencyService.tryAcquireProcessingLock("evt-2", "TRANSACTION_CREATED")).thenReturn(true);
+            when(transactionService.processTransactionBatch(anyList())).thenReturn(List.of(
+                    TransactionBatchItemResult.success(0, createResult("evt-2"))));
+
+            List<EventOutcome> outcomes = processor.processBatch(List.of(createEvent("evt-1"), createEvent("evt-2")));
+
+            assertThat(outcomes).extracting(EventOutcome::status)
+                    .containsExactly(EventOutcome.Status.DUPLICATE, EventOutcome.Status.PROCESSED);
+        }
+    }
+
+    @Nested
+    @DisplayName("atomic commit")
+    class AtomicCommitTests {
+
+        @BeforeEach
+        void enableAtomicCommit() {
+            ReflectionTestUtils.setField(processor, "atomicCommit", true);
+        }
+
+        @Test
+        @DisplayName("Should claim, persist and complete the event in one database transaction")
+        void process_commitsClaimAndTransactionTogether() {
+            KafkaTransactionEvent event = createEvent("evt-1");
+            when(idempotencyService.claim("evt-1", "TRANSACTION_CREATED")).thenReturn(true);
+            when(transactionService.processTransaction(any())).thenReturn(createResult("evt-1"));
+
+            TransactionResult result = processor.process(event);
+
+            assertThat(result.transactionId()).isEqualTo("TXN-evt-1");
+            verify(transactionManager).getTransaction(any());
+            verify(transactionManager).commit(any());
+            verify(idempotencyService).markAsCompleted("evt-1");
+            verify(idempotencyService, never()).tryAcquireProcessingLock(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("Should commit the FAILED row and rethrow when the event is rejected")
+        void process_commitsFailedRowForRejectedEvent() {
+            KafkaTransactionEvent event = createEvent("evt-1");
+            when(idempotencyService.claim("evt-1", "TRANSACTION_CREATED")).thenReturn(true);
+            when(transactionService.processTransaction(any())).thenThrow(new ReceiptTotalMismatchException(
+                    "Receipt total mismatch", new BigDecimal("9.00"), new BigDecimal("10.00")));
+
+            assertThatThrownBy(() -> processor.process(event)).isInstanceOf(ReceiptTotalMismatchException.class);
+
+            verify(idempotencyService).markAsFailed("evt-1", "Receipt total mismatch: calculated=9.00, provided=10.00");
+            verify(transactionManager).commit(any());
+        }
+
+        @Test
+        @DisplayName("Should roll back the claim with the transaction when persisting fails")
+        void process_rollsBackClaimOnFailure() {
+            KafkaTransactionEvent event = createEvent("evt-1");
+            when(idempotencyService.claim("evt-1", "TRANSACTION_CREATED")).thenReturn(true);
+            when(transactionService.processTransaction(any()))
+                    .thenThrow(new TransactionProcessingException("Failed to process transaction"));
+
+            assertThatThrownBy(() -> processor.process(event)).isInstanceOf(EventProcessingException.class);
+
+            verify(transactionManager).rollback(any());
+            verify(transactionManager, never()).commit(any());
+            verify(idempotencyService, never()).markAsFailed(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("Should report an event that is already claimed as a duplicate")
+        void process_reportsDuplicate() {
+            when(idempotencyService.claim("evt-1", "TRANSACTION_CREATED")).thenReturn(false);
+
+            assertThatThrownBy(() -> processor.process(createEvent("evt-1")))
+                    .isInstanceOf(DuplicateEventException.class);
+
+            verify(transactionService, never()).processTransaction(any());
+        }
+
+        @Test
+        @DisplayName("Should refuse to start without upsert, where a duplicate receipt aborts the shared transaction")
+        void checkAtomicCommit_requiresUpsert() {
+            assertThatThrownBy(() -> processor.checkAtomicCommit())
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("transaction.persistence.upsert-enabled");
+
+            ReflectionTestUtils.setField(processor, "upsertEnabled", true);
+            processor.checkAtomicCommit();
+        }
+
+        @Test
+        @DisplayName("Should roll back the whole poll without releasing claims when the batch cannot be written")
+        void processBatch_rollsBackWholePoll() {
+            when(idempotencyService.claimAll(anyMap())).thenReturn(Set.of("evt-1"));
+            when(transactionService.processTransactionBatch(anyList()))
+                    .thenThrow(new TransactionProcessingException("Failed to process transaction batch"));
+
+            assertThatThrownBy(() -> processor.processBatch(List.of(createEvent("evt-1"))))
+                    .isInstanceOf(EventProcessingException.class);
+
+            verify(transactionManager).rollback(any());
+            verify(idempotencyService, never()).releaseProcessingLocks(any());
+            verify(idempotencyService, never()).tryAcquireProcessingLocks(anyMap());
+        }
+    }
+
+    @Nested
+    @DisplayName("processed event cache")
+    class ProcessedEventCacheTests {
+
+        @Test
+        @DisplayName("Should skip a redelivered event without claiming it again")
+        void process_skipsRecentlyCompletedEvent() {
+            when(idempotencyService.tryAcquireProcessingLock("evt-1", "TRANSACTION_CREATED")).thenReturn(true);
+            when(transactionService.processTransaction(any())).thenReturn(createResult("evt-1"));
+            processor.process(createEvent("evt-1"));
+
+            assertThatThrownBy(() -> processor.process(createEvent("evt-1")))
+                    .isInstanceOf(DuplicateEventException.class);
+
+            verify(idempotencyService, times(1)).tryAcquireProcessingLock(anyString(), anyString());
+            assertThat(meterRegistry.get("kafka_event_cache_requests_total").tag("result", "hit").counter().count())
+                    .isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not remember an event that failed with a retriable error")
+        void process_doesNotRecordRetriableFailure() {
+            when(idempotencyService.tryAcquireProcessingLock("evt-1", "TRANSACTION_CREATED")).thenReturn(true);
+            when(transactionService.processTransaction(any()))
+                    .thenThrow(new TransactionProcessingException("Failed to process transaction"));
+
+            assertThatThrownBy(() -> processor.process(createEvent("evt-1")))
+                    .isInstanceOf(EventProcessingException.class);
+            assertThatThrownBy(() -> processor.process(createEvent("evt-1")))
+                    .isInstanceOf(EventProcessingException.class);
+
+            verify(idempotencyService, times(2)).tryAcquireProcessingLock("evt-1", "TRANSACTION_CREATED");
+            verify(idempotencyService, times(2)).releaseProcessingLocks(List.of("evt-1"));
+            verify(idempotencyService, never()).markAsFailed(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("Should leave recently completed events of a batch out of the claim")
+        @SuppressWarnings("unchecked")
+        void processBatch_skipsRecentlyCompletedEvents() {
+            when(idempotencyService.tryAcquireProcessingLocks(anyMap())).thenReturn(Set.of("evt-1"), Set.of("evt-2"));
+            when(transactionService.processTransactionBatch(anyList()))
+                    .thenAnswer(invocation -> succeedAll(invocation.getArgument(0)));
+            processor.processBatch(List.of(createEvent("evt-1")));
+
+            List<EventOutcome> outcomes = processor.processBatch(List.of(createEvent("evt-1"), createEvent("evt-2")));
+
+            assertThat(outcomes).extracting(EventOutcome::status)
+                    .containsExactly(EventOutcome.Status.DUPLICATE, EventOutcome.Status.PROCESSED);
+            ArgumentCaptor<Map<String, String>> claimed = ArgumentCaptor.forClass(Map.class);
+            verify(idempotencyService, times(2)).tryAcquireProcessingLocks(claimed.capture());
+            assertThat(claimed.getAllValues().get(1)).containsOnlyKeys("evt-2");
+        }
+    }
+
+    private static List<TransactionBatchItemResult> succeedAll(List<CreateTransactionCommand> commands) {
+        List<TransactionBatchItemResult> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            results.add(TransactionBatchItemResult.success(i, createResult(commands.get(i).transactionId())));
+        }
+        return results;
+    }
+
+    private static KafkaTransactionEvent createEvent(String eventId) {
+        return new KafkaTransactionEvent(eventId, "TRANSACTION_CREATED", "2024-01-01T10:00:00Z",
+                "till-system", "1.0", Map.of("storeId", "STORE-001"));
+    }
+
+    private static CreateTransactionCommand createCommand(String eventId) {
+        return new CreateTransactionCommand("TXN-" + eventId, "CUST-001", "STORE-001", "TILL-1", "card",
+                new BigDecimal("10.00"), "GBP", Instant.parse("2024-01-01T10:00:00Z"), List.of());
+    }
+
+    private static TransactionResult createResult(String transactionId) {
+        String id = transactionId.startsWith("TXN-") ? transactionId : "TXN-" + transactionId;
+        return new TransactionResult(id, "CUST-001", "STORE-001", "TILL-1", "card",
+                new BigDecimal("10.00"), "GBP", Instant.parse("2024-01-01T10:00:00Z"), Instant.now(), "COMPLETED",
+                List.of());
+    }
+}
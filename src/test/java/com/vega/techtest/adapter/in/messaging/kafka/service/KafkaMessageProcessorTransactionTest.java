@@ -0,0 +1,237 @@
+package com.vega.techtest.adapter.in.messaging.kafka.service;
+
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.adapter.in.messaging.kafka.exception.EventProcessingException;
+import com.vega.techtest.adapter.in.messaging.kafka.mapper.KafkaEventMapper;
+import com.vega.techtest.adapter.in.messaging.kafka.validator.KafkaEventValidator;
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.repository.TransactionRepository;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionResult;
+import com.vega.techtest.domain.transaction.service.DuplicateTransactionHandler;
+import com.vega.techtest.domain.transaction.service.RecentTransactionCache;
+import com.vega.techtest.domain.transaction.service.StoreDailyStatsService;
+import com.vega.techtest.domain.transaction.service.TransactionBatchWriter;
+import com.vega.techtest.domain.transaction.service.TransactionService;
+import com.vega.techtest.domain.transaction.validator.TransactionValidator;
+import com.vega.techtest.mapper.TransactionEntityMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the atomic commit mode against a real transaction manager, where an exception thrown through
+ * a participating transaction template or @Transactional proxy marks the whole event transaction
+ * rollback-only. The ledger status updates are written to an H2 table so that the assertions see
+ * what was committed.
+ */
+@ExtendWith(MockitoExtension.class)
+class KafkaMessageProcessorTransactionTest {
+
+    private static final Instant TIMESTAMP = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Mock
+    private KafkaEventValidator eventValidator;
+
+    @Mock
+    private KafkaEventMapper eventMapper;
+
+    @Mock
+    private EventIdempotencyService idempotencyService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionValidator validator;
+
+    @Mock
+    private TransactionEntityMapper mapper;
+
+    @Mock
+    private TransactionBatchWriter batchWriter;
+
+    @Mock
+    private StoreDailyStatsService dailyStats;
+
+    private RecentTransactionCache recentTransactionCache;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private KafkaMessageProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:atomic-commit;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE event_status (event_id VARCHAR(255), status VARCHAR(20))");
+        jdbcTemplate.execute("CREATE TABLE stored_transaction (transaction_id VARCHAR(255))");
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Proxied so that the handler's own @Transactional boundaries apply, as they do in the application
+        ProxyFactory proxyFactory = new ProxyFactory(new DuplicateTransactionHandler(transactionRepository, mapper));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        DuplicateTransactionHandler duplicateTransactionHandler = (DuplicateTransactionHandler) proxyFactory.getProxy();
+
+        recentTransactionCache =
+                new RecentTransactionCache(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(10), 1_000, 0.01);
+        TransactionService transactionService = new TransactionService(transactionRepository, validator, mapper,
+                duplicateTransactionHandler, batchWriter, recentTransactionCache, dailyStats, transactionTemplate);
+        ReflectionTestUtils.setField(transactionService, "upsertEnabled", true);
+
+        processor = new KafkaMessageProcessor(eventValidator, eventMapper, transactionService, idempotencyService,
+                transactionTemplate,
+                new ProcessedEventCache(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(10), 1_000, 0.01));
+        ReflectionTestUtils.setField(processor, "atomicCommit", true);
+        ReflectionTestUtils.setField(processor, "upsertEnabled", true);
+
+        when(idempotencyService.claim("evt-1", "TRANSACTION_CREATED")).thenReturn(true);
+        when(eventMapper.toCommand(any())).thenReturn(createCommand(new BigDecimal("10.00")));
+        // Not reached when the duplicate pre-check answers first
+        lenient().when(mapper.toEntityFromCommand(any())).thenAnswer(invocation -> createEntity(invocation.getArgument(0)));
+        lenient().when(transactionRepository.insertIfAbsent(any())).thenReturn(null);
+    }
+
+    @AfterEach
+    void dropTable() {
+        jdbcTemplate.execute("DROP TABLE event_status");
+        jdbcTemplate.execute("DROP TABLE stored_transaction");
+    }
+
+    @Test
+    @DisplayName("Should commit the FAILED row when the receipt conflicts with the stored one")
+    void process_commitsFailedRowForConflictingDuplicate() {
+        when(transactionRepository.findByStoreIdAndTillIdAndTransactionTimestamp("STORE-001", "TILL-1", TIMESTAMP))
+                .thenReturn(createEntity(createCommand(new BigDecimal("12.00"))));
+        doAnswer(invocation -> jdbcTemplate.update("INSERT INTO event_status VALUES (?, 'FAILED')",
+                invocation.<String>getArgument(0)))
+                .when(idempotencyService).markAsFailed(eq("evt-1"), anyString());
+
+        assertThatThrownBy(() -> processor.process(createEvent()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("totalAmount");
+
+        assertThat(jdbcTemplate.queryForList("SELECT status FROM event_status WHERE event_id = 'evt-1'", String.class))
+                .containsExactly("FAILED");
+    }
+
+    @Test
+    @DisplayName("Should commit the FAILED row when the duplicate pre-check finds a conflicting stored receipt")
+    void process_commitsFailedRowForConflictFoundByPreCheck() {
+        // Puts the key in the Bloom filter without an exact match, so the stored row is read before inserting
+        recentTransactionCache.record(createCommand(new BigDecimal("12.00")), new TransactionResult("TXN-evt-1",
+                "CUST-001", "STORE-001", "TILL-1", "card", new BigDecimal("12.00"), "GBP", TIMESTAMP, TIMESTAMP,
+                "COMPLETED", List.of()));
+        when(transactionRepository.findByStoreIdAndTillIdAndTransactionTimestamp("STORE-001", "TILL-1", TIMESTAMP))
+                .thenReturn(createEntity(createCommand(new BigDecimal("12.00"))));
+        doAnswer(invocation -> jdbcTemplate.update("INSERT INTO event_status VALUES (?, 'FAILED')",
+                invocation.<String>getArgument(0)))
+                .when(idempotencyService).markAsFailed(eq("evt-1"), anyString());
+
+        assertThatThrownBy(() -> processor.process(createEvent()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("totalAmount");
+
+        verify(transactionRepository, never()).insertIfAbsent(any());
+        assertThat(jdbcTemplate.queryForList("SELECT status FROM event_status WHERE event_id = 'evt-1'", String.class))
+                .containsExactly("FAILED");
+    }
+
+    @Test
+    @DisplayName("Should commit the COMPLETED row when the receipt matches the stored one")
+    void process_commitsCompletedRowForExactDuplicate() {
+        TransactionEntity stored = createEntity(createCommand(new BigDecimal("10.00")));
+        when(transactionRepository.findByStoreIdAndTillIdAndTransactionTimestamp("STORE-001", "TILL-1", TIMESTAMP))
+                .thenReturn(stored);
+        when(mapper.toResult(stored)).thenReturn(new TransactionResult("TXN-evt-1", "CUST-001", "STORE-001",
+                "TILL-1", "card", new BigDecimal("10.00"), "GBP", TIMESTAMP, TIMESTAMP, "COMPLETED", List.of()));
+        doAnswer(invocation -> jdbcTemplate.update("INSERT INTO event_status VALUES (?, 'COMPLETED')",
+                invocation.<String>getArgument(0)))
+                .when(idempotencyService).markAsCompleted("evt-1");
+
+        TransactionResult result = processor.process(createEvent());
+
+        assertThat(result.transactionId()).isEqualTo("TXN-evt-1");
+        assertThat(jdbcTemplate.queryForList("SELECT status FROM event_status WHERE event_id = 'evt-1'", String.class))
+                .containsExactly("COMPLETED");
+    }
+
+    @Test
+    @DisplayName("Should insert the receipt again when the event is redelivered after a rolled back commit")
+    void process_insertsRedeliveredEventAfterRollback() {
+        when(transactionRepository.insertIfAbsent(any())).thenAnswer(invocation -> {
+            jdbcTemplate.update("INSERT INTO stored_transaction VALUES (?)",
+                    invocation.<TransactionEntity>getArgument(0).getTransactionId());
+            return 1L;
+        });
+        when(mapper.toResult(any())).thenReturn(new TransactionResult("TXN-evt-1", "CUST-001", "STORE-001",
+                "TILL-1", "card", new BigDecimal("10.00"), "GBP", TIMESTAMP, TIMESTAMP, "COMPLETED", List.of()));
+        doThrow(new DataAccessResourceFailureException("Connection lost"))
+                .doNothing()
+                .when(idempotencyService).markAsCompleted("evt-1");
+
+        assertThatThrownBy(() -> processor.process(createEvent())).isInstanceOf(EventProcessingException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stored_transaction", Integer.class)).isZero();
+
+        TransactionResult result = processor.process(createEvent());
+
+        assertThat(result.transactionId()).isEqualTo("TXN-evt-1");
+        verify(transactionRepository, times(2)).insertIfAbsent(any());
+        assertThat(jdbcTemplate.queryForList("SELECT transaction_id FROM stored_transaction", String.class))
+                .containsExactly("TXN-evt-1");
+    }
+
+    private static KafkaTransactionEvent createEvent() {
+        return new KafkaTransactionEvent("evt-1", "TRANSACTION_CREATED", "2024-01-01T10:00:00Z",
+                "till-system", "1.0", Map.of("storeId", "STORE-001"));
+    }
+
+    private static CreateTransactionCommand createCommand(BigDecimal totalAmount) {
+        return new CreateTransactionCommand("TXN-evt-1", "CUST-001", "STORE-001", "TILL-1", "card",
+                totalAmount, "GBP", TIMESTAMP, List.of());
+    }
+
+    private static TransactionEntity createEntity(CreateTransactionCommand command) {
+        TransactionEntity entity = new TransactionEntity(command.transactionId(), command.customerId(),
+                command.storeId(), command.tillId(), command.paymentMethod(), command.totalAmount(),
+                command.timestamp());
+        entity.setCurrency(command.currency());
+        return entity;
+    }
+}
@@ -0,0 +1,52 @@
+package com.vega.techtest.adapter.in.messaging.kafka.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProcessedEventCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ProcessedEventCache cache = new ProcessedEventCache(
+            meterRegistry, true, 2, Duration.ofMinutes(10), 1_000, 0.01);
+
+    @Test
+    @DisplayName("Should report recorded events as processed and count hits and misses")
+    void isProcessed_answersRecordedEvents() {
+        cache.record("evt-1");
+
+        assertThat(cache.isProcessed("evt-1")).isTrue();
+        assertThat(cache.isProcessed("evt-2")).isFalse();
+        assertThat(meterRegistry.get("kafka_event_cache_requests_total").tag("result", "hit").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("kafka_event_cache_requests_total").tag("result", "miss").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should let the database decide once an event is evicted, even if the Bloom filter still has it")
+    void isProcessed_missesEvictedEvents() {
+        cache.record("evt-1");
+        cache.record("evt-2");
+        cache.record("evt-3");
+
+        assertThat(cache.isProcessed("evt-1")).isFalse();
+        assertThat(cache.isProcessed("evt-3")).isTrue();
+        assertThat(meterRegistry.get("kafka_event_cache_size").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should never answer when disabled")
+    void disabled_neverAnswers() {
+        ProcessedEventCache disabled = new ProcessedEventCache(
+                new SimpleMeterRegistry(), false, 100, Duration.ofMinutes(10), 1_000, 0.01);
+        disabled.record("evt-1");
+
+        assertThat(disabled.isProcessed("evt-1")).isFalse();
+    }
+}
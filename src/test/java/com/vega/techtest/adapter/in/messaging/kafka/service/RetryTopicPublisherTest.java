@@ -0,0 +1,129 @@
+package com.vega.techtest.adapter.in.messaging.kafka.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vega.techtest.adapter.in.messaging.kafka.dto.KafkaTransactionEvent;
+import com.vega.techtest.adapter.in.messaging.kafka.exception.EventProcessingException;
+import com.vega.techtest.adapter.in.messaging.kafka.service.RetryTopicPublisher.RetryState;
+import com.vega.techtest.adapter.in.messaging.kafka.service.RetryTopicPublisher.RetryTier;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RetryTopicPublisherTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private DeadLetterQueuePublisher deadLetterQueuePublisher;
+
+    private RetryTopicPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new RetryTopicPublisher(kafkaTemplate, deadLetterQueuePublisher, new ObjectMapper());
+        ReflectionTestUtils.setField(publisher, "enabled", true);
+        ReflectionTestUtils.setField(publisher, "transactionsTopic", "transactions");
+        ReflectionTestUtils.setField(publisher, "delays", new String[]{"5s", " 1m", "10m"});
+        publisher.init();
+    }
+
+    @Test
+    @DisplayName("Should name one retry topic per configured delay")
+    void init_parsesTiers() {
+        assertThat(publisher.tiers()).containsExactly(
+                new RetryTier("transactions.retry.5s", Duration.ofSeconds(5)),
+                new RetryTier("transactions.retry.1m", Duration.ofMinutes(1)),
+                new RetryTier("transactions.retry.10m", Duration.ofMinutes(10)));
+    }
+
+    @Test
+    @DisplayName("Should send the event to the tier after its last attempt with the original position")
+    @SuppressWarnings("unchecked")
+    void publishForRetry_sendsToNextTier() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        KafkaTransactionEvent event = createEvent();
+        long before = System.currentTimeMillis();
+
+        publisher.publishForRetry(event, new IllegalStateException("Connection refused"), 2, "transactions", 1, 42L);
+
+        ArgumentCaptor<ProducerRecord<String, Object>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        ProducerRecord<String, Object> record = sent.getValue();
+        assertThat(record.topic()).isEqualTo("transactions.retry.1m");
+        assertThat(record.key()).isEqualTo("evt-1");
+        assertThat(record.value()).isEqualTo(event);
+
+        RetryState state = RetryState.of(new ConsumerRecord<>(record.topic(), 0, 7L, 0L, TimestampType.CREATE_TIME, 0, 0,
+                record.key(), record.value(), record.headers(), Optional.empty()));
+        assertThat(state.attempts()).isEqualTo(2);
+        assertThat(state.dueAt()).isBetween(before + 60_000, System.currentTimeMillis() + 60_000);
+        assertThat(state.originalTopic()).isEqualTo("transactions");
+        assertThat(state.originalPartition()).isEqualTo(1);
+        assertThat(state.originalOffset()).isEqualTo(42L);
+        verify(deadLetterQueuePublisher, never()).publishToDeadLetterQueue(any(), any(), any(), anyInt(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should send the event to the DLQ once every tier has been tried")
+    @SuppressWarnings("unchecked")
+    void publishForRetry_sendsToDlqAfterLastTier() {
+        KafkaTransactionEvent event = createEvent();
+        IllegalStateException failure = new IllegalStateException("Connection refused");
+
+        publisher.publishForRetry(event, failure, 4, "transactions", 1, 42L);
+
+        verify(deadLetterQueuePublisher).publishToDeadLetterQueue(event, failure, "transactions", 1, 42L);
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    @DisplayName("Should fail when the retry record cannot be sent, so the original is not acknowledged")
+    @SuppressWarnings("unchecked")
+    void publishForRetry_propagatesSendFailure() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+
+        assertThatThrownBy(() -> publisher.publishForRetry(createEvent(), new IllegalStateException("Connection refused"),
+                1, "transactions", 1, 42L))
+                .isInstanceOf(EventProcessingException.class)
+                .hasMessageContaining("transactions.retry.5s");
+    }
+
+    @Test
+    @DisplayName("Should treat a record without retry headers as the first retry of itself")
+    void retryState_defaultsWithoutHeaders() {
+        RetryState state = RetryState.of(new ConsumerRecord<>("transactions.retry.5s", 2, 9L, "evt-1", createEvent()));
+
+        assertThat(state).isEqualTo(new RetryState(1, 0, "transactions.retry.5s", 2, 9L));
+    }
+
+    private static KafkaTransactionEvent createEvent() {
+        return new KafkaTransactionEvent("evt-1", "TRANSACTION_CREATED", "2024-01-01T10:00:00Z",
+                "till-system", "1.0", Map.of("storeId", "STORE-001", "tillId", "TILL-1"));
+    }
+}
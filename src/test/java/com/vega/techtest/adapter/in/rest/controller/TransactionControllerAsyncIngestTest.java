@@ -0,0 +1,130 @@
+package com.vega.techtest.adapter.in.rest.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vega.techtest.adapter.in.rest.dto.TransactionItemRequest;
+import com.vega.techtest.adapter.in.rest.dto.TransactionRequest;
+import com.vega.techtest.adapter.in.rest.exception.GlobalExceptionHandler;
+import com.vega.techtest.adapter.in.rest.mapper.TransactionRequestMapper;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.exception.TransactionProcessingException;
+import com.vega.techtest.domain.transaction.service.AsyncTransactionIngestService;
+import com.vega.techtest.domain.transaction.service.TransactionExportService;
+import com.vega.techtest.domain.transaction.service.TransactionMetricsService;
+import com.vega.techtest.domain.transaction.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TransactionController.class)
+@Import({
+    TransactionControllerAsyncIngestTest.MeterRegistryTestConfig.class,
+    GlobalExceptionHandler.class
+})
+class TransactionControllerAsyncIngestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private TransactionService transactionService;
+
+    @MockBean
+    private TransactionMetricsService metricsService;
+
+    @MockBean
+    private TransactionRequestMapper transactionRequestMapper;
+
+    @MockBean
+    private AsyncTransactionIngestService asyncIngestService;
+
+    @MockBean
+    private TransactionExportService exportService;
+
+    @TestConfiguration
+    static class MeterRegistryTestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Test
+    @DisplayName("Should return 202 with the assigned transaction ID without touching the database")
+    void submitTransaction_accepted() throws Exception {
+        CreateTransactionCommand command = mock(CreateTransactionCommand.class);
+        CreateTransactionCommand accepted = mock(CreateTransactionCommand.class);
+        when(accepted.transactionId()).thenReturn("TXN-ACCEPTED");
+        when(transactionRequestMapper.toCommand(any(TransactionRequest.class))).thenReturn(command);
+        when(asyncIngestService.accept(command)).thenReturn(accepted);
+
+        mockMvc.perform(post("/api/transactions/submit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createRequest())))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("accepted"))
+                .andExpect(jsonPath("$.message").value("Transaction accepted for processing"))
+                .andExpect(jsonPath("$.transactionId").value("TXN-ACCEPTED"))
+                .andExpect(jsonPath("$.timestamp").exists());
+
+        verify(transactionService, never()).processTransaction(any());
+        verify(metricsService).recordTransactionAccepted(any(TransactionRequest.class), eq("TXN-ACCEPTED"));
+    }
+
+    @Test
+    @DisplayName("Should return 500 when the write-ahead log cannot be written")
+    void submitTransaction_logFailure() throws Exception {
+        when(transactionRequestMapper.toCommand(any(TransactionRequest.class)))
+                .thenReturn(mock(CreateTransactionCommand.class));
+        when(asyncIngestService.accept(any()))
+                .thenThrow(new TransactionProcessingException("Failed to accept transaction"));
+
+        mockMvc.perform(post("/api/transactions/submit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createRequest())))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value("Failed to accept transaction"));
+
+        verify(metricsService, never()).recordTransactionAccepted(any(), any());
+    }
+
+    private TransactionRequest createRequest() {
+        return new TransactionRequest(
+                null,
+                "CUST-001",
+                "STORE-001",
+                "TILL-001",
+                "card",
+                new BigDecimal("2.50"),
+                "GBP",
+                ZonedDateTime.now(),
+                List.of(new TransactionItemRequest("Milk", "MILK-001", new BigDecimal("2.50"), 1, "Dairy"))
+        );
+    }
+}
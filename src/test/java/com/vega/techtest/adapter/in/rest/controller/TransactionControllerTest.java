@@ -1,24 +1,32 @@
 package com.vega.techtest.adapter.in.rest.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vega.techtest.shared.aspect.TimingAspect;
+import com.vega.techtest.adapter.in.rest.dto.TransactionBatchItemResponse;
 import com.vega.techtest.adapter.in.rest.dto.TransactionItemRequest;
 import com.vega.techtest.adapter.in.rest.dto.TransactionItemResponse;
 import com.vega.techtest.adapter.in.rest.dto.TransactionRequest;
 import com.vega.techtest.adapter.in.rest.dto.TransactionResponse;
 import com.vega.techtest.adapter.in.rest.exception.GlobalExceptionHandler;
+import com.vega.techtest.domain.transaction.exception.CapacityExceededException;
 import com.vega.techtest.domain.transaction.exception.ReceiptTotalMismatchException;
 import com.vega.techtest.domain.transaction.exception.StatisticsCalculationException;
 import com.vega.techtest.domain.transaction.exception.TransactionProcessingException;
 import com.vega.techtest.domain.transaction.exception.TransactionRetrievalException;
 import com.vega.techtest.adapter.in.rest.mapper.TransactionRequestMapper;
+import com.vega.techtest.domain.transaction.service.TransactionExportService;
 import com.vega.techtest.domain.transaction.service.TransactionService;
 import com.vega.techtest.domain.transaction.service.TransactionMetricsService;
 import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
+import com.vega.techtest.application.transaction.command.TransactionCursor;
+import com.vega.techtest.application.transaction.command.TransactionPage;
 import com.vega.techtest.application.transaction.command.TransactionResult;
 import com.vega.techtest.domain.transaction.exception.ResourceNotFoundException;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -32,14 +40,18 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -61,18 +73,24 @@ class TransactionControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private TransactionController controller;
+
     @MockBean
     private TransactionService transactionService;
 
     @MockBean
     private TransactionMetricsService metricsService;
 
+    @MockBean
+    private TransactionExportService exportService;
+
     @MockBean
     private TransactionRequestMapper transactionRequestMapper;
 
     @BeforeEach
     void setUp() {
-        Mockito.reset(transactionService, metricsService, transactionRequestMapper);
+        Mockito.reset(transactionService, metricsService, transactionRequestMapper, exportService);
     }
 
     @TestConfiguration
@@ -469,6 +487,236 @@ class TransactionControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("POST /api/transactions/submit-batch")
+    class SubmitTransactionBatchTests {
+
+        @Test
+        @DisplayName("Should return 200 with per-item results and record metrics for new transactions only")
+        void submitTransactionBatch_reportsPerItemResults() throws Exception {
+            List<TransactionRequest> requests = List.of(
+                    createValidTransactionRequest(),
+                    createValidTransactionRequest(),
+                    createValidTransactionRequest()
+            );
+            List<TransactionBatchItemResult> results = List.of(
+                    TransactionBatchItemResult.success(0, createTransactionResult("TXN-001")),
+                    TransactionBatchItemResult.duplicate(1, createTransactionResult("TXN-002")),
+                    TransactionBatchItemResult.failed(2, "Payment method is required")
+            );
+
+            when(transactionRequestMapper.toCommands(any()))
+                    .thenReturn(List.of(
+                            mock(CreateTransactionCommand.class),
+                            mock(CreateTransactionCommand.class),
+                            mock(CreateTransactionCommand.class)));
+            when(transactionService.processTransactionBatch(any())).thenReturn(results);
+            when(transactionRequestMapper.toResponse(any(TransactionResult.class)))
+                    .thenReturn(createTransactionResponse("TXN-001"));
+            when(transactionRequestMapper.toBatchItemResponse(any(TransactionBatchItemResult.class)))
+                    .thenAnswer(invocation -> {
+                        TransactionBatchItemResult result = invocation.getArgument(0);
+                        return new TransactionBatchItemResponse(
+                                result.index(),
+                                result.status().name(),
+                                result.transaction() == null ? null : result.transaction().transactionId(),
+                                result.error());
+                    });
+
+            mockMvc.perform(post("/api/transactions/submit-batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(requests)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("partial"))
+                    .andExpect(jsonPath("$.total").value(3))
+                    .andExpect(jsonPath("$.succeeded").value(1))
+                    .andExpect(jsonPath("$.duplicates").value(1))
+                    .andExpect(jsonPath("$.failed").value(1))
+                    .andExpect(jsonPath("$.results", hasSize(3)))
+                    .andExpect(jsonPath("$.results[0].status").value("SUCCESS"))
+                    .andExpect(jsonPath("$.results[1].transactionId").value("TXN-002"))
+                    .andExpect(jsonPath("$.results[2].error").value("Payment method is required"));
+
+            verify(metricsService, times(1))
+                    .recordTransactionSubmission(any(TransactionRequest.class), any(TransactionResponse.class));
+        }
+
+        @Test
+        @DisplayName("Should return 400 when the batch is rejected")
+        void submitTransactionBatch_rejectedBatch() throws Exception {
+            when(transactionRequestMapper.toCommands(any())).thenReturn(List.of());
+            when(transactionService.processTransactionBatch(any()))
+                    .thenThrow(new IllegalArgumentException("Batch must contain at least one transaction"));
+
+            mockMvc.perform(post("/api/transactions/submit-batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[]"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("Batch must contain at least one transaction"));
+
+            verifyNoInteractions(metricsService);
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /api/transactions/bulk")
+    class SubmitTransactionBulkTests {
+
+        @BeforeEach
+        void setUp() {
+            setBulkBatchSize(2);
+            when(transactionRequestMapper.toCommands(any())).thenAnswer(invocation -> {
+                List<?> requests = invocation.getArgument(0);
+                return requests.stream().map(request -> mock(CreateTransactionCommand.class)).toList();
+            });
+            when(transactionRequestMapper.toResponse(any(TransactionResult.class)))
+                    .thenReturn(createTransactionResponse("TXN-001"));
+            when(transactionRequestMapper.toBatchItemResponse(any(TransactionBatchItemResult.class)))
+                    .thenAnswer(invocation -> {
+                        TransactionBatchItemResult result = invocation.getArgument(0);
+                        return new TransactionBatchItemResponse(
+                                result.index(),
+                                result.status().name(),
+                                result.transaction() == null ? null : result.transaction().transactionId(),
+                                result.error());
+                    });
+        }
+
+        @AfterEach
+        void tearDown() {
+            setBulkBatchSize(500);
+        }
+
+        private void setBulkBatchSize(int batchSize) {
+            TransactionController target = AopTestUtils.getTargetObject(controller);
+            ReflectionTestUtils.setField(target, "bulkBatchSize", batchSize);
+        }
+
+        @Test
+        @DisplayName("Should persist records in bounded batches and stream one result line per record")
+        void submitTransactionBulk_streamsResultsPerRecord() throws Exception {
+            when(transactionService.processTransactionBatch(any())).thenAnswer(invocation -> {
+                List<?> commands = invocation.getArgument(0);
+                List<TransactionBatchItemResult> results = new ArrayList<>();
+                for (int i = 0; i < commands.size(); i++) {
+                    results.add(TransactionBatchItemResult.success(i, createTransactionResult("TXN-" + i)));
+                }
+                return results;
+            });
+
+            List<JsonNode> lines = performBulk(ndjson(
+                    createValidTransactionRequest(),
+                    createValidTransactionRequest(),
+                    createValidTransactionRequest()));
+
+            assertThat(lines).hasSize(4);
+            assertThat(lines.subList(0, 3)).extracting(line -> line.get("index").asInt()).containsExactly(0, 1, 2);
+            assertThat(lines.subList(0, 3)).extracting(line -> line.get("status").asText()).containsOnly("SUCCESS");
+            assertThat(lines.get(3).get("status").asText()).isEqualTo("success");
+            assertThat(lines.get(3).get("succeeded").asInt()).isEqualTo(3);
+
+            verify(transactionService, times(2)).processTransactionBatch(any());
+            verify(metricsService, times(3))
+                    .recordTransactionSubmission(any(TransactionRequest.class), any(TransactionResponse.class));
+        }
+
+        @Test
+        @DisplayName("Should report unreadable records and keep going")
+        void submitTransactionBulk_reportsUnreadableRecords() throws Exception {
+            when(transactionService.processTransactionBatch(any())).thenAnswer(invocation ->
+                    List.of(TransactionBatchItemResult.success(0, createTransactionResult("TXN-VALID"))));
+
+            List<JsonNode> lines = performBulk("\"not an object\"\n"
+                    + "{\"storeId\":\"STORE-001\",\"totalAmount\":\"not a number\"}\n"
+                    + ndjson(createValidTransactionRequest()));
+
+            assertThat(lines).hasSize(4);
+            assertThat(lines.get(0).get("index").asInt()).isEqualTo(0);
+            assertThat(lines.get(0).get("error").asText()).isEqualTo("Each line must be a JSON object");
+            assertThat(lines.get(1).get("index").asInt()).isEqualTo(1);
+            assertThat(lines.get(1).get("error").asText()).startsWith("Invalid transaction:");
+            assertThat(lines.get(2).get("index").asInt()).isEqualTo(2);
+            assertThat(lines.get(2).get("transactionId").asText()).isEqualTo("TXN-VALID");
+            assertThat(lines.get(3).get("status").asText()).isEqualTo("partial");
+            assertThat(lines.get(3).get("failed").asInt()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should stop at malformed JSON after persisting what came before it")
+        void submitTransactionBulk_abortsOnMalformedJson() throws Exception {
+            when(transactionService.processTransactionBatch(any())).thenAnswer(invocation ->
+                    List.of(TransactionBatchItemResult.success(0, createTransactionResult("TXN-VALID"))));
+
+            List<JsonNode> lines = performBulk(ndjson(createValidTransactionRequest()) + "{\"storeId\": \n");
+
+            assertThat(lines).hasSize(2);
+            assertThat(lines.get(0).get("status").asText()).isEqualTo("SUCCESS");
+            assertThat(lines.get(1).get("status").asText()).isEqualTo("aborted");
+            assertThat(lines.get(1).get("message").asText()).startsWith("Malformed JSON at record 1");
+        }
+
+        @Test
+        @DisplayName("Should fail the batch and stop when it cannot be persisted")
+        void submitTransactionBulk_abortsWhenBatchFails() throws Exception {
+            when(transactionService.processTransactionBatch(any()))
+                    .thenThrow(new TransactionProcessingException("Failed to process transaction batch"));
+
+            List<JsonNode> lines = performBulk(ndjson(
+                    createValidTransactionRequest(),
+                    createValidTransactionRequest(),
+                    createValidTransactionRequest()));
+
+            assertThat(lines).hasSize(3);
+            assertThat(lines.get(0).get("error").asText()).isEqualTo("Not processed: Failed to process transaction batch");
+            assertThat(lines.get(1).get("status").asText()).isEqualTo("FAILED");
+            assertThat(lines.get(2).get("status").asText()).isEqualTo("aborted");
+            verify(transactionService, times(1)).processTransactionBatch(any());
+            verifyNoInteractions(metricsService);
+        }
+
+        @Test
+        @DisplayName("Should end with an aborted summary when a batch is rejected for capacity")
+        void submitTransactionBulk_abortsWhenBatchRejectedForCapacity() throws Exception {
+            when(transactionService.processTransactionBatch(any()))
+                    .thenThrow(new CapacityExceededException("Transaction processing is at capacity"));
+
+            List<JsonNode> lines = performBulk(ndjson(
+                    createValidTransactionRequest(),
+                    createValidTransactionRequest(),
+                    createValidTransactionRequest()));
+
+            assertThat(lines).hasSize(3);
+            assertThat(lines.get(0).get("error").asText()).isEqualTo("Not processed: Transaction processing is at capacity");
+            assertThat(lines.get(1).get("status").asText()).isEqualTo("FAILED");
+            assertThat(lines.get(2).get("status").asText()).isEqualTo("aborted");
+            assertThat(lines.get(2).get("failed").asInt()).isEqualTo(2);
+            verify(transactionService, times(1)).processTransactionBatch(any());
+        }
+
+        private String ndjson(TransactionRequest... requests) throws Exception {
+            StringBuilder body = new StringBuilder();
+            for (TransactionRequest request : requests) {
+                body.append(objectMapper.writeValueAsString(request)).append('\n');
+            }
+            return body.toString();
+        }
+
+        private List<JsonNode> performBulk(String body) throws Exception {
+            String content = mockMvc.perform(post("/api/transactions/bulk")
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString();
+
+            List<JsonNode> lines = new ArrayList<>();
+            for (String line : content.split("\n")) {
+                lines.add(objectMapper.readTree(line));
+            }
+            return lines;
+        }
+    }
+
     @Nested
     @DisplayName("GET /api/transactions/{transactionId}")
     class GetTransactionByIdTests {
@@ -535,8 +783,8 @@ class TransactionControllerTest {
                     createTransactionResponse("TXN-002")
             );
 
-            when(transactionService.getTransactionsByStore("STORE-001"))
-                    .thenReturn(results);
+            when(transactionService.getTransactionsByStore("STORE-001", null, null))
+                    .thenReturn(new TransactionPage(results, null));
             when(transactionRequestMapper.toResponseList(any()))
                     .thenReturn(transactions);
 
@@ -548,13 +796,40 @@ class TransactionControllerTest {
                     .andExpect(jsonPath("$.transactions[0].transactionId").value("TXN-001"))
                     .andExpect(jsonPath("$.transactions[1].transactionId").value("TXN-002"));
 
-            verify(transactionService).getTransactionsByStore("STORE-001");
+            verify(transactionService).getTransactionsByStore("STORE-001", null, null);
+        }
+
+        @Test
+        @DisplayName("Should pass the cursor and limit through and return the next cursor")
+        void getTransactionsByStore_nextPage() throws Exception {
+            TransactionCursor cursor = new TransactionCursor(java.time.Instant.parse("2024-01-15T10:00:00Z"), 42L);
+            TransactionCursor next = new TransactionCursor(java.time.Instant.parse("2024-01-14T09:00:00Z"), 17L);
+            when(transactionService.getTransactionsByStore("STORE-001", cursor, 1))
+                    .thenReturn(new TransactionPage(List.of(createTransactionResult("TXN-002")), next));
+            when(transactionRequestMapper.toResponseList(any()))
+                    .thenReturn(List.of(createTransactionResponse("TXN-002")));
+
+            mockMvc.perform(get("/api/transactions/store/STORE-001")
+                            .param("cursor", cursor.encode())
+                            .param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.count").value(1))
+                    .andExpect(jsonPath("$.nextCursor").value(next.encode()));
+        }
+
+        @Test
+        @DisplayName("Should return 400 for a cursor it did not issue")
+        void getTransactionsByStore_invalidCursor() throws Exception {
+            mockMvc.perform(get("/api/transactions/store/STORE-001").param("cursor", "not-a-cursor"))
+                    .andExpect(status().isBadRequest());
+
+            verify(transactionService, never()).getTransactionsByStore(any(), any(), any());
         }
 
         @Test
         @DisplayName("Should return 500 on service exception")
         void getTransactionsByStore_serviceError() throws Exception {
-            when(transactionService.getTransactionsByStore("STORE-001"))
+            when(transactionService.getTransactionsByStore("STORE-001", null, null))
                     .thenThrow(new TransactionRetrievalException("Failed to retrieve transactions"));
 
             mockMvc.perform(get("/api/transactions/store/STORE-001"))
@@ -581,8 +856,8 @@ class TransactionControllerTest {
                     createTransactionResponse("TXN-002")
             );
 
-            when(transactionService.getTransactionsByCustomer("CUST-001"))
-                    .thenReturn(results);
+            when(transactionService.getTransactionsByCustomer("CUST-001", null, null))
+                    .thenReturn(new TransactionPage(results, null));
             when(transactionRequestMapper.toResponseList(any()))
                     .thenReturn(transactions);
 
@@ -592,13 +867,13 @@ class TransactionControllerTest {
                     .andExpect(jsonPath("$.count").value(2))
                     .andExpect(jsonPath("$.transactions", hasSize(2)));
 
-            verify(transactionService).getTransactionsByCustomer("CUST-001");
+            verify(transactionService).getTransactionsByCustomer("CUST-001", null, null);
         }
 
         @Test
         @DisplayName("Should return 500 on service exception")
         void getTransactionsByCustomer_serviceError() throws Exception {
-            when(transactionService.getTransactionsByCustomer("CUST-001"))
+            when(transactionService.getTransactionsByCustomer("CUST-001", null, null))
                     .thenThrow(new TransactionRetrievalException("Failed to retrieve transactions"));
 
             mockMvc.perform(get("/api/transactions/customer/CUST-001"))
@@ -625,8 +900,8 @@ class TransactionControllerTest {
                     createTransactionResponse("TXN-002")
             );
 
-            when(transactionService.getTransactionsByTill("TILL-001"))
-                    .thenReturn(results);
+            when(transactionService.getTransactionsByTill("TILL-001", null, null))
+                    .thenReturn(new TransactionPage(results, null));
             when(transactionRequestMapper.toResponseList(any()))
                     .thenReturn(transactions);
 
@@ -636,13 +911,13 @@ class TransactionControllerTest {
                     .andExpect(jsonPath("$.count").value(2))
                     .andExpect(jsonPath("$.transactions", hasSize(2)));
 
-            verify(transactionService).getTransactionsByTill("TILL-001");
+            verify(transactionService).getTransactionsByTill("TILL-001", null, null);
         }
 
         @Test
         @DisplayName("Should return 500 on service exception")
         void getTransactionsByTill_serviceError() throws Exception {
-            when(transactionService.getTransactionsByTill("TILL-001"))
+            when(transactionService.getTransactionsByTill("TILL-001", null, null))
                     .thenThrow(new TransactionRetrievalException("Failed to retrieve transactions"));
 
             mockMvc.perform(get("/api/transactions/till/TILL-001"))
@@ -653,6 +928,52 @@ class TransactionControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/transactions/export")
+    class ExportTransactionsTests {
+
+        @Test
+        @DisplayName("Should stream the exported transactions as one JSON array")
+        @SuppressWarnings("unchecked")
+        void exportTransactions_streamsArray() throws Exception {
+            when(exportService.export(eq("STORE-001"), any(java.time.Instant.class), any(java.time.Instant.class), any()))
+                    .thenAnswer(invocation -> {
+                        java.util.function.Consumer<TransactionResult> sink = invocation.getArgument(3);
+                        sink.accept(createTransactionResult("TXN-001"));
+                        sink.accept(createTransactionResult("TXN-002"));
+                        return 2L;
+                    });
+            when(transactionRequestMapper.toResponse(any(TransactionResult.class)))
+                    .thenAnswer(invocation -> createTransactionResponse(
+                            invocation.<TransactionResult>getArgument(0).transactionId()));
+
+            org.springframework.test.web.servlet.MvcResult started = mockMvc.perform(get("/api/transactions/export")
+                            .param("storeId", "STORE-001")
+                            .param("startDate", "2024-01-01T00:00:00Z")
+                            .param("endDate", "2024-03-31T23:59:59Z"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[0].transactionId").value("TXN-001"))
+                    .andExpect(jsonPath("$[1].transactionId").value("TXN-002"));
+        }
+
+        @Test
+        @DisplayName("Should return 400 on invalid date format")
+        void exportTransactions_invalidDateFormat() throws Exception {
+            mockMvc.perform(get("/api/transactions/export")
+                            .param("storeId", "STORE-001")
+                            .param("startDate", "invalid-date")
+                            .param("endDate", "2024-03-31T23:59:59Z"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(exportService);
+        }
+    }
+
     @Nested
     @DisplayName("GET /api/transactions/date-range")
     class GetTransactionsByDateRangeTests {
@@ -669,8 +990,9 @@ class TransactionControllerTest {
                     createTransactionResponse("TXN-002")
             );
 
-            when(transactionService.getTransactionsByDateRange(any(java.time.Instant.class), any(java.time.Instant.class)))
-                    .thenReturn(results);
+            when(transactionService.getTransactionsByDateRange(any(java.time.Instant.class), any(java.time.Instant.class),
+                    isNull(), isNull()))
+                    .thenReturn(new TransactionPage(results, null));
             when(transactionRequestMapper.toResponseList(any()))
                     .thenReturn(transactions);
 
@@ -683,7 +1005,8 @@ class TransactionControllerTest {
                     .andExpect(jsonPath("$.count").value(2))
                     .andExpect(jsonPath("$.transactions", hasSize(2)));
 
-            verify(transactionService).getTransactionsByDateRange(any(java.time.Instant.class), any(java.time.Instant.class));
+            verify(transactionService).getTransactionsByDateRange(any(java.time.Instant.class), any(java.time.Instant.class),
+                    isNull(), isNull());
         }
 
         @Test
@@ -698,7 +1021,8 @@ class TransactionControllerTest {
         @Test
         @DisplayName("Should return 500 on service exception")
         void getTransactionsByDateRange_serviceError() throws Exception {
-            when(transactionService.getTransactionsByDateRange(any(java.time.Instant.class), any(java.time.Instant.class)))
+            when(transactionService.getTransactionsByDateRange(any(java.time.Instant.class), any(java.time.Instant.class),
+                    isNull(), isNull()))
                     .thenThrow(new TransactionRetrievalException("Failed to retrieve transactions"));
 
             mockMvc.perform(get("/api/transactions/date-range")
@@ -782,7 +1106,7 @@ class TransactionControllerTest {
                     "calculationNote", "Average calculated as total amount divided by transaction count"
             );
 
-            when(transactionService.getTransactionsForStatistics("STORE-001"))
+            when(transactionService.getTransactionsForStatistics("STORE-001", null, null, false))
                     .thenReturn(statistics);
 
             mockMvc.perform(get("/api/transactions/stats/STORE-001"))
@@ -793,7 +1117,7 @@ class TransactionControllerTest {
                     .andExpect(jsonPath("$.averageAmount").value(150.0))
                     .andExpect(jsonPath("$.calculationNote").exists());
 
-            verify(transactionService).getTransactionsForStatistics("STORE-001");
+            verify(transactionService).getTransactionsForStatistics("STORE-001", null, null, false);
         }
 
         @Test
@@ -807,7 +1131,7 @@ class TransactionControllerTest {
                     "averageAmount", 0.0
             );
 
-            when(transactionService.getTransactionsForStatistics("STORE-999"))
+            when(transactionService.getTransactionsForStatistics("STORE-999", null, null, false))
                     .thenReturn(statistics);
 
             mockMvc.perform(get("/api/transactions/stats/STORE-999"))
@@ -818,13 +1142,51 @@ class TransactionControllerTest {
                     .andExpect(jsonPath("$.totalAmount").value(0.0))
                     .andExpect(jsonPath("$.averageAmount").value(0.0));
 
-            verify(transactionService).getTransactionsForStatistics("STORE-999");
+            verify(transactionService).getTransactionsForStatistics("STORE-999", null, null, false);
+        }
+
+        @Test
+        @DisplayName("Should pass the date window and payment-method breakdown to the service")
+        void getTransactionStats_windowAndBreakdown() throws Exception {
+            java.time.Instant start = java.time.Instant.parse("2024-01-01T00:00:00Z");
+            java.time.Instant end = java.time.Instant.parse("2024-01-31T23:59:59Z");
+            Map<String, Object> statistics = Map.of(
+                    "storeId", "STORE-001",
+                    "totalTransactions", 2,
+                    "totalAmount", 30.0,
+                    "averageAmount", 15.0,
+                    "paymentMethods", Map.of("card", Map.of(
+                            "totalTransactions", 2, "totalAmount", 30.0, "averageAmount", 15.0))
+            );
+
+            when(transactionService.getTransactionsForStatistics("STORE-001", start, end, true))
+                    .thenReturn(statistics);
+
+            mockMvc.perform(get("/api/transactions/stats/STORE-001")
+                            .param("startDate", "2024-01-01T00:00:00Z")
+                            .param("endDate", "2024-01-31T23:59:59Z")
+                            .param("byPaymentMethod", "true"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalTransactions").value(2))
+                    .andExpect(jsonPath("$.paymentMethods.card.totalAmount").value(30.0));
+
+            verify(transactionService).getTransactionsForStatistics("STORE-001", start, end, true);
+        }
+
+        @Test
+        @DisplayName("Should return 400 for an invalid start date")
+        void getTransactionStats_invalidDate() throws Exception {
+            mockMvc.perform(get("/api/transactions/stats/STORE-001")
+                            .param("startDate", "not-a-date"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(transactionService);
         }
 
         @Test
         @DisplayName("Should return 500 on service exception")
         void getTransactionStats_serviceError() throws Exception {
-            when(transactionService.getTransactionsForStatistics("STORE-001"))
+            when(transactionService.getTransactionsForStatistics("STORE-001", null, null, false))
                     .thenThrow(new StatisticsCalculationException("Failed to calculate transaction statistics"));
 
             mockMvc.perform(get("/api/transactions/stats/STORE-001"))
@@ -0,0 +1,48 @@
+package com.vega.techtest.adapter.out.persistence.copy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CopyCsvWriterTest {
+
+    @Test
+    @DisplayName("Should quote every value and leave NULL as an unquoted empty field")
+    void value_quotesValuesAndLeavesNullEmpty() throws IOException {
+        StringWriter out = new StringWriter();
+        CopyCsvWriter csv = new CopyCsvWriter(out);
+
+        csv.value(1).value("STORE-001").value(null).value("").endRow();
+
+        assertThat(out).hasToString("\"1\",\"STORE-001\",,\"\"\n");
+    }
+
+    @Test
+    @DisplayName("Should escape quotes and keep commas and newlines inside the quoted value")
+    void value_escapesSpecialCharacters() throws IOException {
+        StringWriter out = new StringWriter();
+        CopyCsvWriter csv = new CopyCsvWriter(out);
+
+        csv.value("12\" pizza, large\nextra cheese").endRow();
+
+        assertThat(out).hasToString("\"12\"\" pizza, large\nextra cheese\"\n");
+    }
+
+    @Test
+    @DisplayName("Should write amounts without exponents and timestamps in ISO-8601")
+    void value_formatsAmountsAndTimestamps() throws IOException {
+        StringWriter out = new StringWriter();
+        CopyCsvWriter csv = new CopyCsvWriter(out);
+
+        csv.value(new BigDecimal("1E+3")).value(Instant.parse("2024-01-01T10:00:00Z")).endRow();
+        csv.value(new BigDecimal("0.50")).endRow();
+
+        assertThat(out).hasToString("\"1000\",\"2024-01-01T10:00:00Z\"\n\"0.50\"\n");
+    }
+}
@@ -0,0 +1,104 @@
+package com.vega.techtest.adapter.out.persistence.copy;
+
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.model.TransactionItem;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the COPY backfill against a real Postgres with the Liquibase schema.
+ * Skipped when Docker is not available.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(TransactionCopyLoader.class)
+class TransactionCopyLoaderPostgresTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private TransactionCopyLoader copyLoader;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should load transactions and attach items to the generated parent ids")
+    void load_insertsTransactionsWithItems() {
+        TransactionCopyLoader.LoadResult result = copyLoader.load(List.of(
+                createCommand("TXN-11111111-1111-1111-1111-111111111111", "TILL-1", "Milk, \"semi\""),
+                createCommand("TXN-22222222-2222-2222-2222-222222222222", "TILL-2", "Bread")
+        ));
+
+        assertThat(result).isEqualTo(new TransactionCopyLoader.LoadResult(2, 4, 0));
+        assertThat(jdbcTemplate.queryForObject("""
+                SELECT i.product_name FROM transaction_items i
+                JOIN transactions t ON t.id = i.transaction_id
+                WHERE t.transaction_id = 'TXN-11111111-1111-1111-1111-111111111111' AND i.product_code = 'P1'
+                """, String.class)).isEqualTo("Milk, \"semi\"");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(total_price) FROM transaction_items", BigDecimal.class)).isEqualByComparingTo("14.80");
+    }
+
+    @Test
+    @DisplayName("Should skip rows that repeat a (store, till, timestamp) in the chunk or in the table")
+    void load_skipsDuplicates() {
+        copyLoader.load(List.of(createCommand("TXN-33333333-3333-3333-3333-333333333333", "TILL-3", "Milk")));
+
+        TransactionCopyLoader.LoadResult result = copyLoader.load(List.of(
+                createCommand("TXN-44444444-4444-4444-4444-444444444444", "TILL-3", "Milk"),
+                createCommand("TXN-55555555-5555-5555-5555-555555555555", "TILL-4", "Milk"),
+                createCommand("TXN-66666666-6666-6666-6666-666666666666", "TILL-4", "Milk")
+        ));
+
+        assertThat(result).isEqualTo(new TransactionCopyLoader.LoadResult(1, 2, 2));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT transaction_id FROM transactions WHERE till_id = 'TILL-4'", String.class))
+                .isEqualTo("TXN-55555555-5555-5555-5555-555555555555");
+    }
+
+    private CreateTransactionCommand createCommand(String transactionId, String tillId, String firstProduct) {
+        return new CreateTransactionCommand(
+                transactionId,
+                "CUST-1",
+                "STORE-1",
+                tillId,
+                "card",
+                new BigDecimal("7.40"),
+                "GBP",
+                Instant.parse("2024-03-01T10:00:00Z"),
+                List.of(
+                        new TransactionItem(firstProduct, "P1", new BigDecimal("2.50"), 2, "Dairy"),
+                        new TransactionItem("Bread", "P2", new BigDecimal("1.20"), 2, "Bakery")
+                )
+        );
+    }
+}
@@ -0,0 +1,118 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import com.vega.techtest.adapter.out.persistence.entity.StoreDailyStatsEntity;
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the native store_daily_stats upsert and day rebuild against a real Postgres with the
+ * Liquibase schema.
+ * Skipped when Docker is not available.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class StoreDailyStatsPostgresTest {
+
+    private static final String STORE = "STORE-ROLLUP";
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private StoreDailyStatsRepository repository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should create a day's row on the first insert and add later inserts to it")
+    void add_mergesIntoDayRow() {
+        repository.add(List.of(
+                createTransaction("TILL-1", "2024-03-01T09:00:00Z", "10.00"),
+                createTransaction("TILL-2", "2024-03-01T23:59:59Z", "2.50")));
+        repository.add(List.of(createTransaction("TILL-1", "2024-03-01T12:00:00Z", "20.00")));
+
+        StoreDailyStatsEntity row = findRow(DAY);
+        assertThat(row.getTransactionCount()).isEqualTo(3);
+        assertThat(row.getTotalAmount()).isEqualByComparingTo("32.50");
+        assertThat(row.getMinAmount()).isEqualByComparingTo("2.50");
+        assertThat(row.getMaxAmount()).isEqualByComparingTo("20.00");
+    }
+
+    @Test
+    @DisplayName("Should put each transaction on its UTC day")
+    void add_splitsByUtcDay() {
+        repository.add(List.of(
+                createTransaction("TILL-1", "2024-03-01T23:30:00Z", "1.00"),
+                createTransaction("TILL-1", "2024-03-02T00:30:00Z", "2.00")));
+
+        assertThat(findRow(DAY).getTransactionCount()).isEqualTo(1);
+        assertThat(findRow(DAY.plusDays(1)).getTransactionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should rebuild a day from transactions, repairing drifted and missing rows")
+    void rebuildDay_recomputesFromTransactions() {
+        transactionRepository.saveAllAndFlush(List.of(
+                createTransaction("TILL-1", "2024-03-01T09:00:00Z", "10.00"),
+                createTransaction("TILL-2", "2024-03-01T10:00:00Z", "5.00"),
+                createTransaction("TILL-1", "2024-03-02T09:00:00Z", "99.00")));
+        repository.add(List.of(createTransaction("TILL-3", "2024-03-01T11:00:00Z", "1000.00")));
+
+        repository.rebuildDay(DAY);
+
+        StoreDailyStatsEntity row = findRow(DAY);
+        assertThat(row.getTransactionCount()).isEqualTo(2);
+        assertThat(row.getTotalAmount()).isEqualByComparingTo("15.00");
+        assertThat(row.getMinAmount()).isEqualByComparingTo("5.00");
+        assertThat(row.getMaxAmount()).isEqualByComparingTo("10.00");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM store_daily_stats WHERE store_id = ? AND business_date = ?",
+                Integer.class, STORE, DAY.plusDays(1))).isZero();
+    }
+
+    private StoreDailyStatsEntity findRow(LocalDate day) {
+        return repository.findById(new StoreDailyStatsEntity.Key(STORE, day, "card", "GBP")).orElseThrow();
+    }
+
+    private static TransactionEntity createTransaction(String tillId, String timestamp, String amount) {
+        TransactionEntity transaction = new TransactionEntity(null, "CUST-1", STORE, tillId, "card",
+                new BigDecimal(amount), Instant.parse(timestamp));
+        transaction.setTransactionId("TXN-" + UUID.randomUUID().toString().toUpperCase());
+        transaction.setCurrency("GBP");
+        return transaction;
+    }
+}
@@ -0,0 +1,81 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import com.vega.techtest.adapter.out.persistence.entity.StoreDailyStatsEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class StoreDailyStatsRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 10);
+
+    @Autowired
+    private StoreDailyStatsRepository repository;
+
+    @Test
+    @DisplayName("Should add up a store's days, overall and by payment method")
+    void sumByStoreId_addsUpDays() {
+        repository.saveAll(List.of(
+                createRow("STORE1", DAY, "card", 3, "30.00"),
+                createRow("STORE1", DAY.plusDays(1), "card", 2, "25.50"),
+                createRow("STORE1", DAY, "cash", 1, "4.50"),
+                createRow("STORE2", DAY, "card", 9, "90.00")));
+
+        List<TransactionTotals> totals = repository.sumByStoreIdGroupByCurrency("STORE1");
+        List<TransactionTotals> byPaymentMethod = repository.sumByStoreIdGroupByPaymentMethodAndCurrency("STORE1");
+
+        assertThat(totals).hasSize(1);
+        assertThat(totals.get(0).transactionCount()).isEqualTo(6);
+        assertThat(totals.get(0).totalAmount()).isEqualByComparingTo("60.00");
+        assertThat(totals.get(0).currency()).isEqualTo("GBP");
+        assertThat(byPaymentMethod).extracting(TransactionTotals::paymentMethod).containsExactly("card", "cash");
+        assertThat(byPaymentMethod.get(0).transactionCount()).isEqualTo(5);
+        assertThat(byPaymentMethod.get(0).totalAmount()).isEqualByComparingTo("55.50");
+        assertThat(byPaymentMethod.get(1).transactionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep each currency's days apart")
+    void sumByStoreId_perCurrency() {
+        repository.saveAll(List.of(
+                createRow("STORE1", DAY, "card", "GBP", 3, "30.00"),
+                createRow("STORE1", DAY, "card", "EUR", 2, "12.00")));
+
+        List<TransactionTotals> totals = repository.sumByStoreIdGroupByCurrency("STORE1");
+        List<TransactionTotals> byPaymentMethod = repository.sumByStoreIdGroupByPaymentMethodAndCurrency("STORE1");
+
+        assertThat(totals).extracting(TransactionTotals::currency).containsExactly("EUR", "GBP");
+        assertThat(totals.get(0).totalAmount()).isEqualByComparingTo("12.00");
+        assertThat(totals.get(1).totalAmount()).isEqualByComparingTo("30.00");
+        assertThat(byPaymentMethod).extracting(TransactionTotals::currency).containsExactly("EUR", "GBP");
+    }
+
+    @Test
+    @DisplayName("Should return no totals for a store without rows")
+    void sumByStoreId_empty() {
+        assertThat(repository.sumByStoreIdGroupByCurrency("STORE-NONE")).isEmpty();
+        assertThat(repository.sumByStoreIdGroupByPaymentMethodAndCurrency("STORE-NONE")).isEmpty();
+    }
+
+    private static StoreDailyStatsEntity createRow(String storeId, LocalDate day, String paymentMethod,
+                                                   long count, String total) {
+        return createRow(storeId, day, paymentMethod, "GBP", count, total);
+    }
+
+    private static StoreDailyStatsEntity createRow(String storeId, LocalDate day, String paymentMethod,
+                                                   String currency, long count, String total) {
+        return new StoreDailyStatsEntity(storeId, day, paymentMethod, currency, count, new BigDecimal(total),
+                BigDecimal.ONE, new BigDecimal("10.00"), Instant.now());
+    }
+}
@@ -0,0 +1,89 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.entity.TransactionItemEntity;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Counts the JDBC statements Hibernate prepares to persist a receipt. With IDENTITY ids
+ * an 8-item receipt costs nine INSERT round-trips. Pooled sequences plus
+ * hibernate.jdbc.batch_size bring it down to one INSERT per table.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class TransactionInsertBatchingTest {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        // The first pooled block only covers the initial value, so warm up with two receipts
+        // to make both sequences hand out a full block of ids before counting statements
+        transactionRepository.saveAllAndFlush(List.of(
+                createReceipt("TXN-WARMUP-1", Instant.parse("2024-01-01T09:00:00Z"), 1),
+                createReceipt("TXN-WARMUP-2", Instant.parse("2024-01-01T09:00:01Z"), 1)
+        ));
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Should insert an 8-item receipt with two statements")
+    void saveReceipt_usesOneStatementPerTable() {
+        transactionRepository.saveAndFlush(createReceipt("TXN-BATCH-1", Instant.parse("2024-01-01T10:00:00Z"), 8));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(9);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should keep the statement count flat when several receipts are saved together")
+    void saveReceipts_batchesAcrossReceipts() {
+        List<TransactionEntity> receipts = List.of(
+                createReceipt("TXN-BATCH-2", Instant.parse("2024-01-01T10:00:00Z"), 3),
+                createReceipt("TXN-BATCH-3", Instant.parse("2024-01-01T10:00:01Z"), 3),
+                createReceipt("TXN-BATCH-4", Instant.parse("2024-01-01T10:00:02Z"), 3)
+        );
+
+        transactionRepository.saveAllAndFlush(receipts);
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(12);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private TransactionEntity createReceipt(String transactionId, Instant timestamp, int itemCount) {
+        TransactionEntity transaction = new TransactionEntity(
+                transactionId, "CUST-1", "STORE-1", "TILL-1", "card",
+                new BigDecimal("1.00").multiply(BigDecimal.valueOf(itemCount)), timestamp);
+
+        List<TransactionItemEntity> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new TransactionItemEntity(
+                    transaction, "Product " + i, "CODE-" + i, new BigDecimal("1.00"), 1, "Grocery"));
+        }
+        transaction.setItems(items);
+        return transaction;
+    }
+}
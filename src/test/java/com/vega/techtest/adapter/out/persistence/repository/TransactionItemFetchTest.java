@@ -0,0 +1,74 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.entity.TransactionItemEntity;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the statements needed to list transactions with their items.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class TransactionItemFetchTest {
+
+    private static final Instant TIMESTAMP = Instant.parse("2024-01-10T12:00:00Z");
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 25; i++) {
+            TransactionEntity transaction = new TransactionEntity("TXN-" + i, "CUST-1", "STORE-1", "TILL-1",
+                    "card", new BigDecimal("3.00"), TIMESTAMP.plusSeconds(i));
+            transaction.setItems(List.of(
+                    new TransactionItemEntity(transaction, "Milk", "MILK001", new BigDecimal("1.00"), 1, "Dairy"),
+                    new TransactionItemEntity(transaction, "Bread", "BREAD001", new BigDecimal("2.00"), 1, "Bakery")));
+            entityManager.persist(transaction);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @ParameterizedTest(name = "page of {0}")
+    @ValueSource(ints = {1, 5, 25})
+    @DisplayName("Should load a page of transactions and all their items with two statements")
+    void pageWithItems_usesConstantStatements(int pageSize) {
+        List<TransactionEntity> page = transactionRepository
+                .findByStoreIdOrderByTransactionTimestampDescIdDesc("STORE-1", PageRequest.of(0, pageSize));
+
+        int items = page.stream().mapToInt(transaction -> transaction.getItems().size()).sum();
+
+        assertThat(page).hasSize(pageSize);
+        assertThat(items).isEqualTo(2 * pageSize);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
@@ -1,8 +1,10 @@
 package com.vega.techtest.adapter.out.persistence.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.domain.transaction.model.TransactionKey;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 @DataJpaTest
@@ -101,4 +104,107 @@ class TransactionRepositoryTest {
         // If this fails, you know your JPQL 'BETWEEN' logic needs adjustment
         assertThat(results).hasSize(2);
     }
+
+    @Test
+    @DisplayName("Should page a store's transactions by timestamp and id without skipping ties")
+    void testKeysetPaginationByStore() {
+        Instant time = Instant.parse("2024-01-10T12:00:00Z");
+        TransactionEntity newest = new TransactionEntity(
+                "TXN5", "CUST1", "STORE1", "TILL1", "card", new BigDecimal("1.00"), time.plusSeconds(60));
+        TransactionEntity tiedFirst = new TransactionEntity(
+                "TXN6", "CUST1", "STORE1", "TILL1", "card", new BigDecimal("2.00"), time);
+        TransactionEntity tiedSecond = new TransactionEntity(
+                "TXN7", "CUST1", "STORE1", "TILL2", "card", new BigDecimal("3.00"), time);
+        TransactionEntity otherStore = new TransactionEntity(
+                "TXN8", "CUST1", "STORE2", "TILL1", "card", new BigDecimal("4.00"), time);
+        transactionRepository.saveAll(List.of(newest, tiedFirst, tiedSecond, otherStore));
+
+        List<TransactionEntity> firstPage = transactionRepository
+                .findByStoreIdOrderByTransactionTimestampDescIdDesc("STORE1", PageRequest.of(0, 2));
+        TransactionEntity last = firstPage.get(1);
+        List<TransactionEntity> secondPage = transactionRepository.findPageByStoreIdAfter(
+                "STORE1", last.getTransactionTimestamp(), last.getId(), PageRequest.of(0, 2));
+
+        assertThat(firstPage).extracting(TransactionEntity::getTransactionId).containsExactly("TXN5", "TXN7");
+        assertThat(secondPage).extracting(TransactionEntity::getTransactionId).containsExactly("TXN6");
+    }
+
+    @Test
+    @DisplayName("Should count and sum a store's transactions within a window, overall and by payment method")
+    void testSumByStoreId() {
+        Instant time = Instant.parse("2024-01-10T12:00:00Z");
+        transactionRepository.saveAll(List.of(
+                new TransactionEntity("TXN9", "CUST1", "STORE1", "TILL1", "card", new BigDecimal("10.00"), time),
+                new TransactionEntity("TXN10", "CUST1", "STORE1", "TILL1", "card", new BigDecimal("20.50"), time),
+                new TransactionEntity("TXN11", "CUST1", "STORE1", "TILL1", "cash", new BigDecimal("5.25"), time),
+                new TransactionEntity("TXN12", "CUST1", "STORE1", "TILL1", "cash", new BigDecimal("100.00"),
+                        time.minusSeconds(7 * 24 * 60 * 60)),
+                new TransactionEntity("TXN13", "CUST1", "STORE2", "TILL1", "card", new BigDecimal("99.00"), time)));
+        Instant start = time.minusSeconds(60);
+        Instant end = time.plusSeconds(60);
+
+        List<TransactionTotals> totals = transactionRepository.sumByStoreIdGroupByCurrency("STORE1", start, end);
+        List<TransactionTotals> byPaymentMethod =
+                transactionRepository.sumByStoreIdGroupByPaymentMethodAndCurrency("STORE1", start, end);
+
+        assertThat(totals).hasSize(1);
+        assertThat(totals.get(0).transactionCount()).isEqualTo(3);
+        assertThat(totals.get(0).totalAmount()).isEqualByComparingTo("35.75");
+        assertThat(totals.get(0).currency()).isEqualTo("GBP");
+        assertThat(byPaymentMethod).extracting(TransactionTotals::paymentMethod).containsExactly("card", "cash");
+        assertThat(byPaymentMethod.get(0).transactionCount()).isEqualTo(2);
+        assertThat(byPaymentMethod.get(0).totalAmount()).isEqualByComparingTo("30.50");
+        assertThat(byPaymentMethod.get(1).transactionCount()).isEqualTo(1);
+        assertThat(byPaymentMethod.get(1).totalAmount()).isEqualByComparingTo("5.25");
+    }
+
+    @Test
+    @DisplayName("Should sum each currency separately")
+    void testSumByStoreIdPerCurrency() {
+        Instant time = Instant.parse("2024-01-10T12:00:00Z");
+        TransactionEntity euros =
+                new TransactionEntity("TXN14", "CUST1", "STORE1", "TILL1", "card", new BigDecimal("7.00"), time);
+        euros.setCurrency("EUR");
+        transactionRepository.saveAll(List.of(
+                new TransactionEntity("TXN15", "CUST1", "STORE1", "TILL1", "card", new BigDecimal("10.00"), time),
+                euros));
+        Instant start = time.minusSeconds(60);
+        Instant end = time.plusSeconds(60);
+
+        List<TransactionTotals> totals = transactionRepository.sumByStoreIdGroupByCurrency("STORE1", start, end);
+        List<TransactionTotals> byPaymentMethod =
+                transactionRepository.sumByStoreIdGroupByPaymentMethodAndCurrency("STORE1", start, end);
+
+        assertThat(totals).extracting(TransactionTotals::currency).containsExactly("EUR", "GBP");
+        assertThat(totals.get(0).totalAmount()).isEqualByComparingTo("7.00");
+        assertThat(totals.get(1).totalAmount()).isEqualByComparingTo("10.00");
+        assertThat(byPaymentMethod).extracting(TransactionTotals::paymentMethod, TransactionTotals::currency)
+                .containsExactly(tuple("card", "EUR"), tuple("card", "GBP"));
+    }
+
+    @Test
+    @DisplayName("Should return no totals when the store has no transactions")
+    void testSumByStoreIdEmpty() {
+        List<TransactionTotals> totals = transactionRepository.sumByStoreIdGroupByCurrency(
+                "STORE-NONE", Instant.EPOCH, Instant.parse("9999-12-31T23:59:59Z"));
+
+        assertThat(totals).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should find transactions by their exact store, till and timestamp keys")
+    void testFindAllByKeys() {
+        Instant timestamp = Instant.parse("2024-01-10T12:00:00Z");
+        transactionRepository.saveAllAndFlush(List.of(
+                new TransactionEntity("TXN1", "C1", "STORE1", "TILL1", "card", new BigDecimal("10.00"), timestamp),
+                new TransactionEntity("TXN2", "C2", "STORE1", "TILL2", "card", new BigDecimal("20.00"), timestamp),
+                new TransactionEntity("TXN3", "C3", "STORE2", "TILL1", "card", new BigDecimal("30.00"), timestamp)));
+
+        List<TransactionEntity> results = transactionRepository.findAllByKeys(List.of(
+                new TransactionKey("STORE1", "TILL1", timestamp),
+                new TransactionKey("STORE2", "TILL1", timestamp),
+                new TransactionKey("STORE2", "TILL2", timestamp)));
+
+        assertThat(results).extracting(TransactionEntity::getTransactionId).containsExactlyInAnyOrder("TXN1", "TXN3");
+    }
 }
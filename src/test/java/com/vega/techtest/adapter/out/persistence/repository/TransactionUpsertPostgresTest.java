@@ -0,0 +1,116 @@
+package com.vega.techtest.adapter.out.persistence.repository;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.entity.TransactionItemEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the native ON CONFLICT upsert against a real Postgres with the Liquibase schema.
+ * Skipped when Docker is not available.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class TransactionUpsertPostgresTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should insert a new transaction with its items and return the generated id")
+    void insertIfAbsent_insertsNewTransaction() {
+        Long id = transactionRepository.insertIfAbsent(
+                createTransaction("TXN-11111111-1111-1111-1111-111111111111", Instant.parse("2024-03-01T10:00:00Z")));
+
+        assertThat(id).isNotNull();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transaction_items WHERE transaction_id = ?", Integer.class, id))
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should skip a transaction whose (store, till, timestamp) already exists")
+    void insertIfAbsent_skipsDuplicateKey() {
+        Instant timestamp = Instant.parse("2024-03-01T11:00:00Z");
+        transactionRepository.insertIfAbsent(createTransaction("TXN-22222222-2222-2222-2222-222222222222", timestamp));
+
+        Long id = transactionRepository.insertIfAbsent(
+                createTransaction("TXN-33333333-3333-3333-3333-333333333333", timestamp));
+
+        assertThat(id).isNull();
+        assertThat(transactionRepository.findByStoreIdAndTillIdAndTransactionTimestamp("STORE-1", "TILL-1", timestamp)
+                .getTransactionId()).isEqualTo("TXN-22222222-2222-2222-2222-222222222222");
+    }
+
+    @Test
+    @DisplayName("Should skip a transaction whose transaction ID is already taken under another key")
+    void insertIfAbsent_skipsTakenTransactionId() {
+        transactionRepository.insertIfAbsent(
+                createTransaction("TXN-44444444-4444-4444-4444-444444444444", Instant.parse("2024-03-01T12:00:00Z")));
+
+        Long id = transactionRepository.insertIfAbsent(
+                createTransaction("TXN-44444444-4444-4444-4444-444444444444", Instant.parse("2024-03-01T12:05:00Z")));
+
+        assertThat(id).isNull();
+    }
+
+    @Test
+    @DisplayName("Should insert a list of transactions in one statement and skip those already stored")
+    void insertAllIfAbsent_insertsNewAndSkipsExisting() {
+        Instant taken = Instant.parse("2024-03-01T13:00:00Z");
+        transactionRepository.insertIfAbsent(createTransaction("TXN-55555555-5555-5555-5555-555555555555", taken));
+
+        Map<String, Long> ids = transactionRepository.insertAllIfAbsent(List.of(
+                createTransaction("TXN-66666666-6666-6666-6666-666666666666", taken),
+                createTransaction("TXN-77777777-7777-7777-7777-777777777777", Instant.parse("2024-03-01T13:05:00Z"))));
+
+        assertThat(ids).containsOnlyKeys("TXN-77777777-7777-7777-7777-777777777777");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transaction_items WHERE transaction_id = ?", Integer.class,
+                ids.get("TXN-77777777-7777-7777-7777-777777777777")))
+                .isEqualTo(2);
+    }
+
+    private TransactionEntity createTransaction(String transactionId, Instant timestamp) {
+        TransactionEntity transaction = new TransactionEntity(
+                transactionId, "CUST-1", "STORE-1", "TILL-1", "card", new BigDecimal("3.70"), timestamp);
+        transaction.setItems(List.of(
+                new TransactionItemEntity(transaction, "Milk", "MILK001", new BigDecimal("2.50"), 1, "Dairy"),
+                new TransactionItemEntity(transaction, "Bread", "BREAD001", new BigDecimal("1.20"), 1, "Bakery")
+        ));
+        return transaction;
+    }
+}
@@ -0,0 +1,129 @@
+package com.vega.techtest.adapter.out.wal;
+
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.model.TransactionItem;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should read appended commands back with all fields intact")
+    void appendAndRead_roundTripsCommands() throws IOException {
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, 1024 * 1024)) {
+            CreateTransactionCommand command = createCommand("TILL-1");
+            log.append(command);
+
+            TransactionWriteAheadLog.Batch batch = log.read(10);
+
+            assertThat(batch.commands()).hasSize(1);
+            CreateTransactionCommand read = batch.commands().get(0);
+            assertThat(read.transactionId()).isEqualTo(command.transactionId());
+            assertThat(read.timestamp()).isEqualTo(command.timestamp());
+            assertThat(read.totalAmount()).isEqualByComparingTo(command.totalAmount());
+            assertThat(read.items()).isEqualTo(command.items());
+            assertThat(log.backlogBytes()).isEqualTo(batch.endPosition());
+        }
+    }
+
+    @Test
+    @DisplayName("Should replay entries after the checkpoint when reopened")
+    void reopen_replaysFromCheckpoint() throws IOException {
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, 1024 * 1024)) {
+            log.append(createCommand("TILL-1"));
+            log.append(createCommand("TILL-2"));
+            log.append(createCommand("TILL-3"));
+
+            TransactionWriteAheadLog.Batch first = log.read(1);
+            log.checkpoint(first.endPosition());
+        }
+
+        try (TransactionWriteAheadLog reopened = new TransactionWriteAheadLog(directory, 1024 * 1024)) {
+            TransactionWriteAheadLog.Batch batch = reopened.read(10);
+
+            assertThat(batch.commands()).extracting(CreateTransactionCommand::tillId)
+                    .containsExactly("TILL-2", "TILL-3");
+        }
+    }
+
+    @Test
+    @DisplayName("Should discard a torn trailing entry left by a crash mid-write")
+    void reopen_discardsIncompleteTail() throws IOException {
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, 1024 * 1024)) {
+            log.append(createCommand("TILL-1"));
+        }
+        Files.write(directory.resolve(TransactionWriteAheadLog.LOG_FILE),
+                "{\"storeId\":\"STORE-1\",\"ti".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (TransactionWriteAheadLog reopened = new TransactionWriteAheadLog(directory, 1024 * 1024)) {
+            reopened.append(createCommand("TILL-2"));
+
+            assertThat(reopened.read(10).commands()).extracting(CreateTransactionCommand::tillId)
+                    .containsExactly("TILL-1", "TILL-2");
+        }
+    }
+
+    @Test
+    @DisplayName("Should truncate the log once the reader has caught up past the threshold")
+    void checkpoint_compactsDrainedLog() throws IOException {
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, 1)) {
+            log.append(createCommand("TILL-1"));
+            log.checkpoint(log.read(10).endPosition());
+
+            assertThat(Files.size(directory.resolve(TransactionWriteAheadLog.LOG_FILE))).isZero();
+            assertThat(log.backlogBytes()).isZero();
+
+            log.append(createCommand("TILL-2"));
+            assertThat(log.read(10).commands()).extracting(CreateTransactionCommand::tillId)
+                    .containsExactly("TILL-2");
+        }
+    }
+
+    @Test
+    @DisplayName("Should move unreadable entries to the rejected file and skip past them")
+    void read_skipsUnreadableEntries() throws IOException {
+        Files.writeString(directory.resolve(TransactionWriteAheadLog.LOG_FILE), "not json\n");
+
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, 1024 * 1024)) {
+            log.append(createCommand("TILL-1"));
+
+            TransactionWriteAheadLog.Batch batch = log.read(10);
+
+            assertThat(batch.commands()).extracting(CreateTransactionCommand::tillId).containsExactly("TILL-1");
+            assertThat(Files.readString(directory.resolve(TransactionWriteAheadLog.REJECTED_FILE)))
+                    .contains("not json");
+        }
+    }
+
+    private CreateTransactionCommand createCommand(String tillId) {
+        return new CreateTransactionCommand(
+                "TXN-123E4567-E89B-12D3-A456-426614174000",
+                "CUST-1",
+                "STORE-1",
+                tillId,
+                "card",
+                new BigDecimal("3.70"),
+                "GBP",
+                Instant.parse("2024-01-01T10:15:30.123Z"),
+                List.of(
+                        new TransactionItem("Milk", "MILK001", new BigDecimal("2.50"), 1, "Dairy"),
+                        new TransactionItem("Bread", "BREAD001", new BigDecimal("1.20"), 1, "Bakery")
+                )
+        );
+    }
+}
@@ -0,0 +1,83 @@
+package com.vega.techtest.domain.transaction.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @ParameterizedTest(name = "{0} should be {1} minor units")
+    @CsvSource({
+            "12.34, 1234",
+            "12.3, 1230",
+            "12, 1200",
+            "12.3400, 1234",
+            "0.00, 0",
+            "-5.01, -501"
+    })
+    @DisplayName("Should convert amounts at any scale to minor units")
+    void minorUnitsOf_anyScale(String amount, long expected) {
+        assertThat(Money.minorUnitsOf(new BigDecimal(amount))).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Should reject amounts finer than a minor unit")
+    void minorUnitsOf_subMinorUnit() {
+        assertThatThrownBy(() -> Money.minorUnitsOf(new BigDecimal("0.125")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject amounts that do not fit in a long")
+    void minorUnitsOf_overflow() {
+        assertThatThrownBy(() -> Money.minorUnitsOf(new BigDecimal("92233720368547758.08")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    @DisplayName("Should round-trip to BigDecimal at scale 2")
+    void toBigDecimal_roundTrip() {
+        Money money = Money.of(new BigDecimal("7.5"), "GBP");
+
+        assertThat(money.minorUnits()).isEqualTo(750);
+        assertThat(money.toBigDecimal()).isEqualTo(new BigDecimal("7.50"));
+        assertThat(money).hasToString("7.50 GBP");
+    }
+
+    @Test
+    @DisplayName("Should add and multiply exactly")
+    void plusAndTimes() {
+        Money price = Money.of(new BigDecimal("2.49"), "GBP");
+
+        Money total = price.times(3).plus(Money.of(new BigDecimal("5.00"), "GBP"));
+
+        assertThat(total).isEqualTo(Money.ofMinorUnits(1247, "GBP"));
+        assertThat(total.compareTo(Money.zero("GBP"))).isPositive();
+        assertThat(total.isNegative()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should throw on overflow instead of wrapping")
+    void times_overflow() {
+        Money large = Money.ofMinorUnits(Long.MAX_VALUE / 2 + 1, "GBP");
+
+        assertThatThrownBy(() -> large.times(2)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    @DisplayName("Should not combine different currencies")
+    void plus_differentCurrencies() {
+        Money pounds = Money.zero("GBP");
+        Money euros = Money.zero("EUR");
+
+        assertThatThrownBy(() -> pounds.plus(euros))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot combine amounts in GBP and EUR");
+    }
+}
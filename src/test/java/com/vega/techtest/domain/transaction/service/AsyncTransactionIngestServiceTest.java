@@ -0,0 +1,215 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.repository.TransactionRepository;
+import com.vega.techtest.adapter.out.wal.TransactionWriteAheadLog;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
+import com.vega.techtest.domain.transaction.exception.TransactionProcessingException;
+import com.vega.techtest.domain.transaction.validator.TransactionValidator;
+import com.vega.techtest.mapper.TransactionEntityMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransactionIngestServiceTest {
+
+    @Mock
+    private TransactionWriteAheadLog writeAheadLog;
+
+    @Mock
+    private TransactionValidator validator;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionEntityMapper mapper;
+
+    private AsyncTransactionIngestService ingestService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ingestService = new AsyncTransactionIngestService(writeAheadLog, validator, transactionService, meterRegistry);
+        ReflectionTestUtils.setField(ingestService, "batchSize", 100);
+        ReflectionTestUtils.setField(ingestService, "maxBatchSize", 1000);
+        ReflectionTestUtils.setField(ingestService, "rejectedCounter", Counter.builder("rejected").register(meterRegistry));
+    }
+
+    @Test
+    @DisplayName("Should fail to start when the batch size exceeds the batch endpoint's maximum")
+    void start_rejectsBatchSizeAboveMaximum() {
+        ReflectionTestUtils.setField(ingestService, "batchSize", 1001);
+
+        assertThatThrownBy(() -> ingestService.start())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("transaction.ingest.batch-size");
+    }
+
+    @Nested
+    @DisplayName("accept")
+    class AcceptTests {
+
+        @Test
+        @DisplayName("Should assign a transaction ID and append the command to the log")
+        void accept_assignsIdAndAppends() {
+            CreateTransactionCommand command = createCommand(null, "TILL-1");
+
+            CreateTransactionCommand accepted = ingestService.accept(command);
+
+            assertThat(accepted.transactionId()).startsWith("TXN-");
+            verify(validator).validateTransactionCommand(command);
+            verify(writeAheadLog).append(accepted);
+        }
+
+        @Test
+        @DisplayName("Should keep a transaction ID supplied by the till")
+        void accept_keepsSuppliedId() {
+            CreateTransactionCommand command = createCommand("TXN-123E4567-E89B-12D3-A456-426614174000", "TILL-1");
+
+            assertThat(ingestService.accept(command)).isSameAs(command);
+        }
+
+        @Test
+        @DisplayName("Should not append commands that fail validation")
+        void accept_rejectsInvalidCommand() {
+            CreateTransactionCommand command = createCommand(null, "TILL-1");
+            doThrow(new IllegalArgumentException("Store ID is required"))
+                    .when(validator).validateTransactionCommand(command);
+
+            assertThatThrownBy(() -> ingestService.accept(command)).isInstanceOf(IllegalArgumentException.class);
+            verify(writeAheadLog, never()).append(any());
+        }
+
+        @Test
+        @DisplayName("Should wrap log write failures in TransactionProcessingException")
+        void accept_wrapsLogFailure() {
+            doThrow(new UncheckedIOException(new IOException("disk full"))).when(writeAheadLog).append(any());
+
+            assertThatThrownBy(() -> ingestService.accept(createCommand(null, "TILL-1")))
+                    .isInstanceOf(TransactionProcessingException.class)
+                    .hasMessage("Failed to accept transaction");
+        }
+    }
+
+    @Nested
+    @DisplayName("drainBatch")
+    class DrainBatchTests {
+
+        @Test
+        @DisplayName("Should persist the batch, reject failed items and checkpoint past it")
+        void drainBatch_persistsAndCheckpoints() {
+            CreateTransactionCommand first = createCommand("TXN-1", "TILL-1");
+            CreateTransactionCommand second = createCommand("TXN-2", "TILL-2");
+            when(writeAheadLog.read(100)).thenReturn(new TransactionWriteAheadLog.Batch(List.of(first, second), 512));
+            when(transactionService.processTransactionBatch(List.of(first, second))).thenReturn(List.of(
+                    TransactionBatchItemResult.success(0, null),
+                    TransactionBatchItemResult.failed(1, "Conflicting duplicate")
+            ));
+
+            int drained = ingestService.drainBatch();
+
+            assertThat(drained).isEqualTo(2);
+            verify(writeAheadLog).reject(second, "Conflicting duplicate");
+            verify(writeAheadLog).checkpoint(512);
+        }
+
+        @Test
+        @DisplayName("Should resolve a till retry of an accepted receipt without an ID as a duplicate, not a conflict")
+        void drainBatch_acceptsRetryOfIdlessReceipt() {
+            CreateTransactionCommand original = ingestService.accept(createCommand(null, "TILL-1"));
+            CreateTransactionCommand retry = ingestService.accept(createCommand(null, "TILL-1"));
+            assertThat(retry.transactionId()).isEqualTo(original.transactionId());
+
+            // The retry is checked against the row the first drain stored, as the batch writer does
+            DuplicateTransactionHandler duplicateHandler = new DuplicateTransactionHandler(transactionRepository, mapper);
+            TransactionEntity stored = new TransactionEntity(original.transactionId(), original.customerId(),
+                    original.storeId(), original.tillId(), original.paymentMethod(), original.totalAmount(),
+                    original.timestamp());
+            stored.setCurrency(original.currency());
+            when(writeAheadLog.read(100))
+                    .thenReturn(new TransactionWriteAheadLog.Batch(List.of(original), 256))
+                    .thenReturn(new TransactionWriteAheadLog.Batch(List.of(retry), 512));
+            when(transactionService.processTransactionBatch(List.of(original)))
+                    .thenReturn(List.of(TransactionBatchItemResult.success(0, null)));
+            when(transactionService.processTransactionBatch(List.of(retry))).thenAnswer(invocation -> {
+                try {
+                    return List.of(TransactionBatchItemResult.duplicate(0, duplicateHandler.resolveDuplicate(retry, stored)));
+                } catch (IllegalStateException conflict) {
+                    return List.of(TransactionBatchItemResult.failed(0, conflict.getMessage()));
+                }
+            });
+
+            ingestService.drainBatch();
+            ingestService.drainBatch();
+
+            verify(writeAheadLog, never()).reject(any(), any());
+            verify(writeAheadLog).checkpoint(512);
+        }
+
+        @Test
+        @DisplayName("Should leave the checkpoint in place when the database write fails")
+        void drainBatch_keepsCheckpointOnFailure() {
+            CreateTransactionCommand command = createCommand("TXN-1", "TILL-1");
+            when(writeAheadLog.read(100)).thenReturn(new TransactionWriteAheadLog.Batch(List.of(command), 256));
+            when(transactionService.processTransactionBatch(any()))
+                    .thenThrow(new TransactionProcessingException("Failed to process transaction batch"));
+
+            assertThatThrownBy(() -> ingestService.drainBatch()).isInstanceOf(TransactionProcessingException.class);
+
+            verify(writeAheadLog, never()).checkpoint(anyLong());
+            verify(writeAheadLog, never()).reject(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should not call the database when the log is empty")
+        void drainBatch_emptyLog() {
+            when(writeAheadLog.read(100)).thenReturn(new TransactionWriteAheadLog.Batch(List.of(), 0));
+
+            assertThat(ingestService.drainBatch()).isZero();
+
+            verify(transactionService, never()).processTransactionBatch(any());
+        }
+    }
+
+    private CreateTransactionCommand createCommand(String transactionId, String tillId) {
+        return new CreateTransactionCommand(
+                transactionId,
+                "CUST-1",
+                "STORE-1",
+                tillId,
+                "card",
+                new BigDecimal("2.50"),
+                "GBP",
+                Instant.parse("2024-01-01T10:15:30Z"),
+                List.of()
+        );
+    }
+}
@@ -74,6 +74,48 @@ class DuplicateTransactionHandlerTest {
         verify(mapper).toResult(existing);
     }
 
+    @Test
+    void findIfExistsReturnsNullWhenNoTransactionStored() {
+        CreateTransactionCommand command = new CreateTransactionCommand(
+                null,
+                "CUST-1",
+                "STORE-001",
+                "TILL-001",
+                "card",
+                new BigDecimal("10.00"),
+                "GBP",
+                Instant.parse("2024-01-01T10:15:30Z"),
+                List.of()
+        );
+
+        when(transactionRepository.findByStoreIdAndTillIdAndTransactionTimestamp(
+                command.storeId(), command.tillId(), command.timestamp()))
+                .thenReturn(null);
+
+        assertThat(handler.findIfExists(command)).isNull();
+        verifyNoInteractions(mapper);
+    }
+
+    @Test
+    void resolveExistingThrowsWhenNoTransactionFoundForKey() {
+        CreateTransactionCommand command = new CreateTransactionCommand(
+                "TXN-TAKEN",
+                "CUST-1",
+                "STORE-001",
+                "TILL-001",
+                "card",
+                new BigDecimal("10.00"),
+                "GBP",
+                Instant.parse("2024-01-01T10:15:30Z"),
+                List.of()
+        );
+
+        assertThatThrownBy(() -> handler.resolveExisting(command, null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("duplicate transaction_id (TXN-TAKEN)");
+        verifyNoInteractions(transactionRepository, mapper);
+    }
+
     @Test
     void throwsWhenPayloadDoesNotMatch() {
         Instant timestamp = Instant.parse("2024-01-01T10:15:30Z");
@@ -0,0 +1,75 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionResult;
+import com.vega.techtest.domain.transaction.model.TransactionItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentTransactionCacheTest {
+
+    private static final Instant TIMESTAMP = Instant.parse("2024-01-01T10:15:30Z");
+
+    private final RecentTransactionCache cache = new RecentTransactionCache(
+            new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(10), 1_000, 0.01);
+
+    @Test
+    @DisplayName("Should return the stored result for an identical resubmission")
+    void findRecent_returnsResultForIdenticalCommand() {
+        CreateTransactionCommand original = createCommand(null, new BigDecimal("2.50"));
+        TransactionResult result = createResult("TXN-STORED");
+        cache.record(original, result);
+
+        assertThat(cache.findRecent(createCommand(null, new BigDecimal("2.5")))).isSameAs(result);
+        assertThat(cache.findRecent(createCommand("TXN-STORED", new BigDecimal("2.50")))).isSameAs(result);
+        assertThat(cache.mightContain(original)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not answer a resubmission whose content differs")
+    void findRecent_ignoresConflictingCommand() {
+        cache.record(createCommand(null, new BigDecimal("2.50")), createResult("TXN-STORED"));
+
+        assertThat(cache.findRecent(createCommand(null, new BigDecimal("3.00")))).isNull();
+        assertThat(cache.findRecent(createCommand("TXN-OTHER", new BigDecimal("2.50")))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should never answer when disabled")
+    void disabled_neverAnswers() {
+        RecentTransactionCache disabled = new RecentTransactionCache(
+                new SimpleMeterRegistry(), false, 100, Duration.ofMinutes(10), 1_000, 0.01);
+        CreateTransactionCommand command = createCommand(null, new BigDecimal("2.50"));
+        disabled.record(command, createResult("TXN-STORED"));
+
+        assertThat(disabled.findRecent(command)).isNull();
+        assertThat(disabled.mightContain(command)).isFalse();
+    }
+
+    private CreateTransactionCommand createCommand(String transactionId, BigDecimal unitPrice) {
+        return new CreateTransactionCommand(
+                transactionId,
+                "CUST-1",
+                "STORE-1",
+                "TILL-1",
+                "card",
+                unitPrice,
+                "GBP",
+                TIMESTAMP,
+                List.of(new TransactionItem("Milk", "MILK001", unitPrice, 1, "Dairy"))
+        );
+    }
+
+    private TransactionResult createResult(String transactionId) {
+        return new TransactionResult(transactionId, "CUST-1", "STORE-1", "TILL-1", "card",
+                new BigDecimal("2.50"), "GBP", TIMESTAMP, TIMESTAMP, "COMPLETED", List.of());
+    }
+}
@@ -0,0 +1,88 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.repository.StoreDailyStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class StoreDailyStatsServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 10);
+
+    @Mock
+    private StoreDailyStatsRepository repository;
+
+    @InjectMocks
+    private StoreDailyStatsService dailyStats;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dailyStats, "enabled", true);
+    }
+
+    @Test
+    @DisplayName("Should add inserted transactions to the rollup")
+    void record_addsTransactions() {
+        List<TransactionEntity> inserted = List.of(new TransactionEntity("TXN-1", "CUST-1", "STORE-1", "TILL-1",
+                "card", new BigDecimal("10.00"), Instant.parse("2024-01-10T10:00:00Z")));
+
+        dailyStats.record(inserted);
+
+        verify(repository).add(inserted);
+    }
+
+    @Test
+    @DisplayName("Should not touch the rollup when it is disabled")
+    void record_disabled() {
+        ReflectionTestUtils.setField(dailyStats, "enabled", false);
+
+        dailyStats.record(List.of(new TransactionEntity()));
+        dailyStats.rebuild(DAY, DAY);
+
+        verify(repository, never()).add(anyList());
+        verify(repository, never()).rebuildDay(any());
+    }
+
+    @Test
+    @DisplayName("Should rebuild every day of an inclusive range")
+    void rebuild_range() {
+        dailyStats.rebuild(DAY, DAY.plusDays(2));
+
+        verify(repository).rebuildDay(DAY);
+        verify(repository).rebuildDay(DAY.plusDays(1));
+        verify(repository).rebuildDay(DAY.plusDays(2));
+        verify(repository, times(3)).rebuildDay(any());
+    }
+
+    @Test
+    @DisplayName("Should rebuild a set of days in date order")
+    void rebuild_daysInOrder() {
+        dailyStats.rebuild(Set.of(DAY.plusDays(5), DAY, DAY.plusDays(2)));
+
+        InOrder order = inOrder(repository);
+        order.verify(repository).rebuildDay(DAY);
+        order.verify(repository).rebuildDay(DAY.plusDays(2));
+        order.verify(repository).rebuildDay(DAY.plusDays(5));
+    }
+}
@@ -0,0 +1,124 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.adapter.out.persistence.copy.TransactionCopyLoader;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.exception.ReceiptTotalMismatchException;
+import com.vega.techtest.domain.transaction.service.TransactionBackfillService.BackfillResult;
+import com.vega.techtest.domain.transaction.validator.TransactionValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBackfillServiceTest {
+
+    @Mock
+    private TransactionValidator validator;
+
+    @Mock
+    private TransactionCopyLoader copyLoader;
+
+    @Mock
+    private StoreDailyStatsService dailyStats;
+
+    private TransactionBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        backfillService = new TransactionBackfillService(validator, copyLoader, dailyStats);
+    }
+
+    @Test
+    @DisplayName("Should load valid commands and count the loader's inserts and duplicates")
+    @SuppressWarnings("unchecked")
+    void backfill_loadsValidCommands() {
+        CreateTransactionCommand withId = createCommand("TXN-11111111-1111-1111-1111-111111111111", "TILL-1");
+        CreateTransactionCommand withoutId = createCommand(null, "TILL-2");
+        when(copyLoader.load(any())).thenReturn(new TransactionCopyLoader.LoadResult(1, 3, 1));
+
+        BackfillResult result = backfillService.backfill(List.of(withId, withoutId));
+
+        assertThat(result).isEqualTo(new BackfillResult(1, 3, 1, 0));
+        ArgumentCaptor<List<CreateTransactionCommand>> loaded = ArgumentCaptor.forClass(List.class);
+        verify(copyLoader).load(loaded.capture());
+        assertThat(loaded.getValue()).hasSize(2);
+        assertThat(loaded.getValue().get(0).transactionId()).isEqualTo(withId.transactionId());
+        assertThat(loaded.getValue().get(1).transactionId())
+                .isEqualTo(TransactionService.deriveTransactionId(withoutId));
+        verify(dailyStats).rebuild(Set.of(LocalDate.of(2024, 1, 1)));
+    }
+
+    @Test
+    @DisplayName("Should leave the daily stats alone when every command was a duplicate")
+    void backfill_skipsRebuildWithoutInserts() {
+        when(copyLoader.load(any())).thenReturn(new TransactionCopyLoader.LoadResult(0, 0, 1));
+
+        backfillService.backfill(List.of(createCommand(null, "TILL-1")));
+
+        verify(dailyStats, never()).rebuild(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid commands without failing the chunk")
+    @SuppressWarnings("unchecked")
+    void backfill_rejectsInvalidCommands() {
+        CreateTransactionCommand valid = createCommand(null, "TILL-1");
+        CreateTransactionCommand mismatched = createCommand(null, "TILL-2");
+        CreateTransactionCommand missingStore = createCommand(null, "TILL-3");
+        lenient().doThrow(new ReceiptTotalMismatchException("Receipt total mismatch", BigDecimal.ONE, BigDecimal.TEN))
+                .when(validator).validateTransactionCommand(mismatched);
+        lenient().doThrow(new IllegalArgumentException("Store ID is required"))
+                .when(validator).validateTransactionCommand(missingStore);
+        when(copyLoader.load(any())).thenReturn(new TransactionCopyLoader.LoadResult(1, 0, 0));
+
+        BackfillResult result = backfillService.backfill(List.of(valid, mismatched, missingStore));
+
+        assertThat(result.loaded()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(2);
+        ArgumentCaptor<List<CreateTransactionCommand>> loaded = ArgumentCaptor.forClass(List.class);
+        verify(copyLoader).load(loaded.capture());
+        assertThat(loaded.getValue()).extracting(CreateTransactionCommand::tillId).containsExactly("TILL-1");
+    }
+
+    @Test
+    @DisplayName("Should add up results across chunks")
+    void backfillResult_plus() {
+        BackfillResult total = BackfillResult.EMPTY
+                .plus(new BackfillResult(10, 40, 2, 1))
+                .plus(new BackfillResult(5, 20, 0, 3));
+
+        assertThat(total).isEqualTo(new BackfillResult(15, 60, 2, 4));
+    }
+
+    private CreateTransactionCommand createCommand(String transactionId, String tillId) {
+        return new CreateTransactionCommand(
+                transactionId,
+                "CUST-001",
+                "STORE-001",
+                tillId,
+                "card",
+                new BigDecimal("10.00"),
+                "GBP",
+                Instant.parse("2024-01-01T10:00:00Z"),
+                null
+        );
+    }
+}
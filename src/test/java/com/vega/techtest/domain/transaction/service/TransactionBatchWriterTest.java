@@ -0,0 +1,256 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.repository.TransactionRepository;
+import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
+import com.vega.techtest.application.transaction.command.TransactionResult;
+import com.vega.techtest.mapper.TransactionEntityMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchWriterTest {
+
+    private static final Instant TIMESTAMP = Instant.parse("2024-01-01T10:15:30Z");
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionEntityMapper mapper;
+
+    @Mock
+    private DuplicateTransactionHandler duplicateTransactionHandler;
+
+    @Mock
+    private StoreDailyStatsService dailyStats;
+
+    @InjectMocks
+    private TransactionBatchWriter batchWriter;
+
+    @Test
+    @DisplayName("Should save new transactions with a single saveAll and generate missing ids")
+    void writeChunk_savesNewTransactions() {
+        CreateTransactionCommand first = createCommand("TILL-1");
+        CreateTransactionCommand second = createCommand("TILL-2");
+
+        when(transactionRepository.findAllByKeys(anyCollection()))
+                .thenReturn(List.of());
+        when(mapper.toEntityFromCommand(any(CreateTransactionCommand.class)))
+                .thenAnswer(invocation -> createEntity(invocation.getArgument(0)));
+        when(transactionRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mapper.toResult(any(TransactionEntity.class)))
+                .thenAnswer(invocation -> createResult(invocation.getArgument(0)));
+
+        List<TransactionBatchItemResult> results = batchWriter.writeChunk(List.of(first, second));
+
+        assertThat(results).extracting(TransactionBatchItemResult::status).containsExactly(
+                TransactionBatchItemResult.Status.SUCCESS,
+                TransactionBatchItemResult.Status.SUCCESS);
+        // The same ID the single-transaction path gives a receipt sent without one
+        assertThat(results.get(0).transaction().transactionId())
+                .isEqualTo(TransactionService.deriveTransactionId(first));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAllAndFlush(saved.capture());
+        assertThat(saved.getValue()).hasSize(2);
+        verify(dailyStats).record(saved.getValue());
+    }
+
+    @Test
+    @DisplayName("Should resolve transactions already in the database as duplicates without saving them")
+    void writeChunk_resolvesExistingDuplicates() {
+        CreateTransactionCommand command = createCommand("TILL-1");
+        TransactionEntity existing = createEntity(command);
+        existing.setTransactionId("TXN-EXISTING");
+        TransactionResult existingResult = createResult(existing);
+
+        when(transactionRepository.findAllByKeys(anyCollection()))
+                .thenReturn(List.of(existing));
+        when(duplicateTransactionHandler.resolveExisting(command, existing)).thenReturn(existingResult);
+
+        List<TransactionBatchItemResult> results = batchWriter.writeChunk(List.of(command));
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).status()).isEqualTo(TransactionBatchItemResult.Status.DUPLICATE);
+        assertThat(results.get(0).transaction().transactionId()).isEqualTo("TXN-EXISTING");
+        verify(transactionRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    @DisplayName("Should report conflicting duplicates as failures")
+    void writeChunk_reportsConflictingDuplicates() {
+        CreateTransactionCommand command = createCommand("TILL-1");
+        TransactionEntity existing = createEntity(command);
+
+        when(transactionRepository.findAllByKeys(anyCollection()))
+                .thenReturn(List.of(existing));
+        when(duplicateTransactionHandler.resolveExisting(command, existing))
+                .thenThrow(new IllegalStateException("URGENT- Bad Transactions"));
+
+        List<TransactionBatchItemResult> results = batchWriter.writeChunk(List.of(command));
+
+        assertThat(results.get(0).status()).isEqualTo(TransactionBatchItemResult.Status.FAILED);
+        assertThat(results.get(0).error()).isEqualTo("URGENT- Bad Transactions");
+    }
+
+    @Test
+    @DisplayName("Should save a receipt repeated within the same chunk only once")
+    void writeChunk_savesRepeatedReceiptOnce() {
+        CreateTransactionCommand command = createCommand("TILL-1");
+        CreateTransactionCommand repeated = createCommand("TILL-1");
+
+        when(transactionRepository.findAllByKeys(anyCollection()))
+                .thenReturn(List.of());
+        when(mapper.toEntityFromCommand(any(CreateTransactionCommand.class)))
+                .thenAnswer(invocation -> createEntity(invocation.getArgument(0)));
+        when(transactionRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mapper.toResult(any(TransactionEntity.class)))
+                .thenAnswer(invocation -> createResult(invocation.getArgument(0)));
+        when(duplicateTransactionHandler.resolveExisting(any(CreateTransactionCommand.class), any(TransactionEntity.class)))
+                .thenAnswer(invocation -> createResult(invocation.getArgument(1)));
+
+        List<TransactionBatchItemResult> results = batchWriter.writeChunk(List.of(command, repeated));
+
+        assertThat(results).extracting(TransactionBatchItemResult::status).containsExactly(
+                TransactionBatchItemResult.Status.SUCCESS,
+                TransactionBatchItemResult.Status.DUPLICATE);
+        assertThat(results.get(1).transaction().transactionId())
+                .isEqualTo(results.get(0).transaction().transactionId());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAllAndFlush(saved.capture());
+        assertThat(saved.getValue()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should insert new transactions with the native upsert when enabled")
+    void writeChunk_insertsWithUpsert() {
+        ReflectionTestUtils.setField(batchWriter, "upsertEnabled", true);
+        CreateTransactionCommand first = createCommand("TILL-1");
+        CreateTransactionCommand second = createCommand("TILL-2");
+
+        when(transactionRepository.findAllByKeys(anyCollection()))
+                .thenReturn(List.of());
+        when(mapper.toEntityFromCommand(any(CreateTransactionCommand.class)))
+                .thenAnswer(invocation -> createEntity(invocation.getArgument(0)));
+        when(transactionRepository.insertAllIfAbsent(anyList())).thenAnswer(invocation -> {
+            List<TransactionEntity> transactions = invocation.getArgument(0);
+            Map<String, Long> ids = new HashMap<>();
+            for (int i = 0; i < transactions.size(); i++) {
+                ids.put(transactions.get(i).getTransactionId(), 100L + i);
+            }
+            return ids;
+        });
+        when(mapper.toResult(any(TransactionEntity.class)))
+                .thenAnswer(invocation -> createResult(invocation.getArgument(0)));
+
+        List<TransactionBatchItemResult> results = batchWriter.writeChunk(List.of(first, second));
+
+        assertThat(results).extracting(TransactionBatchItemResult::status).containsExactly(
+                TransactionBatchItemResult.Status.SUCCESS,
+                TransactionBatchItemResult.Status.SUCCESS);
+        verify(transactionRepository, never()).saveAllAndFlush(anyList());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionEntity>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(dailyStats).record(inserted.capture());
+        assertThat(inserted.getValue()).extracting(TransactionEntity::getId).containsExactly(100L, 101L);
+    }
+
+    @Test
+    @DisplayName("Should resolve a receipt stored by another writer after the lookup without a constraint violation")
+    void writeChunk_resolvesUpsertRaceAsDuplicate() {
+        ReflectionTestUtils.setField(batchWriter, "upsertEnabled", true);
+        CreateTransactionCommand command = createCommand("TILL-1");
+        CreateTransactionCommand repeated = createCommand("TILL-1");
+        TransactionEntity winner = createEntity(command);
+        winner.setTransactionId("TXN-WINNER");
+
+        when(transactionRepository.findAllByKeys(anyCollection()))
+                .thenReturn(List.of());
+        when(mapper.toEntityFromCommand(any(CreateTransactionCommand.class)))
+                .thenAnswer(invocation -> createEntity(invocation.getArgument(0)));
+        when(transactionRepository.insertAllIfAbsent(anyList())).thenReturn(Map.of());
+        when(transactionRepository.findByStoreIdAndTillIdAndTransactionTimestamp("STORE-1", "TILL-1", TIMESTAMP))
+                .thenReturn(winner);
+        when(duplicateTransactionHandler.resolveExisting(any(CreateTransactionCommand.class), any(TransactionEntity.class)))
+                .thenAnswer(invocation -> createResult(invocation.getArgument(1)));
+
+        List<TransactionBatchItemResult> results = batchWriter.writeChunk(List.of(command, repeated));
+
+        assertThat(results).extracting(TransactionBatchItemResult::status).containsExactly(
+                TransactionBatchItemResult.Status.DUPLICATE,
+                TransactionBatchItemResult.Status.DUPLICATE);
+        assertThat(results).extracting(result -> result.transaction().transactionId())
+                .containsExactly("TXN-WINNER", "TXN-WINNER");
+        verify(dailyStats).record(List.of());
+    }
+
+    private CreateTransactionCommand createCommand(String tillId) {
+        return new CreateTransactionCommand(
+                null,
+                "CUST-1",
+                "STORE-1",
+                tillId,
+                "card",
+                new BigDecimal("12.50"),
+                "GBP",
+                TIMESTAMP,
+                null
+        );
+    }
+
+    private TransactionEntity createEntity(CreateTransactionCommand command) {
+        TransactionEntity entity = new TransactionEntity(
+                command.transactionId(),
+                command.customerId(),
+                command.storeId(),
+                command.tillId(),
+                command.paymentMethod(),
+                command.totalAmount(),
+                command.timestamp()
+        );
+        entity.setCurrency(command.currency());
+        return entity;
+    }
+
+    private TransactionResult createResult(TransactionEntity entity) {
+        return new TransactionResult(
+                entity.getTransactionId(),
+                entity.getCustomerId(),
+                entity.getStoreId(),
+                entity.getTillId(),
+                entity.getPaymentMethod(),
+                entity.getTotalAmount(),
+                entity.getCurrency(),
+                entity.getTransactionTimestamp(),
+                entity.getCreatedAt(),
+                entity.getStatus(),
+                null
+        );
+    }
+}
@@ -0,0 +1,100 @@
+package com.vega.techtest.domain.transaction.service;
+
+import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
+import com.vega.techtest.adapter.out.persistence.repository.TransactionRepository;
+import com.vega.techtest.application.transaction.command.TransactionResult;
+import com.vega.techtest.mapper.TransactionEntityMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Instant END = Instant.parse("2024-03-31T23:59:59Z");
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionEntityMapper mapper;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private TransactionExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new TransactionExportService(transactionRepository, mapper, entityManager);
+        ReflectionTestUtils.setField(exportService, "chunkSize", 2);
+    }
+
+    @Test
+    @DisplayName("Should hand over every transaction in order and detach each chunk after writing it")
+    void export_detachesEachChunk() {
+        AtomicBoolean closed = new AtomicBoolean();
+        List<TransactionEntity> entities = List.of(createEntity("TXN-1"), createEntity("TXN-2"), createEntity("TXN-3"));
+        when(transactionRepository.streamByStoreIdAndDateRange("STORE-001", START, END))
+                .thenReturn(entities.stream().onClose(() -> closed.set(true)));
+        when(mapper.toResult(any())).thenAnswer(invocation -> result(invocation.getArgument(0)));
+        List<String> exported = new ArrayList<>();
+
+        long count = exportService.export("STORE-001", START, END,
+                result -> exported.add(result.transactionId()));
+
+        assertThat(count).isEqualTo(3);
+        assertThat(exported).containsExactly("TXN-1", "TXN-2", "TXN-3");
+        assertThat(closed).isTrue();
+        InOrder order = inOrder(mapper, entityManager);
+        order.verify(mapper, times(2)).toResult(any());
+        order.verify(entityManager).clear();
+        order.verify(mapper).toResult(any());
+        order.verify(entityManager).clear();
+    }
+
+    @Test
+    @DisplayName("Should export every store when no store is given")
+    void export_allStores() {
+        when(transactionRepository.streamByDateRange(START, END)).thenReturn(Stream.empty());
+
+        long count = exportService.export(null, START, END, result -> {
+        });
+
+        assertThat(count).isZero();
+        verify(transactionRepository).streamByDateRange(START, END);
+    }
+
+    private static TransactionEntity createEntity(String transactionId) {
+        return new TransactionEntity(transactionId, "CUST-001", "STORE-001", "TILL-1", "card",
+                new BigDecimal("10.00"), START);
+    }
+
+    private static TransactionResult result(TransactionEntity entity) {
+        TransactionResult result = mock(TransactionResult.class);
+        when(result.transactionId()).thenReturn(entity.getTransactionId());
+        return result;
+    }
+}
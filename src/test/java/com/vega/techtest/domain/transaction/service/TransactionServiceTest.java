@@ -3,6 +3,12 @@ package com.vega.techtest.domain.transaction.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -10,17 +16,19 @@ import com.vega.techtest.adapter.out.persistence.entity.TransactionEntity;
 import com.vega.techtest.domain.transaction.exception.StatisticsCalculationException;
 import com.vega.techtest.mapper.TransactionEntityMapper;
 import com.vega.techtest.adapter.out.persistence.repository.TransactionRepository;
+import com.vega.techtest.adapter.out.persistence.repository.TransactionTotals;
 import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.application.transaction.command.TransactionBatchItemResult;
 import com.vega.techtest.application.transaction.command.TransactionResult;
 import com.vega.techtest.domain.transaction.validator.TransactionValidator;
 import org.springframework.dao.DataIntegrityViolationException;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -28,6 +36,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionServiceTest {
@@ -44,12 +55,30 @@ class TransactionServiceTest {
     @Mock
     private DuplicateTransactionHandler duplicateTransactionHandler;
 
+    @Mock
+    private TransactionBatchWriter batchWriter;
+
+    @Mock
+    private RecentTransactionCache recentTransactionCache;
+
+    @Mock
+    private StoreDailyStatsService dailyStats;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private TransactionService transactionService;
 
+    @BeforeEach
+    void runInTransaction() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
     @Test
-    @DisplayName("Should generate transaction id and persist transaction")
-    void processTransaction_generatesIdAndSaves() {
+    @DisplayName("Should derive the transaction id from the key and persist transaction")
+    void processTransaction_derivesIdAndSaves() {
         Instant timestamp = Instant.now();
 
         CreateTransactionCommand command = new CreateTransactionCommand(
@@ -84,13 +113,14 @@ class TransactionServiceTest {
 
         TransactionResult result = transactionService.processTransaction(command);
 
-        assertThat(result.transactionId()).startsWith("TXN-");
+        assertThat(result.transactionId()).isEqualTo(TransactionService.deriveTransactionId(command));
         assertThat(result.storeId()).isEqualTo("STORE-1");
         assertThat(result.paymentMethod()).isEqualTo("card");
         assertThat(result.totalAmount()).isEqualByComparingTo("12.50");
         assertThat(result.currency()).isEqualTo("GBP");
 
         verify(transactionRepository).save(any(TransactionEntity.class));
+        verify(dailyStats).record(List.of(mappedEntity));
     }
 
     @Test
@@ -208,6 +238,254 @@ class TransactionServiceTest {
         verify(duplicateTransactionHandler).findExistingTransaction(command);
     }
 
+    @Nested
+    @DisplayName("processTransactionBatch Tests")
+    class ProcessTransactionBatchTests {
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(transactionService, "maxBatchSize", 5);
+            ReflectionTestUtils.setField(transactionService, "batchChunkSize", 2);
+        }
+
+        @Test
+        @DisplayName("Should write valid transactions in chunks and keep submission order")
+        void processTransactionBatch_writesInChunks() {
+            List<CreateTransactionCommand> commands = List.of(
+                    createCommand("TILL-1"), createCommand("TILL-2"), createCommand("TILL-3"));
+
+            when(batchWriter.writeChunk(anyList())).thenAnswer(invocation -> {
+                List<CreateTransactionCommand> chunk = invocation.getArgument(0);
+                List<TransactionBatchItemResult> results = new ArrayList<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(TransactionBatchItemResult.success(i, createCommandResult(chunk.get(i))));
+                }
+                return results;
+            });
+
+            List<TransactionBatchItemResult> results = transactionService.processTransactionBatch(commands);
+
+            assertThat(results).extracting(TransactionBatchItemResult::index).containsExactly(0, 1, 2);
+            assertThat(results).extracting(result -> result.transaction().tillId())
+                    .containsExactly("TILL-1", "TILL-2", "TILL-3");
+            verify(batchWriter, times(2)).writeChunk(anyList());
+        }
+
+        @Test
+        @DisplayName("Should report validation failures per item without writing them")
+        void processTransactionBatch_reportsValidationFailures() {
+            CreateTransactionCommand valid = createCommand("TILL-1");
+            CreateTransactionCommand invalid = createCommand("TILL-2");
+
+            doThrow(new IllegalArgumentException("Payment method must be 'cash' or 'card'"))
+                    .when(validator).validateTransactionCommand(invalid);
+            when(batchWriter.writeChunk(List.of(valid)))
+                    .thenReturn(List.of(TransactionBatchItemResult.success(0, createCommandResult(valid))));
+
+            List<TransactionBatchItemResult> results = transactionService.processTransactionBatch(List.of(invalid, valid));
+
+            assertThat(results.get(0).status()).isEqualTo(TransactionBatchItemResult.Status.FAILED);
+            assertThat(results.get(0).error()).isEqualTo("Payment method must be 'cash' or 'card'");
+            assertThat(results.get(1).status()).isEqualTo(TransactionBatchItemResult.Status.SUCCESS);
+            assertThat(results.get(1).index()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should settle items one by one when a chunk hits a constraint violation")
+        void processTransactionBatch_fallsBackOnConstraintViolation() {
+            CreateTransactionCommand first = createCommand("TILL-1");
+            CreateTransactionCommand second = createCommand("TILL-2");
+
+            when(batchWriter.writeChunk(List.of(first, second)))
+                    .thenThrow(new DataIntegrityViolationException("Duplicate key"));
+            when(batchWriter.writeChunk(List.of(first)))
+                    .thenReturn(List.of(TransactionBatchItemResult.success(0, createCommandResult(first))));
+            when(batchWriter.writeChunk(List.of(second)))
+                    .thenThrow(new DataIntegrityViolationException("Duplicate key"));
+            when(duplicateTransactionHandler.findExistingTransaction(second))
+                    .thenReturn(createCommandResult(second));
+
+            List<TransactionBatchItemResult> results = transactionService.processTransactionBatch(List.of(first, second));
+
+            assertThat(results).extracting(TransactionBatchItemResult::status).containsExactly(
+                    TransactionBatchItemResult.Status.SUCCESS,
+                    TransactionBatchItemResult.Status.DUPLICATE);
+            assertThat(results.get(1).index()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should reject batches larger than the configured maximum")
+        void processTransactionBatch_rejectsOversizedBatch() {
+            List<CreateTransactionCommand> commands = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                commands.add(createCommand("TILL-" + i));
+            }
+
+            IllegalArgumentException exception = assertThrows(
+                    IllegalArgumentException.class,
+                    () -> transactionService.processTransactionBatch(commands)
+            );
+
+            assertThat(exception.getMessage()).isEqualTo("Batch contains 6 transactions, maximum is 5");
+            verify(batchWriter, never()).writeChunk(anyList());
+        }
+
+        private CreateTransactionCommand createCommand(String tillId) {
+            return new CreateTransactionCommand(
+                    null,
+                    "CUST-1",
+                    "STORE-1",
+                    tillId,
+                    "card",
+                    new BigDecimal("12.50"),
+                    "GBP",
+                    Instant.parse("2024-01-01T10:15:30Z"),
+                    null
+            );
+        }
+
+        private TransactionResult createCommandResult(CreateTransactionCommand command) {
+            return new TransactionResult(
+                    "TXN-" + command.tillId(),
+                    command.customerId(),
+                    command.storeId(),
+                    command.tillId(),
+                    command.paymentMethod(),
+                    command.totalAmount(),
+                    command.currency(),
+                    command.timestamp(),
+                    command.timestamp(),
+                    "COMPLETED",
+                    null
+            );
+        }
+    }
+
+    @Nested
+    @DisplayName("Duplicate cache pre-check Tests")
+    class DuplicateCacheTests {
+
+        private final CreateTransactionCommand command = new CreateTransactionCommand(
+                null,
+                "CUST-1",
+                "STORE-1",
+                "TILL-1",
+                "card",
+                new BigDecimal("12.50"),
+                "GBP",
+                Instant.parse("2024-01-01T10:15:30Z"),
+                null
+        );
+
+        @Test
+        @DisplayName("Should answer a recent resubmission from the cache without touching the database")
+        void processTransaction_returnsCachedDuplicate() {
+            TransactionResult cached = createTransactionResult(
+                    createTransactionEntity("TXN-CACHED", "STORE-1", new BigDecimal("12.50")));
+            when(recentTransactionCache.findRecent(command)).thenReturn(cached);
+
+            TransactionResult result = transactionService.processTransaction(command);
+
+            assertThat(result).isSameAs(cached);
+            verify(transactionRepository, never()).save(any());
+            verify(duplicateTransactionHandler, never()).findIfExists(any());
+        }
+
+        @Test
+        @DisplayName("Should read before inserting when the Bloom filter has probably seen the key")
+        void processTransaction_readsFirstWhenKeyProbablySeen() {
+            TransactionResult existing = createTransactionResult(
+                    createTransactionEntity("TXN-EXISTING", "STORE-1", new BigDecimal("12.50")));
+            when(recentTransactionCache.mightContain(command)).thenReturn(true);
+            when(duplicateTransactionHandler.findIfExists(command)).thenReturn(existing);
+
+            TransactionResult result = transactionService.processTransaction(command);
+
+            assertThat(result.transactionId()).isEqualTo("TXN-EXISTING");
+            verify(transactionRepository, never()).save(any());
+            verify(recentTransactionCache).record(command, existing);
+        }
+
+        @Test
+        @DisplayName("Should insert and record the key when the Bloom filter positive was false")
+        void processTransaction_insertsAfterFalsePositive() {
+            TransactionEntity mappedEntity = createTransactionEntity(null, "STORE-1", new BigDecimal("12.50"));
+            when(recentTransactionCache.mightContain(command)).thenReturn(true);
+            when(duplicateTransactionHandler.findIfExists(command)).thenReturn(null);
+            when(mapper.toEntityFromCommand(command)).thenReturn(mappedEntity);
+            when(transactionRepository.save(any(TransactionEntity.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(mapper.toResult(any(TransactionEntity.class)))
+                    .thenAnswer(invocation -> createTransactionResult(invocation.getArgument(0)));
+
+            TransactionResult result = transactionService.processTransaction(command);
+
+            verify(transactionRepository).save(any(TransactionEntity.class));
+            verify(recentTransactionCache).record(command, result);
+        }
+    }
+
+    @Nested
+    @DisplayName("ON CONFLICT upsert Tests")
+    class UpsertTests {
+
+        private final CreateTransactionCommand command = new CreateTransactionCommand(
+                null,
+                "CUST-1",
+                "STORE-1",
+                "TILL-1",
+                "card",
+                new BigDecimal("12.50"),
+                "GBP",
+                Instant.parse("2024-01-01T10:15:30Z"),
+                null
+        );
+
+        @BeforeEach
+        void enableUpsert() {
+            ReflectionTestUtils.setField(transactionService, "upsertEnabled", true);
+        }
+
+        @Test
+        @DisplayName("Should insert through the native upsert and return the new transaction")
+        void processTransaction_insertsWithUpsert() {
+            when(mapper.toEntityFromCommand(command))
+                    .thenReturn(createTransactionEntity(null, "STORE-1", new BigDecimal("12.50")));
+            when(transactionRepository.insertIfAbsent(any(TransactionEntity.class))).thenReturn(42L);
+            when(mapper.toResult(any(TransactionEntity.class)))
+                    .thenAnswer(invocation -> createTransactionResult(invocation.getArgument(0)));
+
+            TransactionResult result = transactionService.processTransaction(command);
+
+            assertThat(result.transactionId()).isEqualTo(TransactionService.deriveTransactionId(command));
+            verify(transactionRepository, never()).save(any());
+            verify(duplicateTransactionHandler, never()).findExistingTransaction(any());
+            verify(dailyStats).record(anyList());
+        }
+
+        @Test
+        @DisplayName("Should fetch the existing transaction only when the upsert hits the conflict")
+        void processTransaction_fetchesExistingOnConflict() {
+            TransactionEntity existingEntity = createTransactionEntity("TXN-EXISTING", "STORE-1", new BigDecimal("12.50"));
+            TransactionResult existing = createTransactionResult(existingEntity);
+            when(mapper.toEntityFromCommand(command))
+                    .thenReturn(createTransactionEntity(null, "STORE-1", new BigDecimal("12.50")));
+            when(transactionRepository.insertIfAbsent(any(TransactionEntity.class))).thenReturn(null);
+            when(transactionRepository.findByStoreIdAndTillIdAndTransactionTimestamp(
+                    "STORE-1", "TILL-1", command.timestamp())).thenReturn(existingEntity);
+            when(duplicateTransactionHandler.resolveExisting(command, existingEntity)).thenReturn(existing);
+
+            TransactionResult result = transactionService.processTransaction(command);
+
+            assertThat(result.transactionId()).isEqualTo("TXN-EXISTING");
+            verify(recentTransactionCache).record(command, existing);
+            // Resolved inside the template rather than through a separate lookup
+            verify(duplicateTransactionHandler, never()).findExistingTransaction(any());
+            verify(transactionRepository, never()).save(any());
+            verify(dailyStats, never()).record(anyList());
+        }
+    }
+
     @Nested
     @DisplayName("getTransactionsForStatistics Tests")
     class GetTransactionsForStatisticsTests {
@@ -215,17 +493,9 @@ class TransactionServiceTest {
         @Test
         @DisplayName("Should calculate statistics correctly with multiple transactions")
         void getTransactionsForStatistics_calculatesCorrectly() {
-            List<TransactionEntity> entities = List.of(
-                    createTransactionEntity("TXN-001", "STORE-001", new BigDecimal("100.00")),
-                    createTransactionEntity("TXN-002", "STORE-001", new BigDecimal("200.00")),
-                    createTransactionEntity("TXN-003", "STORE-001", new BigDecimal("150.00"))
-            );
+            stubTotals("STORE-001", new TransactionTotals(3, new BigDecimal("450.00"), "GBP"));
 
-            when(transactionRepository.findByStoreIdOrderByTransactionTimestampDesc("STORE-001"))
-                    .thenReturn(entities);
-            when(mapper.toResultList(entities)).thenReturn(toResults(entities));
-
-            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001");
+            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001", null, null, false);
 
             assertThat(result.get("storeId")).isEqualTo("STORE-001");
             assertThat(result.get("totalTransactions")).isEqualTo(3);
@@ -233,18 +503,18 @@ class TransactionServiceTest {
             assertThat((Double) result.get("averageAmount")).isEqualTo(150.0);
             assertThat(result.get("calculationNote")).isEqualTo("Average calculated as total amount divided by transaction count");
             assertThat(result.containsKey("message")).isFalse();
+            assertThat(result.containsKey("paymentMethods")).isFalse();
 
-            verify(transactionRepository).findByStoreIdOrderByTransactionTimestampDesc("STORE-001");
+            verify(transactionRepository).sumByStoreIdGroupByCurrency(eq("STORE-001"), any(Instant.class), any(Instant.class));
+            verify(transactionRepository, never()).sumByStoreIdGroupByPaymentMethodAndCurrency(any(), any(), any());
         }
 
         @Test
         @DisplayName("Should return zeroed statistics when no transactions found")
         void getTransactionsForStatistics_emptyList() {
-            when(transactionRepository.findByStoreIdOrderByTransactionTimestampDesc("STORE-999"))
-                    .thenReturn(Collections.emptyList());
-            when(mapper.toResultList(Collections.emptyList())).thenReturn(Collections.emptyList());
+            stubTotals("STORE-999");
 
-            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-999");
+            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-999", null, null, true);
 
             assertThat(result.get("storeId")).isEqualTo("STORE-999");
             assertThat(result.get("message")).isEqualTo("No transactions found for this store");
@@ -253,22 +523,16 @@ class TransactionServiceTest {
             assertThat((Double) result.get("averageAmount")).isEqualTo(0.0);
             assertThat(result.containsKey("calculationNote")).isFalse();
 
-            verify(transactionRepository).findByStoreIdOrderByTransactionTimestampDesc("STORE-999");
+            verify(transactionRepository, never()).sumByStoreIdGroupByPaymentMethodAndCurrency(any(), any(), any());
         }
 
         @Test
-        @DisplayName("Should filter out null amounts when calculating totals")
-        void getTransactionsForStatistics_filtersNullAmounts() {
-            List<TransactionEntity> entities = new ArrayList<>();
-            entities.add(createTransactionEntity("TXN-001", "STORE-001", new BigDecimal("100.00")));
-            entities.add(createTransactionEntityWithNullAmount("TXN-002", "STORE-001"));
-            entities.add(createTransactionEntity("TXN-003", "STORE-001", new BigDecimal("200.00")));
-
-            when(transactionRepository.findByStoreIdOrderByTransactionTimestampDesc("STORE-001"))
-                    .thenReturn(entities);
-            when(mapper.toResultList(entities)).thenReturn(toResults(entities));
+        @DisplayName("Should average over every counted transaction even when the sum skipped null amounts")
+        void getTransactionsForStatistics_countsNullAmounts() {
+            // SUM ignores null amounts but COUNT(t) does not, as the in-memory calculation did
+            stubTotals("STORE-001", new TransactionTotals(3, new BigDecimal("300.00"), "GBP"));
 
-            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001");
+            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001", null, null, false);
 
             assertThat(result.get("storeId")).isEqualTo("STORE-001");
             assertThat(result.get("totalTransactions")).isEqualTo(3);
@@ -279,12 +543,12 @@ class TransactionServiceTest {
         @Test
         @DisplayName("Should throw StatisticsCalculationException on repository error")
         void getTransactionsForStatistics_throwsExceptionOnError() {
-            when(transactionRepository.findByStoreIdOrderByTransactionTimestampDesc("STORE-001"))
+            when(transactionRepository.sumByStoreIdGroupByCurrency(eq("STORE-001"), any(Instant.class), any(Instant.class)))
                     .thenThrow(new RuntimeException("Database error"));
 
             StatisticsCalculationException exception = assertThrows(
                     StatisticsCalculationException.class,
-                    () -> transactionService.getTransactionsForStatistics("STORE-001")
+                    () -> transactionService.getTransactionsForStatistics("STORE-001", null, null, false)
             );
 
             assertThat(exception.getMessage()).isEqualTo("Failed to calculate transaction statistics");
@@ -295,15 +559,9 @@ class TransactionServiceTest {
         @Test
         @DisplayName("Should handle single transaction correctly")
         void getTransactionsForStatistics_singleTransaction() {
-            List<TransactionEntity> entities = List.of(
-                    createTransactionEntity("TXN-001", "STORE-001", new BigDecimal("99.99"))
-            );
-
-            when(transactionRepository.findByStoreIdOrderByTransactionTimestampDesc("STORE-001"))
-                    .thenReturn(entities);
-            when(mapper.toResultList(entities)).thenReturn(toResults(entities));
+            stubTotals("STORE-001", new TransactionTotals(1, new BigDecimal("99.99"), "GBP"));
 
-            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001");
+            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001", null, null, false);
 
             assertThat(result.get("totalTransactions")).isEqualTo(1);
             assertThat((Double) result.get("totalAmount")).isEqualTo(99.99);
@@ -313,22 +571,130 @@ class TransactionServiceTest {
         @Test
         @DisplayName("Should handle large numbers with precision")
         void getTransactionsForStatistics_largeNumbersPrecision() {
-            List<TransactionEntity> entities = List.of(
-                    createTransactionEntity("TXN-001", "STORE-001", new BigDecimal("1000.50")),
-                    createTransactionEntity("TXN-002", "STORE-001", new BigDecimal("2000.75")),
-                    createTransactionEntity("TXN-003", "STORE-001", new BigDecimal("3000.25"))
-            );
-
-            when(transactionRepository.findByStoreIdOrderByTransactionTimestampDesc("STORE-001"))
-                    .thenReturn(entities);
-            when(mapper.toResultList(entities)).thenReturn(toResults(entities));
+            stubTotals("STORE-001", new TransactionTotals(3, new BigDecimal("6001.50"), "GBP"));
 
-            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001");
+            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001", null, null, false);
 
             assertThat(result.get("totalTransactions")).isEqualTo(3);
             assertThat((Double) result.get("totalAmount")).isEqualTo(6001.50);
             assertThat((Double) result.get("averageAmount")).isEqualTo(2000.50);
         }
+
+        @Test
+        @DisplayName("Should pass the date window to the query and echo it in the response")
+        void getTransactionsForStatistics_dateWindow() {
+            Instant start = Instant.parse("2024-01-01T00:00:00Z");
+            Instant end = Instant.parse("2024-01-31T23:59:59Z");
+            when(transactionRepository.sumByStoreIdGroupByCurrency("STORE-001", start, end))
+                    .thenReturn(List.of(new TransactionTotals(2, new BigDecimal("30.00"), "GBP")));
+
+            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001", start, end, false);
+
+            assertThat(result.get("startDate")).isEqualTo(start);
+            assertThat(result.get("endDate")).isEqualTo(end);
+            assertThat(result.get("totalTransactions")).isEqualTo(2);
+            assertThat((Double) result.get("averageAmount")).isEqualTo(15.0);
+        }
+
+        @Test
+        @DisplayName("Should reject a window that starts after it ends")
+        void getTransactionsForStatistics_invertedWindow() {
+            assertThrows(IllegalArgumentException.class, () -> transactionService.getTransactionsForStatistics(
+                    "STORE-001", Instant.parse("2024-02-01T00:00:00Z"), Instant.parse("2024-01-01T00:00:00Z"), false));
+
+            verify(transactionRepository, never()).sumByStoreIdGroupByCurrency(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should break the totals down by payment method when asked")
+        void getTransactionsForStatistics_byPaymentMethod() {
+            stubTotals("STORE-001", new TransactionTotals(3, new BigDecimal("60.00"), "GBP"));
+            when(transactionRepository.sumByStoreIdGroupByPaymentMethodAndCurrency(eq("STORE-001"), any(Instant.class), any(Instant.class)))
+                    .thenReturn(List.of(
+                            new TransactionTotals("card", 2, new BigDecimal("50.00"), "GBP"),
+                            new TransactionTotals("cash", 1, new BigDecimal("10.00"), "GBP")));
+
+            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001", null, null, true);
+
+            assertThat(result.get("totalTransactions")).isEqualTo(3);
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Object>> paymentMethods = (Map<String, Map<String, Object>>) result.get("paymentMethods");
+            assertThat(paymentMethods).containsOnlyKeys("card", "cash");
+            assertThat(paymentMethods.get("card"))
+                    .containsEntry("totalTransactions", 2)
+                    .containsEntry("totalAmount", 50.0)
+                    .containsEntry("averageAmount", 25.0);
+            assertThat(paymentMethods.get("cash"))
+                    .containsEntry("totalTransactions", 1)
+                    .containsEntry("totalAmount", 10.0)
+                    .containsEntry("averageAmount", 10.0);
+        }
+
+        @Test
+        @DisplayName("Should read statistics without a window from the daily rollup when it is enabled")
+        void getTransactionsForStatistics_fromRollup() {
+            when(dailyStats.isEnabled()).thenReturn(true);
+            when(dailyStats.getTotals("STORE-001"))
+                    .thenReturn(List.of(new TransactionTotals(4, new BigDecimal("100.00"), "GBP")));
+            when(dailyStats.getTotalsByPaymentMethod("STORE-001"))
+                    .thenReturn(List.of(new TransactionTotals("card", 4, new BigDecimal("100.00"), "GBP")));
+
+            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001", null, null, true);
+
+            assertThat(result.get("totalTransactions")).isEqualTo(4);
+            assertThat((Double) result.get("averageAmount")).isEqualTo(25.0);
+            assertThat(result.get("paymentMethods")).isEqualTo(Map.of("card",
+                    Map.of("totalTransactions", 4, "totalAmount", 100.0, "averageAmount", 25.0, "currency", "GBP")));
+            verify(transactionRepository, never()).sumByStoreIdGroupByCurrency(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should report each currency separately rather than adding them together")
+        void getTransactionsForStatistics_mixedCurrencies() {
+            stubTotals("STORE-001",
+                    new TransactionTotals(1, new BigDecimal("7.00"), "EUR"),
+                    new TransactionTotals(2, new BigDecimal("30.00"), "GBP"));
+            when(transactionRepository.sumByStoreIdGroupByPaymentMethodAndCurrency(eq("STORE-001"), any(Instant.class), any(Instant.class)))
+                    .thenReturn(List.of(
+                            new TransactionTotals("card", 1, new BigDecimal("7.00"), "EUR"),
+                            new TransactionTotals("card", 1, new BigDecimal("10.00"), "GBP"),
+                            new TransactionTotals("cash", 1, new BigDecimal("20.00"), "GBP")));
+
+            Map<String, Object> result = transactionService.getTransactionsForStatistics("STORE-001", null, null, true);
+
+            assertThat(result.get("totalTransactions")).isEqualTo(3);
+            assertThat(result).doesNotContainKeys("totalAmount", "averageAmount", "currency");
+            assertThat(result.get("currencies")).isEqualTo(Map.of(
+                    "EUR", Map.of("totalTransactions", 1, "totalAmount", 7.0, "averageAmount", 7.0, "currency", "EUR"),
+                    "GBP", Map.of("totalTransactions", 2, "totalAmount", 30.0, "averageAmount", 15.0, "currency", "GBP")));
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Object>> paymentMethods = (Map<String, Map<String, Object>>) result.get("paymentMethods");
+            assertThat(paymentMethods.get("card"))
+                    .containsEntry("totalTransactions", 2)
+                    .containsKey("currencies")
+                    .doesNotContainKey("totalAmount");
+            assertThat(paymentMethods.get("cash"))
+                    .containsEntry("totalAmount", 20.0)
+                    .containsEntry("currency", "GBP");
+        }
+
+        @Test
+        @DisplayName("Should answer a date window from transactions even when the rollup is enabled")
+        void getTransactionsForStatistics_windowBypassesRollup() {
+            Instant start = Instant.parse("2024-01-01T12:00:00Z");
+            lenient().when(dailyStats.isEnabled()).thenReturn(true);
+            stubTotals("STORE-001", new TransactionTotals(1, new BigDecimal("5.00"), "GBP"));
+
+            transactionService.getTransactionsForStatistics("STORE-001", start, null, false);
+
+            verify(transactionRepository).sumByStoreIdGroupByCurrency(eq("STORE-001"), eq(start), any(Instant.class));
+            verify(dailyStats, never()).getTotals(any());
+        }
+
+        private void stubTotals(String storeId, TransactionTotals... totals) {
+            when(transactionRepository.sumByStoreIdGroupByCurrency(eq(storeId), any(Instant.class), any(Instant.class)))
+                    .thenReturn(List.of(totals));
+        }
     }
 
     private TransactionEntity createTransactionEntity(String transactionId, String storeId, BigDecimal amount) {
@@ -346,29 +712,6 @@ class TransactionServiceTest {
         return entity;
     }
 
-    private TransactionEntity createTransactionEntityWithNullAmount(String transactionId, String storeId) {
-        TransactionEntity entity = new TransactionEntity(
-                transactionId,
-                "CUST-001",
-                storeId,
-                "TILL-001",
-                "card",
-                null,
-                Instant.now()
-        );
-        entity.setCurrency("GBP");
-        entity.setTransactionTimestamp(Instant.now());
-        return entity;
-    }
-
-    private List<TransactionResult> toResults(List<TransactionEntity> entities) {
-        List<TransactionResult> results = new ArrayList<>();
-        for (TransactionEntity entity : entities) {
-            results.add(createTransactionResult(entity));
-        }
-        return results;
-    }
-
     private TransactionResult createTransactionResult(TransactionEntity entity) {
         return new TransactionResult(
                 entity.getTransactionId(),
@@ -4,6 +4,7 @@ import com.vega.techtest.adapter.in.rest.dto.TransactionItemRequest;
 import com.vega.techtest.adapter.in.rest.dto.TransactionRequest;
 import com.vega.techtest.domain.transaction.exception.ReceiptTotalMismatchException;
 import com.vega.techtest.application.transaction.command.CreateTransactionCommand;
+import com.vega.techtest.domain.transaction.model.TransactionItem;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -16,6 +17,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 
@@ -550,6 +552,62 @@ class TransactionValidatorTest {
                     .hasMessage("Transaction ID must have a valid UUID after 'TXN-' prefix");
         }
 
+        @Test
+        @DisplayName("Should accept the non-canonical UUID forms that UUID.fromString accepts")
+        void validateTransactionCommand_nonCanonicalUuid() {
+            CreateTransactionCommand command = new CreateTransactionCommand(
+                    "TXN-1-2-3-4-5",
+                    "CUST-001",
+                    "STORE-001",
+                    "TILL-001",
+                    "card",
+                    new BigDecimal("10.00"),
+                    "GBP",
+                    Instant.now(),
+                    null
+            );
+
+            assertDoesNotThrow(() -> validator.validateTransactionCommand(command));
+        }
+
+        @Test
+        @DisplayName("Should throw exception when UUID has more than five fields")
+        void validateTransactionCommand_extraUuidField() {
+            CreateTransactionCommand command = new CreateTransactionCommand(
+                    "TXN-1-2-3-4-5-6",
+                    "CUST-001",
+                    "STORE-001",
+                    "TILL-001",
+                    "card",
+                    new BigDecimal("10.00"),
+                    "GBP",
+                    Instant.now(),
+                    null
+            );
+
+            assertThatThrownBy(() -> validator.validateTransactionCommand(command))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Transaction ID must have a valid UUID after 'TXN-' prefix");
+        }
+
+        @Test
+        @DisplayName("Should accept transaction ID surrounded by whitespace")
+        void validateTransactionCommand_paddedTransactionId() {
+            CreateTransactionCommand command = new CreateTransactionCommand(
+                    "  TXN-" + UUID.randomUUID() + " ",
+                    "CUST-001",
+                    "STORE-001",
+                    "TILL-001",
+                    "card",
+                    new BigDecimal("10.00"),
+                    "GBP",
+                    Instant.now(),
+                    null
+            );
+
+            assertDoesNotThrow(() -> validator.validateTransactionCommand(command));
+        }
+
         @Test
         @DisplayName("Should accept transaction ID with lowercase UUID")
         void validateTransactionCommand_lowercaseUuid() {
@@ -588,4 +646,103 @@ class TransactionValidatorTest {
                     .hasMessage("Payment method must be 'cash' or 'card'");
         }
     }
+
+    @Nested
+    @DisplayName("validateTransactionCommand - Receipt Total Tests")
+    class ReceiptTotalTests {
+
+        @Test
+        @DisplayName("Should pass validation when items sum to the total")
+        void validateTransactionCommand_matchingTotal() {
+            CreateTransactionCommand command = commandWithItems(new BigDecimal("12.47"), List.of(
+                    item(new BigDecimal("2.49"), 3),
+                    item(new BigDecimal("5.00"), 1)
+            ));
+
+            assertDoesNotThrow(() -> validator.validateTransactionCommand(command));
+        }
+
+        @Test
+        @DisplayName("Should compare totals by value regardless of scale")
+        void validateTransactionCommand_differentScales() {
+            CreateTransactionCommand command = commandWithItems(new BigDecimal("7"), List.of(
+                    item(new BigDecimal("2.5"), 2),
+                    item(new BigDecimal("2.0000"), 1)
+            ));
+
+            assertDoesNotThrow(() -> validator.validateTransactionCommand(command));
+        }
+
+        @Test
+        @DisplayName("Should report calculated total when items do not sum to the total")
+        void validateTransactionCommand_mismatchedTotal() {
+            CreateTransactionCommand command = commandWithItems(new BigDecimal("10.00"), List.of(
+                    item(new BigDecimal("2.49"), 3)
+            ));
+
+            assertThatThrownBy(() -> validator.validateTransactionCommand(command))
+                    .isInstanceOfSatisfying(ReceiptTotalMismatchException.class, e -> {
+                        assertThat(e.getCalculatedTotal()).isEqualByComparingTo("7.47");
+                        assertThat(e.getProvidedTotal()).isEqualByComparingTo("10.00");
+                    });
+        }
+
+        @Test
+        @DisplayName("Should validate sub-penny prices exactly")
+        void validateTransactionCommand_subPennyPrices() {
+            CreateTransactionCommand matching = commandWithItems(new BigDecimal("1.00"), List.of(
+                    item(new BigDecimal("0.125"), 8)
+            ));
+            CreateTransactionCommand mismatched = commandWithItems(new BigDecimal("0.37"), List.of(
+                    item(new BigDecimal("0.125"), 3)
+            ));
+
+            assertDoesNotThrow(() -> validator.validateTransactionCommand(matching));
+            assertThatThrownBy(() -> validator.validateTransactionCommand(mismatched))
+                    .isInstanceOfSatisfying(ReceiptTotalMismatchException.class, e ->
+                            assertThat(e.getCalculatedTotal()).isEqualByComparingTo("0.375"));
+        }
+
+        @Test
+        @DisplayName("Should validate totals too large for minor units exactly")
+        void validateTransactionCommand_overflowingTotal() {
+            BigDecimal price = new BigDecimal("92233720368547758.07");
+            CreateTransactionCommand command = commandWithItems(price.multiply(BigDecimal.valueOf(2)), List.of(
+                    item(price, 2)
+            ));
+
+            assertDoesNotThrow(() -> validator.validateTransactionCommand(command));
+        }
+
+        @Test
+        @DisplayName("Should report the first invalid item before checking the total")
+        void validateTransactionCommand_invalidItemBeforeTotal() {
+            CreateTransactionCommand command = commandWithItems(new BigDecimal("99.00"), List.of(
+                    item(new BigDecimal("1.00"), 1),
+                    item(new BigDecimal("-1.00"), 1)
+            ));
+
+            assertThatThrownBy(() -> validator.validateTransactionCommand(command))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Item at index 1: Unit price cannot be negative");
+        }
+
+        private CreateTransactionCommand commandWithItems(BigDecimal totalAmount, List<TransactionItem> items) {
+            return new CreateTransactionCommand(
+                    null,
+                    "CUST-001",
+                    "STORE-001",
+                    "TILL-001",
+                    "card",
+                    totalAmount,
+                    "GBP",
+                    Instant.now(),
+                    items
+            );
+        }
+
+        private TransactionItem item(BigDecimal unitPrice, int quantity) {
+            return new TransactionItem("Product", "CODE", unitPrice, quantity, "Grocery");
+        }
+    }
 }
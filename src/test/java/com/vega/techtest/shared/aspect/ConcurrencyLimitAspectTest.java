@@ -0,0 +1,79 @@
+package com.vega.techtest.shared.aspect;
+
+import com.vega.techtest.domain.transaction.exception.CapacityExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BlockingService target;
+    private BlockingService service;
+
+    @ConcurrencyLimited
+    static class BlockingService {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        public String block() throws InterruptedException {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "done";
+        }
+
+        public String quick() {
+            return "quick";
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = new BlockingService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ConcurrencyLimitAspect(meterRegistry, 1, 50));
+        service = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Should reject a call when no permit frees up within the timeout")
+    void limitConcurrency_rejectsWhenSaturated() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> holder = executor.submit(service::block);
+            assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(service::quick).isInstanceOf(CapacityExceededException.class);
+            assertThat(meterRegistry.get("transaction_concurrency_rejected_total").counter().count())
+                    .isEqualTo(1.0);
+
+            target.release.countDown();
+            assertThat(holder.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should release the permit once the call completes")
+    void limitConcurrency_releasesPermit() {
+        assertThat(service.quick()).isEqualTo("quick");
+        assertThat(service.quick()).isEqualTo("quick");
+        assertThat(meterRegistry.get("transaction_concurrency_available_permits").gauge().value())
+                .isEqualTo(1.0);
+    }
+}
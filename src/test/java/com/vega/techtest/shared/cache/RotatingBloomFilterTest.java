@@ -0,0 +1,78 @@
+package com.vega.techtest.shared.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RotatingBloomFilterTest {
+
+    private final AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2024-01-01T10:00:00Z"));
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now.get();
+        }
+    };
+
+    @Test
+    @DisplayName("Should never report a false negative for inserted keys")
+    void mightContain_noFalseNegatives() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, Duration.ofMinutes(10), clock);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("STORE-1|TILL-1|" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("STORE-1|TILL-1|" + i)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the false positive rate near the configured target")
+    void mightContain_falsePositiveRate() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, Duration.ofMinutes(10), clock);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("present-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    @DisplayName("Should remember keys for one more window after rotation and forget them after two")
+    void rotation_expiresOldGeneration() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1_000, 0.01, Duration.ofMinutes(10), clock);
+        filter.put("key");
+
+        now.set(now.get().plus(Duration.ofMinutes(11)));
+        assertThat(filter.mightContain("key")).isTrue();
+
+        now.set(now.get().plus(Duration.ofMinutes(10)));
+        assertThat(filter.mightContain("key")).isFalse();
+    }
+}
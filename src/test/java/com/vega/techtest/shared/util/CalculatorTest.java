@@ -4,6 +4,9 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import com.vega.techtest.domain.transaction.model.Money;
+import org.junit.jupiter.api.Test;
+
 import java.math.BigDecimal;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -36,4 +39,36 @@ class CalculatorTest {
         assertThat(result).isEqualByComparingTo(expected);
     }
 
-}
\ No newline at end of file
+    @ParameterizedTest(name = "Total {0} / Count {1} in minor units should match BigDecimal")
+    @CsvSource({
+            "10.00, 2",
+            "10.00, 7",
+            "0.01, 2",   // 0.005 -> 0.00 (0 is even)
+            "0.03, 2",   // 0.015 -> 0.02 (1 is odd)
+            "-0.03, 2",
+            "-10.00, 3",
+            "123456.78, 9",
+            "0.00, 5",
+            "10.00, 0"
+    })
+    @DisplayName("Should average minor units exactly as the BigDecimal version does")
+    void calculateAverage_moneyMatchesBigDecimal(String total, int count) {
+        BigDecimal expected = Calculator.calculateAverageAmount(new BigDecimal(total), count);
+
+        Money result = Calculator.calculateAverageAmount(Money.of(new BigDecimal(total), "GBP"), count);
+
+        assertThat(result.toBigDecimal()).isEqualByComparingTo(expected);
+        assertThat(result.currency()).isEqualTo("GBP");
+    }
+
+    @Test
+    @DisplayName("Should fall back to BigDecimal when the intermediate value overflows a long")
+    void calculateAverage_moneyOverflowFallsBack() {
+        Money total = Money.ofMinorUnits(Long.MAX_VALUE - 1, "GBP");
+
+        Money result = Calculator.calculateAverageAmount(total, 2);
+
+        assertThat(result.toBigDecimal())
+                .isEqualByComparingTo(Calculator.calculateAverageAmount(total.toBigDecimal(), 2));
+    }
+}
@@ -0,0 +1,116 @@
+#!/usr/bin/env python3
+"""
+Till Load Test
+Simulates many tills submitting transactions concurrently and reports latency percentiles,
+so that the default platform-thread setup can be compared with the virtual-threads profile.
+
+Usage:
+    python load_test.py --tills 5000 --duration 120
+"""
+
+import argparse
+import asyncio
+import random
+import time
+import uuid
+from collections import Counter
+from datetime import datetime, timezone
+
+import aiohttp
+
+PRODUCTS = [
+    ("Milk", "MILK001", 2.50, "Dairy"),
+    ("Bread", "BREAD001", 1.20, "Bakery"),
+    ("Coffee", "COFFEE001", 3.99, "Beverages"),
+    ("Chicken Breast", "CHICKEN001", 8.99, "Meat"),
+    ("Rice", "RICE001", 2.99, "Grains"),
+    ("Bananas", "BANANA001", 1.50, "Fruit"),
+    ("Eggs", "EGGS001", 2.99, "Dairy"),
+    ("Pasta", "PASTA001", 1.79, "Grains"),
+]
+
+
+def generate_transaction(store_id: str, till_id: str) -> dict:
+    items = []
+    for name, code, price, category in random.sample(PRODUCTS, random.randint(1, 8)):
+        items.append({
+            "productName": name,
+            "productCode": code,
+            "unitPrice": price,
+            "quantity": random.randint(1, 3),
+            "category": category,
+        })
+    total = round(sum(item["unitPrice"] * item["quantity"] for item in items), 2)
+
+    return {
+        "transactionId": f"TXN-{str(uuid.uuid4()).upper()}",
+        "customerId": f"CUST-{random.randint(10000, 99999)}",
+        "storeId": store_id,
+        "tillId": till_id,
+        "paymentMethod": random.choice(["card", "cash", "contactless"]),
+        "totalAmount": total,
+        "currency": "GBP",
+        "timestamp": datetime.now(timezone.utc).isoformat(),
+        "items": items,
+    }
+
+
+async def run_till(session, url, till_number, deadline, think_time, latencies, statuses):
+    store_id = f"STORE-{till_number // 50 + 1:03d}"
+    till_id = f"TILL-{till_number % 50 + 1}"
+
+    # Spread the start so that the tills do not all fire in the same millisecond
+    await asyncio.sleep(random.uniform(0, think_time))
+    while time.monotonic() < deadline:
+        started = time.perf_counter()
+        try:
+            async with session.post(url, json=generate_transaction(store_id, till_id)) as response:
+                await response.read()
+                statuses[response.status] += 1
+        except (aiohttp.ClientError, asyncio.TimeoutError) as e:
+            statuses[type(e).__name__] += 1
+        latencies.append((time.perf_counter() - started) * 1000)
+        await asyncio.sleep(think_time)
+
+
+def percentile(sorted_values, fraction):
+    if not sorted_values:
+        return 0.0
+    index = min(len(sorted_values) - 1, int(round(fraction * (len(sorted_values) - 1))))
+    return sorted_values[index]
+
+
+async def main():
+    parser = argparse.ArgumentParser(description="Concurrent till load test")
+    parser.add_argument("--base-url", default="http://localhost:8080")
+    parser.add_argument("--tills", type=int, default=5000, help="number of concurrent simulated tills")
+    parser.add_argument("--duration", type=int, default=60, help="test duration in seconds")
+    parser.add_argument("--think-time", type=float, default=1.0, help="seconds each till waits between receipts")
+    parser.add_argument("--timeout", type=float, default=30.0, help="per-request timeout in seconds")
+    args = parser.parse_args()
+
+    url = f"{args.base_url}/api/transactions/submit"
+    latencies = []
+    statuses = Counter()
+
+    connector = aiohttp.TCPConnector(limit=args.tills)
+    timeout = aiohttp.ClientTimeout(total=args.timeout)
+    async with aiohttp.ClientSession(connector=connector, timeout=timeout) as session:
+        started = time.monotonic()
+        deadline = started + args.duration
+        await asyncio.gather(*(
+            run_till(session, url, n, deadline, args.think_time, latencies, statuses)
+            for n in range(args.tills)
+        ))
+        elapsed = time.monotonic() - started
+
+    latencies.sort()
+    print(f"Tills: {args.tills}, duration: {elapsed:.1f}s, requests: {len(latencies)}, "
+          f"throughput: {len(latencies) / elapsed:.1f} req/s")
+    print(f"Latency ms - p50: {percentile(latencies, 0.50):.1f}, p95: {percentile(latencies, 0.95):.1f}, "
+          f"p99: {percentile(latencies, 0.99):.1f}, max: {latencies[-1] if latencies else 0:.1f}")
+    print("Responses: " + ", ".join(f"{status}={count}" for status, count in sorted(statuses.items(), key=str)))
+
+
+if __name__ == "__main__":
+    asyncio.run(main())